@@ -0,0 +1,18 @@
+package cardgame.bench;
+
+/**
+ * A single benchmarked operation. The time and the memory allocated are
+ * reported per call of {@link #run(Blackhole)}, so each call should perform
+ * exactly one of the operations being measured.
+ * 
+ * @see BenchmarkRunner
+ */
+public interface Benchmark
+{
+    /**
+     * Performs the operation once.
+     * 
+     * @param sink the {@code Blackhole} to consume any results with
+     */
+    void run(Blackhole sink);
+}
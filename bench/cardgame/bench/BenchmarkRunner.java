@@ -0,0 +1,230 @@
+package cardgame.bench;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import cardgame.card.CardBenchmarks;
+import cardgame.games.acestokings.AcesToKingsBenchmarks;
+import cardgame.games.acestokings.melds.MeldBenchmarks;
+
+/**
+ * A small harness for microbenchmarks of the card core and the meld engine.
+ * <p>
+ * Each {@code Benchmark} is first called in growing batches until a batch
+ * takes a measurable time, then run for a number of warmup iterations so
+ * that it is compiled, and finally for a number of measured iterations of a
+ * fixed length. The average time per operation is reported with its
+ * standard deviation across iterations, along with the bytes allocated per
+ * operation by the benchmarking thread, which is the same figure as the
+ * {@code gc.alloc.rate.norm} of a JMH run with {@code -prof gc}.
+ * <p>
+ * The harness runs every {@code Benchmark} in the same JVM, so results are
+ * best compared between runs of the same selection. Running with
+ * {@code -XX:+UseSerialGC} and a fixed heap gives steadier numbers.
+ * 
+ * @see Benchmark
+ * @see Blackhole
+ */
+public class BenchmarkRunner
+{
+    private static final int    DEFAULT_WARMUP_ITERATIONS  = 5;
+    private static final int    DEFAULT_MEASURE_ITERATIONS = 5;
+    private static final long   DEFAULT_ITERATION_MILLIS   = 500;
+    private static final long   NANOS_PER_MILLI            = 1000000L;
+    private static final int    CALIBRATION_DIVISOR        = 100;
+    private static final String HEADER_FORMAT              = "%-52s %5s %12s"
+                                                             + " %10s %12s";
+    private static final String ROW_FORMAT                 = "%-52s %5d"
+                                                             + " %12.2f %10.2f"
+                                                             + " %12s";
+    
+    private final List<String>    names_;
+    private final List<Benchmark> benchmarks_;
+    private final int             nWarmupIterations_;
+    private final int             nMeasureIterations_;
+    private final long            iterationNanos_;
+    private final Blackhole       sink_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param nWarmupIterations  the number of iterations to run before
+     *                           measuring
+     * @param nMeasureIterations the number of iterations to measure
+     * @param iterationMillis    the length of each iteration, in milliseconds
+     */
+    public BenchmarkRunner(int nWarmupIterations, int nMeasureIterations,
+                           long iterationMillis)
+    {
+        this.names_              = new ArrayList<String>();
+        this.benchmarks_         = new ArrayList<Benchmark>();
+        this.nWarmupIterations_  = nWarmupIterations;
+        this.nMeasureIterations_ = nMeasureIterations;
+        this.iterationNanos_     = iterationMillis
+                                   * BenchmarkRunner.NANOS_PER_MILLI;
+        this.sink_               = new Blackhole();
+    }
+    
+    /**
+     * Adds a {@code Benchmark} to be run under the specified name.
+     * 
+     * @param name       the name to report the {@code Benchmark} under
+     * @param aBenchmark the {@code Benchmark}
+     */
+    public void add(String name, Benchmark aBenchmark)
+    {
+        this.names_.add(name);
+        this.benchmarks_.add(aBenchmark);
+    }
+    
+    /**
+     * Runs every {@code Benchmark} whose name matches the specified pattern,
+     * in the order they were added, and prints a line of results for each.
+     * 
+     * @param filter the pattern to find in the names of the
+     *               {@code Benchmark}s to run
+     * @param out    the stream to print the results to
+     */
+    public void run(Pattern filter, PrintStream out)
+    {
+        out.println(String.format(BenchmarkRunner.HEADER_FORMAT, "Benchmark",
+                                  "Cnt", "Score", "Error", "Alloc"));
+        out.println(String.format(BenchmarkRunner.HEADER_FORMAT, "", "",
+                                  "ns/op", "ns/op", "B/op"));
+        for (int i = 0; i < this.benchmarks_.size(); i++) {
+            String name = this.names_.get(i);
+            if (filter.matcher(name).find())
+                out.println(measure(name, this.benchmarks_.get(i)));
+        }
+    }
+    
+    // Warms up and measures a single {@code Benchmark}, returning its line
+    // of results
+    private String measure(String name, Benchmark aBenchmark)
+    {
+        int batchSize = calibrate(aBenchmark);
+        for (int i = 0; i < this.nWarmupIterations_; i++)
+            runIteration(aBenchmark, batchSize);
+        
+        double[] nanosPerOp = new double[this.nMeasureIterations_];
+        double   bytesPerOp = 0.0;
+        for (int i = 0; i < this.nMeasureIterations_; i++) {
+            double[] result = runIteration(aBenchmark, batchSize);
+            nanosPerOp[i]   = result[0];
+            bytesPerOp     += result[1] / this.nMeasureIterations_;
+        }
+        
+        double mean     = 0.0;
+        for (double value : nanosPerOp)
+            mean += value / nanosPerOp.length;
+        double variance = 0.0;
+        for (double value : nanosPerOp)
+            variance += (value - mean) * (value - mean) / nanosPerOp.length;
+        
+        String alloc = BenchmarkRunner.canCountAllocations()
+                       ? String.format("%.1f", bytesPerOp) : "n/a";
+        return String.format(BenchmarkRunner.ROW_FORMAT, name,
+                             nanosPerOp.length, mean, Math.sqrt(variance),
+                             alloc);
+    }
+    
+    // Finds a number of operations to run between reading the clock, large
+    // enough that reading it costs little in comparison
+    private int calibrate(Benchmark aBenchmark)
+    {
+        long target    = this.iterationNanos_
+                         / BenchmarkRunner.CALIBRATION_DIVISOR;
+        int  batchSize = 1;
+        long elapsed;
+        do {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < batchSize; i++)
+                aBenchmark.run(this.sink_);
+            elapsed    = System.nanoTime() - startTime;
+            batchSize *= 2;
+        } while (elapsed < target && batchSize < Integer.MAX_VALUE / 2);
+        return batchSize;
+    }
+    
+    // Runs batches of operations for the length of an iteration, returning
+    // the nanoseconds and the bytes allocated per operation
+    private double[] runIteration(Benchmark aBenchmark, int batchSize)
+    {
+        long startBytes = BenchmarkRunner.allocatedBytes();
+        long startTime  = System.nanoTime();
+        long nOps       = 0;
+        long elapsed;
+        do {
+            for (int i = 0; i < batchSize; i++)
+                aBenchmark.run(this.sink_);
+            nOps    += batchSize;
+            elapsed  = System.nanoTime() - startTime;
+        } while (elapsed < this.iterationNanos_);
+        long bytes = BenchmarkRunner.allocatedBytes() - startBytes;
+        this.sink_.publish();
+        return new double[] { (double) elapsed / nOps, (double) bytes / nOps };
+    }
+    
+    // Checks if the JVM counts the bytes allocated by each thread
+    private static boolean canCountAllocations()
+    {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads instanceof com.sun.management.ThreadMXBean
+               && ((com.sun.management.ThreadMXBean) threads)
+                      .isThreadAllocatedMemorySupported();
+    }
+    
+    // Returns the bytes allocated so far by the current thread, or zero if
+    // they are not counted
+    private static long allocatedBytes()
+    {
+        long bytes = 0L;
+        if (BenchmarkRunner.canCountAllocations()) {
+            com.sun.management.ThreadMXBean threads
+                = (com.sun.management.ThreadMXBean) ManagementFactory
+                                                        .getThreadMXBean();
+            bytes = threads.getThreadAllocatedBytes(
+                        Thread.currentThread().getId());
+        }
+        return bytes;
+    }
+    
+    // Runs the benchmarks. Takes a pattern to pick benchmarks by name, and
+    // the options -wi for warmup iterations, -i for measured iterations and
+    // -t for the milliseconds per iteration, as in JMH.
+    public static void main(String[] args)
+    {
+        int    nWarmup  = BenchmarkRunner.DEFAULT_WARMUP_ITERATIONS;
+        int    nMeasure = BenchmarkRunner.DEFAULT_MEASURE_ITERATIONS;
+        long   millis   = BenchmarkRunner.DEFAULT_ITERATION_MILLIS;
+        String filter   = "";
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-wi") && i + 1 < args.length) {
+                i++;
+                nWarmup = Integer.parseInt(args[i]);
+            }
+            else if (args[i].equals("-i") && i + 1 < args.length) {
+                i++;
+                nMeasure = Integer.parseInt(args[i]);
+            }
+            else if (args[i].equals("-t") && i + 1 < args.length) {
+                i++;
+                millis = Long.parseLong(args[i]);
+            }
+            else {
+                filter = args[i];
+            }
+        }
+        
+        BenchmarkRunner runner = new BenchmarkRunner(nWarmup, nMeasure,
+                                                     millis);
+        CardBenchmarks.register(runner);
+        AcesToKingsBenchmarks.register(runner);
+        MeldBenchmarks.register(runner);
+        runner.run(Pattern.compile(filter), System.out);
+    }
+}
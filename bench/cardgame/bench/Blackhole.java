@@ -0,0 +1,69 @@
+package cardgame.bench;
+
+/**
+ * A sink for the results of benchmarked operations, so that the JIT compiler
+ * can not remove an operation whose result would otherwise go unused.
+ * <p>
+ * Everything consumed is folded into a single value which is published once
+ * per measured batch, keeping the cost of consuming to a few instructions.
+ * 
+ * @see BenchmarkRunner
+ */
+public final class Blackhole
+{
+    private          long hash_;
+    private volatile long published_;
+    
+    // Constructor
+    Blackhole()
+    {
+        this.hash_      = 0L;
+        this.published_ = 0L;
+    }
+    
+    /**
+     * Consumes an object.
+     * 
+     * @param anObject the object to consume
+     */
+    public void consume(Object anObject)
+    {
+        this.hash_ = 31 * this.hash_ + System.identityHashCode(anObject);
+    }
+    
+    /**
+     * Consumes an {@code int}.
+     * 
+     * @param value the value to consume
+     */
+    public void consume(int value)
+    {
+        this.hash_ = 31 * this.hash_ + value;
+    }
+    
+    /**
+     * Consumes a {@code long}.
+     * 
+     * @param value the value to consume
+     */
+    public void consume(long value)
+    {
+        this.hash_ = 31 * this.hash_ + value;
+    }
+    
+    /**
+     * Consumes a {@code boolean}.
+     * 
+     * @param value the value to consume
+     */
+    public void consume(boolean value)
+    {
+        this.hash_ = 31 * this.hash_ + (value ? 1 : 0);
+    }
+    
+    // Publishes everything consumed so far to a volatile field
+    void publish()
+    {
+        this.published_ = this.hash_;
+    }
+}
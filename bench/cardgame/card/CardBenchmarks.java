@@ -0,0 +1,196 @@
+package cardgame.card;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import cardgame.bench.BenchmarkRunner;
+import cardgame.card.traditional.CardOrder;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.card.traditional.Rank;
+import cardgame.card.traditional.SortedPlayingCardHand;
+import cardgame.card.traditional.Suit;
+
+/**
+ * Benchmarks of the card core: drawing from, shuffling and dealing from a
+ * {@code Deck}, draining one collection into another, and sorting a
+ * {@code Hand} or keeping it sorted.
+ * 
+ * @see BenchmarkRunner
+ */
+public final class CardBenchmarks
+{
+    private static final long SEED        = 42L;
+    private static final int  DEAL_AMOUNT = 7;
+    private static final int  HAND_SIZE   = 14;
+    private static final int  N_ORDERS    = 64;
+    private static final int  N_HANDS     = 4;
+    
+    // Preventing class instantiation
+    private CardBenchmarks() {}
+    
+    /**
+     * Adds the card core benchmarks to the specified runner.
+     * 
+     * @param runner the {@code BenchmarkRunner} to add to
+     */
+    public static void register(BenchmarkRunner runner)
+    {
+        RandomSource            rng  = RandomSource.seeded(CardBenchmarks.SEED);
+        final Deck<PlayingCard> deck = new Deck<PlayingCard>(
+                                           CardBenchmarks.createCards(),
+                                           CardBenchmarks.DEAL_AMOUNT, rng);
+        final Hand<PlayingCard> hand = new Hand<PlayingCard>("Bench");
+        
+        // A draw refills the deck once it is empty, one in every 56 draws
+        runner.add("card.Deck.draw", sink -> {
+            if (deck.size() == 0)
+                deck.reset();
+            sink.consume(deck.draw());
+        });
+        
+        // As above, with a listener told of every draw, as the deck of a game
+        // has
+        final Deck<PlayingCard> watched = new Deck<PlayingCard>(
+                                              CardBenchmarks.createCards(),
+                                              CardBenchmarks.DEAL_AMOUNT, rng);
+        watched.addListener(new CardListener<PlayingCard>() {});
+        runner.add("card.Deck.draw (one listener)", sink -> {
+            if (watched.size() == 0)
+                watched.reset();
+            sink.consume(watched.draw());
+        });
+        runner.add("card.Deck.shuffle (56 cards)", sink -> {
+            deck.shuffle();
+            sink.consume(deck.size());
+        });
+        runner.add("card.Deck.dealTo (7 cards)", sink -> {
+            if (deck.size() < CardBenchmarks.DEAL_AMOUNT)
+                deck.reset();
+            hand.reset();
+            deck.dealTo(hand);
+            sink.consume(hand.size());
+        });
+        
+        // Four hands dealt at once, as at the start of a round
+        final List<Hand<PlayingCard>> hands = new ArrayList<
+                                                  Hand<PlayingCard>>();
+        for (int i = 0; i < CardBenchmarks.N_HANDS; i++)
+            hands.add(new Hand<PlayingCard>("Bench " + i));
+        runner.add("card.Deck.dealTo (4 hands of 7 cards)", sink -> {
+            if (deck.size() < CardBenchmarks.N_HANDS
+                              * CardBenchmarks.DEAL_AMOUNT)
+                deck.reset();
+            for (Hand<PlayingCard> aHand : hands)
+                aHand.reset();
+            deck.dealTo(hands, CardBenchmarks.DEAL_AMOUNT);
+            sink.consume(hands.get(0).size());
+        });
+        
+        // A full discard pile is drained back into an empty deck, as when a
+        // game runs out of cards, and then refilled from it
+        final Stack<PlayingCard> pile     = new Stack<PlayingCard>("Bench");
+        final Deck<PlayingCard>  refilled = new Deck<PlayingCard>(
+                                                CardBenchmarks.createCards(),
+                                                CardBenchmarks.DEAL_AMOUNT,
+                                                rng);
+        runner.add("card.Stack.drainTo (56 cards)", sink -> {
+            refilled.drainTo(pile);
+            sink.consume(pile.drainTo(refilled));
+        });
+        
+        final HandFiller filler = new HandFiller(rng);
+        runner.add("card.Hand.refill (14 cards, baseline)", sink -> {
+            filler.refill(hand);
+            sink.consume(hand.size());
+        });
+        CardBenchmarks.addSort(runner, "card.Hand.sort SUIT_FIRST (14 cards)",
+                               PlayingCard.Comparators.SUIT_FIRST, hand,
+                               filler);
+        CardBenchmarks.addSort(runner, "card.Hand.sort RANK_FIRST (14 cards)",
+                               PlayingCard.Comparators.RANK_FIRST, hand,
+                               filler);
+        
+        // Inserting each card in its place stands in for refilling and then
+        // sorting, and a card is removed and added back as when playing it
+        final SortedPlayingCardHand sorted = new SortedPlayingCardHand(
+                                                 "Bench", CardOrder.SUIT_FIRST);
+        runner.add("card.SortedPlayingCardHand.refill (14 cards)", sink -> {
+            filler.refill(sorted);
+            sink.consume(sorted.size());
+        });
+        runner.add("card.SortedPlayingCardHand.remove+add (14 cards)",
+                   sink -> {
+            if (sorted.size() == 0)
+                filler.refill(sorted);
+            PlayingCard aCard = sorted.get(sorted.size() / 2);
+            sorted.remove(aCard);
+            sorted.add(aCard);
+            sink.consume(sorted.indexOf(aCard));
+        });
+    }
+    
+    // Adds a benchmark that refills a {@code Hand} in a new order and sorts
+    // it with the specified {@code Comparator}
+    private static void addSort(BenchmarkRunner runner, String name,
+                                final Comparator<PlayingCard> aComparator,
+                                final Hand<PlayingCard> hand,
+                                final HandFiller filler)
+    {
+        runner.add(name, sink -> {
+            filler.refill(hand);
+            hand.sort(aComparator);
+            sink.consume(hand.size());
+        });
+    }
+    
+    // Returns the 52 standard {@code PlayingCard}s and four jokers
+    private static List<PlayingCard> createCards()
+    {
+        List<PlayingCard> cards = new ArrayList<PlayingCard>();
+        for (Rank aRank : Rank.values()) {
+            for (Suit aSuit : Suit.values()) {
+                if (aSuit != Suit.JOKER)
+                    cards.add(PlayingCard.of(aRank, aSuit));
+            }
+        }
+        return cards;
+    }
+    
+    // Fills a {@code Hand} with a hand's worth of {@code PlayingCard}s in
+    // one of a cycle of shuffled orders, so that sorting never starts from
+    // a sorted {@code Hand}
+    private static class HandFiller
+    {
+        private final PlayingCard[][] orders_;
+        private       int             next_;
+        
+        // Constructor
+        HandFiller(RandomSource rng)
+        {
+            List<PlayingCard> cards = CardBenchmarks.createCards();
+            this.orders_ = new PlayingCard[CardBenchmarks.N_ORDERS][];
+            this.next_   = 0;
+            for (int i = 0; i < this.orders_.length; i++) {
+                PlayingCard[] order = new PlayingCard[
+                                          CardBenchmarks.HAND_SIZE];
+                for (int j = 0; j < order.length; j++) {
+                    int k    = j + rng.nextInt(cards.size() - j);
+                    order[j] = cards.get(k);
+                    cards.set(k, cards.get(j));
+                    cards.set(j, order[j]);
+                }
+                this.orders_[i] = order;
+            }
+        }
+        
+        // Empties the {@code Hand} and fills it in the next order
+        void refill(Hand<PlayingCard> hand)
+        {
+            hand.reset();
+            for (PlayingCard aCard : this.orders_[this.next_])
+                hand.add(aCard);
+            this.next_ = (this.next_ + 1) % this.orders_.length;
+        }
+    }
+}
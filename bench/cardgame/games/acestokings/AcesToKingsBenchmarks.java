@@ -0,0 +1,56 @@
+package cardgame.games.acestokings;
+
+import cardgame.bench.BenchmarkRunner;
+import cardgame.card.RandomSource;
+
+/**
+ * Benchmarks of the Aces to Kings deck, which is refilled and has the
+ * {@code Rank} of the round taken out at the start of every round.
+ * 
+ * @see BenchmarkRunner
+ */
+public final class AcesToKingsBenchmarks
+{
+    private static final long SEED        = 42L;
+    private static final int  DEAL_AMOUNT = 7;
+    private static final int  SHOE_DECKS  = 2;
+    
+    // Preventing class instantiation
+    private AcesToKingsBenchmarks() {}
+    
+    /**
+     * Adds the Aces to Kings deck benchmarks to the specified runner.
+     * 
+     * @param runner the {@code BenchmarkRunner} to add to
+     */
+    public static void register(BenchmarkRunner runner)
+    {
+        RandomSource          rng  = RandomSource.seeded(
+                                         AcesToKingsBenchmarks.SEED);
+        final AcesToKingsDeck deck = new AcesToKingsDeck(
+                                         AcesToKingsBenchmarks.DEAL_AMOUNT,
+                                         rng);
+        
+        runner.add("acestokings.AcesToKingsDeck.incrementJoker", sink -> {
+            deck.incrementJoker();
+            sink.consume(deck.getRoundRank());
+        });
+        runner.add("acestokings.AcesToKingsDeck.incrementJoker+shuffle",
+                   sink -> {
+            deck.incrementJoker();
+            deck.shuffle();
+            sink.consume(deck.size());
+        });
+        
+        // A shoe of two decks, as a table of more than six players is dealt
+        final AcesToKingsDeck shoe = new AcesToKingsDeck(
+                                         AcesToKingsBenchmarks.DEAL_AMOUNT,
+                                         AcesToKingsBenchmarks.SHOE_DECKS,
+                                         rng);
+        runner.add("acestokings.AcesToKingsDeck.incrementJoker (2 decks)",
+                   sink -> {
+            shoe.incrementJoker();
+            sink.consume(shoe.size());
+        });
+    }
+}
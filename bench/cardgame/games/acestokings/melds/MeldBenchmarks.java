@@ -0,0 +1,245 @@
+package cardgame.games.acestokings.melds;
+
+import cardgame.bench.BenchmarkRunner;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.card.traditional.PlayingCardHand;
+import cardgame.card.traditional.Rank;
+import cardgame.card.traditional.Suit;
+
+/**
+ * Benchmarks of the meld engine: finding the plays for single
+ * {@code PlayingCard}s and for melds against a board part way through a
+ * round, and finding the plays of runs made mostly of jokers. A board
+ * dealt from a shoe of two decks is also searched with copies of the cards
+ * already in its run, which are checked not to be offered the positions
+ * their copies hold.
+ * <p>
+ * Each benchmark cycles through a fixed set of selections, so the time
+ * reported is the average over the set.
+ * 
+ * @see BenchmarkRunner
+ */
+public final class MeldBenchmarks
+{
+    // Preventing class instantiation
+    private MeldBenchmarks() {}
+    
+    /**
+     * Adds the meld engine benchmarks to the specified runner.
+     * 
+     * @param runner the {@code BenchmarkRunner} to add to
+     */
+    public static void register(BenchmarkRunner runner)
+    {
+        MeldsManager melds = MeldBenchmarks.createBoard();
+        MeldsManager shoe  = MeldBenchmarks.createShoeBoard();
+        RunMeld      run   = new RunMeld(Suit.CLUBS);
+        for (Rank aRank : new Rank[] { Rank.FOUR, Rank.FIVE, Rank.SIX })
+            run.add(PlayingCard.of(aRank, Suit.CLUBS));
+        
+        PlayingCard[][] singles = {
+            { card(Rank.SEVEN, Suit.SPADES)   },
+            { card(Rank.EIGHT, Suit.HEARTS)   },
+            { card(Rank.THREE, Suit.HEARTS)   },
+            { card(Rank.QUEEN, Suit.SPADES)   },
+            { card(Rank.TWO,   Suit.CLUBS)    },
+            { card(Rank.EIGHT, Suit.SPADES)   },
+            { card(Rank.KING,  Suit.HEARTS)   },
+            { card(Rank.ACE,   Suit.DIAMONDS) }
+        };
+        PlayingCard[][] jokers = {
+            { joker(Suit.HEARTS) }, { joker(Suit.SPADES) }
+        };
+        PlayingCard[][] groups = {
+            { card(Rank.QUEEN, Suit.CLUBS), card(Rank.QUEEN, Suit.DIAMONDS),
+              card(Rank.QUEEN, Suit.HEARTS) },
+            { card(Rank.TWO,   Suit.DIAMONDS), card(Rank.THREE, Suit.DIAMONDS),
+              card(Rank.FOUR,  Suit.DIAMONDS) },
+            { card(Rank.QUEEN, Suit.DIAMONDS), card(Rank.KING, Suit.DIAMONDS),
+              card(Rank.ACE,   Suit.DIAMONDS) },
+            { card(Rank.FIVE,  Suit.DIAMONDS), joker(Suit.HEARTS),
+              card(Rank.SEVEN, Suit.DIAMONDS),
+              card(Rank.EIGHT, Suit.DIAMONDS) },
+            { card(Rank.TWO,   Suit.HEARTS), card(Rank.TWO, Suit.SPADES),
+              joker(Suit.SPADES) },
+            { card(Rank.NINE,  Suit.CLUBS), card(Rank.TEN, Suit.DIAMONDS),
+              card(Rank.JACK,  Suit.CLUBS) }
+        };
+        PlayingCard[][] jokerRuns = {
+            { joker(Suit.HEARTS), joker(Suit.SPADES), joker(Suit.DIAMONDS) },
+            { joker(Suit.HEARTS), card(Rank.SEVEN, Suit.CLUBS),
+              joker(Suit.SPADES) },
+            { joker(Suit.HEARTS), joker(Suit.SPADES),
+              card(Rank.NINE, Suit.CLUBS), joker(Suit.DIAMONDS) },
+            { card(Rank.ACE, Suit.CLUBS), joker(Suit.HEARTS),
+              joker(Suit.SPADES) },
+            { card(Rank.QUEEN, Suit.CLUBS), joker(Suit.HEARTS),
+              joker(Suit.SPADES) }
+        };
+        PlayingCard[][] copies = {
+            { card(Rank.FIVE,  Suit.CLUBS) },
+            { card(Rank.FOUR,  Suit.CLUBS) },
+            { card(Rank.THREE, Suit.CLUBS) },
+            { card(Rank.SIX,   Suit.CLUBS) },
+            { card(Rank.SEVEN, Suit.CLUBS) }
+        };
+        
+        MeldBenchmarks.checkNoPlays(shoe, card(Rank.FIVE, Suit.CLUBS));
+        MeldBenchmarks.checkNoPlays(shoe, card(Rank.FOUR, Suit.CLUBS),
+                                    card(Rank.FIVE, Suit.CLUBS),
+                                    card(Rank.SIX, Suit.CLUBS));
+        MeldBenchmarks.checkJokerCopies();
+        MeldBenchmarks.addSearch(runner, "melds.MeldsManager.findPlayOptions"
+                                 + " single card", melds, singles);
+        MeldBenchmarks.addSearch(runner, "melds.MeldsManager.findPlayOptions"
+                                 + " copies of held cards (2 decks)", shoe,
+                                 copies);
+        MeldBenchmarks.addSearch(runner, "melds.MeldsManager.findPlayOptions"
+                                 + " single joker", melds, jokers);
+        MeldBenchmarks.addSearch(runner, "melds.MeldsManager.findPlayOptions"
+                                 + " meld (3-4 cards)", melds, groups);
+        MeldBenchmarks.addRunSearch(runner, "melds.RunMeld.addMeldPlays"
+                                    + " joker-heavy runs", run, jokerRuns);
+    }
+    
+    // Adds a benchmark that cycles through finding the plays of the
+    // specified selections on a board
+    private static void addSearch(BenchmarkRunner runner, String name,
+                                  final MeldsManager melds,
+                                  final PlayingCard[][] selections)
+    {
+        final PlayOptionBuffer options = new PlayOptionBuffer();
+        final int[]            next    = { 0 };
+        runner.add(name, sink -> {
+            options.clear();
+            melds.findPlayOptions(options, selections[next[0]]);
+            next[0] = (next[0] + 1) % selections.length;
+            sink.consume(options.size());
+        });
+    }
+    
+    // Adds a benchmark that cycles through finding the plays of the
+    // specified runs in a single {@code RunMeld}
+    private static void addRunSearch(BenchmarkRunner runner, String name,
+                                     final RunMeld run,
+                                     final PlayingCard[][] runs)
+    {
+        final PlayOptionBuffer options = new PlayOptionBuffer();
+        final int[]            next    = { 0 };
+        runner.add(name, sink -> {
+            options.clear();
+            run.addMeldPlays(options, runs[next[0]]);
+            next[0] = (next[0] + 1) % runs.length;
+            sink.consume(options.size());
+        });
+    }
+    
+    // Returns a board part way through a round, holding a set of sevens, a
+    // set of kings with a joker, a run of hearts ending in a joker and a
+    // short run of spades
+    private static MeldsManager createBoard()
+    {
+        MeldsManager    melds = new MeldsManager();
+        PlayingCardHand hand  = new PlayingCardHand("Bench");
+        MeldBenchmarks.play(melds, hand, card(Rank.SEVEN, Suit.CLUBS),
+                            card(Rank.SEVEN, Suit.DIAMONDS),
+                            card(Rank.SEVEN, Suit.HEARTS));
+        MeldBenchmarks.play(melds, hand, card(Rank.KING, Suit.CLUBS),
+                            card(Rank.KING, Suit.DIAMONDS), joker(Suit.CLUBS));
+        MeldBenchmarks.play(melds, hand, card(Rank.FOUR, Suit.HEARTS),
+                            card(Rank.FIVE, Suit.HEARTS),
+                            card(Rank.SIX, Suit.HEARTS), joker(Suit.DIAMONDS));
+        MeldBenchmarks.play(melds, hand, card(Rank.NINE, Suit.SPADES),
+                            card(Rank.TEN, Suit.SPADES),
+                            card(Rank.JACK, Suit.SPADES));
+        return melds;
+    }
+    
+    // Returns a board dealt from a shoe of two decks, holding a short run of
+    // clubs
+    private static MeldsManager createShoeBoard()
+    {
+        MeldsManager    melds = new MeldsManager(2);
+        PlayingCardHand hand  = new PlayingCardHand("Bench");
+        MeldBenchmarks.play(melds, hand, card(Rank.FOUR, Suit.CLUBS),
+                            card(Rank.FIVE, Suit.CLUBS),
+                            card(Rank.SIX, Suit.CLUBS));
+        return melds;
+    }
+    
+    // Checks that the specified {@code PlayingCard}s can not be played
+    // anywhere on the board, as each position they could take is held by
+    // another copy of them
+    private static void checkNoPlays(MeldsManager melds, PlayingCard... cards)
+    {
+        PlayOptionBuffer options = new PlayOptionBuffer();
+        melds.findPlayOptions(options, cards);
+        if (options.size() != 0)
+            throw new IllegalStateException("A copy of a card in a run was"
+                                            + " offered the position its copy"
+                                            + " holds");
+    }
+    
+    // Checks that two copies of a joker, held in one run on a board dealt
+    // from a shoe of two decks, are each picked up by the card that takes
+    // its position
+    private static void checkJokerCopies()
+    {
+        MeldsManager    melds = new MeldsManager(2);
+        PlayingCardHand hand  = new PlayingCardHand("Bench");
+        MeldBenchmarks.playToRun(melds, hand, joker(Suit.CLUBS),
+                                 card(Rank.FIVE, Suit.HEARTS),
+                                 joker(Suit.CLUBS));
+        int nAfterSix  = MeldBenchmarks.playToRun(melds, hand,
+                                                  card(Rank.SIX, Suit.HEARTS));
+        int nAfterFour = MeldBenchmarks.playToRun(melds, hand,
+                                                  card(Rank.FOUR,
+                                                       Suit.HEARTS));
+        if (nAfterSix != 1 || nAfterFour != 1 || hand.size() != 2)
+            throw new IllegalStateException("A copy of a joker in a run was"
+                                            + " not picked up");
+    }
+    
+    // Plays the specified {@code PlayingCard}s to the first run that takes
+    // them, returning the number of jokers picked up
+    private static int playToRun(MeldsManager melds, PlayingCardHand hand,
+                                 PlayingCard... cards)
+    {
+        PlayOptionBuffer options = new PlayOptionBuffer();
+        for (PlayingCard aCard : cards)
+            hand.add(aCard);
+        melds.findPlayOptions(options, cards);
+        for (int i = 0; i < options.size(); i++)
+            if (options.get(i).getMeldRank() == null)
+                return options.get(i).play(hand);
+        throw new IllegalStateException("The run could not be played to");
+    }
+    
+    // Plays the specified {@code PlayingCard}s to the first meld that takes
+    // them
+    private static void play(MeldsManager melds, PlayingCardHand hand,
+                             PlayingCard... cards)
+    {
+        PlayOptionBuffer options = new PlayOptionBuffer();
+        for (PlayingCard aCard : cards)
+            hand.add(aCard);
+        melds.findPlayOptions(options, cards);
+        if (options.size() == 0)
+            throw new IllegalStateException("The benchmark board could not be"
+                                            + " set up");
+        options.get(0).play(hand);
+    }
+    
+    // Returns the {@code PlayingCard} of the specified {@code Rank} and
+    // {@code Suit}
+    private static PlayingCard card(Rank aRank, Suit aSuit)
+    {
+        return PlayingCard.of(aRank, aSuit);
+    }
+    
+    // Returns the joker of the specified {@code Suit}
+    private static PlayingCard joker(Suit aSuit)
+    {
+        return PlayingCard.of(Rank.JOKER, aSuit);
+    }
+}
@@ -0,0 +1,295 @@
+package cardgame.card;
+
+import java.util.Arrays;
+
+/**
+ * A {@code CardListener} that holds back the events of each batch and
+ * passes them on to another {@code CardListener} all at once, when the
+ * batch ends. Events outside of a batch are passed on straight away.
+ * <p>
+ * A listener wrapped in a {@code BufferedCardListener} therefore only ever
+ * sees a collection between operations, never part way through a deal, so
+ * it may inspect or change the collection as it likes. The events are kept
+ * in arrays that grow as needed and are reused from one batch to the next,
+ * so once the arrays are large enough nothing is allocated.
+ * 
+ * @param <T> the type of {@code Card}s listened for
+ * @see   CardListener
+ */
+public class BufferedCardListener<T extends Card>
+    implements CardListener<T>
+{
+    private static final int  INITIAL_CAPACITY = 16;
+    private static final byte DRAWN            = 0;
+    private static final byte ADDED            = 1;
+    private static final byte ADDED_ALL        = 2;
+    private static final byte REMOVED          = 3;
+    private static final byte SHUFFLED         = 4;
+    private static final byte RESET            = 5;
+    private static final byte DEALT            = 6;
+    private static final byte DRAINED          = 7;
+    
+    private final CardListener<T> delegate_;
+    private byte[]                kinds_;
+    private Object[]              sources_;
+    private Object[]              objects_;
+    private int[]                 counts_;
+    private int[]                 sizes_;
+    private int                   nEvents_;
+    private int                   batchDepth_;
+    private boolean               flushing_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param delegate the {@code CardListener} to pass the events on to
+     */
+    public BufferedCardListener(CardListener<T> delegate)
+    {
+        int capacity     = BufferedCardListener.INITIAL_CAPACITY;
+        this.delegate_   = delegate;
+        this.kinds_      = new byte[capacity];
+        this.sources_    = new Object[capacity];
+        this.objects_    = new Object[capacity];
+        this.counts_     = new int[capacity];
+        this.sizes_      = new int[capacity];
+        this.nEvents_    = 0;
+        this.batchDepth_ = 0;
+        this.flushing_   = false;
+    }
+    
+    /* (non-Javadoc)
+     * @see cardgame.card.CardListener#cardDrawn(
+     *      cardgame.card.CardCollection, cardgame.card.Card, int)
+     */
+    @Override
+    public void cardDrawn(CardCollection<? extends T> source, T aCard,
+                          int size)
+    {
+        if (isHolding())
+            hold(BufferedCardListener.DRAWN, source, aCard, 1, size);
+        else
+            this.delegate_.cardDrawn(source, aCard, size);
+    }
+    
+    /* (non-Javadoc)
+     * @see cardgame.card.CardListener#cardAdded(
+     *      cardgame.card.CardCollection, cardgame.card.Card, int)
+     */
+    @Override
+    public void cardAdded(CardCollection<? extends T> source, T aCard,
+                          int size)
+    {
+        if (isHolding())
+            hold(BufferedCardListener.ADDED, source, aCard, 1, size);
+        else
+            this.delegate_.cardAdded(source, aCard, size);
+    }
+    
+    /* (non-Javadoc)
+     * @see cardgame.card.CardListener#cardsAdded(
+     *      cardgame.card.CardCollection, int, int)
+     */
+    @Override
+    public void cardsAdded(CardCollection<? extends T> source, int nCards,
+                           int size)
+    {
+        if (isHolding())
+            hold(BufferedCardListener.ADDED_ALL, source, null, nCards, size);
+        else
+            this.delegate_.cardsAdded(source, nCards, size);
+    }
+    
+    /* (non-Javadoc)
+     * @see cardgame.card.CardListener#cardRemoved(
+     *      cardgame.card.CardCollection, cardgame.card.Card, int)
+     */
+    @Override
+    public void cardRemoved(CardCollection<? extends T> source, T aCard,
+                            int size)
+    {
+        if (isHolding())
+            hold(BufferedCardListener.REMOVED, source, aCard, 1, size);
+        else
+            this.delegate_.cardRemoved(source, aCard, size);
+    }
+    
+    /* (non-Javadoc)
+     * @see cardgame.card.CardListener#shuffled(
+     *      cardgame.card.CardCollection, int)
+     */
+    @Override
+    public void shuffled(CardCollection<? extends T> source, int size)
+    {
+        if (isHolding())
+            hold(BufferedCardListener.SHUFFLED, source, null, 0, size);
+        else
+            this.delegate_.shuffled(source, size);
+    }
+    
+    /* (non-Javadoc)
+     * @see cardgame.card.CardListener#collectionReset(
+     *      cardgame.card.CardCollection, int)
+     */
+    @Override
+    public void collectionReset(CardCollection<? extends T> source, int size)
+    {
+        if (isHolding())
+            hold(BufferedCardListener.RESET, source, null, 0, size);
+        else
+            this.delegate_.collectionReset(source, size);
+    }
+    
+    /* (non-Javadoc)
+     * @see cardgame.card.CardListener#cardsDealt(
+     *      cardgame.card.CardCollection, cardgame.card.CardCollection, int,
+     *      int)
+     */
+    @Override
+    public void cardsDealt(CardCollection<? extends T> source,
+                           CardCollection<?> destination, int nCards,
+                           int size)
+    {
+        if (isHolding())
+            hold(BufferedCardListener.DEALT, source, destination, nCards,
+                 size);
+        else
+            this.delegate_.cardsDealt(source, destination, nCards, size);
+    }
+    
+    /* (non-Javadoc)
+     * @see cardgame.card.CardListener#cardsDrained(
+     *      cardgame.card.CardCollection, cardgame.card.CardCollection, int)
+     */
+    @Override
+    public void cardsDrained(CardCollection<? extends T> source,
+                             CardCollection<?> destination, int nCards)
+    {
+        if (isHolding())
+            hold(BufferedCardListener.DRAINED, source, destination, nCards,
+                 0);
+        else
+            this.delegate_.cardsDrained(source, destination, nCards);
+    }
+    
+    /**
+     * Starts holding back events, unless already inside a batch.
+     * 
+     * @see CardListener#batchStarted(CardCollection)
+     */
+    @Override
+    public void batchStarted(CardCollection<? extends T> source)
+    {
+        this.batchDepth_++;
+    }
+    
+    /**
+     * Passes on the events held back, if this ends the outermost batch,
+     * bracketed by the start and end of a batch on the specified collection.
+     * Any events the other {@code CardListener} causes while they are passed
+     * on are passed on after them.
+     * 
+     * @see CardListener#batchEnded(CardCollection)
+     */
+    @Override
+    public void batchEnded(CardCollection<? extends T> source)
+    {
+        this.batchDepth_--;
+        if (this.batchDepth_ == 0 && !this.flushing_) {
+            this.flushing_ = true;
+            try {
+                this.delegate_.batchStarted(source);
+                flush();
+                this.delegate_.batchEnded(source);
+            }
+            finally {
+                this.flushing_ = false;
+            }
+        }
+    }
+    
+    // Checks if events are being held back, as they are inside a batch and
+    // while passing on those held back, so that they are passed on in order
+    private boolean isHolding()
+    {
+        return this.batchDepth_ > 0 || this.flushing_;
+    }
+    
+    // Holds back an event, growing the arrays if they are full
+    private void hold(byte kind, Object source, Object anObject, int count,
+                      int size)
+    {
+        if (this.nEvents_ == this.kinds_.length) {
+            int capacity  = 2 * this.kinds_.length;
+            this.kinds_   = Arrays.copyOf(this.kinds_, capacity);
+            this.sources_ = Arrays.copyOf(this.sources_, capacity);
+            this.objects_ = Arrays.copyOf(this.objects_, capacity);
+            this.counts_  = Arrays.copyOf(this.counts_, capacity);
+            this.sizes_   = Arrays.copyOf(this.sizes_, capacity);
+        }
+        this.kinds_[this.nEvents_]   = kind;
+        this.sources_[this.nEvents_] = source;
+        this.objects_[this.nEvents_] = anObject;
+        this.counts_[this.nEvents_]  = count;
+        this.sizes_[this.nEvents_]   = size;
+        this.nEvents_++;
+    }
+    
+    // Passes on every event held back, in the order they happened, including
+    // any held back meanwhile, and lets go of the objects they refer to. If
+    // the other {@code CardListener} throws, the events not yet passed on are
+    // dropped with the rest, so none is passed on twice.
+    private void flush()
+    {
+        try {
+            for (int i = 0; i < this.nEvents_; i++)
+                pass(i);
+        }
+        finally {
+            Arrays.fill(this.sources_, 0, this.nEvents_, null);
+            Arrays.fill(this.objects_, 0, this.nEvents_, null);
+            this.nEvents_ = 0;
+        }
+    }
+    
+    // Passes on the event held back at the specified index. The objects were
+    // held back from events of the same types, so the casts are safe.
+    @SuppressWarnings("unchecked")
+    private void pass(int index)
+    {
+        CardListener<T>             delegate = this.delegate_;
+        CardCollection<? extends T> source   = (CardCollection<? extends T>)
+                                               this.sources_[index];
+        Object                      object   = this.objects_[index];
+        int                         count    = this.counts_[index];
+        int                         size     = this.sizes_[index];
+        switch (this.kinds_[index]) {
+            case BufferedCardListener.DRAWN:
+                delegate.cardDrawn(source, (T) object, size);
+                break;
+            case BufferedCardListener.ADDED:
+                delegate.cardAdded(source, (T) object, size);
+                break;
+            case BufferedCardListener.ADDED_ALL:
+                delegate.cardsAdded(source, count, size);
+                break;
+            case BufferedCardListener.REMOVED:
+                delegate.cardRemoved(source, (T) object, size);
+                break;
+            case BufferedCardListener.SHUFFLED:
+                delegate.shuffled(source, size);
+                break;
+            case BufferedCardListener.RESET:
+                delegate.collectionReset(source, size);
+                break;
+            case BufferedCardListener.DEALT:
+                delegate.cardsDealt(source, (CardCollection<?>) object,
+                                    count, size);
+                break;
+            default:
+                delegate.cardsDrained(source, (CardCollection<?>) object,
+                                      count);
+                break;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package cardgame.card;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import cardgame.player.Selectable;
@@ -28,6 +32,7 @@ public interface CardCollection <T extends Card>
      * @param  cards                  the {@code Card}s to send
      * @throws NoSuchElementException if a specified {@code Card} does not
      *                                exist in this {@code CardCollection}
+     * @see    #transferAll(CardCollection, Collection)
      */
     // Warning arises from the use the generic array {@param cards}. However, if
     // an object not of type T is present in the array, it could not be in this
@@ -38,11 +43,38 @@ public interface CardCollection <T extends Card>
     default void transferTo(CardCollection<? super T> destination, T... cards)
         throws NoSuchElementException
     {
-        for (T aCard : cards) {
-            if(!this.remove(aCard))
-                throw new NoSuchElementException(aCard + " does not exist in "
-                                                 + this.getMessage());
-            destination.add(aCard);
+        transferAll(destination, Arrays.asList(cards));
+    }
+    
+    /**
+     * Transfers the specified {@code Card}s from this {@code CardCollection}
+     * to another. The {@code Card}s are removed one by one, then added to the
+     * destination together, so that it can take them in a single operation.
+     * If a {@code Card} is missing, the {@code Card}s removed before it are
+     * still delivered.
+     * 
+     * @param  destination            the {@code CardCollection} to deliver to
+     * @param  cards                  the {@code Card}s to send
+     * @throws NoSuchElementException if a specified {@code Card} does not
+     *                                exist in this {@code CardCollection}
+     * @see    #addAll(Collection)
+     */
+    default void transferAll(CardCollection<? super T> destination,
+                             Collection<? extends T> cards)
+        throws NoSuchElementException
+    {
+        List<T> removed = new ArrayList<T>(cards.size());
+        try {
+            for (T aCard : cards) {
+                if (!this.remove(aCard))
+                    throw new NoSuchElementException(aCard + " does not exist"
+                                                     + " in "
+                                                     + this.getMessage());
+                removed.add(aCard);
+            }
+        }
+        finally {
+            destination.addAll(removed);
         }
     }
     
@@ -53,6 +85,20 @@ public interface CardCollection <T extends Card>
      */
     void add(T aCard);
     
+    /**
+     * Adds the specified {@code Card}s to this {@code CardCollection}, in the
+     * order they are iterated. By default each is added in turn, but a
+     * collection that can take them all at once should do so.
+     * 
+     * @param cards the {@code Card}s to be added
+     * @see   #add(Card)
+     */
+    default void addAll(Collection<? extends T> cards)
+    {
+        for (T aCard : cards)
+            this.add(aCard);
+    }
+    
     /**
      * Attempts to remove a specified {@code Card} from this
      * {@code CardCollection}.
@@ -0,0 +1,264 @@
+package cardgame.card;
+
+import java.util.Arrays;
+
+/**
+ * The {@code CardListener}s of a {@code CardCollection}, and the means of
+ * firing its events at them.
+ * <p>
+ * The listeners are held in an array that is replaced whenever one is added
+ * or removed, so firing an event is a loop over an array that allocates
+ * nothing, and costs a single check when there are no listeners. A listener
+ * may change the collection while it is being told of an event, and the
+ * events of that change are delivered straight away, before the listeners
+ * after it hear of the first event.
+ * <p>
+ * Batches may be nested, in which case the listeners are told when the
+ * outermost batch starts and ends.
+ * 
+ * @param <T> the type of {@code Card}s in the collection
+ * @see   CardListener
+ */
+public final class CardEvents<T extends Card>
+{
+    private static final CardListener<?>[] NO_LISTENERS = {};
+    
+    private final CardCollection<T>   source_;
+    private CardListener<? super T>[] listeners_;
+    private int                       batchDepth_;
+    
+    /**
+     * Sole constructor. There are no listeners to begin with.
+     * 
+     * @param source the collection the events happen to
+     */
+    public CardEvents(CardCollection<T> source)
+    {
+        this.source_     = source;
+        this.listeners_  = CardEvents.noListeners();
+        this.batchDepth_ = 0;
+    }
+    
+    /**
+     * Adds a listener to be told of every event from now on.
+     * 
+     * @param listener the {@code CardListener} to add
+     */
+    public void addListener(CardListener<? super T> listener)
+    {
+        int nListeners  = this.listeners_.length;
+        this.listeners_ = Arrays.copyOf(this.listeners_, nListeners + 1);
+        this.listeners_[nListeners] = listener;
+    }
+    
+    /**
+     * Removes a listener, if it was added.
+     * 
+     * @param  listener the {@code CardListener} to remove
+     * @return {@code true} if the listener was removed
+     */
+    public boolean removeListener(CardListener<? super T> listener)
+    {
+        int index = -1;
+        for (int i = 0; i < this.listeners_.length && index < 0; i++) {
+            if (this.listeners_[i] == listener)
+                index = i;
+        }
+        if (index >= 0) {
+            CardListener<? super T>[] listeners = Arrays.copyOf(
+                                                      this.listeners_,
+                                                      this.listeners_.length
+                                                      - 1);
+            System.arraycopy(this.listeners_, index + 1, listeners, index,
+                             listeners.length - index);
+            this.listeners_ = listeners;
+        }
+        return index >= 0;
+    }
+    
+    /**
+     * Checks if there are any listeners.
+     * 
+     * @return {@code true} if any listener has been added and not removed
+     */
+    public boolean hasListeners()
+    {
+        return this.listeners_.length > 0;
+    }
+    
+    /**
+     * Tells the listeners a {@code Card} was drawn.
+     * 
+     * @param aCard the {@code Card} drawn
+     * @see   CardListener#cardDrawn(CardCollection, Card, int)
+     */
+    public void drawn(T aCard)
+    {
+        CardListener<? super T>[] listeners = this.listeners_;
+        if (listeners.length > 0) {
+            int size = this.source_.size();
+            for (int i = 0; i < listeners.length; i++)
+                listeners[i].cardDrawn(this.source_, aCard, size);
+        }
+    }
+    
+    /**
+     * Tells the listeners a {@code Card} was added.
+     * 
+     * @param aCard the {@code Card} added
+     * @see   CardListener#cardAdded(CardCollection, Card, int)
+     */
+    public void added(T aCard)
+    {
+        CardListener<? super T>[] listeners = this.listeners_;
+        if (listeners.length > 0) {
+            int size = this.source_.size();
+            for (int i = 0; i < listeners.length; i++)
+                listeners[i].cardAdded(this.source_, aCard, size);
+        }
+    }
+    
+    /**
+     * Tells the listeners several {@code Card}s were added at once.
+     * 
+     * @param nCards the number of {@code Card}s added
+     * @see   CardListener#cardsAdded(CardCollection, int, int)
+     */
+    public void addedAll(int nCards)
+    {
+        CardListener<? super T>[] listeners = this.listeners_;
+        if (listeners.length > 0) {
+            int size = this.source_.size();
+            for (int i = 0; i < listeners.length; i++)
+                listeners[i].cardsAdded(this.source_, nCards, size);
+        }
+    }
+    
+    /**
+     * Tells the listeners a {@code Card} was removed.
+     * 
+     * @param aCard the {@code Card} removed
+     * @see   CardListener#cardRemoved(CardCollection, Card, int)
+     */
+    public void removed(T aCard)
+    {
+        if (this.listeners_.length > 0)
+            removed(aCard, this.source_.size());
+    }
+    
+    // Tells the listeners a {@code Card} was removed, leaving the specified
+    // size, for a collection that makes several removals before telling of
+    // any of them
+    void removed(T aCard, int size)
+    {
+        CardListener<? super T>[] listeners = this.listeners_;
+        for (int i = 0; i < listeners.length; i++)
+            listeners[i].cardRemoved(this.source_, aCard, size);
+    }
+    
+    /**
+     * Tells the listeners the collection was shuffled.
+     * 
+     * @see CardListener#shuffled(CardCollection, int)
+     */
+    public void shuffled()
+    {
+        CardListener<? super T>[] listeners = this.listeners_;
+        if (listeners.length > 0) {
+            int size = this.source_.size();
+            for (int i = 0; i < listeners.length; i++)
+                listeners[i].shuffled(this.source_, size);
+        }
+    }
+    
+    /**
+     * Tells the listeners the collection was reset.
+     * 
+     * @see CardListener#collectionReset(CardCollection, int)
+     */
+    public void reset()
+    {
+        CardListener<? super T>[] listeners = this.listeners_;
+        if (listeners.length > 0) {
+            int size = this.source_.size();
+            for (int i = 0; i < listeners.length; i++)
+                listeners[i].collectionReset(this.source_, size);
+        }
+    }
+    
+    /**
+     * Tells the listeners {@code Card}s were dealt.
+     * 
+     * @param destination the collection dealt to
+     * @param nCards      the number of {@code Card}s dealt
+     * @see   CardListener#cardsDealt(CardCollection, CardCollection, int,
+     *        int)
+     */
+    public void dealt(CardCollection<?> destination, int nCards)
+    {
+        CardListener<? super T>[] listeners = this.listeners_;
+        if (listeners.length > 0) {
+            int size = this.source_.size();
+            for (int i = 0; i < listeners.length; i++)
+                listeners[i].cardsDealt(this.source_, destination, nCards,
+                                        size);
+        }
+    }
+    
+    /**
+     * Tells the listeners every {@code Card} was moved to another
+     * collection.
+     * 
+     * @param destination the collection the {@code Card}s were moved to
+     * @param nCards      the number of {@code Card}s moved
+     * @see   CardListener#cardsDrained(CardCollection, CardCollection, int)
+     */
+    public void drained(CardCollection<?> destination, int nCards)
+    {
+        CardListener<? super T>[] listeners = this.listeners_;
+        for (int i = 0; i < listeners.length; i++)
+            listeners[i].cardsDrained(this.source_, destination, nCards);
+    }
+    
+    /**
+     * Starts a batch of events, telling the listeners if it is not nested in
+     * another.
+     * 
+     * @see CardListener#batchStarted(CardCollection)
+     */
+    public void beginBatch()
+    {
+        this.batchDepth_++;
+        if (this.batchDepth_ == 1) {
+            CardListener<? super T>[] listeners = this.listeners_;
+            for (int i = 0; i < listeners.length; i++)
+                listeners[i].batchStarted(this.source_);
+        }
+    }
+    
+    /**
+     * Ends a batch of events, telling the listeners if it is not nested in
+     * another.
+     * 
+     * @throws IllegalStateException if no batch was started
+     * @see    CardListener#batchEnded(CardCollection)
+     */
+    public void endBatch()
+    {
+        if (this.batchDepth_ == 0)
+            throw new IllegalStateException("No batch of events was started");
+        this.batchDepth_--;
+        if (this.batchDepth_ == 0) {
+            CardListener<? super T>[] listeners = this.listeners_;
+            for (int i = 0; i < listeners.length; i++)
+                listeners[i].batchEnded(this.source_);
+        }
+    }
+    
+    // Returns the shared empty array of listeners, which is never written to
+    @SuppressWarnings("unchecked")
+    private static <T extends Card> CardListener<? super T>[] noListeners()
+    {
+        return (CardListener<? super T>[]) CardEvents.NO_LISTENERS;
+    }
+}
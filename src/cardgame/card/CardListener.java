@@ -0,0 +1,129 @@
+package cardgame.card;
+
+/**
+ * A listener for the events of a {@code CardCollection}: {@code Card}s being
+ * drawn, added and removed, the collection being shuffled or reset, and
+ * {@code Card}s being dealt from it.
+ * <p>
+ * Each event carries the collection it happened to and, where there is one,
+ * the {@code Card}, along with the size of the collection once the event
+ * has happened, so a listener need not query the collection to follow it.
+ * Bulk operations, which move many {@code Card}s at once, fire a single
+ * event for all of them rather than one for each.
+ * Every method does nothing by default, so a listener only overrides the
+ * events it is interested in. Events are delivered on the thread that
+ * changed the collection, as soon as the change is made, and nothing is
+ * allocated to deliver them.
+ * <p>
+ * Operations that fire several events, such as a deal, are bracketed by
+ * {@link #batchStarted(CardCollection)} and
+ * {@link #batchEnded(CardCollection)}. A listener that would rather see the
+ * whole of such an operation at once may be wrapped in a
+ * {@code BufferedCardListener}.
+ * 
+ * @param <T> the type of {@code Card}s listened for
+ * @see   CardEvents
+ * @see   BufferedCardListener
+ */
+public interface CardListener<T extends Card>
+{
+    /**
+     * Called when a {@code Card} is drawn from a collection.
+     * 
+     * @param source the collection drawn from
+     * @param aCard  the {@code Card} drawn
+     * @param size   the number of {@code Card}s left in the collection
+     */
+    default void cardDrawn(CardCollection<? extends T> source, T aCard,
+                           int size) {}
+    
+    /**
+     * Called when a {@code Card} is added to a collection.
+     * 
+     * @param source the collection added to
+     * @param aCard  the {@code Card} added
+     * @param size   the number of {@code Card}s now in the collection
+     */
+    default void cardAdded(CardCollection<? extends T> source, T aCard,
+                           int size) {}
+    
+    /**
+     * Called when several {@code Card}s are added to a collection at once,
+     * in place of {@link #cardAdded(CardCollection, Card, int)} for each.
+     * 
+     * @param source the collection added to
+     * @param nCards the number of {@code Card}s added
+     * @param size   the number of {@code Card}s now in the collection
+     */
+    default void cardsAdded(CardCollection<? extends T> source, int nCards,
+                            int size) {}
+    
+    /**
+     * Called when a specified {@code Card} is removed from a collection,
+     * other than by drawing it.
+     * 
+     * @param source the collection removed from
+     * @param aCard  the {@code Card} removed
+     * @param size   the number of {@code Card}s left in the collection
+     */
+    default void cardRemoved(CardCollection<? extends T> source, T aCard,
+                             int size) {}
+    
+    /**
+     * Called when a collection has been shuffled.
+     * 
+     * @param source the collection shuffled
+     * @param size   the number of {@code Card}s in the collection
+     */
+    default void shuffled(CardCollection<? extends T> source, int size) {}
+    
+    /**
+     * Called when a collection has been reset to its original state.
+     * 
+     * @param source the collection reset
+     * @param size   the number of {@code Card}s now in the collection
+     */
+    default void collectionReset(CardCollection<? extends T> source,
+                                 int size) {}
+    
+    /**
+     * Called when {@code Card}s have been dealt from a collection to
+     * another, in place of
+     * {@link #cardDrawn(CardCollection, Card, int)} for each.
+     * 
+     * @param source      the collection dealt from
+     * @param destination the collection dealt to
+     * @param nCards      the number of {@code Card}s dealt
+     * @param size        the number of {@code Card}s left in the collection
+     *                    dealt from
+     */
+    default void cardsDealt(CardCollection<? extends T> source,
+                            CardCollection<?> destination, int nCards,
+                            int size) {}
+    
+    /**
+     * Called when every {@code Card} in a collection has been moved to
+     * another at once, in place of
+     * {@link #cardDrawn(CardCollection, Card, int)} for each.
+     * 
+     * @param source      the collection drained
+     * @param destination the collection the {@code Card}s were moved to
+     * @param nCards      the number of {@code Card}s moved
+     */
+    default void cardsDrained(CardCollection<? extends T> source,
+                              CardCollection<?> destination, int nCards) {}
+    
+    /**
+     * Called before the events of an operation that fires several.
+     * 
+     * @param source the collection the operation is on
+     */
+    default void batchStarted(CardCollection<? extends T> source) {}
+    
+    /**
+     * Called after the events of an operation that fires several.
+     * 
+     * @param source the collection the operation is on
+     */
+    default void batchEnded(CardCollection<? extends T> source) {}
+}
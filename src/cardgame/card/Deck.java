@@ -1,42 +1,76 @@
 package cardgame.card;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Random;
+import java.util.function.Predicate;
 
 /**
  * A deck of cards.
+ * <p>
+ * The {@code Card}s in the {@code Deck} are held in an array, with the top of
+ * the {@code Deck} at index {@code top_} and the bottom just before index
+ * {@code bottom_}. Drawing from the top and adding to the bottom therefore
+ * never move any other {@code Card}, and shuffling is done in place.
  *
  * @param <T> the type of {@code Card}s that will define this {@code Deck}.
  */
 public class Deck<T extends Card>
     implements Drawable<T>
 {
-    private final List<T>            definingCards_;
-    private final ArrayDeque<T>      cardsInDeck_;
-    private final int                dealAmount_;
-    private final List<DrawListener> listeners_;
+    private final List<T>         definingCards_;
+    private final Map<T, Integer> definingCounts_;
+    private final int             dealAmount_;
+    private final CardEvents<T>   events_;
+    private final RandomSource    rng_;
+    private       T[]             cardsInDeck_;
+    private       int             top_;
+    private       int             bottom_;
     
     /**
-     * Sole constructor. Initialises a {@code Deck} full of the specified
-     * {@code Card}s. The {@code Deck} will deal the specified amount of
-     * {@code Card}s when the {@link #dealTo} method is called.
+     * Initialises a {@code Deck} full of the specified {@code Card}s. The
+     * {@code Deck} will deal the specified amount of {@code Card}s when the
+     * {@link #dealTo} method is called, and will be shuffled using an
+     * unseeded {@code RandomSource}.
      * 
      * @param cards      the defining {@code Card}s for this {@code Deck}
      * @param dealAmount the amount of {@code Card}s that this {@code Deck}
      *                   will draw when {@link #dealTo} is called.
+     * @see   #Deck(Collection, int, RandomSource)
      */
     public Deck(Collection<? extends T> cards, int dealAmount)
     {
-        this.definingCards_ = new ArrayList<T>(cards);
-        this.cardsInDeck_   = new ArrayDeque<T>(cards);
-        this.dealAmount_    = dealAmount;
-        this.listeners_     = new ArrayList<DrawListener>();
+        this(cards, dealAmount, RandomSource.unseeded());
+    }
+    
+    /**
+     * Main constructor. Initialises a {@code Deck} full of the specified
+     * {@code Card}s. The {@code Deck} will deal the specified amount of
+     * {@code Card}s when the {@link #dealTo} method is called, and will be
+     * shuffled using the specified {@code RandomSource}.
+     * 
+     * @param cards      the defining {@code Card}s for this {@code Deck}
+     * @param dealAmount the amount of {@code Card}s that this {@code Deck}
+     *                   will draw when {@link #dealTo} is called.
+     * @param rng        the source of randomness for {@link #shuffle}
+     */
+    public Deck(Collection<? extends T> cards, int dealAmount,
+                RandomSource rng)
+    {
+        this.definingCards_  = new ArrayList<T>(cards);
+        this.definingCounts_ = new HashMap<T, Integer>();
+        this.dealAmount_     = dealAmount;
+        this.events_         = new CardEvents<T>(this);
+        this.rng_            = rng;
+        this.cardsInDeck_    = Deck.newArray(cards.size());
+        for (T aCard : this.definingCards_)
+            this.definingCounts_.merge(aCard, 1, Integer::sum);
+        reset();
     }
     
     /* (non-Javadoc)
@@ -45,7 +79,7 @@ public class Deck<T extends Card>
     @Override
     public int size()
     {
-        return this.cardsInDeck_.size();
+        return this.bottom_ - this.top_;
     }
     
     /**
@@ -57,7 +91,32 @@ public class Deck<T extends Card>
     @Override
     public void add(T aCard)
     {
-        this.cardsInDeck_.add(aCard);
+        ensureSpaceAtBottom(1);
+        this.cardsInDeck_[this.bottom_] = aCard;
+        this.bottom_++;
+        this.events_.added(aCard);
+    }
+    
+    /**
+     * Adds the specified {@code Card}s to the bottom of this {@code Deck}, in
+     * the order they are iterated, making room for all of them at once. Does
+     * not add them to the list of defining {@code Card}s.
+     * 
+     * @see CardCollection#addAll(Collection)
+     */
+    @Override
+    public void addAll(Collection<? extends T> cards)
+    {
+        int nCards = cards.size();
+        if (nCards == 0)
+            return;
+        
+        ensureSpaceAtBottom(nCards);
+        for (T aCard : cards) {
+            this.cardsInDeck_[this.bottom_] = aCard;
+            this.bottom_++;
+        }
+        this.events_.addedAll(nCards);
     }
     
     /**
@@ -69,20 +128,96 @@ public class Deck<T extends Card>
     @Override
     public boolean remove(T aCard)
     {
-        boolean cardRemoved = this.cardsInDeck_.remove(aCard);
+        int     index       = indexOf(aCard);
+        boolean cardRemoved = index >= 0;
         if (cardRemoved)
-            notifyListeners();
+            removeAt(index);
         return cardRemoved;
     }
     
+    /**
+     * Removes every {@code Card} in this {@code Deck} that satisfies the
+     * specified predicate, in a single pass that keeps the order of the rest.
+     * Does not remove them from the list of defining {@code Card}s. The
+     * removals are told to the {@code CardListener}s as a single batch, once
+     * they have all been made.
+     * 
+     * @param  filter the predicate of the {@code Card}s to remove
+     * @return the number of {@code Card}s removed
+     */
+    public int removeIf(Predicate<? super T> filter)
+    {
+        int     nCardsBefore = size();
+        List<T> removed      = this.events_.hasListeners()
+                               ? new ArrayList<T>() : null;
+        int     kept         = this.top_;
+        for (int i = this.top_; i < this.bottom_; i++) {
+            T aCard = this.cardsInDeck_[i];
+            if (!filter.test(aCard)) {
+                this.cardsInDeck_[kept] = aCard;
+                kept++;
+            }
+            else if (removed != null) {
+                removed.add(aCard);
+            }
+        }
+        Arrays.fill(this.cardsInDeck_, kept, this.bottom_, null);
+        this.bottom_ = kept;
+        
+        if (removed != null) {
+            this.events_.beginBatch();
+            try {
+                for (int i = 0; i < removed.size(); i++)
+                    this.events_.removed(removed.get(i),
+                                         nCardsBefore - i - 1);
+            }
+            finally {
+                this.events_.endBatch();
+            }
+        }
+        return nCardsBefore - size();
+    }
+    
     /* (non-Javadoc)
      * @see CardCollection#reset()
      */
     @Override
     public void reset()
     {
-        this.cardsInDeck_.clear();
-        this.cardsInDeck_.addAll(this.definingCards_);
+        int nCards = this.definingCards_.size();
+        if (this.cardsInDeck_.length < nCards)
+            this.cardsInDeck_ = Deck.newArray(nCards);
+        
+        clear();
+        for (T aCard : this.definingCards_) {
+            this.cardsInDeck_[this.bottom_] = aCard;
+            this.bottom_++;
+        }
+        this.events_.reset();
+    }
+    
+    /**
+     * Resets this {@code Deck} to hold the specified {@code Card}s, from the
+     * top down, in place of its defining {@code Card}s. The {@code Card}s are
+     * copied into this {@code Deck} in one go, and the change is told to the
+     * {@code CardListener}s as a reset.
+     * <p>
+     * This is for subclasses that set up the {@code Deck} from a few fixed
+     * arrangements of {@code Card}s, which can be worked out once rather
+     * than each time.
+     * 
+     * @param cards the {@code Card}s to hold, which are not changed
+     * @see   #reset()
+     */
+    protected void resetTo(T[] cards)
+    {
+        if (this.cardsInDeck_.length < cards.length)
+            this.cardsInDeck_ = Deck.newArray(cards.length);
+        
+        clear();
+        System.arraycopy(cards, 0, this.cardsInDeck_, 0, cards.length);
+        this.bottom_ = cards.length;
+        this.events_.reset();
     }
     
     /* (non-Javadoc)
@@ -103,7 +238,25 @@ public class Deck<T extends Card>
     @Override
     public Iterator<T> iterator()
     {
-        return this.cardsInDeck_.iterator();
+        return new Iterator<T>() {
+            private int index_ = Deck.this.top_;
+            
+            @Override
+            public boolean hasNext()
+            {
+                return this.index_ < Deck.this.bottom_;
+            }
+            
+            @Override
+            public T next()
+            {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                T aCard = Deck.this.cardsInDeck_[this.index_];
+                this.index_++;
+                return aCard;
+            }
+        };
     }
     
     /* (non-Javadoc)
@@ -113,70 +266,125 @@ public class Deck<T extends Card>
     public T draw()
         throws NoSuchElementException
     {
-        T aCard;
-        try {
-            aCard = this.cardsInDeck_.pop();
-            notifyListeners();
-        }
-        catch (NoSuchElementException exception) {
+        if (size() == 0)
             throw new NoSuchElementException(this.getMessage() + " has no"
                                             + " cards left to draw!");
-        }
+        
+        T aCard = this.cardsInDeck_[this.top_];
+        this.cardsInDeck_[this.top_] = null;
+        this.top_++;
+        this.events_.drawn(aCard);
         return aCard;
     }
     
-    /* (non-Javadoc)
-     * @see Drawable#addListener(DrawListener)
+    /**
+     * Moves every {@code Card} left in this {@code Deck} to the specified
+     * {@code CardCollection} in a single {@code addAll}, from the top down.
+     * 
+     * @see Drawable#drainTo(CardCollection)
      */
     @Override
-    public void addListener(DrawListener listener)
+    public int drainTo(CardCollection<? super T> destination)
     {
-        this.listeners_.add(listener);
+        int nCards = size();
+        if (nCards > 0) {
+            destination.addAll(Arrays.asList(this.cardsInDeck_)
+                                     .subList(this.top_, this.bottom_));
+            clear();
+            this.events_.drained(destination, nCards);
+        }
+        return nCards;
     }
-
+    
     /* (non-Javadoc)
-     * @see Drawable#removeListener(DrawListener)
+     * @see Drawable#addListener(CardListener)
      */
     @Override
-    public void removeListener(DrawListener listener)
+    public void addListener(CardListener<? super T> listener)
     {
-        this.listeners_.remove(listener);
+        this.events_.addListener(listener);
     }
     
     /* (non-Javadoc)
-     * @see Drawable#notifyListeners()
+     * @see Drawable#removeListener(CardListener)
      */
     @Override
-    public void notifyListeners()
+    public void removeListener(CardListener<? super T> listener)
     {
-        for (DrawListener aListener : this.listeners_)
-            aListener.onNotification();
+        this.events_.removeListener(listener);
     }
     
     /**
-     * Shuffles the {@code Card}s in this {@code Deck}.
+     * Shuffles the {@code Card}s in this {@code Deck} in place, using the
+     * {@code RandomSource} given on construction. Every order of the
+     * {@code Card}s is equally likely.
+     * <p>
+     * This is a Fisher-Yates shuffle: working up from the bottom of the
+     * {@code Deck}, each {@code Card} is swapped with a randomly chosen
+     * {@code Card} at or above it.
      */
     public void shuffle()
     {
-        List<T> temp = new ArrayList<T>(this.cardsInDeck_);
-        Random  rng  = new Random();
-        Collections.shuffle(temp, rng);
-        this.cardsInDeck_.clear();
-        this.cardsInDeck_.addAll(temp);
+        T[] cards = this.cardsInDeck_;
+        int top   = this.top_;
+        for (int i = this.bottom_ - 1; i > top; i--) {
+            int j    = top + this.rng_.nextInt(i - top + 1);
+            T   temp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = temp;
+        }
+        this.events_.shuffled();
     }
     
     /**
      * Deals a number of {@code Card}s to the specified {@code CardCollection}
      * from this {@code Deck}. The number of {@code Card}s is specified on
-     * {@code Deck} creation.
+     * {@code Deck} creation. The deal is told to the {@code CardListener}s as
+     * a single event, rather than a draw for each {@code Card}.
      * 
-     * @param aCollection the {@code CardCollection} to deal to
-     * @see   #draw()
+     * @param  aCollection            the {@code CardCollection} to deal to
+     * @throws NoSuchElementException if this {@code Deck} runs out of
+     *                                {@code Card}s, and no listener refills it
+     * @see    #dealTo(List, int)
      */
     public void dealTo(CardCollection<? super T> aCollection)
+        throws NoSuchElementException
+    {
+        this.events_.beginBatch();
+        try {
+            deal(aCollection, this.dealAmount_);
+        }
+        finally {
+            this.events_.endBatch();
+        }
+    }
+    
+    /**
+     * Deals the specified number of {@code Card}s to each of the specified
+     * {@code CardCollection}s from this {@code Deck}. Each collection is
+     * dealt its {@code Card}s from the top of the {@code Deck} in one go,
+     * in the order of the list, rather than one {@code Card} to each in
+     * turn. The deals are told to the {@code CardListener}s as a single
+     * batch, with one event for each collection.
+     * 
+     * @param  collections            the {@code CardCollection}s to deal to
+     * @param  nCards                 the number of {@code Card}s to deal to
+     *                                each
+     * @throws NoSuchElementException if this {@code Deck} runs out of
+     *                                {@code Card}s, and no listener refills it
+     */
+    public void dealTo(List<? extends CardCollection<? super T>> collections,
+                       int nCards)
+        throws NoSuchElementException
     {
-        for (int i = 0; i < this.dealAmount_; i++)
-            aCollection.add(this.draw());
+        this.events_.beginBatch();
+        try {
+            for (CardCollection<? super T> aCollection : collections)
+                deal(aCollection, nCards);
+        }
+        finally {
+            this.events_.endBatch();
+        }
     }
     
     /**
@@ -189,6 +397,7 @@ public class Deck<T extends Card>
     public void addDefiningCard(T aCard)
     {
         this.definingCards_.add(aCard);
+        this.definingCounts_.merge(aCard, 1, Integer::sum);
     }
     
     /**
@@ -196,35 +405,132 @@ public class Deck<T extends Card>
      * of this {@code Deck}. Also removes the {@code Card} from the set of
      * {@code Card}s currently in this {@code Deck} if a copy of the 
      * {@code Card} has not yet been drawn.
+     * <p>
+     * The copies of each defining {@code Card} are counted as they are added,
+     * so only the {@code Card}s currently in this {@code Deck} are searched.
+     * That search, and the removal from the list of defining {@code Card}s,
+     * take time linear in the size of this {@code Deck}. This is on purpose:
+     * the copies in the {@code Deck} could be counted too, but only by
+     * updating a count on every draw, deal and reset, which are far more
+     * common than changes to the defining {@code Card}s.
      * 
      * @param  aCard the {@code Card} to remove
      * @return {@code true} if the {@code Card} was removed
      */
     public boolean removeDefiningCard(T aCard)
     {
-        int     definingCardCounter = cardCounter(this.definingCards_, aCard);
-        int     cardsInDeckCounter  = cardCounter(this.cardsInDeck_,   aCard);
-        boolean cardRemoved;
-        if (definingCardCounter > cardsInDeckCounter) {
-            cardRemoved = this.definingCards_.remove(aCard);
+        Integer nDefining = this.definingCounts_.get(aCard);
+        if (nDefining == null)
+            return false;
+        
+        int nInDeck = 0;
+        int first   = -1;
+        for (int i = this.top_; i < this.bottom_; i++) {
+            if (this.cardsInDeck_[i].equals(aCard)) {
+                if (first < 0)
+                    first = i;
+                nInDeck++;
+            }
         }
-        else {
-            cardRemoved = this.definingCards_.remove(aCard)
-                       && this.cardsInDeck_.remove(aCard);
-            notifyListeners();
+        if (nDefining == 1)
+            this.definingCounts_.remove(aCard);
+        else
+            this.definingCounts_.put(aCard, nDefining - 1);
+        this.definingCards_.remove(aCard);
+        if (nDefining <= nInDeck)
+            removeAt(first);
+        return true;
+    }
+    
+    // Moves the specified number of {@code Card}s from the top of this
+    // {@code Deck} to the specified collection, telling the listeners once
+    // for each run of {@code Card}s. A run ends early if this {@code Deck}
+    // empties, so that a listener may refill it before the deal goes on.
+    private void deal(CardCollection<? super T> aCollection, int nCards)
+        throws NoSuchElementException
+    {
+        int nLeft = nCards;
+        while (nLeft > 0) {
+            if (size() == 0)
+                throw new NoSuchElementException(this.getMessage() + " has no"
+                                                + " cards left to draw!");
+            
+            int nRun = Math.min(nLeft, size());
+            for (int i = 0; i < nRun; i++) {
+                aCollection.add(this.cardsInDeck_[this.top_]);
+                this.cardsInDeck_[this.top_] = null;
+                this.top_++;
+            }
+            nLeft -= nRun;
+            this.events_.dealt(aCollection, nRun);
         }
-        return cardRemoved;
     }
     
-    // Counts the number of times the specified {@code Card} appears in the
-    // specified {@code Collection}.
-    private int cardCounter(Collection<T> aCollection, T aCard)
+    // Returns the index of the first occurrence of the specified
+    // {@code Card} in the array of {@code Card}s in this {@code Deck}, or -1
+    // if there is no such {@code Card}.
+    private int indexOf(T aCard)
     {
-        int counter = 0;
-        for (T collectionCard : aCollection) {
-            if (collectionCard.equals(aCard))
-                counter++;
+        for (int i = this.top_; i < this.bottom_; i++) {
+            if (this.cardsInDeck_[i].equals(aCard))
+                return i;
         }
-        return counter;
+        return -1;
+    }
+    
+    // Removes the {@code Card} at the specified index of the array, moving
+    // the {@code Card}s below it up by one
+    private void removeAt(int index)
+    {
+        T   aCard       = this.cardsInDeck_[index];
+        int nCardsBelow = this.bottom_ - index - 1;
+        System.arraycopy(this.cardsInDeck_, index + 1, this.cardsInDeck_,
+                         index, nCardsBelow);
+        this.bottom_--;
+        this.cardsInDeck_[this.bottom_] = null;
+        this.events_.removed(aCard);
+    }
+    
+    // Removes every {@code Card} from the array, leaving the top and bottom
+    // of this {@code Deck} at the start of the array.
+    private void clear()
+    {
+        Arrays.fill(this.cardsInDeck_, this.top_, this.bottom_, null);
+        this.top_    = 0;
+        this.bottom_ = 0;
+    }
+    
+    // Makes room for the specified number of {@code Card}s to be added to the
+    // bottom of this {@code Deck}. Space freed at the start of the array by
+    // drawing is reused before the array is grown.
+    private void ensureSpaceAtBottom(int nCards)
+    {
+        int nCardsInDeck = size();
+        int capacity     = this.cardsInDeck_.length;
+        if (this.bottom_ + nCards <= capacity)
+            return;
+        
+        if (nCardsInDeck + nCards <= capacity) {
+            System.arraycopy(this.cardsInDeck_, this.top_, this.cardsInDeck_,
+                             0, nCardsInDeck);
+            Arrays.fill(this.cardsInDeck_, nCardsInDeck, this.bottom_, null);
+        }
+        else {
+            int newCapacity = Math.max(2 * capacity, nCardsInDeck + nCards);
+            T[] cards       = Deck.newArray(newCapacity);
+            System.arraycopy(this.cardsInDeck_, this.top_, cards, 0,
+                             nCardsInDeck);
+            this.cardsInDeck_ = cards;
+        }
+        this.top_    = 0;
+        this.bottom_ = nCardsInDeck;
+    }
+    
+    // Creates an array that can hold the specified number of {@code Card}s.
+    // The array is only ever exposed as a {@code T[]} within this class.
+    @SuppressWarnings("unchecked")
+    private static <T extends Card> T[] newArray(int length)
+    {
+        return (T[]) new Card[length];
     }
 }
@@ -1,12 +0,0 @@
-package cardgame.card;
-
-/**
- * A listener for cards being drawn.
- */
-public interface DrawListener
-{
-    /**
-     * Performs an action on being notified of an event.
-     */
-    void onNotification();
-}
@@ -21,21 +21,37 @@ public interface Drawable<T extends Card>
         throws NoSuchElementException;
     
     /**
-     * Adds a specified {@code DrawListener} to the list of listeners.
+     * Moves every {@code Card} in this {@code Drawable} to the specified
+     * {@code CardCollection}, in the order they would be drawn, leaving this
+     * {@code Drawable} empty. By default each {@code Card} is drawn and added
+     * in turn, but a collection that can move them all at once should do so.
      * 
-     * @param listener the {@code DrawListener} to add
+     * @param  destination the {@code CardCollection} to move the
+     *                     {@code Card}s to
+     * @return the number of {@code Card}s moved
      */
-    void addListener(DrawListener listener);
+    default int drainTo(CardCollection<? super T> destination)
+    {
+        int nCards = 0;
+        while (size() > 0) {
+            destination.add(draw());
+            nCards++;
+        }
+        return nCards;
+    }
     
     /**
-     * Removes a specified {@code DrawListener} from the list of listeners.
+     * Adds a specified {@code CardListener} to be told of every event of
+     * this {@code Drawable}.
      * 
-     * @param listener the {@code DrawListener} to remove
+     * @param listener the {@code CardListener} to add
      */
-    void removeListener(DrawListener listener);
+    void addListener(CardListener<? super T> listener);
     
     /**
-     * Notifies all {@code DrawListener}s of a draw.
+     * Removes a specified {@code CardListener}, if it was added.
+     * 
+     * @param listener the {@code CardListener} to remove
      */
-    void notifyListeners();
+    void removeListener(CardListener<? super T> listener);
 }
@@ -1,12 +1,17 @@
 package cardgame.card;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
 
+import cardgame.player.DecisionContext;
 import cardgame.player.PlayerIO;
-import cardgame.player.Selector;
+import cardgame.player.Trampoline;
 
 /**
  * A hand for holding cards.
@@ -16,8 +21,16 @@ import cardgame.player.Selector;
 public class Hand<T extends Card>
     implements CardCollection<T>, Iterable<T>
 {
-    private final String  name_;
-    private final List<T> cards_;
+    /**
+     * The prompt given to a {@code PlayerIO} for each {@code Card} it picks.
+     */
+    public static final DecisionContext PICK_CARD = DecisionContext.of(
+                                                    "Please select a card.");
+    
+    private final String   name_;
+    private final List<T>  cards_;
+    private final List<T>  view_;
+    private final Unpicked unpicked_;
     
     /**
      * Sole constructor. The initialised {@code Hand} will be empty.
@@ -26,8 +39,10 @@ public class Hand<T extends Card>
      */
     public Hand(String name)
     {
-        this.name_  = name;
-        this.cards_ = new ArrayList<T>();
+        this.name_     = name;
+        this.cards_    = new ArrayList<T>();
+        this.view_     = Collections.unmodifiableList(this.cards_);
+        this.unpicked_ = new Unpicked();
     }
     
     /* (non-Javadoc)
@@ -39,22 +54,33 @@ public class Hand<T extends Card>
         return this.cards_.size();
     }
     
-    /* (non-Javadoc)
+    /**
+     * Adds the {@code Card} at the index given by
+     * {@link #insertionIndex(Card)}, by default the end of this
+     * {@code Hand}.
+     * 
      * @see CardCollection#add(Card)
      */
     @Override
     public void add(T aCard)
     {
-        this.cards_.add(aCard);
+        this.cards_.add(insertionIndex(aCard), aCard);
     }
     
-    /* (non-Javadoc)
+    /**
+     * Removes the {@code Card} from the index given by
+     * {@link #indexOf(Card)}.
+     * 
      * @see CardCollection#remove(Card)
      */
     @Override
     public boolean remove(T aCard)
     {
-        return this.cards_.remove(aCard);
+        int     index   = indexOf(aCard);
+        boolean removed = index >= 0;
+        if (removed)
+            this.cards_.remove(index);
+        return removed;
     }
 
     /* (non-Javadoc)
@@ -96,6 +122,23 @@ public class Hand<T extends Card>
         return this.cards_.get(index);
     }
     
+    /**
+     * Returns the index of the first occurrence of the specified
+     * {@code Card} in this {@code Hand}.
+     * <p>
+     * By default the {@code Hand} is searched from the start. A {@code Hand}
+     * that keeps its {@code Card}s in order may override this to search
+     * faster.
+     * 
+     * @param  aCard the {@code Card} to look for
+     * @return the index of the {@code Card}, or -1 if it is not held
+     * @see    List#indexOf(Object)
+     */
+    public int indexOf(T aCard)
+    {
+        return this.cards_.indexOf(aCard);
+    }
+    
     /**
      * Returns the name of this {@code Hand}.
      * 
@@ -118,6 +161,76 @@ public class Hand<T extends Card>
         this.cards_.sort(aComparator);
     }
     
+    /**
+     * Returns the index at which the specified {@code Card} is added to this
+     * {@code Hand}.
+     * <p>
+     * By default every {@code Card} is added at the end. A {@code Hand} that
+     * keeps its {@code Card}s in order may override this to add each in its
+     * place.
+     * 
+     * @param  aCard the {@code Card} being added
+     * @return the index to add the {@code Card} at, from zero to the size of
+     *         this {@code Hand}
+     */
+    protected int insertionIndex(T aCard)
+    {
+        return this.cards_.size();
+    }
+    
+    /**
+     * Returns a copy of the {@code Card}s in this {@code Hand}, in order.
+     * 
+     * @return a new list of the {@code Card}s in this {@code Hand}
+     */
+    public List<T> copyCards()
+    {
+        return new ArrayList<T>(this.cards_);
+    }
+    
+    /**
+     * Returns a read-only view of the {@code Card}s in this {@code Hand}, in
+     * order. The view is made once, and follows every later change to this
+     * {@code Hand}.
+     * 
+     * @return a read-only list of the {@code Card}s in this {@code Hand}
+     */
+    public List<T> getCards()
+    {
+        return this.view_;
+    }
+    
+    /**
+     * Starts picking {@code Card}s from this {@code Hand}, and returns a
+     * read-only view of the {@code Card}s not yet picked. The view starts
+     * with every {@code Card}, in order, and loses each one picked by
+     * {@link #pick(int)}.
+     * <p>
+     * The view is reused by every picking, so only one may be under way at a
+     * time, and this {@code Hand} must not be changed until it is over.
+     * 
+     * @return a read-only list of the {@code Card}s not yet picked
+     */
+    public List<T> startPicking()
+    {
+        this.unpicked_.reset();
+        return this.unpicked_;
+    }
+    
+    /**
+     * Picks the {@code Card} at the specified index of the view returned by
+     * {@link #startPicking()}, which no longer holds it afterwards. The
+     * {@code Card} is left in this {@code Hand}.
+     * 
+     * @param  index the index of the {@code Card} among those not yet picked
+     * @return the {@code Card} picked
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public T pick(int index)
+    {
+        return this.unpicked_.pick(index);
+    }
+    
     /**
      * Returns a list of a specified number of {@code Card}s from this
      * {@code Hand} selected by a specified {@code PlayerIO}. The returned list
@@ -133,13 +246,102 @@ public class Hand<T extends Card>
         int     handSize       = size();
         int     nCardsPickable = nCards < handSize ? nCards : handSize;
         List<T> selections     = new ArrayList<T>(nCardsPickable);
-        List<T> handCopy       = new ArrayList<T>(this.cards_);
-        String  message        = "Please select a card.";
+        List<T> unpicked       = startPicking();
         for (int i = 0; i < nCardsPickable; i++) {
-            T aCard = Selector.select(aPlayerIO, message, handCopy);
-            selections.add(aCard);
-            handCopy.remove(aCard);
+            int choice = aPlayerIO.choose(Hand.PICK_CARD, unpicked);
+            selections.add(pick(choice));
         }
         return selections;
     }
+    
+    /**
+     * Returns a future of a list of a specified number of {@code Card}s from
+     * this {@code Hand} selected by a specified {@code PlayerIO}, asking for
+     * each {@code Card} without waiting for the answer. This {@code Hand}
+     * must not be changed until the future has completed.
+     * 
+     * @param  aPlayerIO the {@code PlayerIO} that will pick the {@code Card}s
+     * @param  nCards    the number of {@code Card}s to pick
+     * @return a future of a list of {@code Card}s from this {@code Hand}
+     * @see    #pickCards(PlayerIO, int)
+     */
+    public CompletableFuture<List<T>> pickCardsAsync(PlayerIO aPlayerIO,
+                                                     int nCards)
+    {
+        int     handSize       = size();
+        int     nCardsPickable = nCards < handSize ? nCards : handSize;
+        List<T> selections     = new ArrayList<T>(nCardsPickable);
+        List<T> unpicked       = startPicking();
+        return Trampoline.loop(() -> {
+            CompletableFuture<Boolean> picked;
+            if (selections.size() < nCardsPickable) {
+                picked = aPlayerIO.chooseAsync(Hand.PICK_CARD, unpicked)
+                                  .thenApply(choice -> {
+                                      selections.add(pick(choice));
+                                      return selections.size()
+                                             < nCardsPickable;
+                                  });
+            }
+            else {
+                picked = CompletableFuture.completedFuture(false);
+            }
+            return picked;
+        }).thenApply(done -> selections);
+    }
+    
+    // A read-only view of the {@code Card}s in this {@code Hand} not yet
+    // picked. It keeps the indices in the hand of those left, so that
+    // picking a {@code Card} moves only indices, and nothing is allocated
+    // once the view has grown to fit the hand.
+    private final class Unpicked
+        extends AbstractList<T>
+        implements RandomAccess
+    {
+        private int[] indices_ = new int[0];
+        private int   size_    = 0;
+        
+        @Override
+        public T get(int index)
+        {
+            checkIndex(index);
+            return Hand.this.cards_.get(this.indices_[index]);
+        }
+        
+        @Override
+        public int size()
+        {
+            return this.size_;
+        }
+        
+        // Makes every {@code Card} in the hand unpicked
+        void reset()
+        {
+            int nCards = Hand.this.cards_.size();
+            if (this.indices_.length < nCards)
+                this.indices_ = new int[nCards];
+            for (int i = 0; i < nCards; i++)
+                this.indices_[i] = i;
+            this.size_ = nCards;
+        }
+        
+        // Removes the {@code Card} at the specified index from the view, and
+        // returns it
+        T pick(int index)
+        {
+            T aCard = get(index);
+            System.arraycopy(this.indices_, index + 1, this.indices_, index,
+                             this.size_ - index - 1);
+            this.size_--;
+            return aCard;
+        }
+        
+        // Throws an {@code IndexOutOfBoundsException} if the specified index
+        // is not that of an unpicked {@code Card}
+        private void checkIndex(int index)
+        {
+            if (index < 0 || index >= this.size_)
+                throw new IndexOutOfBoundsException("Index: " + index
+                                                    + ", Size: " + this.size_);
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package cardgame.card;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * A source of random integers, used for shuffling and for any other random
+ * decisions made during a game. Supplying identically seeded sources makes
+ * those decisions reproducible.
+ * <p>
+ * A {@code RandomSource} is not expected to be safe for use by multiple
+ * threads; each game should be given its own.
+ */
+public interface RandomSource
+{
+    /**
+     * Returns a random integer between zero (inclusive) and the specified
+     * bound (exclusive).
+     * 
+     * @param  bound the exclusive upper bound, which must be positive
+     * @return the random integer
+     */
+    int nextInt(int bound);
+    
+    /**
+     * Returns a {@code RandomSource} backed by a {@code SplittableRandom}
+     * with the specified seed.
+     * 
+     * @param  seed the seed of the {@code RandomSource}
+     * @return the seeded {@code RandomSource}
+     * @see    SplittableRandom
+     */
+    static RandomSource seeded(long seed)
+    {
+        return RandomSource.of(new SplittableRandom(seed));
+    }
+    
+    /**
+     * Returns a {@code RandomSource} backed by a {@code SplittableRandom}
+     * with an unpredictable seed.
+     * 
+     * @return the unseeded {@code RandomSource}
+     * @see    SplittableRandom
+     */
+    static RandomSource unseeded()
+    {
+        return RandomSource.of(new SplittableRandom());
+    }
+    
+    /**
+     * Returns a {@code RandomSource} backed by the specified
+     * {@code SplittableRandom}.
+     * 
+     * @param  rng the {@code SplittableRandom} to draw integers from
+     * @return the {@code RandomSource}
+     */
+    static RandomSource of(SplittableRandom rng)
+    {
+        return rng::nextInt;
+    }
+    
+    /**
+     * Returns a {@code RandomSource} backed by the specified {@code Random}.
+     * 
+     * @param  rng the {@code Random} to draw integers from
+     * @return the {@code RandomSource}
+     */
+    static RandomSource of(Random rng)
+    {
+        return rng::nextInt;
+    }
+}
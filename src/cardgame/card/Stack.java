@@ -1,10 +1,9 @@
 package cardgame.card;
 
 import java.util.ArrayDeque;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.Iterator;
-import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -15,9 +14,9 @@ import java.util.NoSuchElementException;
 public class Stack<T extends Card>
     implements Drawable<T>
 {
-    private final String             name_;
-    private final Deque<T>           cards_;
-    private final List<DrawListener> listeners_;
+    private final String        name_;
+    private final Deque<T>      cards_;
+    private final CardEvents<T> events_;
     
     /**
      * Sole constructor. The initialised {@code Stack} will be empty.
@@ -28,7 +27,7 @@ public class Stack<T extends Card>
     {
         this.name_      = name;
         this.cards_     = new ArrayDeque<T>();
-        this.listeners_ = new ArrayList<DrawListener>();
+        this.events_    = new CardEvents<T>(this);
     }
     
     /* (non-Javadoc)
@@ -47,6 +46,24 @@ public class Stack<T extends Card>
     public void add(T aCard)
     {
         this.cards_.addFirst(aCard);
+        this.events_.added(aCard);
+    }
+    
+    /**
+     * Adds the specified {@code Card}s to the top of this {@code Stack}, in
+     * the order they are iterated, so the last of them ends up on top.
+     * 
+     * @see CardCollection#addAll(Collection)
+     */
+    @Override
+    public void addAll(Collection<? extends T> cards)
+    {
+        if (cards.isEmpty())
+            return;
+        
+        for (T aCard : cards)
+            this.cards_.addFirst(aCard);
+        this.events_.addedAll(cards.size());
     }
     
     /* (non-Javadoc)
@@ -57,7 +74,7 @@ public class Stack<T extends Card>
     {
         boolean cardRemoved = this.cards_.remove(aCard);
         if (cardRemoved)
-            notifyListeners();
+            this.events_.removed(aCard);
         return cardRemoved;
     }
     
@@ -68,6 +85,7 @@ public class Stack<T extends Card>
     public void reset()
     {
         this.cards_.clear();
+        this.events_.reset();
     }
     
     /* (non-Javadoc)
@@ -98,41 +116,49 @@ public class Stack<T extends Card>
         T aCard;
         try {
             aCard = this.cards_.removeFirst();
-            notifyListeners();
         }
         catch (NoSuchElementException exception) {
             throw new NoSuchElementException(this.getMessage() + " has no"
                                             + " cards left to draw!");
         }
+        this.events_.drawn(aCard);
         return aCard;
     }
     
-    /* (non-Javadoc)
-     * @see Drawable#addListener(DrawListener)
+    /**
+     * Moves every {@code Card} in this {@code Stack} to the specified
+     * {@code CardCollection} in a single {@code addAll}, from the top down.
+     * 
+     * @see Drawable#drainTo(CardCollection)
      */
     @Override
-    public void addListener(DrawListener listener)
+    public int drainTo(CardCollection<? super T> destination)
     {
-        this.listeners_.add(listener);
+        int nCards = size();
+        if (nCards > 0) {
+            destination.addAll(this.cards_);
+            this.cards_.clear();
+            this.events_.drained(destination, nCards);
+        }
+        return nCards;
     }
     
     /* (non-Javadoc)
-     * @see Drawable#removeListener(DrawListener)
+     * @see Drawable#addListener(CardListener)
      */
     @Override
-    public void removeListener(DrawListener listener)
+    public void addListener(CardListener<? super T> listener)
     {
-        this.listeners_.remove(listener);
+        this.events_.addListener(listener);
     }
     
     /* (non-Javadoc)
-     * @see Drawable#notifyListeners()
+     * @see Drawable#removeListener(CardListener)
      */
     @Override
-    public void notifyListeners()
+    public void removeListener(CardListener<? super T> listener)
     {
-        for (DrawListener aListener : this.listeners_)
-            aListener.onNotification();
+        this.events_.removeListener(listener);
     }
     
     /**
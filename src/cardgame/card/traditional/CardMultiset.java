@@ -0,0 +1,188 @@
+package cardgame.card.traditional;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A multiset of {@code PlayingCard}s, counting the copies held of each.
+ * <p>
+ * The copies of each {@code PlayingCard} are counted in an array indexed by
+ * its id, so adding, removing and counting copies are single array
+ * operations, however many decks the {@code PlayingCard}s come from. The
+ * {@code PlayingCard}s of which at least one copy is held are also kept as
+ * the bits of a {@code CardSet}, for code that only asks which
+ * {@code PlayingCard}s are present. Iteration is in increasing order of id,
+ * with each copy returned in turn.
+ * 
+ * @see CardSet
+ * @see PlayingCard#getId()
+ */
+public class CardMultiset
+    implements Iterable<PlayingCard>
+{
+    private final int[] counts_;
+    private long        bits_;
+    private int         size_;
+    
+    /**
+     * Sole constructor. The initialised {@code CardMultiset} will be empty.
+     */
+    public CardMultiset()
+    {
+        this.counts_ = new int[PlayingCard.N_IDS];
+        this.bits_   = 0L;
+        this.size_   = 0;
+    }
+    
+    /**
+     * Adds a copy of the specified {@code PlayingCard} to this
+     * {@code CardMultiset}.
+     * 
+     * @param  aCard the {@code PlayingCard} to add
+     * @return {@code true} if no copy was already present
+     * @throws IllegalArgumentException if the {@code PlayingCard} can not be
+     *                                  held in a {@code CardSet}
+     */
+    public boolean add(PlayingCard aCard)
+    {
+        long    bit   = CardSet.bitOf(aCard);
+        boolean isNew = this.counts_[aCard.getId()]++ == 0;
+        this.bits_   |= bit;
+        this.size_++;
+        return isNew;
+    }
+    
+    /**
+     * Removes a copy of the specified {@code PlayingCard} from this
+     * {@code CardMultiset}.
+     * 
+     * @param  aCard the {@code PlayingCard} to remove
+     * @return {@code true} if a copy was present
+     * @throws IllegalArgumentException if the {@code PlayingCard} can not be
+     *                                  held in a {@code CardSet}
+     */
+    public boolean remove(PlayingCard aCard)
+    {
+        long    bit        = CardSet.bitOf(aCard);
+        int     id         = aCard.getId();
+        boolean wasPresent = this.counts_[id] > 0;
+        if (wasPresent) {
+            this.counts_[id]--;
+            this.size_--;
+            if (this.counts_[id] == 0)
+                this.bits_ &= ~bit;
+        }
+        return wasPresent;
+    }
+    
+    /**
+     * Checks if a copy of the specified {@code PlayingCard} is in this
+     * {@code CardMultiset}.
+     * 
+     * @param  aCard the {@code PlayingCard} to look for
+     * @return {@code true} if at least one copy is present
+     */
+    public boolean contains(PlayingCard aCard)
+    {
+        return this.counts_[aCard.getId()] > 0;
+    }
+    
+    /**
+     * Returns the number of copies of the specified {@code PlayingCard} in
+     * this {@code CardMultiset}.
+     * 
+     * @param  aCard the {@code PlayingCard} to count
+     * @return the number of copies held
+     */
+    public int count(PlayingCard aCard)
+    {
+        return this.counts_[aCard.getId()];
+    }
+    
+    /**
+     * Returns the number of {@code PlayingCard}s of the specified
+     * {@code Rank} in this {@code CardMultiset}, copies included.
+     * 
+     * @param  aRank the {@code Rank} to count
+     * @return the number of {@code PlayingCard}s of that {@code Rank} held
+     */
+    public int count(Rank aRank)
+    {
+        int nCards = 0;
+        for (Suit aSuit : Suit.SUITS)
+            nCards += this.counts_[PlayingCard.idOf(aRank, aSuit)];
+        return nCards;
+    }
+    
+    /**
+     * Returns the number of {@code PlayingCard}s in this
+     * {@code CardMultiset}, copies included.
+     * 
+     * @return the number of {@code PlayingCard}s
+     */
+    public int size()
+    {
+        return this.size_;
+    }
+    
+    /**
+     * Removes every {@code PlayingCard} from this {@code CardMultiset}.
+     */
+    public void clear()
+    {
+        Arrays.fill(this.counts_, 0);
+        this.bits_ = 0L;
+        this.size_ = 0;
+    }
+    
+    /**
+     * Returns the bits of the {@code PlayingCard}s of which at least one
+     * copy is in this {@code CardMultiset}.
+     * 
+     * @return the bits, indexed by {@code PlayingCard} id
+     * @see    CardSet#getBits()
+     */
+    public long getBits()
+    {
+        return this.bits_;
+    }
+    
+    /**
+     * Returns an {@code Iterator} over the {@code PlayingCard}s in this
+     * {@code CardMultiset}, returning each copy in turn. The
+     * {@code CardMultiset} must not be changed while it is iterated.
+     * 
+     * @see Iterable#iterator()
+     */
+    @Override
+    public Iterator<PlayingCard> iterator()
+    {
+        return new Iterator<PlayingCard>() {
+            private long remaining_ = CardMultiset.this.bits_;
+            private int  copies_    = 0;
+            private int  id_        = 0;
+            
+            @Override
+            public boolean hasNext()
+            {
+                return this.copies_ > 0 || this.remaining_ != 0;
+            }
+            
+            @Override
+            public PlayingCard next()
+            {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                if (this.copies_ == 0) {
+                    this.id_         = Long.numberOfTrailingZeros(
+                                           this.remaining_);
+                    this.copies_     = CardMultiset.this.counts_[this.id_];
+                    this.remaining_ &= this.remaining_ - 1;
+                }
+                this.copies_--;
+                return PlayingCard.fromId(this.id_);
+            }
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package cardgame.card.traditional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The orders a {@code SortedPlayingCardHand} can keep its
+ * {@code PlayingCard}s in, one for each of the
+ * {@code PlayingCard.Comparators}.
+ * <p>
+ * Each order gives every {@code PlayingCard} a precomputed integer key, its
+ * position in the order, so that two {@code PlayingCard}s are compared by
+ * comparing their keys, without looking at their {@code Rank}s or
+ * {@code Suit}s.
+ * 
+ * @see PlayingCard.Comparators
+ * @see SortedPlayingCardHand
+ */
+public enum CardOrder
+{
+    SUIT_FIRST(PlayingCard.Comparators.SUIT_FIRST),
+    RANK_FIRST(PlayingCard.Comparators.RANK_FIRST);
+    
+    private static final CardOrder[] ORDERS = CardOrder.values();
+    
+    private final Comparator<PlayingCard> comparator_;
+    private final int[]                   keys_;
+    
+    // Constructor
+    private CardOrder(Comparator<PlayingCard> aComparator)
+    {
+        this.comparator_ = aComparator;
+        this.keys_       = CardOrder.createKeys(aComparator);
+    }
+    
+    /**
+     * Returns the {@code Comparator} this order follows.
+     * 
+     * @return the {@code Comparator} of this {@code CardOrder}
+     */
+    public Comparator<PlayingCard> getComparator()
+    {
+        return this.comparator_;
+    }
+    
+    /**
+     * Returns the key of the specified {@code PlayingCard} in this order.
+     * The keys of two {@code PlayingCard}s compare as the
+     * {@code Comparator} of this {@code CardOrder} compares them.
+     * 
+     * @param  aCard the {@code PlayingCard}
+     * @return the key of the {@code PlayingCard}
+     */
+    public int keyOf(PlayingCard aCard)
+    {
+        return this.keys_[aCard.getId()];
+    }
+    
+    /**
+     * Returns the {@code CardOrder} that follows the specified
+     * {@code Comparator}.
+     * 
+     * @param  aComparator one of the {@code PlayingCard.Comparators}
+     * @return the {@code CardOrder}, or {@code null} if no order follows the
+     *         {@code Comparator}
+     */
+    public static CardOrder of(Comparator<? super PlayingCard> aComparator)
+    {
+        CardOrder order = null;
+        for (CardOrder anOrder : CardOrder.ORDERS) {
+            if (anOrder.comparator_ == aComparator)
+                order = anOrder;
+        }
+        return order;
+    }
+    
+    // Creates the table of keys, indexed by id, by sorting every
+    // {@code PlayingCard} with the specified {@code Comparator}
+    private static int[] createKeys(Comparator<PlayingCard> aComparator)
+    {
+        List<PlayingCard> cards = new ArrayList<PlayingCard>();
+        for (Suit aSuit : Suit.values()) {
+            for (Rank aRank : Rank.values())
+                cards.add(PlayingCard.of(aRank, aSuit));
+        }
+        cards.sort(aComparator);
+        
+        int[] keys = new int[PlayingCard.N_IDS];
+        for (int i = 0; i < cards.size(); i++)
+            keys[cards.get(i).getId()] = i;
+        return keys;
+    }
+}
@@ -0,0 +1,162 @@
+package cardgame.card.traditional;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of {@code PlayingCard}s held as the bits of a single {@code long}.
+ * <p>
+ * The bit of each {@code PlayingCard} is given by its id, so membership,
+ * addition and removal are single bit operations. Only {@code PlayingCard}s
+ * of the four standard {@code Suit}s, jokers included, have ids small enough
+ * to be held. Iteration is in increasing order of id, which orders
+ * {@code PlayingCard}s first by {@code Suit} and then by {@code Rank}.
+ * 
+ * @see PlayingCard#getId()
+ */
+public class CardSet
+    implements Iterable<PlayingCard>
+{
+    private long bits_;
+    
+    /**
+     * Sole constructor. The initialised {@code CardSet} will be empty.
+     */
+    public CardSet()
+    {
+        this.bits_ = 0L;
+    }
+    
+    /**
+     * Returns the bit representing the specified {@code PlayingCard}.
+     * 
+     * @param  aCard the {@code PlayingCard}
+     * @return a {@code long} with only the bit of the {@code PlayingCard} set
+     * @throws IllegalArgumentException if the {@code PlayingCard} can not be
+     *                                  held in a {@code CardSet}
+     */
+    public static long bitOf(PlayingCard aCard)
+    {
+        int id = aCard.getId();
+        if (id >= Long.SIZE)
+            throw new IllegalArgumentException(aCard + " can not be held in a"
+                                               + " card set");
+        return 1L << id;
+    }
+    
+    /**
+     * Returns the bits representing every {@code PlayingCard} of the
+     * specified {@code Rank} that can be held in a {@code CardSet}.
+     * 
+     * @param  aRank the {@code Rank}
+     * @return the bits of the {@code PlayingCard}s of that {@code Rank}
+     */
+    public static long rankBits(Rank aRank)
+    {
+        long bits = 0L;
+        for (Suit aSuit : Suit.values()) {
+            int id = PlayingCard.idOf(aRank, aSuit);
+            if (id < Long.SIZE)
+                bits |= 1L << id;
+        }
+        return bits;
+    }
+    
+    /**
+     * Adds the specified {@code PlayingCard} to this {@code CardSet}.
+     * 
+     * @param  aCard the {@code PlayingCard} to add
+     * @return {@code true} if the {@code PlayingCard} was not already present
+     */
+    public boolean add(PlayingCard aCard)
+    {
+        long    bit   = CardSet.bitOf(aCard);
+        boolean isNew = (this.bits_ & bit) == 0;
+        this.bits_   |= bit;
+        return isNew;
+    }
+    
+    /**
+     * Removes the specified {@code PlayingCard} from this {@code CardSet}.
+     * 
+     * @param  aCard the {@code PlayingCard} to remove
+     * @return {@code true} if the {@code PlayingCard} was present
+     */
+    public boolean remove(PlayingCard aCard)
+    {
+        long    bit        = CardSet.bitOf(aCard);
+        boolean wasPresent = (this.bits_ & bit) != 0;
+        this.bits_        &= ~bit;
+        return wasPresent;
+    }
+    
+    /**
+     * Checks if the specified {@code PlayingCard} is in this {@code CardSet}.
+     * 
+     * @param  aCard the {@code PlayingCard} to look for
+     * @return {@code true} if the {@code PlayingCard} is present
+     */
+    public boolean contains(PlayingCard aCard)
+    {
+        return (this.bits_ & CardSet.bitOf(aCard)) != 0;
+    }
+    
+    /**
+     * Returns the number of {@code PlayingCard}s in this {@code CardSet}.
+     * 
+     * @return the number of {@code PlayingCard}s
+     */
+    public int size()
+    {
+        return Long.bitCount(this.bits_);
+    }
+    
+    /**
+     * Removes every {@code PlayingCard} from this {@code CardSet}.
+     */
+    public void clear()
+    {
+        this.bits_ = 0L;
+    }
+    
+    /**
+     * Returns the bits of the {@code PlayingCard}s in this {@code CardSet}.
+     * 
+     * @return the bits, indexed by {@code PlayingCard} id
+     */
+    public long getBits()
+    {
+        return this.bits_;
+    }
+    
+    /**
+     * Returns an {@code Iterator} over the {@code PlayingCard}s in this
+     * {@code CardSet} as they were when the {@code Iterator} was created.
+     * 
+     * @see Iterable#iterator()
+     */
+    @Override
+    public Iterator<PlayingCard> iterator()
+    {
+        final long bits = this.bits_;
+        return new Iterator<PlayingCard>() {
+            private long remaining_ = bits;
+            
+            @Override
+            public boolean hasNext()
+            {
+                return this.remaining_ != 0;
+            }
+            
+            @Override
+            public PlayingCard next()
+            {
+                if (this.remaining_ == 0)
+                    throw new NoSuchElementException();
+                int id = Long.numberOfTrailingZeros(this.remaining_);
+                this.remaining_ &= this.remaining_ - 1;
+                return PlayingCard.fromId(id);
+            }
+        };
+    }
+}
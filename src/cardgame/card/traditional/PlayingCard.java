@@ -6,25 +6,98 @@ import cardgame.card.Card;
 
 /**
  * A standard playing card.
+ * <p>
+ * There is exactly one {@code PlayingCard} instance for each combination of
+ * {@code Rank} and {@code Suit}, obtained through {@link #of(Rank, Suit)} or
+ * {@link #fromId(int)}. Each {@code PlayingCard} also has a small integer id,
+ * laid out so that the ids of the four standard {@code Suit}s are all below
+ * 64 and can be held as bits of a {@code long}.
  * 
  * @see Rank
  * @see Suit
+ * @see CardSet
  */
 public class PlayingCard extends Card
 {
+    /**
+     * The spacing between the ids of the first {@code PlayingCard}s of
+     * consecutive {@code Suit}s. The id of a {@code PlayingCard} is its
+     * {@code Suit}'s ordinal multiplied by this value, plus its {@code Rank}'s
+     * ordinal.
+     */
+    public static final int SUIT_STRIDE = 16;
+    
+    /**
+     * One more than the largest id of any {@code PlayingCard}.
+     */
+    public static final int N_IDS = Suit.values().length * SUIT_STRIDE;
+    
+    private static final PlayingCard[] CARDS = PlayingCard.createCards();
+    
     private final Rank rank_;
     private final Suit suit_;
+    private final int  id_;
+    
+    // Constructor
+    private PlayingCard(Rank aRank, Suit aSuit)
+    {
+        this.rank_ = aRank;
+        this.suit_ = aSuit;
+        this.id_   = PlayingCard.idOf(aRank, aSuit);
+    }
     
     /**
-     * Sole constructor.
+     * Returns the {@code PlayingCard} with the specified {@code Rank} and
+     * {@code Suit}. No new object is created.
      * 
-     * @param aRank the {@code Rank} this {@code PlayingCard} will have
-     * @param aSuit the {@code Suit} this {@code PlayingCard} will have
+     * @param  aRank the {@code Rank} of the {@code PlayingCard}
+     * @param  aSuit the {@code Suit} of the {@code PlayingCard}
+     * @return the {@code PlayingCard}
      */
-    public PlayingCard(Rank aRank, Suit aSuit)
+    public static PlayingCard of(Rank aRank, Suit aSuit)
     {
-        this.rank_ = aRank;
-        this.suit_ = aSuit;
+        return PlayingCard.CARDS[PlayingCard.idOf(aRank, aSuit)];
+    }
+    
+    /**
+     * Returns the {@code PlayingCard} with the specified id.
+     * 
+     * @param  id the id of the {@code PlayingCard}
+     * @return the {@code PlayingCard}
+     * @throws IllegalArgumentException if no {@code PlayingCard} has the id
+     * @see    #getId()
+     */
+    public static PlayingCard fromId(int id)
+    {
+        PlayingCard aCard = id >= 0 && id < N_IDS ? PlayingCard.CARDS[id]
+                                                  : null;
+        if (aCard == null)
+            throw new IllegalArgumentException(id + " is not a card id");
+        return aCard;
+    }
+    
+    /**
+     * Returns the id of the {@code PlayingCard} with the specified
+     * {@code Rank} and {@code Suit}.
+     * 
+     * @param  aRank the {@code Rank} of the {@code PlayingCard}
+     * @param  aSuit the {@code Suit} of the {@code PlayingCard}
+     * @return the id
+     */
+    public static int idOf(Rank aRank, Suit aSuit)
+    {
+        return aSuit.ordinal() * PlayingCard.SUIT_STRIDE + aRank.ordinal();
+    }
+    
+    /**
+     * Returns the id of this {@code PlayingCard}, which lies between zero
+     * (inclusive) and {@link #N_IDS} (exclusive).
+     * 
+     * @return the id of this {@code PlayingCard}
+     */
+    public int getId()
+    {
+        return this.id_;
     }
     
     /**
@@ -84,21 +157,30 @@ public class PlayingCard extends Card
     }
     
     /**
-     * Returns a hash value for this {@code PlayingCard}.
+     * Returns a hash value for this {@code PlayingCard}, which is its id.
      * <p>
-     * This is a perfect minimal hashing. The implementation of this method
-     * follows the contract set out in {@code hashCode} in {@code Object}.
+     * This is a perfect hashing. The implementation of this method follows
+     * the contract set out in {@code hashCode} in {@code Object}.
      * 
      * @see java.lang.Object#hashCode()
      */
     @Override
     public int hashCode()
     {
-        int suitValue = getSuit().getValue();
-        int rankValue = getRank().getValue();
-        int nRanks    = Rank.values().length;
-        int hash      = rankValue + nRanks * suitValue;
-        return hash;
+        return this.id_;
+    }
+    
+    // Creates the table of every {@code PlayingCard}, indexed by id
+    private static PlayingCard[] createCards()
+    {
+        PlayingCard[] cards = new PlayingCard[N_IDS];
+        for (Suit aSuit : Suit.values()) {
+            for (Rank aRank : Rank.values()) {
+                PlayingCard aCard = new PlayingCard(aRank, aSuit);
+                cards[aCard.getId()] = aCard;
+            }
+        }
+        return cards;
     }
     
     /**
@@ -0,0 +1,161 @@
+package cardgame.card.traditional;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+import cardgame.card.Hand;
+
+/**
+ * A {@code Hand} of {@code PlayingCard}s which also keeps a
+ * {@code CardMultiset} of the {@code PlayingCard}s held, so that checking
+ * whether a {@code PlayingCard} is held is a single array lookup, even when
+ * several copies of it are dealt from a shoe of many decks. Removing a
+ * {@code PlayingCard} that is not held returns immediately.
+ * <p>
+ * The number of {@code PlayingCard}s held of each {@code Rank} and of each
+ * {@code Suit}, and the points the {@code PlayingCard}s held are worth, are
+ * kept up to date as {@code PlayingCard}s are added and removed, so none of
+ * them are counted up when asked for. The points of each {@code Rank} are
+ * given when the {@code PlayingCardHand} is created.
+ * 
+ * @see Hand
+ * @see CardMultiset
+ */
+public class PlayingCardHand extends Hand<PlayingCard>
+{
+    private final CardMultiset held_;
+    private final int[]        rankPoints_;
+    private final int[]        rankCounts_;
+    private final int[]        suitCounts_;
+    private int                points_;
+    
+    /**
+     * Creates an empty {@code PlayingCardHand} in which each
+     * {@code PlayingCard} is worth the value of its {@code Rank}.
+     * 
+     * @param name the name of the {@code PlayingCardHand}
+     * @see   Rank#getValue()
+     */
+    public PlayingCardHand(String name)
+    {
+        this(name, Rank::getValue);
+    }
+    
+    /**
+     * Creates an empty {@code PlayingCardHand} in which each
+     * {@code PlayingCard} is worth the points the specified function gives
+     * its {@code Rank}. The function is applied once to each {@code Rank},
+     * here.
+     * 
+     * @param name       the name of the {@code PlayingCardHand}
+     * @param rankPoints the points a {@code PlayingCard} of each
+     *                   {@code Rank} is worth
+     */
+    public PlayingCardHand(String name, ToIntFunction<Rank> rankPoints)
+    {
+        super(name);
+        this.held_       = new CardMultiset();
+        this.rankPoints_ = new int[Rank.RANKS.length];
+        this.rankCounts_ = new int[Rank.RANKS.length];
+        this.suitCounts_ = new int[Suit.SUITS.length];
+        this.points_     = 0;
+        for (Rank aRank : Rank.RANKS)
+            this.rankPoints_[aRank.ordinal()] = rankPoints.applyAsInt(aRank);
+    }
+    
+    /* (non-Javadoc)
+     * @see Hand#add(Card)
+     */
+    @Override
+    public void add(PlayingCard aCard)
+    {
+        super.add(aCard);
+        this.held_.add(aCard);
+        count(aCard, 1);
+    }
+    
+    /* (non-Javadoc)
+     * @see Hand#remove(Card)
+     */
+    @Override
+    public boolean remove(PlayingCard aCard)
+    {
+        boolean removed = this.held_.remove(aCard) && super.remove(aCard);
+        if (removed)
+            count(aCard, -1);
+        return removed;
+    }
+    
+    /**
+     * Empties this {@code PlayingCardHand} and clears its counts in one go.
+     * 
+     * @see Hand#reset()
+     */
+    @Override
+    public void reset()
+    {
+        super.reset();
+        this.held_.clear();
+        Arrays.fill(this.rankCounts_, 0);
+        Arrays.fill(this.suitCounts_, 0);
+        this.points_ = 0;
+    }
+    
+    /**
+     * Checks if the specified {@code PlayingCard} is in this
+     * {@code PlayingCardHand}.
+     * 
+     * @param  aCard the {@code PlayingCard} to look for
+     * @return {@code true} if the {@code PlayingCard} is held
+     */
+    public boolean contains(PlayingCard aCard)
+    {
+        return this.held_.contains(aCard);
+    }
+    
+    /**
+     * Returns the points the {@code PlayingCard}s in this
+     * {@code PlayingCardHand} are worth.
+     * 
+     * @return the total points of the {@code PlayingCard}s held
+     */
+    public int getPoints()
+    {
+        return this.points_;
+    }
+    
+    /**
+     * Returns the number of {@code PlayingCard}s of the specified
+     * {@code Rank} in this {@code PlayingCardHand}.
+     * 
+     * @param  aRank the {@code Rank} to count
+     * @return the number of {@code PlayingCard}s of that {@code Rank} held
+     */
+    public int count(Rank aRank)
+    {
+        return this.rankCounts_[aRank.ordinal()];
+    }
+    
+    /**
+     * Returns the number of {@code PlayingCard}s of the specified
+     * {@code Suit} in this {@code PlayingCardHand}.
+     * 
+     * @param  aSuit the {@code Suit} to count
+     * @return the number of {@code PlayingCard}s of that {@code Suit} held
+     */
+    public int count(Suit aSuit)
+    {
+        return this.suitCounts_[aSuit.ordinal()];
+    }
+    
+    // Adds the specified change to the counts of the {@code Rank} and
+    // {@code Suit} of the {@code PlayingCard}, and its points to the total
+    private void count(PlayingCard aCard, int change)
+    {
+        int rank = aCard.getRank().ordinal();
+        this.rankCounts_[rank]                      += change;
+        this.suitCounts_[aCard.getSuit().ordinal()] += change;
+        this.points_                                += change
+                                                       * this.rankPoints_[rank];
+    }
+}
@@ -22,6 +22,9 @@ public enum Rank
     KING (13, "King",  "kings"),
     JOKER(14, "Joker", "jokers");
     
+    // Every {@code Rank}, in order, for the classes of this package to share
+    static final Rank[] RANKS = Rank.values();
+    
     private final int    value_;
     private final String name_;
     private final String plural_;
@@ -81,9 +84,10 @@ public enum Rank
      */
     public Rank getNeighbour(boolean after)
     {
-        Rank[] ranks          = Rank.values();
+        Rank[] ranks          = Rank.RANKS;
         int    direction      = after ? 1 : -1;
-        int    neighbourIndex = (this.ordinal() + direction) % ranks.length;
+        int    nRanks         = ranks.length;
+        int    neighbourIndex = (this.ordinal() + direction + nRanks) % nRanks;
         return ranks[neighbourIndex];
     }
 }
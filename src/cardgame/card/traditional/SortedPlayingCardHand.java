@@ -0,0 +1,134 @@
+package cardgame.card.traditional;
+
+import java.util.Comparator;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@code PlayingCardHand} that keeps its {@code PlayingCard}s sorted in a
+ * {@code CardOrder} at all times.
+ * <p>
+ * Each {@code PlayingCard} is added in its place, found by a binary search
+ * on the keys of the {@code CardOrder}, and is removed from the place found
+ * the same way, so the {@code Hand} is never sorted as a whole. Sorting it
+ * in the order it is already kept in costs nothing, and sorting it in the
+ * other order switches the order it is kept in from then on. Sorting it by
+ * any other {@code Comparator} sorts it as a plain {@code Hand} would, and
+ * it is no longer kept in order until it is next sorted in a
+ * {@code CardOrder}.
+ * 
+ * @see CardOrder
+ * @see PlayingCardHand
+ */
+public class SortedPlayingCardHand extends PlayingCardHand
+{
+    private CardOrder order_;
+    
+    /**
+     * Creates an empty {@code SortedPlayingCardHand} in which each
+     * {@code PlayingCard} is worth the value of its {@code Rank}.
+     * 
+     * @param name    the name of the {@code SortedPlayingCardHand}
+     * @param anOrder the order to keep the {@code PlayingCard}s in
+     */
+    public SortedPlayingCardHand(String name, CardOrder anOrder)
+    {
+        super(name);
+        this.order_ = anOrder;
+    }
+    
+    /**
+     * Creates an empty {@code SortedPlayingCardHand} in which each
+     * {@code PlayingCard} is worth the points the specified function gives
+     * its {@code Rank}.
+     * 
+     * @param name       the name of the {@code SortedPlayingCardHand}
+     * @param anOrder    the order to keep the {@code PlayingCard}s in
+     * @param rankPoints the points a {@code PlayingCard} of each
+     *                   {@code Rank} is worth
+     * @see   PlayingCardHand#PlayingCardHand(String, ToIntFunction)
+     */
+    public SortedPlayingCardHand(String name, CardOrder anOrder,
+                                 ToIntFunction<Rank> rankPoints)
+    {
+        super(name, rankPoints);
+        this.order_ = anOrder;
+    }
+    
+    /**
+     * Returns the order the {@code PlayingCard}s are kept in.
+     * 
+     * @return the {@code CardOrder} of this {@code SortedPlayingCardHand},
+     *         or {@code null} if it was last sorted by a {@code Comparator}
+     *         that is not one of the {@code PlayingCard.Comparators}
+     */
+    public CardOrder getOrder()
+    {
+        return this.order_;
+    }
+    
+    /**
+     * Finds the {@code PlayingCard} by a binary search, while the
+     * {@code PlayingCard}s are kept in order.
+     * 
+     * @see cardgame.card.Hand#indexOf(cardgame.card.Card)
+     */
+    @Override
+    public int indexOf(PlayingCard aCard)
+    {
+        if (this.order_ == null)
+            return super.indexOf(aCard);
+        
+        int index = lowerBound(this.order_.keyOf(aCard));
+        return index < size() && get(index).equals(aCard) ? index : -1;
+    }
+    
+    /**
+     * Keeps the {@code PlayingCard}s in the order of the specified
+     * {@code Comparator} from now on, sorting them only if the order is not
+     * the one they are kept in already. A {@code Comparator} that is not one
+     * of the {@code PlayingCard.Comparators} sorts them once, as in a plain
+     * {@code Hand}, and they are not kept in order after that.
+     * 
+     * @see cardgame.card.Hand#sort(Comparator)
+     */
+    @Override
+    public void sort(Comparator<? super PlayingCard> aComparator)
+    {
+        if (this.order_ == null || aComparator != this.order_.getComparator()) {
+            this.order_ = CardOrder.of(aComparator);
+            super.sort(aComparator);
+        }
+    }
+    
+    /**
+     * Places the {@code PlayingCard} after every {@code PlayingCard} that is
+     * not after it in order, found by a binary search, while the
+     * {@code PlayingCard}s are kept in order.
+     * 
+     * @see cardgame.card.Hand#insertionIndex(cardgame.card.Card)
+     */
+    @Override
+    protected int insertionIndex(PlayingCard aCard)
+    {
+        if (this.order_ == null)
+            return super.insertionIndex(aCard);
+        
+        return lowerBound(this.order_.keyOf(aCard) + 1);
+    }
+    
+    // Returns the index of the first {@code PlayingCard} whose key is not
+    // less than the specified key, or the size if there is none
+    private int lowerBound(int key)
+    {
+        int low  = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.order_.keyOf(get(middle)) < key)
+                low  = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+}
@@ -13,6 +13,9 @@ public enum Suit
     SPADES  (4, "Spades",   Colour.BLACK),
     JOKER   (5, "Joker",    Colour.JOKER);
     
+    // Every {@code Suit}, in order, for the classes of this package to share
+    static final Suit[] SUITS = Suit.values();
+    
     private enum Colour
     {
         RED  ("Red"),
@@ -1,73 +1,210 @@
 package cardgame.games.acestokings;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
-import java.util.Queue;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import cardgame.card.Deck;
+import cardgame.card.RandomSource;
 import cardgame.card.traditional.PlayingCard;
 import cardgame.card.traditional.Rank;
 import cardgame.card.traditional.Suit;
 
 /**
  * A specialised deck for the card game Aces to Kings.
+ * <p>
+ * Larger tables are dealt from a shoe of several decks shuffled together,
+ * in which every {@code PlayingCard}, joker included, appears once for each
+ * deck.
+ * <p>
+ * Each round is played without one {@code Rank}, so there are only thirteen
+ * arrangements of the {@code AcesToKingsDeck} a round can start from. They
+ * are worked out once for each size of shoe, and shared by every
+ * {@code AcesToKingsDeck} of that size, so setting up a round is a single
+ * copy of an array before the shuffle.
  */
 public class AcesToKingsDeck extends Deck<PlayingCard>
 {
-    private final Queue<Rank>      roundRanks_;
-    private final Collection<Suit> suits_;
+    private static final Rank[] ROUND_RANKS = EnumSet.range(Rank.ACE,
+                                                            Rank.KING)
+                                                     .toArray(new Rank[0]);
+    
+    // The cards each round starts from, indexed by the number of decks and
+    // then by round, in the order {@code reset()} would leave them
+    private static final ConcurrentMap<Integer, PlayingCard[][]> TEMPLATES
+        = new ConcurrentHashMap<Integer, PlayingCard[][]>();
+    
+    private final PlayingCard[][] templates_;
+    private final int             nDecks_;
+    private       int             nextRound_;
+    private       boolean         templated_;
+    private       Rank            roundRank_;
     
     /**
-     * Sole constructor. Creates a {@code Deck} consisting of the 52 standard
+     * Creates a {@code Deck} consisting of the 52 standard
      * {@code PlayingCard}s, along with a joker for each {@code Suit}.
-     * <p>
-     * Additionally, creates a queue of {@code Rank}s that the
-     * {@code AcesToKingsDeck} will cycle through, starting with the ace and
-     * looping back after the king. On each {@code Rank}'s round, the
-     * {@code Rank} will be removed from the {@code AcesToKingsDeck}.
      * 
      * @param dealAmount the amount of {@code PlayingCard}s that this
-     *                   {@code AcesToKingsDeck} will draw when 
+     *                   {@code AcesToKingsDeck} will draw when
      *                   {@link Deck#dealTo} is called.
-     * @see   Deck#Deck(Collection, int)
+     * @param rng        the source of randomness for shuffling
+     * @see   #AcesToKingsDeck(int, int, RandomSource)
+     */
+    public AcesToKingsDeck(int dealAmount, RandomSource rng)
+    {
+        this(dealAmount, 1, rng);
+    }
+    
+    /**
+     * Main constructor. Creates a shoe of the specified number of decks,
+     * each consisting of the 52 standard {@code PlayingCard}s, along with a
+     * joker for each {@code Suit}.
+     * <p>
+     * Additionally, the {@code AcesToKingsDeck} will cycle through the
+     * {@code Rank}s, starting with the ace and looping back after the king.
+     * On each {@code Rank}'s round, the {@code Rank} will be removed from the
+     * {@code AcesToKingsDeck}.
+     * 
+     * @param  dealAmount the amount of {@code PlayingCard}s that this
+     *                    {@code AcesToKingsDeck} will draw when
+     *                    {@link Deck#dealTo} is called.
+     * @param  nDecks     the number of decks in the shoe
+     * @param  rng        the source of randomness for shuffling
+     * @throws IllegalArgumentException if there is not at least one deck
+     * @see    Deck#Deck(Collection, int, RandomSource)
      */
-    public AcesToKingsDeck(int dealAmount)
+    public AcesToKingsDeck(int dealAmount, int nDecks, RandomSource rng)
     {
-        super(AcesToKingsDeck.createInitialCards(), dealAmount);
-        this.roundRanks_ = new ArrayDeque<Rank>(EnumSet.range(
-                                                Rank.ACE, Rank.KING));
-        this.suits_      = EnumSet.range(Suit.CLUBS, Suit.SPADES);
+        super(AcesToKingsDeck.createInitialCards(nDecks), dealAmount, rng);
+        this.templates_ = AcesToKingsDeck.TEMPLATES.computeIfAbsent(
+                              nDecks, AcesToKingsDeck::createTemplates);
+        this.nDecks_    = nDecks;
+        this.nextRound_ = 0;
+        this.templated_ = true;
+        this.roundRank_ = null;
     }
     
     // Returns a collection consisting of the traditional 52
-    // {@code PlayingCard}s along with four jokers.
-    private static Collection<PlayingCard> createInitialCards()
+    // {@code PlayingCard}s along with four jokers, once for each of the
+    // specified number of decks.
+    private static List<PlayingCard> createInitialCards(int nDecks)
     {
-        Collection<Rank>        ranks = EnumSet.range(Rank.ACE, Rank.JOKER);
-        Collection<Suit>        suits = EnumSet.range(Suit.CLUBS, Suit.SPADES);
-        Collection<PlayingCard> cards = new ArrayList<PlayingCard>();
-        for (Rank aRank : ranks) {
-            for (Suit aSuit : suits)
-                cards.add(new PlayingCard(aRank, aSuit));
+        if (nDecks < 1)
+            throw new IllegalArgumentException("A shoe needs at least one"
+                                               + " deck, not " + nDecks);
+        
+        Collection<Rank>  ranks = EnumSet.range(Rank.ACE, Rank.JOKER);
+        Collection<Suit>  suits = EnumSet.range(Suit.CLUBS, Suit.SPADES);
+        List<PlayingCard> cards = new ArrayList<PlayingCard>();
+        for (int i = 0; i < nDecks; i++) {
+            for (Rank aRank : ranks) {
+                for (Suit aSuit : suits)
+                    cards.add(PlayingCard.of(aRank, aSuit));
+            }
         }
         return cards;
     }
     
+    // Returns the {@code PlayingCard}s each round starts from, for a shoe of
+    // the specified number of decks: the initial cards in order, less those
+    // of the round's {@code Rank}
+    private static PlayingCard[][] createTemplates(int nDecks)
+    {
+        List<PlayingCard> cards     = AcesToKingsDeck.createInitialCards(
+                                          nDecks);
+        int               nRounds   = AcesToKingsDeck.ROUND_RANKS.length;
+        PlayingCard[][]   templates = new PlayingCard[nRounds][];
+        for (int i = 0; i < nRounds; i++) {
+            Rank              roundRank = AcesToKingsDeck.ROUND_RANKS[i];
+            List<PlayingCard> template  = new ArrayList<PlayingCard>();
+            for (PlayingCard aCard : cards) {
+                if (aCard.getRank() != roundRank)
+                    template.add(aCard);
+            }
+            templates[i] = template.toArray(new PlayingCard[0]);
+        }
+        return templates;
+    }
+    
     /**
-     * Resets this {@code AcesToKingsDeck} and removes any {@code PlayingCard}
-     * with the next {@code Rank} in the queue.
+     * Resets this {@code AcesToKingsDeck} without any {@code PlayingCard}
+     * of the next {@code Rank} in the cycle. The {@code PlayingCard}s are
+     * copied from the arrangement worked out for the round, unless the
+     * defining {@code PlayingCard}s have been changed, in which case every
+     * copy of a {@code PlayingCard} of the {@code Rank} is removed after the
+     * reset.
      * 
      * @see Deck#reset()
-     * @see Deck#remove(cardgame.card.Card)
+     * @see Deck#removeIf(java.util.function.Predicate)
      */
     public void incrementJoker()
     {
-        reset();
-        Rank nextRank = this.roundRanks_.remove();
-        this.roundRanks_.add(nextRank);
-        for (Suit aSuit : this.suits_)
-            remove(new PlayingCard(nextRank, aSuit));
+        int  round    = this.nextRound_;
+        Rank nextRank = AcesToKingsDeck.ROUND_RANKS[round];
+        this.nextRound_ = (round + 1) % AcesToKingsDeck.ROUND_RANKS.length;
+        if (this.templated_) {
+            resetTo(this.templates_[round]);
+        }
+        else {
+            reset();
+            removeIf(aCard -> aCard.getRank() == nextRank);
+        }
+        this.roundRank_ = nextRank;
+    }
+    
+    /**
+     * Adds a defining {@code PlayingCard}. Rounds are then set up by
+     * resetting and removing the round's {@code Rank}, rather than from the
+     * arrangements worked out in advance.
+     * 
+     * @see Deck#addDefiningCard(cardgame.card.Card)
+     */
+    @Override
+    public void addDefiningCard(PlayingCard aCard)
+    {
+        super.addDefiningCard(aCard);
+        this.templated_ = false;
+    }
+    
+    /**
+     * Removes a defining {@code PlayingCard}. Rounds are then set up by
+     * resetting and removing the round's {@code Rank}, rather than from the
+     * arrangements worked out in advance.
+     * 
+     * @see Deck#removeDefiningCard(cardgame.card.Card)
+     */
+    @Override
+    public boolean removeDefiningCard(PlayingCard aCard)
+    {
+        boolean cardRemoved = super.removeDefiningCard(aCard);
+        if (cardRemoved)
+            this.templated_ = false;
+        return cardRemoved;
+    }
+    
+    /**
+     * Returns the {@code Rank} removed from this {@code AcesToKingsDeck} for
+     * the current round.
+     * 
+     * @return the {@code Rank} of the round, or {@code null} before the first
+     *         round
+     * @see    #incrementJoker()
+     */
+    public Rank getRoundRank()
+    {
+        return this.roundRank_;
+    }
+    
+    /**
+     * Returns the number of decks in this shoe.
+     * 
+     * @return the number of decks
+     */
+    public int getDeckCount()
+    {
+        return this.nDecks_;
     }
 }
@@ -1,17 +1,17 @@
 package cardgame.games.acestokings;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import cardgame.card.CardCollection;
+import cardgame.card.CardListener;
 import cardgame.card.Deck;
-import cardgame.card.DrawListener;
 import cardgame.card.Drawable;
+import cardgame.card.RandomSource;
 import cardgame.card.Stack;
 import cardgame.card.traditional.PlayingCard;
 import cardgame.games.acestokings.melds.MeldsManager;
-import cardgame.player.PlayerIO;
-import cardgame.player.Selector;
 
 /**
  * An Aces to Kings game board. Holds melds, the deck, and the discard pile.
@@ -21,42 +21,111 @@ import cardgame.player.Selector;
  * @see Stack
  */
 class Board
-    implements DrawListener
+    implements CardListener<PlayingCard>
 {
     private static final int    INITIAL_HAND_SIZE = 7;
     private static final String DISCARDS          = "The discard pile";
     
-    private final AcesToKingsDeck    deck_;
-    private final Stack<PlayingCard> discards_;
-    private final MeldsManager       melds_;
+    private final AcesToKingsDeck             deck_;
+    private final Stack<PlayingCard>          discards_;
+    private final MeldsManager                melds_;
+    private final List<Drawable<PlayingCard>> drawables_;
+    private final List<GameListener>          listeners_;
     
     /**
-     * Sole constructor.
+     * Creates a board with a single deck.
+     * 
+     * @param rng the source of randomness for shuffling the
+     *            {@code AcesToKingsDeck}
+     */
+    public Board(RandomSource rng)
+    {
+        this(rng, 1);
+    }
+    
+    /**
+     * Creates a board with a shoe of the specified number of decks, and
+     * melds large enough for every copy of a {@code PlayingCard} in it.
+     * 
+     * @param rng    the source of randomness for shuffling the
+     *               {@code AcesToKingsDeck}
+     * @param nDecks the number of decks in the shoe
      */
-    public Board()
+    public Board(RandomSource rng, int nDecks)
+    {
+        this(rng, nDecks, Collections.<GameListener>emptyList());
+    }
+    
+    // Constructor for the board of a {@code Game}, which tells the specified
+    // {@code GameListener}s each time the deck is refilled
+    Board(RandomSource rng, int nDecks, List<GameListener> listeners)
     {
-        this.deck_     = new AcesToKingsDeck(INITIAL_HAND_SIZE);
+        this.deck_     = new AcesToKingsDeck(INITIAL_HAND_SIZE, nDecks, rng);
         this.deck_.addListener(this);
         this.discards_ = new Stack<PlayingCard>(Board.DISCARDS);
-        this.melds_    = new MeldsManager();
+        this.melds_    = new MeldsManager(nDecks);
+        
+        List<Drawable<PlayingCard>> drawables = new ArrayList<
+                                                    Drawable<PlayingCard>>(2);
+        drawables.add(this.deck_);
+        drawables.add(this.discards_);
+        this.drawables_ = Collections.unmodifiableList(drawables);
+        this.listeners_ = listeners;
+    }
+    
+    /**
+     * Refills the {@code AcesToKingsDeck} once its last {@code PlayingCard}
+     * is drawn.
+     * 
+     * @see CardListener#cardDrawn(CardCollection, cardgame.card.Card, int)
+     */
+    @Override
+    public void cardDrawn(CardCollection<? extends PlayingCard> source,
+                          PlayingCard aCard, int size)
+    {
+        refillIfEmpty(size);
+    }
+    
+    /**
+     * Refills the {@code AcesToKingsDeck} once its last {@code PlayingCard}
+     * is removed.
+     * 
+     * @see CardListener#cardRemoved(CardCollection, cardgame.card.Card, int)
+     */
+    @Override
+    public void cardRemoved(CardCollection<? extends PlayingCard> source,
+                            PlayingCard aCard, int size)
+    {
+        refillIfEmpty(size);
     }
     
     /**
-     * On being notified, refills the {@code AcesToKingsDeck} with all but the
-     * top {@code PlayingCard} of the discard pile. The {@code AcesToKingsDeck}
-     * is then shuffled.
+     * Refills the {@code AcesToKingsDeck} once a deal has taken its last
+     * {@code PlayingCard}, so that the deal can go on.
      * 
-     * @see DrawListener#onNotification()
+     * @see CardListener#cardsDealt(CardCollection, CardCollection, int, int)
      */
-    public void onNotification()
+    @Override
+    public void cardsDealt(CardCollection<? extends PlayingCard> source,
+                           CardCollection<?> destination, int nCards,
+                           int size)
+    {
+        refillIfEmpty(size);
+    }
+    
+    // Refills the {@code AcesToKingsDeck} with all but the top
+    // {@code PlayingCard} of the discard pile, if it has the specified
+    // number of cards left and that is none. The {@code AcesToKingsDeck} is
+    // then shuffled, and the {@code GameListener}s are told.
+    private void refillIfEmpty(int nCardsLeft)
     {
-        int nCardsLeft = this.deck_.size();
         if (nCardsLeft == 0) {
             PlayingCard topCard = this.discards_.draw();
-            for (PlayingCard aCard : this.discards_)
-                this.discards_.transferTo(this.deck_, aCard);
+            int         nCards  = this.discards_.drainTo(this.deck_);
             this.deck_.shuffle();
             this.discards_.add(topCard);
+            for (GameListener aListener : this.listeners_)
+                aListener.deckRefilled(nCards);
         }
     }
     
@@ -80,25 +149,37 @@ class Board
         this.discards_.add(this.deck_.draw());
     }
     
-    // Deals the initial hand to a {@code CardCollection}.
-    void dealInitialHand(CardCollection<? super PlayingCard> aCollection)
+    // Deals the initial hand to each of the {@code CardCollection}s, in
+    // order
+    void dealInitialHands(List<? extends CardCollection<? super PlayingCard>>
+                              collections)
+    {
+        this.deck_.dealTo(collections, Board.INITIAL_HAND_SIZE);
+    }
+    
+    // Returns the {@code Drawable}s a player may draw from at the start of
+    // their turn: the deck, then the discard pile
+    List<Drawable<PlayingCard>> getDrawables()
+    {
+        return this.drawables_;
+    }
+    
+    // Returns the {@code AcesToKingsDeck} that is drawn from
+    AcesToKingsDeck getDeck()
     {
-        this.deck_.dealTo(aCollection);
+        return this.deck_;
     }
     
-    // Prompts a {@code PlayerIO} to choose a {@code Drawable} to draw from,
-    // and then returns the drawn {@code PlayingCard}.
-    PlayingCard draw(PlayerIO aPlayerIO)
+    // Returns the discard pile
+    Stack<PlayingCard> getDiscards()
     {
-        String message = "Would you like to draw from the deck, or take the "
-                       + this.discards_.peek() + " from the discard pile?";
-        List<Drawable<PlayingCard>> options = new ArrayList<
-                                                      Drawable<PlayingCard>>();
-        options.add(this.deck_);
-        options.add(this.discards_);
-        Drawable<PlayingCard> choice = Selector.select(aPlayerIO, message,
-                                                       options);
-        return choice.draw();
+        return this.discards_;
+    }
+    
+    // Returns the melds
+    MeldsManager getMelds()
+    {
+        return this.melds_;
     }
     
     /**
@@ -112,23 +193,6 @@ class Board
         return this.discards_.peek();
     }
     
-    /**
-     * Attempts to play the specified {@code PlayingCard}s from the specified
-     * {@code PlayerIO}'s {@code CardCollection} to an {@code AbstractMeld} on
-     * this {@code Board}. Wrapper for 
-     * {@link MeldsManager#play(PlayerIO, CardCollection, PlayingCard...)}.
-     * 
-     * @param aPlayerIO   the {@code PlayerIO} to interact with
-     * @param aCollection the source of the {@code PlayingCard}s to play
-     * @param cards       the {@code PlayingCard}s to play
-     */
-    public void playToMeld(PlayerIO aPlayerIO,
-                           CardCollection<PlayingCard> aCollection,
-                           PlayingCard... cards)
-    {
-        this.melds_.play(aPlayerIO, aCollection, cards);
-    }
-    
     /**
      * Adds the specified {@code PlayingCard} to the top of the discard pile.
      * 
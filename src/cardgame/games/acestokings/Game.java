@@ -1,103 +1,390 @@
 package cardgame.games.acestokings;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
-import cardgame.card.Hand;
+import cardgame.card.RandomSource;
+import cardgame.card.traditional.CardOrder;
 import cardgame.card.traditional.PlayingCard;
+import cardgame.card.traditional.PlayingCardHand;
 import cardgame.card.traditional.Rank;
+import cardgame.card.traditional.SortedPlayingCardHand;
 import cardgame.player.ConsolePlayerIO;
+import cardgame.player.Decision;
 import cardgame.player.Player;
 import cardgame.player.PlayerIO;
+import cardgame.player.Trampoline;
 
 /**
  * The card game Aces to Kings
+ * <p>
+ * A game is a state machine that deals each round, plays its turns in
+ * seating order and scores it. It may be played through at once, or one
+ * {@code Decision} at a time by whoever drives it: {@link #nextDecision()}
+ * plays on up to the next choice and hands it out, and
+ * {@link #decide(int)} resumes the game with the index chosen. A game
+ * waiting on a choice holds no thread, so a {@code TableScheduler} can
+ * step many of them on a few threads.
+ * 
+ * @see TableScheduler
  */
 public class Game
 {
-    private static final int    JOKER_CARD_VALUE = 15;
-    private static final int    ROUNDS_TO_PLAY   = 13;
+    static final int JOKER_CARD_VALUE = 15;
+    static final int ROUNDS_TO_PLAY   = 13;
+    
+    private static final int    PLAYERS_PER_DECK = 6;
     private static final String PLAYER_HAND      = "Hand";
     
+    // The steps of a game. Each turn is played through by its {@code Turn}.
+    private enum Phase
+    {
+        DEAL,
+        TURN,
+        SCORE,
+        OVER
+    }
+    
     private final List<Player<PlayingCard>> players_;
     private final Board                     board_;
+    private final List<GameListener>        listeners_;
     private int                             startingPlayer_;
+    private int                             turnLimit_;
+    private int                             round_;
+    private int                             currentPlayer_;
+    private int                             nTurns_;
+    private Phase                           phase_;
+    private Turn                            turn_;
+    private final List<PlayingCardHand>     hands_;
     
     // Constructor
     public Game(int nPlayers)
     {
+        this(Game.createConsolePlayerIOs(nPlayers));
+    }
+    
+    /**
+     * Creates a game with a {@code Player} for each of the specified
+     * {@code PlayerIO}s, seated in the order given.
+     * 
+     * @param playerIOs the {@code PlayerIO}s of the {@code Player}s
+     */
+    public Game(List<? extends PlayerIO> playerIOs)
+    {
+        this(playerIOs, RandomSource.unseeded());
+    }
+    
+    /**
+     * Creates a game with a {@code Player} for each of the specified
+     * {@code PlayerIO}s, seated in the order given, dealt from as many
+     * decks as the table needs. The starting player and every shuffle of the
+     * deck are taken from the specified source of randomness, so games with
+     * identically seeded sources and identical choices play out identically.
+     * 
+     * @param playerIOs the {@code PlayerIO}s of the {@code Player}s
+     * @param rng       the source of randomness for the game
+     * @see   #decksFor(int)
+     */
+    public Game(List<? extends PlayerIO> playerIOs, RandomSource rng)
+    {
+        this(playerIOs, rng, Game.decksFor(playerIOs.size()));
+    }
+    
+    /**
+     * Creates a game as above, dealt from a shoe of the specified number of
+     * decks, for tables too large to be dealt from one.
+     * <p>
+     * Players that search ahead through {@code GameState}s can only be
+     * seated at a game of one deck.
+     * 
+     * @param playerIOs the {@code PlayerIO}s of the {@code Player}s
+     * @param rng       the source of randomness for the game
+     * @param nDecks    the number of decks in the shoe
+     * @see   #decksFor(int)
+     */
+    public Game(List<? extends PlayerIO> playerIOs, RandomSource rng,
+                int nDecks)
+    {
+        int nPlayers         = playerIOs.size();
         this.players_        = new ArrayList<Player<PlayingCard>>(nPlayers);
-        this.board_          = new Board();
-        Random rng           = new Random();
+        this.listeners_      = new ArrayList<GameListener>();
+        this.board_          = new Board(rng, nDecks, this.listeners_);
         this.startingPlayer_ = rng.nextInt(nPlayers);
-        createPlayers(nPlayers);
+        this.turnLimit_      = 0;
+        this.round_          = 0;
+        this.currentPlayer_  = 0;
+        this.nTurns_         = 0;
+        this.phase_          = Phase.DEAL;
+        this.turn_           = null;
+        this.hands_          = new ArrayList<PlayingCardHand>(nPlayers);
+        createPlayers(playerIOs);
     }
     
-    // Plays through the game
+    /**
+     * Returns the number of decks a table of the specified number of players
+     * should be dealt from: one for up to six players, and another for each
+     * six more.
+     * 
+     * @param  nPlayers the number of players at the table
+     * @return the number of decks in the shoe
+     */
+    public static int decksFor(int nPlayers)
+    {
+        return Math.max(1, (nPlayers + Game.PLAYERS_PER_DECK - 1)
+                           / Game.PLAYERS_PER_DECK);
+    }
+    
+    /**
+     * Sets the maximum number of turns that may be played in a round. Once
+     * the limit is reached the round ends as if a player had gone out, and
+     * every {@code Player} scores the cards left in their hand.
+     * <p>
+     * The rules allow for rounds in which no {@code Player} can ever empty
+     * their hand, so computer players should always be given a limit. A limit
+     * of zero, the default, allows rounds to last indefinitely.
+     * 
+     * @param turnLimit the maximum number of turns per round, or zero for no
+     *                  limit
+     */
+    public void setTurnLimit(int turnLimit)
+    {
+        this.turnLimit_ = turnLimit;
+    }
+    
+    /**
+     * Adds a {@code GameListener} to be told of every event of this
+     * {@code Game}.
+     * 
+     * @param listener the {@code GameListener} to add
+     */
+    public void addListener(GameListener listener)
+    {
+        this.listeners_.add(listener);
+    }
+    
+    /**
+     * Removes a {@code GameListener} from this {@code Game}.
+     * 
+     * @param listener the {@code GameListener} to remove
+     */
+    public void removeListener(GameListener listener)
+    {
+        this.listeners_.remove(listener);
+    }
+    
+    /**
+     * Plays through the game, waiting on the calling thread for each choice.
+     */
     public void play()
+    {
+        Decision aDecision = nextDecision();
+        while (aDecision != null) {
+            decide(aDecision.ask());
+            aDecision = nextDecision();
+        }
+    }
+    
+    /**
+     * Plays through the game without waiting on the {@code PlayerIO}s. Each
+     * choice is asked for with {@link Decision#askAsync()}, and play
+     * carries on from the thread that completes the answer, so no thread is
+     * held while the game waits. When every choice is answered at once the
+     * whole game is played before returning, just as by {@link #play()}.
+     * 
+     * @return a future that completes once every round has been played
+     */
+    public CompletableFuture<Void> playAsync()
+    {
+        return Trampoline.loop(() -> {
+            Decision                   aDecision = nextDecision();
+            CompletableFuture<Boolean> decided;
+            if (aDecision == null) {
+                decided = CompletableFuture.completedFuture(false);
+            }
+            else {
+                decided = aDecision.askAsync().thenApply(choice -> {
+                    decide(choice);
+                    return true;
+                });
+            }
+            return decided;
+        });
+    }
+    
+    /**
+     * Plays the game on up to the next choice, and returns it. The game
+     * waits on the choice until {@link #decide(int)} is called, and asking
+     * again before then returns the same {@code Decision}.
+     * 
+     * @return the {@code Decision} waited on, or {@code null} once the game
+     *         is over
+     */
+    public Decision nextDecision()
+    {
+        Decision aDecision = null;
+        while (aDecision == null && this.phase_ != Phase.OVER) {
+            switch (this.phase_) {
+                case DEAL:
+                    startRound(this.round_);
+                    this.currentPlayer_ = this.startingPlayer_;
+                    this.nTurns_        = 0;
+                    this.turn_          = nextTurn();
+                    this.phase_         = Phase.TURN;
+                    break;
+                case TURN:
+                    aDecision = this.turn_.nextDecision();
+                    if (aDecision == null)
+                        finishTurn();
+                    break;
+                case SCORE:
+                    finishRound();
+                    this.round_++;
+                    this.phase_ = this.round_ < Game.ROUNDS_TO_PLAY
+                                  ? Phase.DEAL : Phase.OVER;
+                    break;
+            }
+        }
+        return aDecision;
+    }
+    
+    /**
+     * Makes the choice the game is waiting on, and resumes the game.
+     * 
+     * @param  choice the index of the option chosen from those of the
+     *                {@code Decision} returned by {@link #nextDecision()}
+     * @throws IllegalStateException if the game is not waiting on a choice
+     */
+    public void decide(int choice)
+    {
+        if (this.phase_ != Phase.TURN)
+            throw new IllegalStateException("No choice is waited on");
+        this.turn_.decide(choice);
+    }
+    
+    /**
+     * Checks if every round of the game has been played.
+     * 
+     * @return {@code true} if the game is over
+     */
+    public boolean isOver()
+    {
+        return this.phase_ == Phase.OVER;
+    }
+    
+    // Sets up the {@code Board} for the specified round and deals every hand
+    private void startRound(int round)
     {
         int nPlayers = this.players_.size();
-        for (int i = 0; i < Game.ROUNDS_TO_PLAY; i++) {
-            this.board_.setUpNextRound();
-            for (Player<PlayingCard> aPlayer : this.players_)
-                this.board_.dealInitialHand(aPlayer.findHand(Game.PLAYER_HAND));
-            playTurns();
-            distributePoints();
-            this.startingPlayer_ = (this.startingPlayer_ + 1) % nPlayers;
+        this.board_.setUpNextRound();
+        Rank        jokerRank = this.board_.getDeck().getRoundRank();
+        PlayingCard topCard   = this.board_.peekAtDiscards();
+        for (GameListener aListener : this.listeners_)
+            aListener.roundStarted(round, jokerRank, topCard);
+        this.board_.dealInitialHands(this.hands_);
+        for (int seat = 0; seat < nPlayers; seat++) {
+            PlayingCardHand hand = this.hands_.get(seat);
+            for (GameListener aListener : this.listeners_)
+                aListener.handDealt(seat, hand);
         }
     }
     
-    // Plays through the turns of a round, starting with {@code startingPlayer}
-    private void playTurns()
+    // Scores the round just played and passes the start on to the next seat
+    private void finishRound()
     {
-        boolean roundOver;
-        int     currentPlayer = startingPlayer_;
-        int     nPlayers      = this.players_.size();
-        do {
-            Player<PlayingCard> aPlayer  = this.players_.get(currentPlayer);
-            PlayerIO            playerIO = aPlayer.getPlayerIO();
-            
-            Hand<PlayingCard> hand = aPlayer.findHand(Game.PLAYER_HAND);
-            Turn              turn = new Turn(playerIO, hand, this.board_);
-            roundOver              = turn.play();
-            currentPlayer          = (currentPlayer + 1) % nPlayers;
-        } while (!roundOver);
+        int[] points = distributePoints();
+        for (GameListener aListener : this.listeners_)
+            aListener.roundScored(points);
+        this.startingPlayer_ = (this.startingPlayer_ + 1)
+                               % this.players_.size();
+    }
+    
+    // Starts the turn of the current player
+    private Turn nextTurn()
+    {
+        PlayerIO playerIO = this.players_.get(this.currentPlayer_)
+                                         .getPlayerIO();
+        return new Turn(playerIO, this.hands_, this.currentPlayer_,
+                        this.board_, this.listeners_);
+    }
+    
+    // Passes play on to the next seat once a turn is over, or on to scoring
+    // if the round is over
+    private void finishTurn()
+    {
+        boolean roundOver   = this.turn_.isHandEmpty();
+        this.currentPlayer_ = (this.currentPlayer_ + 1) % this.players_.size();
+        this.nTurns_++;
+        roundOver           = roundOver || this.nTurns_ == this.turnLimit_;
+        if (roundOver) {
+            this.turn_  = null;
+            this.phase_ = Phase.SCORE;
+        }
+        else {
+            this.turn_  = nextTurn();
+        }
     }
     
     // For each {@code Player}, discards the remaining {@code PlayingCard}s in
     // their hand and adds {@code Points} to the {@code Player}'s total
-    // depending on the {@code Rank}s of the {@code PlayingCard}s.
-    private void distributePoints()
+    // depending on the {@code Rank}s of the {@code PlayingCard}s, as kept
+    // by the hand. Returns the points given to each seat.
+    private int[] distributePoints()
     {
-        for (Player<PlayingCard> aPlayer : this.players_) {
-            int               points = 0;
-            Hand<PlayingCard> hand   = aPlayer.findHand(Game.PLAYER_HAND);
-            
-            for (PlayingCard aCard : hand) {
-                Rank aRank = aCard.getRank();
-                hand.remove(aCard);
-                if (aRank == Rank.JOKER)
-                    points += Game.JOKER_CARD_VALUE;
-                else
-                    points += aRank.getValue();
-            }
+        int[] seatPoints = new int[this.players_.size()];
+        for (int seat = 0; seat < seatPoints.length; seat++) {
+            PlayingCardHand hand   = this.hands_.get(seat);
+            int             points = hand.getPoints();
+            hand.reset();
             
-            aPlayer.modifyPoints(points);
+            this.players_.get(seat).modifyPoints(points);
+            seatPoints[seat] = points;
         }
+        return seatPoints;
+    }
+    
+    /**
+     * Returns the {@code Player}s of this {@code Game} in seating order.
+     * 
+     * @return an unmodifiable view of the {@code Player}s
+     */
+    public List<Player<PlayingCard>> getPlayers()
+    {
+        return Collections.unmodifiableList(this.players_);
+    }
+    
+    // Returns the points a {@code PlayingCard} of the specified {@code Rank}
+    // is worth when left in a hand at the end of a round
+    static int pointsOf(Rank aRank)
+    {
+        return aRank == Rank.JOKER ? Game.JOKER_CARD_VALUE : aRank.getValue();
     }
     
     // Creates the players that will play through the game
-    private void createPlayers(int nPlayers)
+    private void createPlayers(List<? extends PlayerIO> playerIOs)
     {
-        for (int i = 0; i < nPlayers; i++) {
-            PlayerIO            type    = new ConsolePlayerIO();
+        for (PlayerIO type : playerIOs) {
             Player<PlayingCard> aPlayer = new Player<PlayingCard>(type, 0, 0);
-            aPlayer.addHand(new Hand<PlayingCard>(Game.PLAYER_HAND));
+            PlayingCardHand     hand    = new SortedPlayingCardHand(
+                                              Game.PLAYER_HAND,
+                                              CardOrder.SUIT_FIRST,
+                                              Game::pointsOf);
+            aPlayer.addHand(hand);
             this.players_.add(aPlayer);
+            this.hands_.add(hand);
         }
     }
     
+    // Creates a {@code ConsolePlayerIO} for each of the players
+    private static List<PlayerIO> createConsolePlayerIOs(int nPlayers)
+    {
+        List<PlayerIO> playerIOs = new ArrayList<PlayerIO>(nPlayers);
+        for (int i = 0; i < nPlayers; i++)
+            playerIOs.add(new ConsolePlayerIO());
+        return playerIOs;
+    }
+    
     // Currently for testing purposes only
     public static void main(String[] args)
     {
@@ -0,0 +1,585 @@
+package cardgame.games.acestokings;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import cardgame.card.Hand;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.card.traditional.Rank;
+import cardgame.games.acestokings.melds.PlayOption;
+
+/**
+ * An append-only journal of {@code Game}s, kept as compact binary events in
+ * a memory-mapped file.
+ * <p>
+ * Each {@code Game} is journalled through its own {@code GameListener} from
+ * {@link #newWriter(long)}, which collects the events of a round in memory
+ * and appends them as a single block once the round is scored. Appending a
+ * block only reserves space with an atomic counter and copies the block into
+ * the mapping, so {@code Game}s on many threads can share a
+ * {@code GameJournal} without waiting on each other. The {@code Game}s are
+ * read back with {@link #read(Path)}.
+ * <p>
+ * The file is mapped in chunks of a fixed size, and no block crosses from one
+ * chunk into the next. Each block is laid out as
+ * <pre>
+ *   int    the number of bytes that follow
+ *   long   the id of the game, as given to {@link #newWriter(long)}
+ *   byte[] the events of the round
+ * </pre>
+ * A length of zero, or the end of the file, marks the end of the journal,
+ * and a length of -1, or fewer than four bytes left in a chunk, the end of a
+ * chunk. The length is written
+ * last, so a block that was never finished reads as the end of the journal.
+ * <p>
+ * Each event is a byte holding its type in the top three bits and a seat in
+ * the bottom five, followed by
+ * <pre>
+ *   ROUND_START  the round, the ordinal of the joker {@code Rank} and the id
+ *                of the top discard
+ *   DEAL         the number of cards and their ids
+ *   DRAW_DECK    the id of the card
+ *   DRAW_DISCARD the id of the card
+ *   MELD         the meld, the number of cards and their ids
+ *   DISCARD      the id of the card
+ *   SCORE        the points of each seat as unsigned varints, where the seat
+ *                bits hold the number of seats
+ * </pre>
+ * A meld is the ordinal of its {@code Rank} for a rank meld, or for a run
+ * {@code 0x80} with the ordinal of its {@code Suit} in bits four and five and
+ * the value of the first position played to in the bottom four bits. Card ids
+ * are those of {@link PlayingCard#getId()}. Most events therefore take two or
+ * three bytes.
+ * 
+ * @see GameListener
+ * @see GameRecord
+ * @see Tournament
+ */
+public class GameJournal
+    implements Closeable
+{
+    static final int ROUND_START  = 0;
+    static final int DEAL         = 1;
+    static final int DRAW_DECK    = 2;
+    static final int DRAW_DISCARD = 3;
+    static final int MELD         = 4;
+    static final int DISCARD      = 5;
+    static final int SCORE        = 6;
+    static final int TYPE_SHIFT   = 5;
+    static final int SEAT_MASK    = 0x1F;
+    static final int RUN_MELD     = 0x80;
+    static final int SUIT_SHIFT   = 4;
+    static final int VALUE_MASK   = 0x0F;
+    static final int PADDING      = -1;
+    
+    /**
+     * The size of the chunks that the file is mapped in, unless another is
+     * given.
+     */
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 24;
+    
+    private static final int LENGTH_BYTES       = Integer.BYTES;
+    private static final int GAME_ID_BYTES      = Long.BYTES;
+    private static final int INITIAL_ROUND_SIZE = 1024;
+    
+    private final FileChannel            channel_;
+    private final int                    chunkBytes_;
+    private final List<MappedByteBuffer> chunks_;
+    private final Lock                   mapLock_;
+    private final AtomicLong             end_;
+    
+    /**
+     * Opens the journal in the specified file, mapped in chunks of
+     * {@value #DEFAULT_CHUNK_BYTES} bytes.
+     * 
+     * @param  file the file of the journal
+     * @throws IOException if the file can not be opened
+     * @see    #GameJournal(Path, int)
+     */
+    public GameJournal(Path file)
+        throws IOException
+    {
+        this(file, GameJournal.DEFAULT_CHUNK_BYTES);
+    }
+    
+    /**
+     * Opens the journal in the specified file, creating the file if it does
+     * not exist. Blocks are appended after those already in the file, which
+     * must have been written with the same chunk size.
+     * 
+     * @param  file       the file of the journal
+     * @param  chunkBytes the size of the chunks the file is mapped in, which
+     *                    limits the size of the events of a single round
+     * @throws IOException if the file can not be opened
+     */
+    public GameJournal(Path file, int chunkBytes)
+        throws IOException
+    {
+        this.channel_    = FileChannel.open(file, StandardOpenOption.CREATE,
+                                            StandardOpenOption.READ,
+                                            StandardOpenOption.WRITE);
+        this.chunkBytes_ = chunkBytes;
+        this.chunks_     = new CopyOnWriteArrayList<MappedByteBuffer>();
+        this.mapLock_    = new ReentrantLock();
+        this.end_        = new AtomicLong(findEnd());
+    }
+    
+    /**
+     * Returns a {@code GameListener} that journals the events of a single
+     * {@code Game} under the specified id. Each {@code Game} needs its own.
+     * 
+     * @param  gameId the id to journal the {@code Game} under
+     * @return the {@code GameListener} to add to the {@code Game}
+     * @see    Game#addListener(GameListener)
+     */
+    public GameListener newWriter(long gameId)
+    {
+        return new Writer(gameId);
+    }
+    
+    /**
+     * Returns the number of bytes of the file in use, including any padding
+     * at the ends of chunks.
+     * 
+     * @return the number of bytes in use
+     */
+    public long size()
+    {
+        return this.end_.get();
+    }
+    
+    /**
+     * Writes every chunk out to the file, cuts the file down to the bytes in
+     * use, so that it does not keep the unused end of the last chunk, and
+     * closes it. The {@code GameJournal} must not be appended to afterwards.
+     * 
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        this.mapLock_.lock();
+        try {
+            for (MappedByteBuffer aChunk : this.chunks_)
+                aChunk.force();
+            this.channel_.truncate(this.end_.get());
+            this.channel_.close();
+        }
+        finally {
+            this.mapLock_.unlock();
+        }
+    }
+    
+    // Appends a block of the specified events to the journal. May be called
+    // from any thread.
+    private void append(long gameId, byte[] events, int nBytes)
+    {
+        int        length = GameJournal.GAME_ID_BYTES + nBytes;
+        long       start  = reserve(GameJournal.LENGTH_BYTES + length);
+        int        offset = (int) (start % this.chunkBytes_);
+        ByteBuffer target = chunk(start / this.chunkBytes_).duplicate();
+        target.position(offset + GameJournal.LENGTH_BYTES);
+        target.putLong(gameId);
+        target.put(events, 0, nBytes);
+        target.putInt(offset, length);
+    }
+    
+    // Reserves space for a block of the specified size and returns its
+    // position. If the block would cross into the next chunk, it is placed at
+    // the start of that chunk instead, and the rest of the current chunk is
+    // marked as padding.
+    private long reserve(int nBytes)
+    {
+        if (nBytes > this.chunkBytes_)
+            throw new IllegalArgumentException("A round of " + nBytes
+                                               + " bytes does not fit in a"
+                                               + " chunk");
+        long start;
+        long chunkEnd;
+        long blockStart;
+        do {
+            start      = this.end_.get();
+            chunkEnd   = GameJournal.chunkEnd(start, this.chunkBytes_);
+            blockStart = start + nBytes <= chunkEnd ? start : chunkEnd;
+        } while (!this.end_.compareAndSet(start, blockStart + nBytes));
+        
+        if (blockStart != start && chunkEnd - start >= GameJournal.LENGTH_BYTES)
+            chunk(start / this.chunkBytes_).putInt(
+                (int) (start % this.chunkBytes_), GameJournal.PADDING);
+        return blockStart;
+    }
+    
+    // Returns the mapping of the chunk at the specified index, mapping it and
+    // any before it first if necessary. Chunks already mapped are returned
+    // without locking, so that the threads of many tables appending at once
+    // do not queue on a monitor, which would pin the carriers of virtual
+    // threads.
+    private MappedByteBuffer chunk(long index)
+    {
+        if (this.chunks_.size() <= index)
+            mapChunks(index);
+        return this.chunks_.get((int) index);
+    }
+    
+    // Maps every chunk up to and including the one at the specified index
+    private void mapChunks(long index)
+    {
+        this.mapLock_.lock();
+        try {
+            while (this.chunks_.size() <= index) {
+                long position = (long) this.chunks_.size() * this.chunkBytes_;
+                this.chunks_.add(this.channel_.map(
+                    FileChannel.MapMode.READ_WRITE, position,
+                    this.chunkBytes_));
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            this.mapLock_.unlock();
+        }
+    }
+    
+    // Finds the end of the blocks already in the file
+    private long findEnd()
+        throws IOException
+    {
+        ByteBuffer header   = ByteBuffer.allocate(GameJournal.LENGTH_BYTES);
+        long       position = 0;
+        int        length;
+        while ((length = GameJournal.readLength(this.channel_, position,
+                                                this.chunkBytes_,
+                                                header)) != 0) {
+            if (length == GameJournal.PADDING)
+                position = GameJournal.chunkEnd(position, this.chunkBytes_);
+            else
+                position += GameJournal.LENGTH_BYTES + length;
+        }
+        return position;
+    }
+    
+    /**
+     * Reads every {@code Game} in the journal in the specified file, which
+     * was written with chunks of {@value #DEFAULT_CHUNK_BYTES} bytes.
+     * 
+     * @param  file the file of the journal
+     * @return the {@code GameRecord}s, in the order each {@code Game} was
+     *         first journalled
+     * @throws IOException if the file can not be read
+     * @see    #read(Path, int)
+     */
+    public static List<GameRecord> read(Path file)
+        throws IOException
+    {
+        return GameJournal.read(file, GameJournal.DEFAULT_CHUNK_BYTES);
+    }
+    
+    /**
+     * Reads every {@code Game} in the journal in the specified file. The
+     * rounds of each {@code Game} are gathered from wherever they were
+     * appended.
+     * 
+     * @param  file       the file of the journal
+     * @param  chunkBytes the size of the chunks the journal was written with
+     * @return the {@code GameRecord}s, in the order each {@code Game} was
+     *         first journalled
+     * @throws IOException if the file can not be read
+     */
+    public static List<GameRecord> read(Path file, int chunkBytes)
+        throws IOException
+    {
+        Map<Long, GameRecord> records = new LinkedHashMap<Long, GameRecord>();
+        try (FileChannel channel = FileChannel.open(file,
+                                                    StandardOpenOption.READ)) {
+            ByteBuffer header   = ByteBuffer.allocate(
+                                      GameJournal.LENGTH_BYTES);
+            ByteBuffer gameId   = ByteBuffer.allocate(
+                                      GameJournal.GAME_ID_BYTES);
+            long       position = 0;
+            int        length;
+            while ((length = GameJournal.readLength(channel, position,
+                                                    chunkBytes, header)) != 0) {
+                if (length == GameJournal.PADDING) {
+                    position = GameJournal.chunkEnd(position, chunkBytes);
+                }
+                else {
+                    position += GameJournal.LENGTH_BYTES;
+                    gameId.clear();
+                    GameJournal.readFully(channel, gameId, position);
+                    ByteBuffer events = ByteBuffer.allocate(
+                                        length - GameJournal.GAME_ID_BYTES);
+                    GameJournal.readFully(channel, events,
+                                          position + GameJournal.GAME_ID_BYTES);
+                    
+                    long       id      = gameId.getLong(0);
+                    GameRecord aRecord = records.get(id);
+                    if (aRecord == null) {
+                        aRecord = new GameRecord(id);
+                        records.put(id, aRecord);
+                    }
+                    aRecord.addRound(events.array());
+                    position += length;
+                }
+            }
+        }
+        return new ArrayList<GameRecord>(records.values());
+    }
+    
+    // Reads the length of the block at the specified position. Returns
+    // PADDING if the rest of the chunk is padding, and zero at the end of the
+    // journal.
+    private static int readLength(FileChannel channel, long position,
+                                  int chunkBytes, ByteBuffer header)
+        throws IOException
+    {
+        int length;
+        if (position + GameJournal.LENGTH_BYTES > channel.size()) {
+            length = 0;
+        }
+        else if (GameJournal.chunkEnd(position, chunkBytes) - position
+                 < GameJournal.LENGTH_BYTES) {
+            length = GameJournal.PADDING;
+        }
+        else {
+            header.clear();
+            GameJournal.readFully(channel, header, position);
+            length = header.getInt(0);
+        }
+        return length;
+    }
+    
+    // Fills the specified buffer from the specified position of a file
+    private static void readFully(FileChannel channel, ByteBuffer buffer,
+                                  long position)
+        throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            int nBytes = channel.read(buffer, position + buffer.position());
+            if (nBytes < 0)
+                throw new EOFException("The journal ends part way through a"
+                                       + " block");
+        }
+    }
+    
+    // Returns the position of the end of the chunk holding the specified
+    // position
+    private static long chunkEnd(long position, int chunkBytes)
+    {
+        return (position / chunkBytes + 1) * chunkBytes;
+    }
+    
+    // Returns the number of bytes taken by the event at the specified offset
+    static int eventLength(byte[] events, int offset)
+    {
+        int type   = GameJournal.typeOf(events[offset]);
+        int length;
+        if (type == GameJournal.ROUND_START) {
+            length = 4;
+        }
+        else if (type == GameJournal.DEAL) {
+            length = 2 + events[offset + 1];
+        }
+        else if (type == GameJournal.MELD) {
+            length = 3 + events[offset + 2];
+        }
+        else if (type == GameJournal.SCORE) {
+            int nSeats = GameJournal.seatOf(events[offset]);
+            length     = 1;
+            for (int i = 0; i < nSeats; i++) {
+                while ((events[offset + length] & 0x80) != 0)
+                    length++;
+                length++;
+            }
+        }
+        else {
+            length = 2;
+        }
+        return length;
+    }
+    
+    // Returns the type of the event starting with the specified byte
+    static int typeOf(byte header)
+    {
+        return (header & 0xFF) >>> GameJournal.TYPE_SHIFT;
+    }
+    
+    // Returns the seat of the event starting with the specified byte
+    static int seatOf(byte header)
+    {
+        return header & GameJournal.SEAT_MASK;
+    }
+    
+    // Returns the byte that describes the meld played to by the specified
+    // {@code PlayOption}
+    static int encodeMeld(PlayOption aPlay)
+    {
+        Rank aRank = aPlay.getMeldRank();
+        int  meld;
+        if (aRank != null)
+            meld = aRank.ordinal();
+        else
+            meld = GameJournal.RUN_MELD
+                   | aPlay.getMeldSuit().ordinal() << GameJournal.SUIT_SHIFT
+                   | aPlay.getFirstValue() & GameJournal.VALUE_MASK;
+        return meld;
+    }
+    
+    // Collects the events of a single {@code Game}, appending them to the
+    // journal at the end of each round. Only used by the thread playing the
+    // {@code Game}.
+    private class Writer extends RoundEncoder
+    {
+        private final long gameId_;
+        
+        // Constructor
+        Writer(long gameId)
+        {
+            this.gameId_ = gameId;
+        }
+        
+        /* (non-Javadoc)
+         * @see GameJournal.RoundEncoder#roundEncoded(byte[], int)
+         */
+        @Override
+        void roundEncoded(byte[] events, int nBytes)
+        {
+            GameJournal.this.append(this.gameId_, events, nBytes);
+        }
+    }
+    
+    // Encodes the events of a {@code Game} as they are journalled, handing
+    // over the events of each round once it is scored.
+    abstract static class RoundEncoder
+        implements GameListener
+    {
+        private byte[] events_;
+        private int    size_;
+        
+        // Constructor
+        RoundEncoder()
+        {
+            this.events_ = new byte[GameJournal.INITIAL_ROUND_SIZE];
+            this.size_   = 0;
+        }
+        
+        // Called with the events of a round once it is scored. The array is
+        // reused for the next round.
+        abstract void roundEncoded(byte[] events, int nBytes);
+        /* (non-Javadoc)
+         * @see GameListener#roundStarted(int, Rank, PlayingCard)
+         */
+        @Override
+        public void roundStarted(int round, Rank jokerRank,
+                                 PlayingCard topDiscard)
+        {
+            putHeader(GameJournal.ROUND_START, 0);
+            put(round);
+            put(jokerRank.ordinal());
+            put(topDiscard.getId());
+        }
+        
+        /* (non-Javadoc)
+         * @see GameListener#handDealt(int, Hand)
+         */
+        @Override
+        public void handDealt(int seat, Hand<PlayingCard> hand)
+        {
+            int nCards = hand.size();
+            putHeader(GameJournal.DEAL, seat);
+            put(nCards);
+            for (int i = 0; i < nCards; i++)
+                put(hand.get(i).getId());
+        }
+        
+        /* (non-Javadoc)
+         * @see GameListener#cardDrawn(int, PlayingCard, boolean)
+         */
+        @Override
+        public void cardDrawn(int seat, PlayingCard aCard,
+                              boolean fromDiscards)
+        {
+            putHeader(fromDiscards ? GameJournal.DRAW_DISCARD
+                                   : GameJournal.DRAW_DECK, seat);
+            put(aCard.getId());
+        }
+        
+        /* (non-Javadoc)
+         * @see GameListener#meldPlayed(int, PlayOption, PlayingCard[])
+         */
+        @Override
+        public void meldPlayed(int seat, PlayOption aPlay,
+                               PlayingCard... cards)
+        {
+            putHeader(GameJournal.MELD, seat);
+            put(GameJournal.encodeMeld(aPlay));
+            put(cards.length);
+            for (PlayingCard aCard : cards)
+                put(aCard.getId());
+        }
+        
+        /* (non-Javadoc)
+         * @see GameListener#cardDiscarded(int, PlayingCard)
+         */
+        @Override
+        public void cardDiscarded(int seat, PlayingCard aCard)
+        {
+            putHeader(GameJournal.DISCARD, seat);
+            put(aCard.getId());
+        }
+        
+        /* (non-Javadoc)
+         * @see GameListener#roundScored(int[])
+         */
+        @Override
+        public void roundScored(int[] points)
+        {
+            putHeader(GameJournal.SCORE, points.length);
+            for (int value : points) {
+                while ((value & ~0x7F) != 0) {
+                    put(value & 0x7F | 0x80);
+                    value >>>= 7;
+                }
+                put(value);
+            }
+            roundEncoded(this.events_, this.size_);
+            this.size_ = 0;
+        }
+        
+        // Adds the first byte of an event
+        private void putHeader(int type, int seat)
+        {
+            if (seat > GameJournal.SEAT_MASK)
+                throw new IllegalArgumentException("Seat " + seat + " can not"
+                                                   + " be journalled");
+            put(type << GameJournal.TYPE_SHIFT | seat);
+        }
+        
+        // Adds a byte to the events of the round, growing the buffer if it is
+        // full
+        private void put(int value)
+        {
+            if (this.size_ == this.events_.length)
+                this.events_ = Arrays.copyOf(this.events_, 2 * this.size_);
+            this.events_[this.size_] = (byte) value;
+            this.size_++;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package cardgame.games.acestokings;
+
+import cardgame.card.Hand;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.card.traditional.Rank;
+import cardgame.games.acestokings.melds.PlayOption;
+
+/**
+ * A listener for the events of a {@code Game}: the start of each round, the
+ * deal, every draw, meld and discard, and the scoring at the end of each
+ * round.
+ * <p>
+ * Listeners are called on the thread playing the {@code Game}, after the
+ * event has been applied to the {@code Board}. Any objects passed in belong
+ * to the {@code Game} and may change once the call returns, so a listener
+ * must copy anything it wants to keep.
+ * <p>
+ * The events that a {@code GameJournal} does not need to replay a game,
+ * such as the choice of each {@code TurnAction}, do nothing by default, so
+ * a listener need only override those it counts.
+ * 
+ * @see Game#addListener(GameListener)
+ * @see GameJournal
+ */
+public interface GameListener
+{
+    /**
+     * Called once the {@code Board} has been set up for a round, before any
+     * hand is dealt.
+     * 
+     * @param round      the index of the round, starting from zero
+     * @param jokerRank  the {@code Rank} that is wild for the round
+     * @param topDiscard the {@code PlayingCard} turned onto the discard pile
+     */
+    void roundStarted(int round, Rank jokerRank, PlayingCard topDiscard);
+    
+    /**
+     * Called once the initial hand of a player has been dealt.
+     * 
+     * @param seat the seat of the player
+     * @param hand the player's hand
+     */
+    void handDealt(int seat, Hand<PlayingCard> hand);
+    
+    /**
+     * Called once a player has drawn a {@code PlayingCard}.
+     * 
+     * @param seat         the seat of the player
+     * @param aCard        the {@code PlayingCard} drawn
+     * @param fromDiscards {@code true} if it was taken from the discard pile,
+     *                     {@code false} if from the deck
+     */
+    void cardDrawn(int seat, PlayingCard aCard, boolean fromDiscards);
+    
+    /**
+     * Called once a player has played some {@code PlayingCard}s to a meld.
+     * 
+     * @param seat  the seat of the player
+     * @param aPlay the {@code PlayOption} that was played
+     * @param cards the {@code PlayingCard}s played, in the order picked
+     */
+    void meldPlayed(int seat, PlayOption aPlay, PlayingCard... cards);
+    
+    /**
+     * Called once a player has chosen a {@code TurnAction}, before it is
+     * carried out. An action that goes on to be abandoned, such as a meld
+     * that cannot be played anywhere, is still reported.
+     * 
+     * @param seat     the seat of the player
+     * @param anAction the {@code TurnAction} chosen
+     */
+    default void actionChosen(int seat, TurnAction anAction)
+    {
+    }
+    
+    /**
+     * Called after {@link #meldPlayed(int, PlayOption, PlayingCard...)} if
+     * the play picked up any jokers from the meld into the player's hand.
+     * 
+     * @param seat    the seat of the player
+     * @param aPlay   the {@code PlayOption} that was played
+     * @param nJokers the number of jokers picked up
+     */
+    default void jokersPickedUp(int seat, PlayOption aPlay, int nJokers)
+    {
+    }
+    
+    /**
+     * Called once the deck has run out and been refilled from the discard
+     * pile and shuffled.
+     * 
+     * @param nCards the number of {@code PlayingCard}s in the refilled deck
+     */
+    default void deckRefilled(int nCards)
+    {
+    }
+    
+    /**
+     * Called once a player has discarded a {@code PlayingCard}, ending their
+     * turn.
+     * 
+     * @param seat  the seat of the player
+     * @param aCard the {@code PlayingCard} discarded
+     */
+    void cardDiscarded(int seat, PlayingCard aCard);
+    
+    /**
+     * Called once the points for a round have been given out. This is the
+     * last event of every round.
+     * 
+     * @param points the points given to each player, indexed by seat
+     */
+    void roundScored(int[] points);
+}
@@ -0,0 +1,77 @@
+package cardgame.games.acestokings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The record of a single {@code Game} read back from a {@code GameJournal}:
+ * the id it was journalled under and the events of each of its rounds, in
+ * the encoding described by {@link GameJournal}.
+ * 
+ * @see GameJournal#read(java.nio.file.Path)
+ * @see GameReplay
+ */
+public class GameRecord
+{
+    private final long         gameId_;
+    private final List<byte[]> rounds_;
+    
+    // Constructor for a record with no rounds yet
+    GameRecord(long gameId)
+    {
+        this.gameId_ = gameId;
+        this.rounds_ = new ArrayList<byte[]>();
+    }
+    
+    // Adds the events of the next round
+    void addRound(byte[] events)
+    {
+        this.rounds_.add(events);
+    }
+    
+    /**
+     * Returns the id the {@code Game} was journalled under.
+     * 
+     * @return the id of the {@code Game}
+     */
+    public long getGameId()
+    {
+        return this.gameId_;
+    }
+    
+    /**
+     * Returns the number of rounds recorded.
+     * 
+     * @return the number of rounds
+     */
+    public int getRoundCount()
+    {
+        return this.rounds_.size();
+    }
+    
+    /**
+     * Returns the number of players in the {@code Game}, which is the number
+     * of hands dealt in the first round.
+     * 
+     * @return the number of players, or zero if no round was recorded
+     */
+    public int getPlayerCount()
+    {
+        int nPlayers = 0;
+        if (!this.rounds_.isEmpty()) {
+            byte[] events = this.rounds_.get(0);
+            for (int i = 0; i < events.length;
+                 i += GameJournal.eventLength(events, i)) {
+                if (GameJournal.typeOf(events[i]) == GameJournal.DEAL)
+                    nPlayers++;
+            }
+        }
+        return nPlayers;
+    }
+    
+    // Returns the events of the specified round. The array is not copied.
+    byte[] getRound(int round)
+    {
+        return this.rounds_.get(round);
+    }
+}
@@ -0,0 +1,601 @@
+package cardgame.games.acestokings;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import cardgame.card.Drawable;
+import cardgame.card.RandomSource;
+import cardgame.card.Stack;
+import cardgame.card.traditional.CardSet;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.card.traditional.Rank;
+import cardgame.card.traditional.Suit;
+import cardgame.games.acestokings.melds.PlayOption;
+import cardgame.player.DecisionContext;
+import cardgame.player.PlayerIO;
+import cardgame.player.Selectable;
+
+/**
+ * A replay of a recorded {@code Game}, from its {@code GameRecord} and the
+ * seed it was played with.
+ * <p>
+ * {@link #replay()} plays the {@code Game} again on a new {@code Board},
+ * with every choice answered from the record by a {@code PlayerIO} that
+ * sends no messages and never builds a prompt. The shuffles of a
+ * {@code Game} depend on nothing but its seed, so the replay draws the same
+ * {@code PlayingCard}s as the original did, and any difference between the
+ * events of the two is reported as an {@code IllegalStateException}. A
+ * corpus of records therefore doubles as a regression test of the rules.
+ * <p>
+ * {@link #seek(int, int)} returns the {@code GameState} at the start of any
+ * turn without playing the {@code Game} at all. The first seek into a round
+ * applies its events to a {@code GameState}, keeping a keyframe every
+ * {@value #KEYFRAME_INTERVAL} turns, so every seek after that applies the
+ * events of fewer than {@value #KEYFRAME_INTERVAL} turns to the keyframe
+ * before it. A {@code GameState} holds a single deck, so a {@code Game}
+ * dealt from a larger shoe can be replayed but not sought into.
+ * <p>
+ * A {@code GameReplay} is not safe for use by multiple threads.
+ * 
+ * @see GameJournal
+ * @see GameState
+ */
+public class GameReplay
+{
+    private static final int    KEYFRAME_INTERVAL = 32;
+    private static final Rank[] RANKS             = Rank.values();
+    private static final Suit[] SUITS             = Suit.values();
+    private static final long   FULL_DECK         = GameReplay.fullDeck();
+    
+    private final GameRecord  record_;
+    private final long        gameSeed_;
+    private final int         turnLimit_;
+    private final int         nPlayers_;
+    private final Keyframes[] keyframes_;
+    private       int         round_;
+    private       int         offset_;
+    private       int         nCardsPicked_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param aRecord   the record of the {@code Game}
+     * @param gameSeed  the seed the {@code Game} was played with
+     * @param turnLimit the turn limit the {@code Game} was played with, or
+     *                  zero for none
+     * @see   Game#setTurnLimit(int)
+     */
+    public GameReplay(GameRecord aRecord, long gameSeed, int turnLimit)
+    {
+        this.record_       = aRecord;
+        this.gameSeed_     = gameSeed;
+        this.turnLimit_    = turnLimit;
+        this.nPlayers_     = aRecord.getPlayerCount();
+        this.keyframes_    = new Keyframes[aRecord.getRoundCount()];
+        this.round_        = 0;
+        this.offset_       = 0;
+        this.nCardsPicked_ = 0;
+    }
+    
+    /**
+     * Plays the {@code Game} again, checking that every event matches the
+     * record.
+     * 
+     * @return the points of each player at the end of the {@code Game},
+     *         indexed by seat
+     * @throws IllegalStateException if the replay does not match the record
+     */
+    public int[] replay()
+    {
+        List<PlayerIO> playerIOs = new ArrayList<PlayerIO>(this.nPlayers_);
+        for (int i = 0; i < this.nPlayers_; i++)
+            playerIOs.add(new ReplayPlayerIO(i));
+        Game game = new Game(playerIOs, RandomSource.seeded(this.gameSeed_),
+                             Game.decksFor(this.nPlayers_));
+        game.setTurnLimit(this.turnLimit_);
+        Verifier verifier = new Verifier();
+        game.addListener(verifier);
+        
+        this.round_        = 0;
+        this.offset_       = 0;
+        this.nCardsPicked_ = 0;
+        game.play();
+        if (verifier.nRounds_ != this.record_.getRoundCount())
+            throw diverged("the record has rounds that were not replayed");
+        
+        int[] points = new int[this.nPlayers_];
+        for (int i = 0; i < this.nPlayers_; i++)
+            points[i] = game.getPlayers().get(i).getPointTotal();
+        return points;
+    }
+    
+    /**
+     * Returns the {@code GameState} at the start of the specified turn of
+     * the specified round, before the player whose turn it is draws. The turn
+     * after the last one gives the state at the end of the round.
+     * 
+     * @param  round the index of the round, starting from zero
+     * @param  turn  the index of the turn in the round, starting from zero
+     * @return the {@code GameState}
+     * @throws IndexOutOfBoundsException if there is no such round or turn
+     * @throws IllegalStateException     if the {@code Game} was dealt from
+     *                                   more than one deck
+     * @see    #getTurnCount(int)
+     */
+    public GameState seek(int round, int turn)
+    {
+        Keyframes frames = keyframes(round);
+        if (turn < 0 || turn > frames.nTurns_)
+            throw new IndexOutOfBoundsException("Round " + round + " has no"
+                                                + " turn " + turn);
+        
+        int       frame  = turn / GameReplay.KEYFRAME_INTERVAL;
+        int       nTurns = frame * GameReplay.KEYFRAME_INTERVAL;
+        int       offset = frames.offsets_[frame];
+        GameState aState = frames.states_[frame];
+        byte[]    events = this.record_.getRound(round);
+        while (nTurns < turn) {
+            if (GameJournal.typeOf(events[offset]) == GameJournal.DISCARD)
+                nTurns++;
+            aState  = GameReplay.apply(aState, events, offset);
+            offset += GameJournal.eventLength(events, offset);
+        }
+        return aState;
+    }
+    
+    /**
+     * Checks if the {@code Game} can be sought into, which it can if it was
+     * dealt from a single deck.
+     * 
+     * @return {@code true} if {@link #seek(int, int)} can be called
+     */
+    public boolean canSeek()
+    {
+        return Game.decksFor(this.nPlayers_) == 1;
+    }
+    
+    /**
+     * Returns the number of turns played in the specified round.
+     * 
+     * @param  round the index of the round, starting from zero
+     * @return the number of turns
+     * @throws IndexOutOfBoundsException if there is no such round
+     * @throws IllegalStateException     if the {@code Game} was dealt from
+     *                                   more than one deck
+     */
+    public int getTurnCount(int round)
+    {
+        return keyframes(round).nTurns_;
+    }
+    
+    // Returns the keyframes of the specified round, applying its events to
+    // find them if this is the first time they are asked for
+    private Keyframes keyframes(int round)
+    {
+        if (!canSeek())
+            throw new IllegalStateException("A game dealt from more than one"
+                                            + " deck can not be sought into");
+        if (round < 0 || round >= this.keyframes_.length)
+            throw new IndexOutOfBoundsException("There is no round "
+                                                + round);
+        if (this.keyframes_[round] == null)
+            this.keyframes_[round] = findKeyframes(this.record_
+                                                       .getRound(round));
+        return this.keyframes_[round];
+    }
+    
+    // Applies the events of a round to the state at its start, keeping the
+    // state and the offset of the next event every KEYFRAME_INTERVAL turns
+    private Keyframes findKeyframes(byte[] events)
+    {
+        List<GameState> states  = new ArrayList<GameState>();
+        List<Integer>   offsets = new ArrayList<Integer>();
+        int             nTurns  = 0;
+        int             offset  = GameReplay.skipDeal(events);
+        GameState       aState  = dealtState(events, offset);
+        states.add(aState);
+        offsets.add(offset);
+        
+        while (offset < events.length
+               && GameJournal.typeOf(events[offset]) != GameJournal.SCORE) {
+            boolean turnOver = GameJournal.typeOf(events[offset])
+                               == GameJournal.DISCARD;
+            aState  = GameReplay.apply(aState, events, offset);
+            offset += GameJournal.eventLength(events, offset);
+            if (turnOver) {
+                nTurns++;
+                if (nTurns % GameReplay.KEYFRAME_INTERVAL == 0) {
+                    states.add(aState);
+                    offsets.add(offset);
+                }
+            }
+        }
+        
+        Keyframes frames = new Keyframes(states.size(), nTurns);
+        for (int i = 0; i < states.size(); i++) {
+            frames.states_[i]  = states.get(i);
+            frames.offsets_[i] = offsets.get(i);
+        }
+        return frames;
+    }
+    
+    // Returns the state of a round once its hands are dealt, from its events
+    // up to the specified offset. The round starts with whoever takes the
+    // first turn.
+    private GameState dealtState(byte[] events, int offset)
+    {
+        Rank        roundRank  = GameReplay.RANKS[events[2]];
+        PlayingCard topDiscard = PlayingCard.fromId(events[3]);
+        long[]      hands      = new long[this.nPlayers_];
+        long        dealt      = CardSet.bitOf(topDiscard);
+        for (int i = 4; i < offset; i += GameJournal.eventLength(events, i)) {
+            int seat = GameJournal.seatOf(events[i]);
+            for (int j = 0; j < events[i + 1]; j++)
+                hands[seat] |= CardSet.bitOf(PlayingCard.fromId(
+                                                 events[i + 2 + j]));
+            dealt |= hands[seat];
+        }
+        
+        long deck           = GameReplay.FULL_DECK & ~dealt
+                              & ~CardSet.rankBits(roundRank);
+        int  startingPlayer = offset < events.length
+                              ? GameJournal.seatOf(events[offset]) : 0;
+        return GameState.deal(roundRank, deck, hands, topDiscard,
+                              startingPlayer);
+    }
+    
+    // Returns the offset of the first event of a round after the deal
+    private static int skipDeal(byte[] events)
+    {
+        int offset = 0;
+        while (offset < events.length
+               && (GameJournal.typeOf(events[offset]) == GameJournal.ROUND_START
+                   || GameJournal.typeOf(events[offset]) == GameJournal.DEAL))
+            offset += GameJournal.eventLength(events, offset);
+        return offset;
+    }
+    
+    // Returns the state after the event at the specified offset
+    private static GameState apply(GameState aState, byte[] events,
+                                   int offset)
+    {
+        int       type = GameJournal.typeOf(events[offset]);
+        GameState next;
+        if (type == GameJournal.DRAW_DECK) {
+            next = aState.drawFromDeck(PlayingCard.fromId(events[offset + 1]));
+        }
+        else if (type == GameJournal.DRAW_DISCARD) {
+            next = aState.drawFromDiscards();
+        }
+        else if (type == GameJournal.DISCARD) {
+            next = aState.discard(PlayingCard.fromId(events[offset + 1]));
+        }
+        else if (type == GameJournal.MELD) {
+            int           meld  = events[offset + 1] & 0xFF;
+            PlayingCard[] cards = new PlayingCard[events[offset + 2]];
+            for (int i = 0; i < cards.length; i++)
+                cards[i] = PlayingCard.fromId(events[offset + 3 + i]);
+            if ((meld & GameJournal.RUN_MELD) != 0)
+                next = aState.playToRunMeld(
+                           GameReplay.SUITS[(meld >>> GameJournal.SUIT_SHIFT)
+                                            & 0x3],
+                           meld & GameJournal.VALUE_MASK, cards);
+            else
+                next = aState.playToRankMeld(GameReplay.RANKS[meld], cards);
+        }
+        else {
+            next = aState;
+        }
+        return next;
+    }
+    
+    // Returns the bits of every {@code PlayingCard} in an
+    // {@code AcesToKingsDeck} before a {@code Rank} is taken out
+    private static long fullDeck()
+    {
+        long bits = 0L;
+        for (Rank aRank : GameReplay.RANKS)
+            bits |= CardSet.rankBits(aRank);
+        return bits;
+    }
+    
+    // Moves on to the next choice in the record made by the player in the
+    // specified seat, and returns its type. The events that are not choices
+    // are passed over.
+    private int nextChoice(int seat)
+    {
+        int type = -1;
+        while (type < 0) {
+            if (this.round_ >= this.record_.getRoundCount())
+                throw diverged("the record has ended");
+            byte[] events = this.record_.getRound(this.round_);
+            if (this.offset_ >= events.length) {
+                this.round_++;
+                this.offset_ = 0;
+            }
+            else if (GameJournal.typeOf(events[this.offset_])
+                     == GameJournal.ROUND_START
+                     || GameJournal.typeOf(events[this.offset_])
+                        == GameJournal.DEAL
+                     || GameJournal.typeOf(events[this.offset_])
+                        == GameJournal.SCORE) {
+                this.offset_ += GameJournal.eventLength(events, this.offset_);
+            }
+            else {
+                type = GameJournal.typeOf(events[this.offset_]);
+            }
+        }
+        
+        if (GameJournal.seatOf(event(0)) != seat)
+            throw diverged("seat " + seat + " was asked to choose out of"
+                           + " turn");
+        return type;
+    }
+    
+    // Returns the byte at the specified position of the current event
+    private byte event(int position)
+    {
+        return this.record_.getRound(this.round_)[this.offset_ + position];
+    }
+    
+    // Moves past the current event
+    private void finishEvent()
+    {
+        byte[] events = this.record_.getRound(this.round_);
+        this.offset_       += GameJournal.eventLength(events, this.offset_);
+        this.nCardsPicked_  = 0;
+    }
+    
+    // Returns the exception for a replay that has gone differently to the
+    // record
+    private IllegalStateException diverged(String reason)
+    {
+        return new IllegalStateException("Game " + this.record_.getGameId()
+                                         + " diverged from its record in"
+                                         + " round " + this.round_ + ": "
+                                         + reason);
+    }
+    
+    // Chooses between the deck and the discard pile
+    private int chooseDraw(int seat, List<? extends Selectable> options)
+    {
+        int type = nextChoice(seat);
+        if (type != GameJournal.DRAW_DECK && type != GameJournal.DRAW_DISCARD)
+            throw diverged("seat " + seat + " drew where the record has none");
+        
+        boolean fromDiscards = type == GameJournal.DRAW_DISCARD;
+        int     choice       = -1;
+        for (int i = 0; i < options.size(); i++) {
+            if ((options.get(i) instanceof Stack) == fromDiscards)
+                choice = i;
+        }
+        finishEvent();
+        return choice;
+    }
+    
+    // Chooses to play the next meld of the record, or to end the turn
+    private int chooseAction(int seat, List<? extends Selectable> options)
+    {
+        if (this.nCardsPicked_ != 0)
+            throw diverged("a recorded meld could not be played");
+        
+        int        type = nextChoice(seat);
+        TurnAction anAction;
+        if (type == GameJournal.MELD)
+            anAction = event(2) == 1 ? TurnAction.ADD_CARD
+                                     : TurnAction.PLAY_MELD;
+        else if (type == GameJournal.DISCARD)
+            anAction = TurnAction.END_TURN;
+        else
+            throw diverged("seat " + seat + " drew twice in a turn");
+        return indexOf(options, anAction);
+    }
+    
+    // Chooses the number of cards in the recorded meld
+    private int chooseMeldSize(List<? extends Selectable> options)
+    {
+        int choice = -1;
+        for (int i = 0; i < options.size(); i++) {
+            if (((MeldSize) options.get(i)).getSize() == event(2))
+                choice = i;
+        }
+        if (choice < 0)
+            throw diverged("a meld of " + event(2) + " cards was not offered");
+        return choice;
+    }
+    
+    // Chooses the next recorded card of a meld, or the discard
+    private int chooseCard(List<? extends Selectable> options)
+    {
+        PlayingCard aCard;
+        if (GameJournal.typeOf(event(0)) == GameJournal.MELD) {
+            aCard = PlayingCard.fromId(event(3 + this.nCardsPicked_));
+            this.nCardsPicked_++;
+        }
+        else {
+            aCard = PlayingCard.fromId(event(1));
+            finishEvent();
+        }
+        return indexOf(options, aCard);
+    }
+    
+    // Chooses the recorded meld to play to
+    private int choosePlay(List<? extends Selectable> options)
+    {
+        int meld   = event(1) & 0xFF;
+        int choice = -1;
+        for (int i = options.size() - 1; i >= 0; i--) {
+            PlayOption aPlay = (PlayOption) options.get(i);
+            if (GameJournal.encodeMeld(aPlay) == meld)
+                choice = i;
+        }
+        if (choice < 0)
+            throw diverged("the recorded meld was not offered");
+        finishEvent();
+        return choice;
+    }
+    
+    // Returns the index of the specified option, which must be offered
+    private int indexOf(List<? extends Selectable> options,
+                        Selectable anOption)
+    {
+        int choice = options.indexOf(anOption);
+        if (choice < 0)
+            throw diverged(anOption.getMessage() + " was not offered");
+        return choice;
+    }
+    
+    // A player that answers every choice from the record, and ignores every
+    // message
+    private class ReplayPlayerIO extends PlayerIO
+    {
+        private final int seat_;
+        
+        // Constructor
+        ReplayPlayerIO(int seat)
+        {
+            this.seat_ = seat;
+        }
+        
+        /* (non-Javadoc)
+         * @see PlayerIO#sendMessage(String)
+         */
+        @Override
+        public void sendMessage(String message) {}
+        
+        /* (non-Javadoc)
+         * @see PlayerIO#sendMessage(Supplier)
+         */
+        @Override
+        public void sendMessage(Supplier<String> message) {}
+        
+        /* (non-Javadoc)
+         * @see PlayerIO#chooseInt(int, int)
+         */
+        @Override
+        public int chooseInt(int lowerBound, int upperBound)
+        {
+            throw diverged("seat " + this.seat_ + " was asked for a number");
+        }
+        
+        /* (non-Javadoc)
+         * @see PlayerIO#choose(DecisionContext, List)
+         */
+        @Override
+        public int choose(DecisionContext context,
+                          List<? extends Selectable> options)
+        {
+            Selectable first = options.get(0);
+            int        choice;
+            if (first instanceof Drawable)
+                choice = chooseDraw(this.seat_, options);
+            else if (first instanceof TurnAction)
+                choice = chooseAction(this.seat_, options);
+            else if (first instanceof MeldSize)
+                choice = chooseMeldSize(options);
+            else if (first instanceof PlayingCard)
+                choice = chooseCard(options);
+            else if (first instanceof PlayOption)
+                choice = choosePlay(options);
+            else
+                throw diverged("seat " + this.seat_ + " was asked an"
+                               + " unknown question");
+            return choice;
+        }
+    }
+    
+    // Checks each round of the replay against the record once it is scored
+    private class Verifier extends GameJournal.RoundEncoder
+    {
+        private int nRounds_;
+        
+        // Constructor
+        Verifier()
+        {
+            this.nRounds_ = 0;
+        }
+        
+        /* (non-Javadoc)
+         * @see GameJournal.RoundEncoder#roundEncoded(byte[], int)
+         */
+        @Override
+        void roundEncoded(byte[] events, int nBytes)
+        {
+            byte[] recorded = GameReplay.this.record_.getRound(this.nRounds_);
+            boolean matches = recorded.length == nBytes;
+            for (int i = 0; matches && i < nBytes; i++)
+                matches = recorded[i] == events[i];
+            if (!matches)
+                throw diverged("the events of the round differ");
+            this.nRounds_++;
+        }
+    }
+    
+    // The states kept for seeking into a round
+    private static class Keyframes
+    {
+        private final GameState[] states_;
+        private final int[]       offsets_;
+        private final int         nTurns_;
+        
+        // Constructor
+        Keyframes(int nFrames, int nTurns)
+        {
+            this.states_  = new GameState[nFrames];
+            this.offsets_ = new int[nFrames];
+            this.nTurns_  = nTurns;
+        }
+    }
+    
+    // Replays every game in a journal written by a {@code Tournament} on
+    // every processor, then seeks through every round, and reports how long
+    // each took. Takes the file of the journal and the seed of the
+    // {@code Tournament} as arguments.
+    public static void main(String[] args)
+        throws IOException
+    {
+        long             seed    = args.length > 1 ? Long.parseLong(args[1])
+                                                   : 0;
+        List<GameRecord> records = GameJournal.read(Paths.get(args[0]));
+        List<GameReplay> replays = new ArrayList<GameReplay>();
+        for (GameRecord aRecord : records) {
+            long gameSeed = Simulator.gameSeed(seed, aRecord.getGameId());
+            replays.add(new GameReplay(aRecord, gameSeed,
+                                       Simulator.TURN_LIMIT));
+        }
+        
+        // Each replay plays its own {@code Game}, so they may run in parallel
+        long startTime = System.nanoTime();
+        replays.parallelStream().forEach(GameReplay::replay);
+        double replaySeconds = (System.nanoTime() - startTime) / 1e9;
+        
+        startTime = System.nanoTime();
+        int nSeeks = 0;
+        for (GameReplay aReplay : replays) {
+            if (!aReplay.canSeek())
+                continue;
+            for (int i = 0; i < aReplay.record_.getRoundCount(); i++) {
+                int nTurns = aReplay.getTurnCount(i);
+                for (int turn = 0; turn <= nTurns; turn += 7) {
+                    aReplay.seek(i, turn);
+                    nSeeks++;
+                }
+            }
+        }
+        double seekSeconds = (System.nanoTime() - startTime) / 1e9;
+        
+        System.out.println(String.format("Replayed %d games in %.3f seconds"
+                                         + " (%.1f games/sec)", replays.size(),
+                                         replaySeconds,
+                                         replays.size() / replaySeconds));
+        if (nSeeks > 0)
+            System.out.println(String.format("Made %d seeks in %.3f seconds,"
+                                             + " keyframes included (%.2f us"
+                                             + " per seek)", nSeeks,
+                                             seekSeconds,
+                                             seekSeconds * 1e6 / nSeeks));
+    }
+}
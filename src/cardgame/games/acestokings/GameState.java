@@ -0,0 +1,641 @@
+package cardgame.games.acestokings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import cardgame.card.traditional.CardSet;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.card.traditional.Rank;
+import cardgame.card.traditional.Suit;
+import cardgame.games.acestokings.melds.MeldsManager;
+
+/**
+ * An immutable snapshot of a round of Aces to Kings, for players that search
+ * ahead through possible plays.
+ * <p>
+ * Every group of {@code PlayingCard}s is held as the bits of a {@code long},
+ * indexed by id as in a {@code CardSet}: the deck, each hand, and the
+ * {@code PlayingCard}s other than jokers in the rank melds and in the runs.
+ * The discard pile is a linked stack, shared between states. Each of the four
+ * jokers has a byte saying where it has been melded, and each run has a byte
+ * for the value of its aces.
+ * <p>
+ * Drawing, playing to a meld and discarding each return a new
+ * {@code GameState}, sharing whatever did not change, and leave this one as
+ * it was. Undoing a move is a matter of going back to the earlier state. The
+ * order of the deck is not held, so drawing from it names the
+ * {@code PlayingCard} drawn.
+ * 
+ * @see CardSet
+ * @see Board
+ */
+public class GameState
+{
+    /**
+     * The value of a low ace in a run.
+     */
+    public static final int LOW_ACE_VALUE  = Rank.TWO.getValue() - 1;
+    
+    /**
+     * The value of a high ace in a run.
+     */
+    public static final int HIGH_ACE_VALUE = Rank.KING.getValue() + 1;
+    
+    // Where a joker is melded. Jokers in a rank meld take the ordinal of its
+    // {@code Rank}, and jokers in a run take RUN_PLACES plus the run's
+    // {@code Suit} ordinal times the suit stride plus the value mimicked.
+    private static final byte   NOT_MELDED = -1;
+    private static final int    RUN_PLACES = PlayingCard.SUIT_STRIDE;
+    private static final int    NO_CARD    = -1;
+    private static final Suit[] SUITS      = { Suit.CLUBS, Suit.DIAMONDS,
+                                               Suit.HEARTS, Suit.SPADES };
+    private static final long   JOKER_BITS = CardSet.rankBits(Rank.JOKER);
+    
+    // None of these are changed once a {@code GameState} has been returned
+    private long    deck_;
+    private long[]  hands_;
+    private Discard discards_;
+    private long    rankMelds_;
+    private long    runMelds_;
+    private byte[]  jokerPlaces_;
+    private byte[]  aceValues_;
+    private int     currentPlayer_;
+    private boolean hasDrawn_;
+    private int     drawnDiscard_;
+    private Rank    roundRank_;
+    
+    // Constructor for an empty round
+    private GameState(int nPlayers, Rank roundRank)
+    {
+        this.deck_          = 0L;
+        this.hands_         = new long[nPlayers];
+        this.discards_      = null;
+        this.rankMelds_     = 0L;
+        this.runMelds_      = 0L;
+        this.jokerPlaces_   = new byte[GameState.SUITS.length];
+        this.aceValues_     = new byte[GameState.SUITS.length];
+        this.currentPlayer_ = 0;
+        this.hasDrawn_      = false;
+        this.drawnDiscard_  = GameState.NO_CARD;
+        this.roundRank_     = roundRank;
+        Arrays.fill(this.jokerPlaces_, GameState.NOT_MELDED);
+    }
+    
+    // Constructor for a copy which shares the arrays of the original
+    private GameState(GameState aState)
+    {
+        this.deck_          = aState.deck_;
+        this.hands_         = aState.hands_;
+        this.discards_      = aState.discards_;
+        this.rankMelds_     = aState.rankMelds_;
+        this.runMelds_      = aState.runMelds_;
+        this.jokerPlaces_   = aState.jokerPlaces_;
+        this.aceValues_     = aState.aceValues_;
+        this.currentPlayer_ = aState.currentPlayer_;
+        this.hasDrawn_      = aState.hasDrawn_;
+        this.drawnDiscard_  = aState.drawnDiscard_;
+        this.roundRank_     = aState.roundRank_;
+    }
+    
+    // Captures the state of a round being played on a {@code Board}.
+    //
+    // @param  aBoard        the {@code Board} the round is played on
+    // @param  hands         the hands of the players, in seating order
+    // @param  currentPlayer the index of the player whose turn it is
+    // @param  hasDrawn      whether the current player has drawn this turn
+    // @param  drawnDiscard  the {@code PlayingCard} the current player drew
+    //                       from the discard pile this turn, or {@code null}
+    // @return the captured {@code GameState}
+    // @throws IllegalStateException if the round is dealt from a shoe of
+    //                               more than one deck, whose copies of a
+    //                               {@code PlayingCard} share a bit
+    static GameState capture(Board aBoard,
+                             List<? extends Iterable<PlayingCard>> hands,
+                             int currentPlayer, boolean hasDrawn,
+                             PlayingCard drawnDiscard)
+    {
+        if (aBoard.getDeck().getDeckCount() > 1)
+            throw new IllegalStateException("A game dealt from more than one"
+                                            + " deck can not be captured");
+        
+        AcesToKingsDeck deck  = aBoard.getDeck();
+        GameState       state = new GameState(hands.size(),
+                                              deck.getRoundRank());
+        for (PlayingCard aCard : deck)
+            state.deck_ |= CardSet.bitOf(aCard);
+        
+        int i = 0;
+        for (Iterable<PlayingCard> aHand : hands) {
+            for (PlayingCard aCard : aHand)
+                state.hands_[i] |= CardSet.bitOf(aCard);
+            i++;
+        }
+        
+        // The stack is iterated from the top, so is linked from the bottom
+        List<PlayingCard> discards = new ArrayList<PlayingCard>();
+        for (PlayingCard aCard : aBoard.getDiscards())
+            discards.add(aCard);
+        for (int j = discards.size() - 1; j >= 0; j--)
+            state.discards_ = new Discard(discards.get(j), state.discards_);
+        
+        state.captureMelds(aBoard.getMelds());
+        state.currentPlayer_ = currentPlayer;
+        state.hasDrawn_      = hasDrawn;
+        state.drawnDiscard_  = drawnDiscard == null ? GameState.NO_CARD
+                                                    : drawnDiscard.getId();
+        return state;
+    }
+    
+    // Returns the state at the start of a round, once every hand has been
+    // dealt and the top {@code PlayingCard} of the deck turned onto the
+    // discard pile.
+    static GameState deal(Rank roundRank, long deck, long[] hands,
+                          PlayingCard topDiscard, int startingPlayer)
+    {
+        GameState state      = new GameState(hands.length, roundRank);
+        state.deck_          = deck;
+        state.hands_         = hands.clone();
+        state.discards_      = new Discard(topDiscard, null);
+        state.currentPlayer_ = startingPlayer;
+        return state;
+    }
+    
+    // Returns a copy of this state with the deck and the hands replaced by
+    // the specified {@code PlayingCard}s, for guessing at the
+    // {@code PlayingCard}s a player can not see.
+    GameState withDeal(long deck, long[] hands)
+    {
+        GameState dealt = new GameState(this);
+        dealt.deck_     = deck;
+        dealt.hands_    = hands.clone();
+        return dealt;
+    }
+    
+    // Captures the contents of the melds
+    private void captureMelds(MeldsManager melds)
+    {
+        for (Rank aRank : EnumSet.range(Rank.ACE, Rank.KING)) {
+            long bits        = melds.getRankMeldBits(aRank);
+            this.rankMelds_ |= bits & ~GameState.JOKER_BITS;
+            for (Suit jokerSuit : GameState.SUITS) {
+                PlayingCard aJoker = PlayingCard.of(Rank.JOKER, jokerSuit);
+                if ((bits & CardSet.bitOf(aJoker)) != 0)
+                    this.jokerPlaces_[jokerSuit.ordinal()] = (byte)
+                                                             aRank.ordinal();
+            }
+        }
+        
+        for (Suit aSuit : GameState.SUITS) {
+            this.runMelds_ |= melds.getRunMeldBits(aSuit)
+                              & ~GameState.JOKER_BITS;
+            this.aceValues_[aSuit.ordinal()] = (byte)
+                                               melds.getRunMeldAceValue(aSuit);
+            for (Suit jokerSuit : GameState.SUITS) {
+                PlayingCard aJoker = PlayingCard.of(Rank.JOKER, jokerSuit);
+                int         value  = melds.getRunMeldJokerValue(aSuit, aJoker);
+                if (value >= 0)
+                    this.jokerPlaces_[jokerSuit.ordinal()] = runPlace(aSuit,
+                                                                      value);
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of players in the round.
+     * 
+     * @return the number of players
+     */
+    public int getPlayerCount()
+    {
+        return this.hands_.length;
+    }
+    
+    /**
+     * Returns the index of the player whose turn it is.
+     * 
+     * @return the index of the current player, in seating order
+     */
+    public int getCurrentPlayer()
+    {
+        return this.currentPlayer_;
+    }
+    
+    /**
+     * Returns the {@code Rank} that has been taken out of the deck for the
+     * round.
+     * 
+     * @return the {@code Rank} of the round
+     */
+    public Rank getRoundRank()
+    {
+        return this.roundRank_;
+    }
+    
+    /**
+     * Returns the {@code PlayingCard}s left in the deck.
+     * 
+     * @return the bits of the {@code PlayingCard}s, as held by a
+     *         {@code CardSet}
+     */
+    public long getDeckBits()
+    {
+        return this.deck_;
+    }
+    
+    /**
+     * Returns the {@code PlayingCard}s in the hand of the specified player.
+     * 
+     * @param  player the index of the player
+     * @return the bits of the {@code PlayingCard}s, as held by a
+     *         {@code CardSet}
+     */
+    public long getHandBits(int player)
+    {
+        return this.hands_[player];
+    }
+    
+    /**
+     * Returns the top {@code PlayingCard} of the discard pile.
+     * 
+     * @return the top {@code PlayingCard}, or {@code null} if the discard
+     *         pile is empty
+     */
+    public PlayingCard getTopDiscard()
+    {
+        return this.discards_ == null ? null : this.discards_.card_;
+    }
+    
+    /**
+     * Returns the number of {@code PlayingCard}s in the discard pile.
+     * 
+     * @return the size of the discard pile
+     */
+    public int getDiscardCount()
+    {
+        return this.discards_ == null ? 0 : this.discards_.size_;
+    }
+    
+    /**
+     * Checks if the current player has drawn a {@code PlayingCard} this turn.
+     * 
+     * @return {@code true} if the current player has drawn
+     */
+    public boolean hasDrawn()
+    {
+        return this.hasDrawn_;
+    }
+    
+    /**
+     * Returns the {@code PlayingCard} that the current player drew from the
+     * discard pile this turn, which they may not discard again.
+     * 
+     * @return the {@code PlayingCard}, or {@code null} if the current player
+     *         has not drawn from the discard pile
+     */
+    public PlayingCard getDrawnDiscard()
+    {
+        return this.drawnDiscard_ == GameState.NO_CARD
+               ? null : PlayingCard.fromId(this.drawnDiscard_);
+    }
+    
+    /**
+     * Returns the {@code PlayingCard}s in the meld of the specified
+     * {@code Rank}, jokers included.
+     * 
+     * @param  aRank the {@code Rank} of the meld
+     * @return the bits of the {@code PlayingCard}s, as held by a
+     *         {@code CardSet}
+     */
+    public long getRankMeldBits(Rank aRank)
+    {
+        long bits = this.rankMelds_ & CardSet.rankBits(aRank);
+        for (Suit jokerSuit : GameState.SUITS) {
+            if (this.jokerPlaces_[jokerSuit.ordinal()] == aRank.ordinal())
+                bits |= CardSet.bitOf(PlayingCard.of(Rank.JOKER, jokerSuit));
+        }
+        return bits;
+    }
+    
+    /**
+     * Returns the positions taken in the run of the specified {@code Suit},
+     * jokers included.
+     * 
+     * @param  aSuit the {@code Suit} of the run
+     * @return an {@code int} with a bit set for the value of each position
+     *         taken, an ace taking the value of aces in the run
+     * @see    #getRunMeldAceValue(Suit)
+     */
+    public int getRunMeldValues(Suit aSuit)
+    {
+        int  values = 0;
+        long suitBits = this.runMelds_ & GameState.suitBits(aSuit);
+        for (long bits = suitBits; bits != 0; bits &= bits - 1) {
+            int  id    = Long.numberOfTrailingZeros(bits);
+            Rank aRank = PlayingCard.fromId(id).getRank();
+            values    |= 1 << valueInRun(aRank, aSuit);
+        }
+        for (Suit jokerSuit : GameState.SUITS) {
+            int value = runValue(this.jokerPlaces_[jokerSuit.ordinal()],
+                                 aSuit);
+            if (value >= 0)
+                values |= 1 << value;
+        }
+        return values;
+    }
+    
+    /**
+     * Returns the value of aces in the run of the specified {@code Suit}.
+     * 
+     * @param  aSuit the {@code Suit} of the run
+     * @return the value of aces, or zero if it has not been fixed yet
+     */
+    public int getRunMeldAceValue(Suit aSuit)
+    {
+        return this.aceValues_[aSuit.ordinal()];
+    }
+    
+    /**
+     * Checks if the round is over, which is when any player has no
+     * {@code PlayingCard}s left.
+     * 
+     * @return {@code true} if a player's hand is empty
+     */
+    public boolean isRoundOver()
+    {
+        boolean roundOver = false;
+        for (long aHand : this.hands_)
+            roundOver = roundOver || aHand == 0L;
+        return roundOver;
+    }
+    
+    /**
+     * Returns the points the specified player would score with the
+     * {@code PlayingCard}s left in their hand.
+     * 
+     * @param  player the index of the player
+     * @return the points of the hand
+     */
+    public int getHandPoints(int player)
+    {
+        int points = 0;
+        for (long bits = this.hands_[player]; bits != 0; bits &= bits - 1) {
+            int id  = Long.numberOfTrailingZeros(bits);
+            points += Game.pointsOf(PlayingCard.fromId(id).getRank());
+        }
+        return points;
+    }
+    
+    /**
+     * Returns the state after the current player draws the specified
+     * {@code PlayingCard} from the deck. If the deck is then empty, it is
+     * refilled with all but the top {@code PlayingCard} of the discard pile.
+     * 
+     * @param  aCard the {@code PlayingCard} drawn
+     * @return the new {@code GameState}
+     * @throws IllegalArgumentException if the {@code PlayingCard} is not in
+     *                                  the deck
+     */
+    public GameState drawFromDeck(PlayingCard aCard)
+    {
+        long bit = CardSet.bitOf(aCard);
+        if ((this.deck_ & bit) == 0)
+            throw new IllegalArgumentException(aCard + " is not in the deck");
+        
+        GameState next = new GameState(this);
+        next.deck_     = this.deck_ & ~bit;
+        next.hasDrawn_ = true;
+        next.addToHand(bit);
+        if (next.deck_ == 0L && next.discards_ != null) {
+            for (Discard aDiscard = next.discards_.below_; aDiscard != null;
+                 aDiscard = aDiscard.below_)
+                next.deck_ |= CardSet.bitOf(aDiscard.card_);
+            next.discards_ = new Discard(next.discards_.card_, null);
+        }
+        return next;
+    }
+    
+    /**
+     * Returns the state after the current player draws the top
+     * {@code PlayingCard} of the discard pile.
+     * 
+     * @return the new {@code GameState}
+     * @throws IllegalStateException if the discard pile is empty
+     */
+    public GameState drawFromDiscards()
+    {
+        if (this.discards_ == null)
+            throw new IllegalStateException("The discard pile is empty");
+        
+        PlayingCard aCard = this.discards_.card_;
+        GameState   next   = new GameState(this);
+        next.discards_     = this.discards_.below_;
+        next.hasDrawn_     = true;
+        next.drawnDiscard_ = aCard.getId();
+        next.addToHand(CardSet.bitOf(aCard));
+        return next;
+    }
+    
+    /**
+     * Returns the state after the current player discards the specified
+     * {@code PlayingCard}, ending their turn.
+     * 
+     * @param  aCard the {@code PlayingCard} to discard
+     * @return the new {@code GameState}
+     * @throws IllegalArgumentException if the {@code PlayingCard} is not in
+     *                                  the current player's hand, or was
+     *                                  drawn from the discard pile this turn
+     */
+    public GameState discard(PlayingCard aCard)
+    {
+        if (aCard.getId() == this.drawnDiscard_)
+            throw new IllegalArgumentException(aCard + " was drawn from the"
+                                               + " discard pile this turn");
+        
+        GameState next      = new GameState(this);
+        next.removeFromHand(CardSet.bitOf(aCard));
+        next.discards_      = new Discard(aCard, this.discards_);
+        next.currentPlayer_ = (this.currentPlayer_ + 1) % this.hands_.length;
+        next.hasDrawn_      = false;
+        next.drawnDiscard_  = GameState.NO_CARD;
+        return next;
+    }
+    
+    /**
+     * Returns the state after the current player plays the specified
+     * {@code PlayingCard}s to the meld of the specified {@code Rank}. As many
+     * jokers as there are other {@code PlayingCard}s played are picked up
+     * from the meld, lowest {@code Suit} first.
+     * <p>
+     * Whether the play is allowed by the rules is not checked.
+     * 
+     * @param  aRank the {@code Rank} of the meld
+     * @param  cards the {@code PlayingCard}s to play
+     * @return the new {@code GameState}
+     * @throws IllegalArgumentException if a {@code PlayingCard} is not in the
+     *                                  current player's hand
+     */
+    public GameState playToRankMeld(Rank aRank, PlayingCard... cards)
+    {
+        GameState next       = new GameState(this);
+        int       nNonJokers = 0;
+        for (PlayingCard aCard : cards) {
+            next.removeFromHand(CardSet.bitOf(aCard));
+            if (aCard.getRank() != Rank.JOKER)
+                nNonJokers++;
+        }
+        
+        // Picking up jokers before placing any that are played
+        byte place = (byte) aRank.ordinal();
+        for (Suit jokerSuit : GameState.SUITS) {
+            int jokerIndex = jokerSuit.ordinal();
+            if (nNonJokers > 0 && next.jokerPlaces_[jokerIndex] == place) {
+                next.moveJoker(jokerSuit, GameState.NOT_MELDED);
+                next.addToHand(CardSet.bitOf(PlayingCard.of(Rank.JOKER,
+                                                            jokerSuit)));
+                nNonJokers--;
+            }
+        }
+        
+        for (PlayingCard aCard : cards) {
+            if (aCard.getRank() == Rank.JOKER)
+                next.moveJoker(aCard.getSuit(), place);
+            else
+                next.rankMelds_ |= CardSet.bitOf(aCard);
+        }
+        return next;
+    }
+    
+    /**
+     * Returns the state after the current player plays the specified
+     * {@code PlayingCard}s, in order, to the run of the specified
+     * {@code Suit}. Any joker in a position taken by another
+     * {@code PlayingCard} is picked up. Playing an ace, or a joker as one,
+     * fixes the value of aces in the run if it was not already.
+     * <p>
+     * Whether the play is allowed by the rules is not checked.
+     * 
+     * @param  aSuit      the {@code Suit} of the run
+     * @param  firstValue the value of the first position played to, where a
+     *                    low ace is {@link #LOW_ACE_VALUE} and a high ace is
+     *                    {@link #HIGH_ACE_VALUE}
+     * @param  cards      the {@code PlayingCard}s to play
+     * @return the new {@code GameState}
+     * @throws IllegalArgumentException if a {@code PlayingCard} is not in the
+     *                                  current player's hand
+     */
+    public GameState playToRunMeld(Suit aSuit, int firstValue,
+                                   PlayingCard... cards)
+    {
+        GameState next  = new GameState(this);
+        int       value = firstValue;
+        for (PlayingCard aCard : cards) {
+            next.removeFromHand(CardSet.bitOf(aCard));
+            byte place = GameState.runPlace(aSuit, value);
+            
+            if (aCard.getRank() == Rank.JOKER) {
+                next.moveJoker(aCard.getSuit(), place);
+            }
+            else {
+                for (Suit jokerSuit : GameState.SUITS) {
+                    if (next.jokerPlaces_[jokerSuit.ordinal()] == place) {
+                        next.moveJoker(jokerSuit, GameState.NOT_MELDED);
+                        next.addToHand(CardSet.bitOf(PlayingCard.of(
+                                           Rank.JOKER, jokerSuit)));
+                    }
+                }
+                next.runMelds_ |= CardSet.bitOf(aCard);
+            }
+            
+            boolean isAce = value == GameState.LOW_ACE_VALUE
+                            || value == GameState.HIGH_ACE_VALUE;
+            if (isAce && next.aceValues_[aSuit.ordinal()] == 0) {
+                next.aceValues_ = next.aceValues_.clone();
+                next.aceValues_[aSuit.ordinal()] = (byte) value;
+            }
+            value++;
+        }
+        return next;
+    }
+    
+    // Adds the {@code PlayingCard} of the specified bit to the current
+    // player's hand, copying the hands first.
+    private void addToHand(long bit)
+    {
+        this.hands_                      = this.hands_.clone();
+        this.hands_[this.currentPlayer_] |= bit;
+    }
+    
+    // Removes the {@code PlayingCard} of the specified bit from the current
+    // player's hand, copying the hands first.
+    private void removeFromHand(long bit)
+    {
+        long hand = this.hands_[this.currentPlayer_];
+        if ((hand & bit) == 0)
+            throw new IllegalArgumentException(
+                          PlayingCard.fromId(Long.numberOfTrailingZeros(bit))
+                          + " is not in the hand of the current player");
+        this.hands_                      = this.hands_.clone();
+        this.hands_[this.currentPlayer_] = hand & ~bit;
+    }
+    
+    // Moves the joker of the specified {@code Suit} to the specified place,
+    // copying the joker places first.
+    private void moveJoker(Suit jokerSuit, byte place)
+    {
+        this.jokerPlaces_                      = this.jokerPlaces_.clone();
+        this.jokerPlaces_[jokerSuit.ordinal()] = place;
+    }
+    
+    // Returns the value of the position the specified {@code Rank} takes in
+    // the run of the specified {@code Suit}.
+    private int valueInRun(Rank aRank, Suit aSuit)
+    {
+        return aRank == Rank.ACE ? this.aceValues_[aSuit.ordinal()]
+                                 : aRank.getValue();
+    }
+    
+    // Returns the bits of every {@code PlayingCard} of the specified
+    // {@code Suit}, jokers included.
+    private static long suitBits(Suit aSuit)
+    {
+        long suitMask = (1L << PlayingCard.SUIT_STRIDE) - 1;
+        return suitMask << (aSuit.ordinal() * PlayingCard.SUIT_STRIDE);
+    }
+    
+    // Returns the joker place of the specified position in a run
+    private static byte runPlace(Suit aSuit, int value)
+    {
+        return (byte) (GameState.RUN_PLACES
+                       + aSuit.ordinal() * PlayingCard.SUIT_STRIDE + value);
+    }
+    
+    // Returns the value of a joker place in the run of the specified
+    // {@code Suit}, or a negative number if the place is elsewhere.
+    private static int runValue(byte place, Suit aSuit)
+    {
+        int value = place - GameState.RUN_PLACES
+                    - aSuit.ordinal() * PlayingCard.SUIT_STRIDE;
+        boolean inRun = value >= GameState.LOW_ACE_VALUE
+                        && value <= GameState.HIGH_ACE_VALUE;
+        return inRun ? value : -1;
+    }
+    
+    // A {@code PlayingCard} in the discard pile, linked to the one below it.
+    // Pushing and popping share the rest of the pile between states.
+    private static class Discard
+    {
+        private final PlayingCard card_;
+        private final Discard     below_;
+        private final int         size_;
+        
+        // Constructor
+        Discard(PlayingCard aCard, Discard below)
+        {
+            this.card_  = aCard;
+            this.below_ = below;
+            this.size_  = below == null ? 1 : below.size_ + 1;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package cardgame.games.acestokings;
+
+/**
+ * A {@code PlayerIO} that wants to see the state of the round before it is
+ * asked to make a choice. Each {@code Turn} captures a {@code GameState} for
+ * its player only if the player's {@code PlayerIO} is a
+ * {@code GameStateObserver}, so other players pay nothing for it.
+ * <p>
+ * A {@code GameState} holds every hand, so an observer that plays fairly
+ * must only look at its own.
+ * 
+ * @see GameState
+ * @see Turn
+ */
+public interface GameStateObserver
+{
+    /**
+     * Called with the state of the round before the player draws, and again
+     * before each choice of what to do next.
+     * 
+     * @param aState the current {@code GameState}
+     */
+    void observe(GameState aState);
+}
@@ -0,0 +1,322 @@
+package cardgame.games.acestokings;
+
+import cardgame.card.Hand;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.card.traditional.Rank;
+import cardgame.games.acestokings.melds.PlayOption;
+
+/**
+ * A {@code GameListener} that gathers statistics over any number of
+ * {@code Game}s as they are played: the points scored in each round, the
+ * length of each round and game in turns, how often each
+ * {@code TurnAction} is chosen, how many jokers are picked up from rank and
+ * run melds, and how often the deck runs out and is refilled.
+ * <p>
+ * Nothing is kept of a {@code Game} once it is over but its contribution to
+ * the counts and {@code Histogram}s, so a {@code GameStatistics} takes the
+ * same memory however many {@code Game}s it has listened to. It should be
+ * added to one {@code Game} at a time, and is not safe for use by several
+ * threads at once. Games played in parallel should each thread keep its own
+ * {@code GameStatistics}, merging them once every game is over, as a
+ * {@code Tournament} does.
+ * 
+ * @see Histogram
+ * @see Tournament#setStatistics(GameStatistics)
+ */
+public class GameStatistics
+    implements GameListener
+{
+    private static final TurnAction[] ACTIONS = TurnAction.values();
+    
+    private final Histogram[] roundScores_;
+    private final Histogram   roundTurns_;
+    private final Histogram   gameTurns_;
+    private final long[]      actionCounts_;
+    private long              nGames_;
+    private long              nRankMeldPlays_;
+    private long              nRunMeldPlays_;
+    private long              nRankMeldJokers_;
+    private long              nRunMeldJokers_;
+    private long              nRefills_;
+    private int               round_;
+    private int               nTurnsInRound_;
+    private int               nTurnsInGame_;
+    
+    /**
+     * Sole constructor. The initialised {@code GameStatistics} will have
+     * listened to no {@code Game}s.
+     */
+    public GameStatistics()
+    {
+        this.roundScores_     = new Histogram[Game.ROUNDS_TO_PLAY];
+        this.roundTurns_      = new Histogram();
+        this.gameTurns_       = new Histogram();
+        this.actionCounts_    = new long[GameStatistics.ACTIONS.length];
+        this.nGames_          = 0;
+        this.nRankMeldPlays_  = 0;
+        this.nRunMeldPlays_   = 0;
+        this.nRankMeldJokers_ = 0;
+        this.nRunMeldJokers_  = 0;
+        this.nRefills_        = 0;
+        this.round_           = 0;
+        this.nTurnsInRound_   = 0;
+        this.nTurnsInGame_    = 0;
+        for (int i = 0; i < Game.ROUNDS_TO_PLAY; i++)
+            this.roundScores_[i] = new Histogram();
+    }
+    
+    /* (non-Javadoc)
+     * @see GameListener#roundStarted(int, Rank, PlayingCard)
+     */
+    @Override
+    public void roundStarted(int round, Rank jokerRank, PlayingCard topDiscard)
+    {
+        this.round_         = round % Game.ROUNDS_TO_PLAY;
+        this.nTurnsInRound_ = 0;
+        if (round == 0)
+            this.nTurnsInGame_ = 0;
+    }
+    
+    /* (non-Javadoc)
+     * @see GameListener#handDealt(int, Hand)
+     */
+    @Override
+    public void handDealt(int seat, Hand<PlayingCard> hand)
+    {
+    }
+    
+    /* (non-Javadoc)
+     * @see GameListener#cardDrawn(int, PlayingCard, boolean)
+     */
+    @Override
+    public void cardDrawn(int seat, PlayingCard aCard, boolean fromDiscards)
+    {
+    }
+    
+    /* (non-Javadoc)
+     * @see GameListener#meldPlayed(int, PlayOption, PlayingCard[])
+     */
+    @Override
+    public void meldPlayed(int seat, PlayOption aPlay, PlayingCard... cards)
+    {
+        if (aPlay.getMeldRank() != null)
+            this.nRankMeldPlays_++;
+        else
+            this.nRunMeldPlays_++;
+    }
+    
+    /* (non-Javadoc)
+     * @see GameListener#actionChosen(int, TurnAction)
+     */
+    @Override
+    public void actionChosen(int seat, TurnAction anAction)
+    {
+        this.actionCounts_[anAction.ordinal()]++;
+    }
+    
+    /* (non-Javadoc)
+     * @see GameListener#jokersPickedUp(int, PlayOption, int)
+     */
+    @Override
+    public void jokersPickedUp(int seat, PlayOption aPlay, int nJokers)
+    {
+        if (aPlay.getMeldRank() != null)
+            this.nRankMeldJokers_ += nJokers;
+        else
+            this.nRunMeldJokers_ += nJokers;
+    }
+    
+    /* (non-Javadoc)
+     * @see GameListener#deckRefilled(int)
+     */
+    @Override
+    public void deckRefilled(int nCards)
+    {
+        this.nRefills_++;
+    }
+    
+    /**
+     * Counts the turn ended by the discard. Every turn ends with one.
+     * 
+     * @see GameListener#cardDiscarded(int, PlayingCard)
+     */
+    @Override
+    public void cardDiscarded(int seat, PlayingCard aCard)
+    {
+        this.nTurnsInRound_++;
+        this.nTurnsInGame_++;
+    }
+    
+    /**
+     * Records the points of every seat and the length of the round, and of
+     * the game if this was its last round.
+     * 
+     * @see GameListener#roundScored(int[])
+     */
+    @Override
+    public void roundScored(int[] points)
+    {
+        Histogram scores = this.roundScores_[this.round_];
+        for (int seatPoints : points)
+            scores.record(seatPoints);
+        this.roundTurns_.record(this.nTurnsInRound_);
+        if (this.round_ == Game.ROUNDS_TO_PLAY - 1) {
+            this.gameTurns_.record(this.nTurnsInGame_);
+            this.nGames_++;
+        }
+    }
+    
+    /**
+     * Adds everything gathered by the specified {@code GameStatistics} to
+     * this one. The other {@code GameStatistics} is left unchanged, and any
+     * {@code Game} it is part way through is not counted.
+     * 
+     * @param other the {@code GameStatistics} to merge in
+     */
+    public void merge(GameStatistics other)
+    {
+        for (int i = 0; i < Game.ROUNDS_TO_PLAY; i++)
+            this.roundScores_[i].merge(other.roundScores_[i]);
+        this.roundTurns_.merge(other.roundTurns_);
+        this.gameTurns_.merge(other.gameTurns_);
+        for (int i = 0; i < this.actionCounts_.length; i++)
+            this.actionCounts_[i] += other.actionCounts_[i];
+        this.nGames_          += other.nGames_;
+        this.nRankMeldPlays_  += other.nRankMeldPlays_;
+        this.nRunMeldPlays_   += other.nRunMeldPlays_;
+        this.nRankMeldJokers_ += other.nRankMeldJokers_;
+        this.nRunMeldJokers_  += other.nRunMeldJokers_;
+        this.nRefills_        += other.nRefills_;
+    }
+    
+    /**
+     * Returns the number of {@code Game}s played through to the end.
+     * 
+     * @return the number of {@code Game}s
+     */
+    public long getGameCount()
+    {
+        return this.nGames_;
+    }
+    
+    /**
+     * Returns the {@code Histogram} of the points scored by each seat in
+     * the round of the specified index.
+     * 
+     * @param  round the index of the round, starting from zero
+     * @return the {@code Histogram} of the points scored
+     */
+    public Histogram getRoundScores(int round)
+    {
+        return this.roundScores_[round];
+    }
+    
+    /**
+     * Returns the {@code Histogram} of the number of turns in each round.
+     * 
+     * @return the {@code Histogram} of the turns per round
+     */
+    public Histogram getRoundTurns()
+    {
+        return this.roundTurns_;
+    }
+    
+    /**
+     * Returns the {@code Histogram} of the number of turns in each
+     * {@code Game}.
+     * 
+     * @return the {@code Histogram} of the turns per {@code Game}
+     */
+    public Histogram getGameTurns()
+    {
+        return this.gameTurns_;
+    }
+    
+    /**
+     * Returns the number of times the specified {@code TurnAction} was
+     * chosen.
+     * 
+     * @param  anAction the {@code TurnAction} to count
+     * @return the number of times it was chosen
+     */
+    public long getActionCount(TurnAction anAction)
+    {
+        return this.actionCounts_[anAction.ordinal()];
+    }
+    
+    /**
+     * Returns the mean number of jokers picked up by a play to a rank meld.
+     * 
+     * @return the jokers picked up per play, or zero if none were made
+     */
+    public double getRankMeldJokerRate()
+    {
+        return GameStatistics.rate(this.nRankMeldJokers_,
+                                   this.nRankMeldPlays_);
+    }
+    
+    /**
+     * Returns the mean number of jokers picked up by a play to a run meld.
+     * 
+     * @return the jokers picked up per play, or zero if none were made
+     */
+    public double getRunMeldJokerRate()
+    {
+        return GameStatistics.rate(this.nRunMeldJokers_, this.nRunMeldPlays_);
+    }
+    
+    /**
+     * Returns the number of times the deck ran out and was refilled from
+     * the discard pile.
+     * 
+     * @return the number of refills
+     */
+    public long getRefillCount()
+    {
+        return this.nRefills_;
+    }
+    
+    /**
+     * Returns a report of the statistics gathered, one line for each.
+     * 
+     * @return the report of this {@code GameStatistics}
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append("Statistics over " + this.nGames_ + " games:");
+        report.append("\n  Turns per game:  " + this.gameTurns_);
+        report.append("\n  Turns per round: " + this.roundTurns_);
+        for (int i = 0; i < Game.ROUNDS_TO_PLAY; i++)
+            report.append(String.format("\n  Round %2d points: %s", i + 1,
+                                        this.roundScores_[i]));
+        
+        long nActions = 0;
+        for (long nChosen : this.actionCounts_)
+            nActions += nChosen;
+        report.append("\n  Actions chosen:");
+        for (TurnAction anAction : GameStatistics.ACTIONS) {
+            long nChosen = getActionCount(anAction);
+            report.append(String.format(" %s %d (%.1f%%)", anAction, nChosen,
+                                        100 * GameStatistics.rate(nChosen,
+                                                                  nActions)));
+        }
+        
+        report.append(String.format("\n  Jokers picked up per play: %.3f to"
+                                    + " rank melds, %.3f to run melds",
+                                    getRankMeldJokerRate(),
+                                    getRunMeldJokerRate()));
+        report.append(String.format("\n  Deck refills: %d (%.2f per game)",
+                                    this.nRefills_,
+                                    GameStatistics.rate(this.nRefills_,
+                                                        this.nGames_)));
+        return report.toString();
+    }
+    
+    // Divides the count by the total, or returns zero if the total is zero
+    private static double rate(long count, long total)
+    {
+        return total == 0 ? 0.0 : (double) count / total;
+    }
+}
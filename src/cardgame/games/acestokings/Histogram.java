@@ -0,0 +1,205 @@
+package cardgame.games.acestokings;
+
+/**
+ * A histogram of non-negative {@code int} values, kept in a fixed number of
+ * buckets so that it takes the same memory however many values are
+ * recorded.
+ * <p>
+ * Values below {@value #EXACT_LIMIT} are counted exactly. Above that each
+ * power of two is split into {@value #SUB_BUCKETS} buckets of equal width,
+ * so a value read back from the {@code Histogram} is within about six
+ * percent of one that was recorded. The count, sum, minimum and maximum are
+ * kept exactly.
+ * <p>
+ * A {@code Histogram} is not safe for use by several threads at once.
+ * Instead, each thread should record into its own, and the
+ * {@code Histogram}s merged once they are done with.
+ * 
+ * @see GameStatistics
+ */
+public class Histogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+    
+    /**
+     * The number of buckets each power of two is split into.
+     */
+    public static final int SUB_BUCKETS = 1 << Histogram.SUB_BUCKET_BITS;
+    
+    /**
+     * The value below which every value is counted exactly.
+     */
+    public static final int EXACT_LIMIT = 2 * Histogram.SUB_BUCKETS;
+    
+    private static final int N_BUCKETS = (Integer.SIZE - Histogram
+                                          .SUB_BUCKET_BITS)
+                                         * Histogram.SUB_BUCKETS;
+    
+    private final long[] counts_;
+    private long         count_;
+    private long         sum_;
+    private int          min_;
+    private int          max_;
+    
+    /**
+     * Sole constructor. The initialised {@code Histogram} will be empty.
+     */
+    public Histogram()
+    {
+        this.counts_ = new long[Histogram.N_BUCKETS];
+        this.count_  = 0;
+        this.sum_    = 0;
+        this.min_    = Integer.MAX_VALUE;
+        this.max_    = 0;
+    }
+    
+    /**
+     * Records a value.
+     * 
+     * @param  value the value to record
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public void record(int value)
+    {
+        if (value < 0)
+            throw new IllegalArgumentException("A histogram can not record"
+                                               + " the negative value "
+                                               + value);
+        
+        this.counts_[Histogram.indexOf(value)]++;
+        this.count_++;
+        this.sum_ += value;
+        this.min_  = value < this.min_ ? value : this.min_;
+        this.max_  = value > this.max_ ? value : this.max_;
+    }
+    
+    /**
+     * Adds every value recorded in the specified {@code Histogram} to this
+     * one. The other {@code Histogram} is left unchanged.
+     * 
+     * @param other the {@code Histogram} to merge in
+     */
+    public void merge(Histogram other)
+    {
+        for (int i = 0; i < Histogram.N_BUCKETS; i++)
+            this.counts_[i] += other.counts_[i];
+        this.count_ += other.count_;
+        this.sum_   += other.sum_;
+        this.min_    = other.min_ < this.min_ ? other.min_ : this.min_;
+        this.max_    = other.max_ > this.max_ ? other.max_ : this.max_;
+    }
+    
+    /**
+     * Returns the number of values recorded.
+     * 
+     * @return the number of values
+     */
+    public long getCount()
+    {
+        return this.count_;
+    }
+    
+    /**
+     * Returns the smallest value recorded.
+     * 
+     * @return the smallest value, or zero if none have been recorded
+     */
+    public int getMin()
+    {
+        return this.count_ == 0 ? 0 : this.min_;
+    }
+    
+    /**
+     * Returns the largest value recorded.
+     * 
+     * @return the largest value, or zero if none have been recorded
+     */
+    public int getMax()
+    {
+        return this.max_;
+    }
+    
+    /**
+     * Returns the mean of the values recorded.
+     * 
+     * @return the mean, or zero if no values have been recorded
+     */
+    public double getMean()
+    {
+        return this.count_ == 0 ? 0.0 : (double) this.sum_ / this.count_;
+    }
+    
+    /**
+     * Returns the value below which the specified percentage of the values
+     * recorded fall. The largest value that shares a bucket with it is
+     * returned, so the result is never below the true percentile.
+     * 
+     * @param  percentile the percentage, from zero to one hundred
+     * @return the value at the percentile, or zero if no values have been
+     *         recorded
+     */
+    public int getValueAtPercentile(double percentile)
+    {
+        long rank       = (long) Math.ceil(percentile / 100.0 * this.count_);
+        rank            = Math.max(rank, 1);
+        long nCounted   = 0;
+        int  bucket     = -1;
+        while (nCounted < rank && bucket < Histogram.N_BUCKETS - 1) {
+            bucket++;
+            nCounted += this.counts_[bucket];
+        }
+        
+        int value = 0;
+        if (this.count_ > 0)
+            value = (int) Math.min(Histogram.highestValueOf(bucket),
+                                   this.max_);
+        return value;
+    }
+    
+    /**
+     * Returns a summary of the values recorded: their count, mean, median,
+     * ninetieth and ninety-ninth percentiles and maximum.
+     * 
+     * @return the summary of this {@code Histogram}
+     */
+    @Override
+    public String toString()
+    {
+        return String.format("n=%d mean=%.1f p50=%d p90=%d p99=%d max=%d",
+                             this.count_, getMean(),
+                             getValueAtPercentile(50),
+                             getValueAtPercentile(90),
+                             getValueAtPercentile(99), getMax());
+    }
+    
+    // Returns the index of the bucket the specified value is counted in
+    private static int indexOf(int value)
+    {
+        int index = value;
+        if (value >= Histogram.EXACT_LIMIT) {
+            int topBit = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(value);
+            int shift  = topBit - Histogram.SUB_BUCKET_BITS;
+            index      = shift * Histogram.SUB_BUCKETS + (value >>> shift);
+        }
+        return index;
+    }
+    
+    // Returns the smallest value counted in the bucket of the specified
+    // index. Works in longs, as the bucket after the last starts above the
+    // largest {@code int}.
+    private static long lowestValueOf(int index)
+    {
+        long value = index;
+        if (index >= Histogram.EXACT_LIMIT) {
+            int shift = index / Histogram.SUB_BUCKETS - 1;
+            value     = (long) (index - shift * Histogram.SUB_BUCKETS) << shift;
+        }
+        return value;
+    }
+    
+    // Returns the largest value counted in the bucket of the specified index
+    private static long highestValueOf(int index)
+    {
+        return Histogram.lowestValueOf(index + 1) - 1;
+    }
+}
@@ -1,4 +1,3 @@
-/*//package cardgame.games.acestokings;
 package cardgame.games.acestokings;
 
 import java.util.ArrayList;
@@ -6,74 +5,72 @@ import java.util.Collections;
 import java.util.List;
 
 import cardgame.player.Player;
-import cardgame.player.Player.Type;
 
+/**
+ * A ranking of {@code Player}s by their {@code Points}. The {@code Player}
+ * with the fewest {@code Points} is ranked first.
+ * 
+ * @see Player
+ */
 class Leaderboard
 {
-    private final List<Player> players_;
-    private final int          maxNameLength_;
+    private final List<Player<?>> players_;
+    private final int             maxNameLength_;
     
-    public Leaderboard(List<Player> players)
+    // Constructor
+    Leaderboard(List<? extends Player<?>> players)
     {
-        players_ = new ArrayList<Player>(players.size());
-        players_.addAll(players);
-        maxNameLength_ = findMaxNameLength(players);
+        this.players_       = new ArrayList<Player<?>>(players);
+        this.maxNameLength_ = findMaxNameLength(players);
     }
     
+    /**
+     * Returns the {@code Player}s ranked from fewest to most {@code Points}.
+     * 
+     * @return the ranked {@code Player}s
+     */
+    public List<Player<?>> getRankings()
+    {
+        List<Player<?>> rankings = new ArrayList<Player<?>>(this.players_);
+        Collections.sort(rankings);
+        return rankings;
+    }
+    
+    /**
+     * Returns a string representation of this {@code Leaderboard}, listing
+     * each {@code Player} in order of their ranking.
+     * 
+     * @return the string representation of this {@code Leaderboard}
+     */
     @Override
     public String toString()
     {
-        // Sorts most points to least points
-        Collections.sort(players_);
-        String leaderboard = "The players are ranked as follows:";
-        int    nPlayers    = players_.size();
+        StringBuilder leaderboard = new StringBuilder();
+        leaderboard.append("The players are ranked as follows:");
         
         int ranking = 1;
-        // The player with the least amount of points is in the best position
-        for (int i = nPlayers - 1; i >= 0; i--) {
-            Player player  = players_.get(i);
-            String name    = player.getName();
-            name           = String.format("%1$-" + maxNameLength_ + "s", name);
-            int    nPoints = player.getPoints().getAmount();
-            leaderboard   += "\n  " + ranking + ": " + name + " with "
-                           + nPoints + " points";
+        for (Player<?> aPlayer : getRankings()) {
+            String name    = aPlayer.getName();
+            name           = String.format("%1$-" + this.maxNameLength_ + "s",
+                                           name);
+            int    nPoints = aPlayer.getPointTotal();
+            leaderboard.append("\n  " + ranking + ": " + name + " with "
+                               + nPoints + " points");
             ranking++;
         }
         
-        return leaderboard;
+        return leaderboard.toString();
     }
     
-    private int findMaxNameLength(List<Player> players)
+    // Finds the length of the longest name out of the {@code Player}s
+    private static int findMaxNameLength(List<? extends Player<?>> players)
     {
         int maxNameLength = 0;
-        for (Player player : players) {
-            int nameLength = player.getName().length();
+        for (Player<?> aPlayer : players) {
+            int nameLength = aPlayer.getName().length();
             maxNameLength  = maxNameLength < nameLength ? nameLength
                                                         : maxNameLength;
         }
         return maxNameLength;
     }
-    
-    public static void main(String[] args)
-    {
-        Player.Type c = Player.Type.CONSOLE;
-        Player p1 = new Player(c);
-        Player p2 = new Player(c);
-        Player p3 = new Player("Player 3", c, 50, 0);
-        Player p4 = new Player("Kelly", c, 2, 0);
-        Player p5 = new Player("Bob", c, -100, -100);
-        Player p6 = new Player("Aaron", c, -100, -100);
-        
-        List<Player> players = new ArrayList<Player>();
-        players.add(p1);
-        players.add(p2);
-        players.add(p3);
-        players.add(p4);
-        players.add(p5);
-        players.add(p6);
-        
-        Leaderboard test = new Leaderboard(players);
-        System.out.println(test);
-    }
 }
-*/
\ No newline at end of file
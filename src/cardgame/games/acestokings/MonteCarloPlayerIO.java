@@ -0,0 +1,434 @@
+package cardgame.games.acestokings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+import cardgame.card.Drawable;
+import cardgame.card.RandomSource;
+import cardgame.card.Stack;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.games.acestokings.melds.PlayOption;
+import cardgame.player.DecisionContext;
+import cardgame.player.Player;
+import cardgame.player.PlayerIO;
+import cardgame.player.RandomPlayerIO;
+import cardgame.player.Selectable;
+
+/**
+ * A computer player input/output system that searches for its moves with
+ * information set Monte Carlo tree search.
+ * <p>
+ * Each time it has a move to make, a {@code MonteCarloPlayerIO} grows a
+ * {@code SearchTree} on each of its threads from the {@code GameState} it
+ * last observed, until its time budget for the move runs out. The move
+ * visited most often across the roots of all the trees is then made. Only
+ * the player's own hand is looked at; the other hands are guessed afresh on
+ * every iteration.
+ * <p>
+ * A move of the search, such as playing a run of three, covers several of
+ * the choices the {@code Turn} asks for, so the choices still to come are
+ * planned when it is picked and then answered in order. Any choice that does
+ * not fit the plan is made at random. A play that the {@code Turn} turns
+ * down is not tried again in the same turn.
+ * <p>
+ * The search threads are daemon threads, so the program may exit without
+ * shutting them down, although {@link #shutdown()} frees them sooner.
+ * 
+ * @see SearchTree
+ * @see GameStateObserver
+ */
+public class MonteCarloPlayerIO extends PlayerIO
+    implements GameStateObserver
+{
+    private static final long DEFAULT_BUDGET_MILLIS = 50;
+    private static final long NANOS_PER_MILLI       = 1000000L;
+    
+    private final RandomSource            rng_;
+    private final long                    budgetNanos_;
+    private final int                     nThreads_;
+    private final ExecutorService         executor_;
+    private final LinkedList<PlayingCard> plannedCards_;
+    private final Moves.MoveList          rejected_;
+    private       GameState               state_;
+    private       long                    plannedMove_;
+    private       long                    handWhenPlanned_;
+    private       long                    nPlayouts_;
+    private       long                    searchNanos_;
+    
+    /**
+     * Creates a {@code MonteCarloPlayerIO} that searches for
+     * {@value #DEFAULT_BUDGET_MILLIS} milliseconds per move, on as many
+     * threads as there are processors.
+     * 
+     * @param rng the source of randomness for the search
+     */
+    public MonteCarloPlayerIO(RandomSource rng)
+    {
+        this(rng, MonteCarloPlayerIO.DEFAULT_BUDGET_MILLIS,
+             Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Creates a {@code MonteCarloPlayerIO} with the specified time budget
+     * and number of search threads.
+     * 
+     * @param rng          the source of randomness for the search
+     * @param budgetMillis the time to search for each move, in milliseconds
+     * @param nThreads     the number of threads to search on
+     */
+    public MonteCarloPlayerIO(RandomSource rng, long budgetMillis,
+                              int nThreads)
+    {
+        this.rng_             = rng;
+        this.budgetNanos_     = budgetMillis * MonteCarloPlayerIO
+                                                   .NANOS_PER_MILLI;
+        this.nThreads_        = nThreads;
+        this.executor_        = Executors.newFixedThreadPool(nThreads,
+                                    MonteCarloPlayerIO.daemonThreads());
+        this.plannedCards_    = new LinkedList<PlayingCard>();
+        this.rejected_        = new Moves.MoveList();
+        this.state_           = null;
+        this.plannedMove_     = 0L;
+        this.handWhenPlanned_ = 0L;
+        this.nPlayouts_       = 0;
+        this.searchNanos_     = 0;
+    }
+    
+    /* (non-Javadoc)
+     * @see GameStateObserver#observe(GameState)
+     */
+    @Override
+    public void observe(GameState aState)
+    {
+        this.state_ = aState;
+    }
+    
+    /**
+     * Discards the message, as the {@code GameState} says all that is
+     * needed.
+     * 
+     * @see PlayerIO#sendMessage(String)
+     */
+    @Override
+    public void sendMessage(String message) {}
+    
+    /**
+     * Discards the message without building it.
+     * 
+     * @see PlayerIO#sendMessage(Supplier)
+     */
+    @Override
+    public void sendMessage(Supplier<String> message) {}
+    
+    /**
+     * Chooses an integer uniformly at random from the specified range. Only
+     * used for choices that are not recognised.
+     * 
+     * @see PlayerIO#chooseInt(int, int)
+     */
+    @Override
+    public int chooseInt(int lowerBound, int upperBound)
+    {
+        return lowerBound + this.rng_.nextInt(upperBound - lowerBound);
+    }
+    
+    /**
+     * Answers the choice from the search, or from the plan made by the last
+     * search.
+     * 
+     * @see PlayerIO#choose(DecisionContext, List)
+     */
+    @Override
+    public int choose(DecisionContext context,
+                      List<? extends Selectable> options)
+    {
+        Selectable first = options.get(0);
+        int        choice;
+        if (this.state_ == null)
+            choice = chooseInt(0, options.size());
+        else if (first instanceof Drawable)
+            choice = chooseDraw(options);
+        else if (first instanceof TurnAction)
+            choice = chooseAction(options);
+        else if (first instanceof MeldSize)
+            choice = chooseMeldSize(options);
+        else if (first instanceof PlayingCard)
+            choice = chooseCard(options);
+        else if (first instanceof PlayOption)
+            choice = choosePlay(options);
+        else
+            choice = chooseInt(0, options.size());
+        return choice;
+    }
+    
+    /**
+     * Returns the number of playouts run in every search so far.
+     * 
+     * @return the number of playouts
+     */
+    public long getPlayoutCount()
+    {
+        return this.nPlayouts_;
+    }
+    
+    /**
+     * Returns the time spent searching so far.
+     * 
+     * @return the time spent searching, in nanoseconds
+     */
+    public long getSearchNanos()
+    {
+        return this.searchNanos_;
+    }
+    
+    /**
+     * Stops the search threads once any search in progress has finished.
+     * This {@code MonteCarloPlayerIO} can not search again afterwards.
+     */
+    public void shutdown()
+    {
+        this.executor_.shutdown();
+    }
+    
+    // Chooses between the deck and the discard pile, which starts a new turn
+    private int chooseDraw(List<? extends Selectable> options)
+    {
+        this.rejected_.clear();
+        this.plannedMove_ = 0L;
+        long    move        = search();
+        boolean fromDiscard = move == Moves.DRAW_DISCARD;
+        int     choice      = 0;
+        for (int i = 0; i < options.size(); i++) {
+            if ((options.get(i) instanceof Stack) == fromDiscard)
+                choice = i;
+        }
+        return choice;
+    }
+    
+    // Chooses what to do next. A play that left the hand as it was when it
+    // was planned must have been turned down, so is not searched again.
+    private int chooseAction(List<? extends Selectable> options)
+    {
+        long hand = this.state_.getHandBits(this.state_.getCurrentPlayer());
+        if (this.plannedMove_ != 0L && hand == this.handWhenPlanned_)
+            this.rejected_.add(this.plannedMove_);
+        
+        long       move = search();
+        TurnAction anAction;
+        this.plannedCards_.clear();
+        if (Moves.typeOf(move) == Moves.DISCARD) {
+            this.plannedMove_ = 0L;
+            this.plannedCards_.add(Moves.discardedCard(move));
+            anAction          = TurnAction.END_TURN;
+        }
+        else {
+            PlayingCard[] cards   = Moves.cardsOf(move);
+            this.plannedMove_     = move;
+            this.handWhenPlanned_ = hand;
+            for (PlayingCard aCard : cards)
+                this.plannedCards_.add(aCard);
+            anAction = cards.length == 1 ? TurnAction.ADD_CARD
+                                         : TurnAction.PLAY_MELD;
+        }
+        
+        int choice = options.indexOf(anAction);
+        return choice >= 0 ? choice : chooseInt(0, options.size());
+    }
+    
+    // Chooses the number of cards planned for the meld
+    private int chooseMeldSize(List<? extends Selectable> options)
+    {
+        int choice = -1;
+        for (int i = 0; i < options.size(); i++) {
+            MeldSize aSize = (MeldSize) options.get(i);
+            if (aSize.getSize() == this.plannedCards_.size())
+                choice = i;
+        }
+        return choice >= 0 ? choice : chooseInt(0, options.size());
+    }
+    
+    // Chooses the next planned {@code PlayingCard}
+    private int chooseCard(List<? extends Selectable> options)
+    {
+        PlayingCard aCard  = this.plannedCards_.poll();
+        int         choice = aCard == null ? -1 : options.indexOf(aCard);
+        return choice >= 0 ? choice : chooseInt(0, options.size());
+    }
+    
+    // Chooses the meld the planned move plays to
+    private int choosePlay(List<? extends Selectable> options)
+    {
+        int choice = -1;
+        for (int i = 0; i < options.size(); i++) {
+            if (matches((PlayOption) options.get(i), this.plannedMove_))
+                choice = i;
+        }
+        return choice >= 0 ? choice : chooseInt(0, options.size());
+    }
+    
+    // Checks if a {@code PlayOption} plays to the meld of a planned move
+    private static boolean matches(PlayOption anOption, long move)
+    {
+        boolean matches;
+        if (Moves.typeOf(move) == Moves.RANK_MELD)
+            matches = anOption.getMeldRank() == Moves.meldRank(move);
+        else if (Moves.typeOf(move) == Moves.RUN_MELD)
+            matches = anOption.getMeldSuit() == Moves.runSuit(move)
+                      && anOption.getFirstValue() == Moves.firstValue(move);
+        else
+            matches = false;
+        return matches;
+    }
+    
+    // Searches from the observed state on every thread, and returns the
+    // move visited most often. A move with no alternative is returned
+    // without searching.
+    private long search()
+    {
+        Moves.MoveList moves = new Moves.MoveList();
+        Moves.findMoves(this.state_, moves);
+        Moves.MoveList allowed = new Moves.MoveList();
+        for (int i = 0; i < moves.size(); i++) {
+            if (!this.rejected_.contains(moves.get(i)))
+                allowed.add(moves.get(i));
+        }
+        
+        long move;
+        if (allowed.size() == 1)
+            move = allowed.get(0);
+        else if (allowed.size() == 0)
+            move = Moves.DRAW_DECK;
+        else
+            move = searchTrees();
+        return move;
+    }
+    
+    // Grows a {@code SearchTree} on each thread until the time budget runs
+    // out, and adds up the visits to each move at their roots
+    private long searchTrees()
+    {
+        long startTime = System.nanoTime();
+        long deadline  = startTime + this.budgetNanos_;
+        
+        List<Future<SearchTree>> futures = new ArrayList<Future<SearchTree>>();
+        for (int i = 0; i < this.nThreads_; i++) {
+            RandomSource     rng  = RandomSource.seeded(this.rng_.nextInt(
+                                                         Integer.MAX_VALUE));
+            final SearchTree tree = new SearchTree(this.state_,
+                                                   this.rejected_, rng);
+            futures.add(this.executor_.submit(() -> tree.searchUntil(
+                                                        deadline)));
+        }
+        
+        Map<Long, Integer> visits = new HashMap<Long, Integer>();
+        long               best   = 0L;
+        int                most   = -1;
+        for (Future<SearchTree> aFuture : futures) {
+            SearchTree tree = MonteCarloPlayerIO.await(aFuture);
+            this.nPlayouts_ += tree.getIterations();
+            for (int i = 0; i < tree.getRootMoveCount(); i++) {
+                long move  = tree.getRootMove(i);
+                int  total = tree.getRootVisits(i);
+                if (visits.containsKey(move))
+                    total += visits.get(move);
+                visits.put(move, total);
+                if (total > most) {
+                    best = move;
+                    most = total;
+                }
+            }
+        }
+        this.searchNanos_ += System.nanoTime() - startTime;
+        return best;
+    }
+    
+    // Waits for a search thread to finish, passing on anything it threw
+    private static SearchTree await(Future<SearchTree> aFuture)
+    {
+        SearchTree tree;
+        try {
+            tree = aFuture.get();
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("The search failed", e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The search was interrupted", e);
+        }
+        return tree;
+    }
+    
+    // Returns a {@code ThreadFactory} of daemon threads
+    private static ThreadFactory daemonThreads()
+    {
+        return aRunnable -> {
+            Thread aThread = new Thread(aRunnable, "monte-carlo-search");
+            aThread.setDaemon(true);
+            return aThread;
+        };
+    }
+    
+    // Plays games between a {@code MonteCarloPlayerIO} in the first seat
+    // and random players, and reports the points per game and the playouts
+    // run. Takes the number of games, the number of players, the time budget
+    // in milliseconds, the number of threads and a seed as optional
+    // arguments.
+    public static void main(String[] args)
+    {
+        int  nGames   = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int  nPlayers = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        long budget   = args.length > 2 ? Long.parseLong(args[2])
+                                        : MonteCarloPlayerIO
+                                              .DEFAULT_BUDGET_MILLIS;
+        int  nThreads = args.length > 3 ? Integer.parseInt(args[3])
+                                        : Runtime.getRuntime()
+                                                 .availableProcessors();
+        long seed     = args.length > 4 ? Long.parseLong(args[4])   : 0;
+        
+        long[] seatPoints = new long[nPlayers];
+        long   nPlayouts  = 0;
+        long   nanos      = 0;
+        for (int i = 0; i < nGames; i++) {
+            RandomSource       rng       = RandomSource.seeded(
+                                           Simulator.gameSeed(seed, i));
+            List<PlayerIO>     playerIOs = new ArrayList<PlayerIO>(nPlayers);
+            MonteCarloPlayerIO bot       = new MonteCarloPlayerIO(rng, budget,
+                                                                  nThreads);
+            playerIOs.add(bot);
+            for (int j = 1; j < nPlayers; j++)
+                playerIOs.add(new RandomPlayerIO(rng));
+            
+            Game game = new Game(playerIOs, rng);
+            game.setTurnLimit(Simulator.TURN_LIMIT);
+            game.play();
+            
+            List<Player<PlayingCard>> players = game.getPlayers();
+            for (int j = 0; j < nPlayers; j++)
+                seatPoints[j] += players.get(j).getPointTotal();
+            nPlayouts += bot.getPlayoutCount();
+            nanos     += bot.getSearchNanos();
+            bot.shutdown();
+        }
+        
+        System.out.println(String.format("Searched %d playouts in %.3f"
+                                         + " seconds (%.0f playouts/sec)",
+                                         nPlayouts, nanos / 1e9,
+                                         nPlayouts / (nanos / 1e9)));
+        for (int i = 0; i < nPlayers; i++)
+            System.out.println(String.format("  Seat %d%s: %.1f points per"
+                                             + " game", i,
+                                             i == 0 ? " (search)" : "",
+                                             (double) seatPoints[i]
+                                                 / nGames));
+    }
+}
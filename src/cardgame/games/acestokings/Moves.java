@@ -0,0 +1,528 @@
+package cardgame.games.acestokings;
+
+import java.util.Arrays;
+
+import cardgame.card.RandomSource;
+import cardgame.card.traditional.CardSet;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.card.traditional.Rank;
+import cardgame.card.traditional.Suit;
+
+/**
+ * The moves that may be made from a {@code GameState}, for players that
+ * search ahead. Each move is encoded in a {@code long}, so finding and
+ * comparing moves allocates nothing.
+ * <p>
+ * The lowest four bits of a move give its type. A discard holds the id of
+ * the {@code PlayingCard} discarded. A play to a rank meld holds the
+ * {@code Rank} of the meld, and a bit for the {@code Suit} of each
+ * {@code PlayingCard} and of each joker played. A play to a run holds the
+ * {@code Suit} of the run, the value of the first position played to, the
+ * number of positions, and for each position either nothing, for the
+ * {@code PlayingCard} of that position, or the {@code Suit} of the joker
+ * played there.
+ * <p>
+ * Not every play allowed by the rules is found. Jokers are only played one
+ * at a time to an existing meld, or alongside two {@code PlayingCard}s that
+ * would not make a meld without one, and the lowest joker held is always the
+ * one played. Runs are only started from the longest stretches of
+ * consecutive {@code PlayingCard}s held.
+ * 
+ * @see GameState
+ */
+final class Moves
+{
+    static final int DRAW_DECK    = 1;
+    static final int DRAW_DISCARD = 2;
+    static final int DISCARD      = 3;
+    static final int RANK_MELD    = 4;
+    static final int RUN_MELD     = 5;
+    
+    private static final int    TYPE_MASK         = 0xF;
+    private static final int    SUIT_SHIFT        = 4;
+    private static final int    ARGUMENT_SHIFT    = 8;
+    private static final int    LENGTH_SHIFT      = 12;
+    private static final int    SUITS_SHIFT       = 16;
+    private static final int    JOKERS_SHIFT      = 20;
+    private static final int    POSITIONS_SHIFT   = 16;
+    private static final int    POSITION_BITS     = 3;
+    private static final int    FIELD_MASK        = 0xF;
+    private static final int    POSITION_MASK     = 0x7;
+    private static final int    MELD_CAPACITY     = 4;
+    private static final int    MINIMUM_MELD_SIZE = 3;
+    private static final int    LOW_ACE           = GameState.LOW_ACE_VALUE;
+    private static final int    HIGH_ACE          = GameState.HIGH_ACE_VALUE;
+    private static final int    ALL_VALUES        = ((1 << (HIGH_ACE + 1)) - 1)
+                                                    & ~1;
+    private static final int    RANK_MASK         = (1 << Rank.KING.ordinal()
+                                                     + 1) - 1;
+    private static final int    JOKER_ORDINAL     = Rank.JOKER.ordinal();
+    private static final Rank[] RANKS             = Rank.values();
+    private static final Suit[] SUITS             = { Suit.CLUBS,
+                                                      Suit.DIAMONDS,
+                                                      Suit.HEARTS,
+                                                      Suit.SPADES };
+    
+    // Preventing class instantiation
+    private Moves() {}
+    
+    // Returns the type of the specified move
+    static int typeOf(long move)
+    {
+        return (int) (move & Moves.TYPE_MASK);
+    }
+    
+    // Returns the move discarding the specified {@code PlayingCard}
+    static long discard(PlayingCard aCard)
+    {
+        return Moves.DISCARD | ((long) aCard.getId() << Moves.ARGUMENT_SHIFT);
+    }
+    
+    // Returns the {@code PlayingCard} discarded by a discard
+    static PlayingCard discardedCard(long move)
+    {
+        return PlayingCard.fromId((int) (move >>> Moves.ARGUMENT_SHIFT));
+    }
+    
+    // Returns the {@code Rank} of the meld played to by a rank meld play
+    static Rank meldRank(long move)
+    {
+        return Moves.RANKS[field(move, Moves.ARGUMENT_SHIFT)];
+    }
+    
+    // Returns the {@code Suit} of the run played to by a run play
+    static Suit runSuit(long move)
+    {
+        return Moves.SUITS[(int) (move >>> Moves.SUIT_SHIFT) & 0x3];
+    }
+    
+    // Returns the value of the first position played to by a run play
+    static int firstValue(long move)
+    {
+        return field(move, Moves.ARGUMENT_SHIFT);
+    }
+    
+    // Returns the {@code PlayingCard}s played by a play to a meld, in the
+    // order they are to be played. Jokers come last in a rank meld, and a
+    // run is played from its lowest position.
+    static PlayingCard[] cardsOf(long move)
+    {
+        PlayingCard[] cards;
+        if (typeOf(move) == Moves.RANK_MELD) {
+            Rank aRank  = meldRank(move);
+            int  suits  = field(move, Moves.SUITS_SHIFT);
+            int  jokers = field(move, Moves.JOKERS_SHIFT);
+            cards       = new PlayingCard[Integer.bitCount(suits)
+                                          + Integer.bitCount(jokers)];
+            int  i      = 0;
+            for (Suit aSuit : Moves.SUITS) {
+                if ((suits & (1 << aSuit.ordinal())) != 0) {
+                    cards[i] = PlayingCard.of(aRank, aSuit);
+                    i++;
+                }
+            }
+            for (Suit jokerSuit : Moves.SUITS) {
+                if ((jokers & (1 << jokerSuit.ordinal())) != 0) {
+                    cards[i] = PlayingCard.of(Rank.JOKER, jokerSuit);
+                    i++;
+                }
+            }
+        }
+        else {
+            Suit aSuit  = runSuit(move);
+            int  value  = firstValue(move);
+            cards       = new PlayingCard[field(move, Moves.LENGTH_SHIFT)];
+            for (int i = 0; i < cards.length; i++) {
+                int position = (int) (move >>> (Moves.POSITIONS_SHIFT
+                                                + i * Moves.POSITION_BITS))
+                               & Moves.POSITION_MASK;
+                if (position == 0)
+                    cards[i] = PlayingCard.of(rankOfValue(value), aSuit);
+                else
+                    cards[i] = PlayingCard.of(Rank.JOKER,
+                                              Moves.SUITS[position - 1]);
+                value++;
+            }
+        }
+        return cards;
+    }
+    
+    // Returns the state after the specified move is made. A draw from the
+    // deck takes a {@code PlayingCard} from it at random.
+    static GameState apply(GameState aState, long move, RandomSource rng)
+    {
+        GameState next;
+        switch (typeOf(move)) {
+            case Moves.DRAW_DECK:
+                long deck = aState.getDeckBits();
+                next      = aState.drawFromDeck(PlayingCard.fromId(
+                                pickBit(deck, rng.nextInt(
+                                                  Long.bitCount(deck)))));
+                break;
+            case Moves.DRAW_DISCARD:
+                next = aState.drawFromDiscards();
+                break;
+            case Moves.DISCARD:
+                next = aState.discard(discardedCard(move));
+                break;
+            case Moves.RANK_MELD:
+                next = aState.playToRankMeld(meldRank(move), cardsOf(move));
+                break;
+            default:
+                next = aState.playToRunMeld(runSuit(move), firstValue(move),
+                                            cardsOf(move));
+                break;
+        }
+        return next;
+    }
+    
+    // Returns the id of the specified set bit, counting from the lowest
+    static int pickBit(long bits, int index)
+    {
+        long remaining = bits;
+        for (int i = 0; i < index; i++)
+            remaining &= remaining - 1;
+        return Long.numberOfTrailingZeros(remaining);
+    }
+    
+    // Fills the specified list with the moves the current player may make.
+    // Before drawing these are the draws, and afterwards the plays to melds
+    // followed by the discards.
+    static void findMoves(GameState aState, MoveList moves)
+    {
+        moves.clear();
+        if (!aState.hasDrawn()) {
+            if (aState.getDeckBits() != 0L)
+                moves.add(Moves.DRAW_DECK);
+            if (aState.getDiscardCount() > 0)
+                moves.add(Moves.DRAW_DISCARD);
+        }
+        else {
+            findMeldPlays(aState, moves);
+            findDiscards(aState, moves);
+        }
+    }
+    
+    // Adds every play to a meld the current player may make to the list
+    static void findMeldPlays(GameState aState, MoveList moves)
+    {
+        long hand = aState.getHandBits(aState.getCurrentPlayer());
+        for (int i = Rank.ACE.ordinal(); i <= Rank.KING.ordinal(); i++)
+            findRankMeldPlays(aState, hand, Moves.RANKS[i], moves);
+        for (Suit aSuit : Moves.SUITS)
+            findRunPlays(aState, hand, aSuit, moves);
+    }
+    
+    // Adds a discard of every {@code PlayingCard} in the current player's
+    // hand, other than one they drew from the discard pile, to the list.
+    static void findDiscards(GameState aState, MoveList moves)
+    {
+        long        hand  = aState.getHandBits(aState.getCurrentPlayer());
+        PlayingCard drawn = aState.getDrawnDiscard();
+        if (drawn != null)
+            hand &= ~CardSet.bitOf(drawn);
+        for (long bits = hand; bits != 0; bits &= bits - 1) {
+            int id = Long.numberOfTrailingZeros(bits);
+            moves.add(Moves.DISCARD | ((long) id << Moves.ARGUMENT_SHIFT));
+        }
+    }
+    
+    // Adds the plays to the meld of the specified {@code Rank}. A single
+    // {@code PlayingCard} may join a meld that exists, and three or more
+    // may start one or be added together.
+    private static void findRankMeldPlays(GameState aState, long hand,
+                                          Rank aRank, MoveList moves)
+    {
+        long meld     = aState.getRankMeldBits(aRank);
+        int  meldSize = Long.bitCount(meld);
+        int  nJokers  = Integer.bitCount(suitsOf(meld, Moves.JOKER_ORDINAL));
+        int  suits    = suitsOf(hand, aRank.ordinal());
+        int  joker    = Integer.lowestOneBit(suitsOf(hand,
+                                                     Moves.JOKER_ORDINAL));
+        int  nSuits   = Integer.bitCount(suits);
+        long rankMove = Moves.RANK_MELD | ((long) aRank.ordinal()
+                                           << Moves.ARGUMENT_SHIFT);
+        
+        if (meldSize >= Moves.MINIMUM_MELD_SIZE) {
+            boolean hasSpace = meldSize + 1 - Math.min(1, nJokers)
+                               <= Moves.MELD_CAPACITY;
+            for (int bits = suits; hasSpace && bits != 0; bits &= bits - 1)
+                addRankMeldPlay(aState, rankMove, Integer.lowestOneBit(bits),
+                                0, moves);
+            if (joker != 0 && meldSize + 1 <= Moves.MELD_CAPACITY)
+                addRankMeldPlay(aState, rankMove, 0, joker, moves);
+        }
+        
+        if (nSuits >= Moves.MINIMUM_MELD_SIZE) {
+            if (meldSize + nSuits - Math.min(nSuits, nJokers)
+                <= Moves.MELD_CAPACITY)
+                addRankMeldPlay(aState, rankMove, suits, 0, moves);
+        }
+        else if (nSuits == Moves.MINIMUM_MELD_SIZE - 1 && joker != 0) {
+            if (meldSize + nSuits + 1 - Math.min(nSuits, nJokers)
+                <= Moves.MELD_CAPACITY)
+                addRankMeldPlay(aState, rankMove, suits, joker, moves);
+        }
+    }
+    
+    // Adds a play of the {@code PlayingCard}s of the specified {@code Suit}s
+    // and of the jokers of the specified {@code Suit}s to a rank meld
+    private static void addRankMeldPlay(GameState aState, long rankMove,
+                                        int suits, int jokers, MoveList moves)
+    {
+        Rank aRank = meldRank(rankMove);
+        long cards = 0L;
+        for (Suit aSuit : Moves.SUITS) {
+            int suitBit = 1 << aSuit.ordinal();
+            if ((suits & suitBit) != 0)
+                cards |= CardSet.bitOf(PlayingCard.of(aRank, aSuit));
+            if ((jokers & suitBit) != 0)
+                cards |= CardSet.bitOf(PlayingCard.of(Rank.JOKER, aSuit));
+        }
+        long move = rankMove | ((long) suits << Moves.SUITS_SHIFT)
+                    | ((long) jokers << Moves.JOKERS_SHIFT);
+        addMeldPlay(aState, move, cards, moves);
+    }
+    
+    // Adds the plays to the run of the specified {@code Suit}. Positions are
+    // worked with as bits indexed by value, an ace held being usable at
+    // either end until the value of aces in the run has been fixed.
+    private static void findRunPlays(GameState aState, long hand, Suit aSuit,
+                                     MoveList moves)
+    {
+        int taken    = aState.getRunMeldValues(aSuit);
+        int aceValue = aState.getRunMeldAceValue(aSuit);
+        int openEnds = ((taken << 1) | (taken >>> 1)) & Moves.ALL_VALUES;
+        int held     = valuesOf(suitsOfRank(hand, aSuit), aceValue);
+        int joker    = Integer.lowestOneBit(suitsOf(hand,
+                                                    Moves.JOKER_ORDINAL));
+        
+        // Positions a joker may take, an ace position only while free
+        int free = ~taken & Moves.ALL_VALUES;
+        if (aceValue != 0 || (taken & acePositions()) != 0)
+            free &= ~acePositions();
+        
+        if (taken != 0) {
+            int aceEnd  = (openEnds & (1 << Moves.LOW_ACE)) != 0
+                          ? Moves.LOW_ACE : Moves.HIGH_ACE;
+            aceEnd      = aceValue != 0 ? aceValue : aceEnd;
+            int singles = held & openEnds & ~acePositions();
+            singles    |= held & openEnds & (1 << aceEnd);
+            for (int bits = singles; bits != 0; bits &= bits - 1)
+                addRunPlay(aState, aSuit, Integer.numberOfTrailingZeros(bits),
+                           1, 0, 0, moves);
+            
+            int jokerPlaces = free & openEnds & ~acePositions();
+            if ((free & openEnds & (1 << aceEnd)) != 0)
+                jokerPlaces |= 1 << aceEnd;
+            for (int bits = jokerPlaces; joker != 0 && bits != 0;
+                 bits &= bits - 1) {
+                int value = Integer.numberOfTrailingZeros(bits);
+                addRunPlay(aState, aSuit, value, 1, 1 << value, joker, moves);
+            }
+        }
+        
+        // The stretches of consecutive values held, an ace only at one end
+        int value = Moves.LOW_ACE;
+        while (value <= Moves.HIGH_ACE) {
+            if ((held & (1 << value)) == 0) {
+                value++;
+            }
+            else {
+                int end = value;
+                while (end < Moves.HIGH_ACE && (held & (1 << (end + 1))) != 0)
+                    end++;
+                if (value == Moves.LOW_ACE && end == Moves.HIGH_ACE)
+                    end--;
+                findStretchPlays(aState, aSuit, held, free, joker, value, end,
+                                 moves);
+                value = end + 1;
+            }
+        }
+    }
+    
+    // Adds the plays of a stretch of consecutive values held, from
+    // {@code start} to {@code end}. A long enough stretch is played as it
+    // is, and a stretch of two is made up to three with a joker at either
+    // end. A joker may also fill a single gap up to the next stretch.
+    private static void findStretchPlays(GameState aState, Suit aSuit,
+                                         int held, int free, int joker,
+                                         int start, int end, MoveList moves)
+    {
+        int length = end - start + 1;
+        if (length >= Moves.MINIMUM_MELD_SIZE)
+            addRunPlay(aState, aSuit, start, length, 0, 0, moves);
+        
+        if (joker != 0) {
+            if (length == Moves.MINIMUM_MELD_SIZE - 1) {
+                if ((free & (1 << (start - 1))) != 0)
+                    addRunPlay(aState, aSuit, start - 1, length + 1,
+                               1 << (start - 1), joker, moves);
+                if (end < Moves.HIGH_ACE && (free & (1 << (end + 1))) != 0)
+                    addRunPlay(aState, aSuit, start, length + 1,
+                               1 << (end + 1), joker, moves);
+            }
+            
+            int gap      = end + 1;
+            int nextEnd  = gap;
+            while (nextEnd < Moves.HIGH_ACE
+                   && (held & (1 << (nextEnd + 1))) != 0)
+                nextEnd++;
+            boolean aceTwice = start == Moves.LOW_ACE
+                               && nextEnd == Moves.HIGH_ACE;
+            int     joined   = nextEnd - start + 1;
+            if (gap < Moves.HIGH_ACE && nextEnd > gap && !aceTwice
+                && (free & (1 << gap)) != 0
+                && joined >= Moves.MINIMUM_MELD_SIZE)
+                addRunPlay(aState, aSuit, start, joined, 1 << gap, joker,
+                           moves);
+        }
+    }
+    
+    // Adds a play to a run of the specified length from the specified value.
+    // The positions of the specified bits, indexed by value, are taken by
+    // the joker of the specified {@code Suit} bit, and the rest by the
+    // {@code PlayingCard}s held.
+    private static void addRunPlay(GameState aState, Suit aSuit,
+                                   int firstValue, int length, int jokerValues,
+                                   int joker, MoveList moves)
+    {
+        int  jokerSuit = Integer.numberOfTrailingZeros(joker);
+        long cards     = 0L;
+        long move      = Moves.RUN_MELD
+                         | ((long) aSuit.ordinal() << Moves.SUIT_SHIFT)
+                         | ((long) firstValue << Moves.ARGUMENT_SHIFT)
+                         | ((long) length << Moves.LENGTH_SHIFT);
+        for (int i = 0; i < length; i++) {
+            int value = firstValue + i;
+            if ((jokerValues & (1 << value)) != 0) {
+                move  |= (long) (jokerSuit + 1) << (Moves.POSITIONS_SHIFT
+                                                    + i * Moves.POSITION_BITS);
+                cards |= CardSet.bitOf(PlayingCard.of(Rank.JOKER,
+                                                      Moves.SUITS[jokerSuit]));
+            }
+            else {
+                cards |= CardSet.bitOf(PlayingCard.of(rankOfValue(value),
+                                                      aSuit));
+            }
+        }
+        addMeldPlay(aState, move, cards, moves);
+    }
+    
+    // Adds a play to a meld if the current player could still discard
+    // afterwards, remembering that a {@code PlayingCard} drawn from the
+    // discard pile this turn may not be discarded.
+    private static void addMeldPlay(GameState aState, long move, long cards,
+                                    MoveList moves)
+    {
+        long        hand      = aState.getHandBits(aState.getCurrentPlayer());
+        PlayingCard drawn     = aState.getDrawnDiscard();
+        long        remaining = hand & ~cards;
+        if (drawn != null)
+            remaining &= ~CardSet.bitOf(drawn);
+        if (remaining != 0L)
+            moves.add(move);
+    }
+    
+    // Returns the bits, indexed by {@code Suit} ordinal, of the
+    // {@code PlayingCard}s of the specified {@code Rank} ordinal
+    private static int suitsOf(long cards, int rankOrdinal)
+    {
+        int suits = 0;
+        for (Suit aSuit : Moves.SUITS) {
+            int id = aSuit.ordinal() * PlayingCard.SUIT_STRIDE + rankOrdinal;
+            if ((cards & (1L << id)) != 0)
+                suits |= 1 << aSuit.ordinal();
+        }
+        return suits;
+    }
+    
+    // Returns the bits, indexed by {@code Rank} ordinal, of the
+    // {@code PlayingCard}s of the specified {@code Suit}, jokers excluded
+    private static int suitsOfRank(long cards, Suit aSuit)
+    {
+        int shift = aSuit.ordinal() * PlayingCard.SUIT_STRIDE;
+        return (int) (cards >>> shift) & Moves.RANK_MASK;
+    }
+    
+    // Converts bits indexed by {@code Rank} ordinal into bits indexed by
+    // value in a run. An ace takes the specified value, or both if it is
+    // zero.
+    private static int valuesOf(int ranks, int aceValue)
+    {
+        int values = (ranks & ~1) << 1;
+        if ((ranks & 1) != 0)
+            values |= aceValue != 0 ? 1 << aceValue : acePositions();
+        return values;
+    }
+    
+    // Returns the bits of the two positions an ace may take in a run
+    private static int acePositions()
+    {
+        return (1 << Moves.LOW_ACE) | (1 << Moves.HIGH_ACE);
+    }
+    
+    // Returns the {@code Rank} of the position of the specified value
+    private static Rank rankOfValue(int value)
+    {
+        return value == Moves.HIGH_ACE ? Rank.ACE : Moves.RANKS[value - 1];
+    }
+    
+    // Returns the four bit field of a move at the specified shift
+    private static int field(long move, int shift)
+    {
+        return (int) (move >>> shift) & Moves.FIELD_MASK;
+    }
+    
+    // A growable list of moves, reused between searches
+    static final class MoveList
+    {
+        private static final int INITIAL_CAPACITY = 32;
+        
+        private long[] moves_;
+        private int    size_;
+        
+        // Constructor
+        MoveList()
+        {
+            this.moves_ = new long[MoveList.INITIAL_CAPACITY];
+            this.size_  = 0;
+        }
+        
+        // Appends a move
+        void add(long move)
+        {
+            if (this.size_ == this.moves_.length)
+                this.moves_ = Arrays.copyOf(this.moves_, 2 * this.size_);
+            this.moves_[this.size_] = move;
+            this.size_++;
+        }
+        
+        // Returns the move at the specified index
+        long get(int index)
+        {
+            return this.moves_[index];
+        }
+        
+        // Returns the number of moves
+        int size()
+        {
+            return this.size_;
+        }
+        
+        // Checks if the specified move is in this list
+        boolean contains(long move)
+        {
+            boolean found = false;
+            for (int i = 0; !found && i < this.size_; i++)
+                found = this.moves_[i] == move;
+            return found;
+        }
+        
+        // Removes every move
+        void clear()
+        {
+            this.size_ = 0;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package cardgame.games.acestokings;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import cardgame.card.RandomSource;
+import cardgame.player.ConsoleInput;
+import cardgame.player.PlayerIO;
+import cardgame.player.RandomPlayerIO;
+import cardgame.player.ScriptedPlayerIO;
+
+/**
+ * A soak test of the console code path. Records the choices of computer
+ * players over many games as a script, one integer to a line, as they would
+ * be typed at the console, then plays the same games again from the script
+ * with a {@code ScriptedPlayerIO} at every seat, and checks that each game
+ * ends with the same points.
+ * <p>
+ * Each game is seeded as by the {@code Simulator}, and the players at a
+ * table share one {@code ConsoleInput}, as console players share the
+ * standard input.
+ * 
+ * @see ScriptedPlayerIO
+ * @see Simulator
+ */
+public class ScriptedSoak
+{
+    private final int  nPlayers_;
+    private final long seed_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param nPlayers the number of {@code Player}s seated at each game
+     * @param seed     the seed of the games
+     */
+    public ScriptedSoak(int nPlayers, long seed)
+    {
+        this.nPlayers_ = nPlayers;
+        this.seed_     = seed;
+    }
+    
+    /**
+     * Plays the specified number of games between computer players, writing
+     * their choices to the script at the specified path.
+     * 
+     * @param  nGames the number of games to play
+     * @param  script the path of the script to write
+     * @return the points scored from each seat, indexed by game
+     * @throws IOException if the script could not be written
+     */
+    public int[][] record(int nGames, Path script)
+        throws IOException
+    {
+        int[][] points = new int[nGames][];
+        try (Writer aWriter = Files.newBufferedWriter(script,
+                                                      StandardCharsets.UTF_8)) {
+            for (int i = 0; i < nGames; i++) {
+                long           gameSeed  = Simulator.gameSeed(this.seed_, i);
+                RandomSource   choices   = Simulator.playerSource(gameSeed);
+                List<PlayerIO> playerIOs = new ArrayList<PlayerIO>();
+                for (int j = 0; j < this.nPlayers_; j++)
+                    playerIOs.add(new RecordingPlayerIO(choices, aWriter));
+                points[i] = Simulator.playGame(playerIOs, gameSeed);
+            }
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return points;
+    }
+    
+    /**
+     * Plays the specified number of games again from the script at the
+     * specified path.
+     * 
+     * @param  nGames the number of games to play
+     * @param  script the path of the script to read
+     * @return the points scored from each seat, indexed by game
+     * @throws IOException if the script could not be read
+     */
+    public int[][] replay(int nGames, Path script)
+        throws IOException
+    {
+        int[][] points = new int[nGames][];
+        try (ConsoleInput anInput = new ConsoleInput(
+                                        Files.newInputStream(script))) {
+            List<PlayerIO> playerIOs = new ArrayList<PlayerIO>();
+            for (int j = 0; j < this.nPlayers_; j++)
+                playerIOs.add(new ScriptedPlayerIO(anInput));
+            for (int i = 0; i < nGames; i++) {
+                long gameSeed = Simulator.gameSeed(this.seed_, i);
+                points[i]     = Simulator.playGame(playerIOs, gameSeed);
+            }
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return points;
+    }
+    
+    // A computer player that makes uniformly random choices and writes each
+    // to the specified {@code Writer}, a line at a time
+    private static final class RecordingPlayerIO extends RandomPlayerIO
+    {
+        private final Writer script_;
+        
+        // Constructor
+        RecordingPlayerIO(RandomSource rng, Writer script)
+        {
+            super(rng);
+            this.script_ = script;
+        }
+        
+        /* (non-Javadoc)
+         * @see cardgame.player.RandomPlayerIO#chooseInt(int, int)
+         */
+        @Override
+        public int chooseInt(int lowerBound, int upperBound)
+        {
+            int choice = super.chooseInt(lowerBound, upperBound);
+            try {
+                this.script_.write(Integer.toString(choice));
+                this.script_.write('\n');
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return choice;
+        }
+    }
+    
+    // Records and replays a number of games, and reports the throughput of
+    // each and any game that did not replay the same. Takes the number of
+    // games, the number of players, a seed and the path of the script, by
+    // default a temporary file that is deleted afterwards.
+    public static void main(String[] args)
+        throws IOException
+    {
+        int     nGames    = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int     nPlayers  = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long    seed      = args.length > 2 ? Long.parseLong(args[2])   : 0;
+        boolean temporary = args.length <= 3;
+        Path    script    = temporary ? Files.createTempFile("soak", ".txt")
+                                      : Paths.get(args[3]);
+        
+        ScriptedSoak soak     = new ScriptedSoak(nPlayers, seed);
+        long         start    = System.nanoTime();
+        int[][]      recorded = soak.record(nGames, script);
+        ScriptedSoak.report("Recorded", nGames, start);
+        try (Stream<String> choices = Files.lines(script)) {
+            System.out.println(String.format("  %d choices, %.1f MB of"
+                                             + " script", choices.count(),
+                                             Files.size(script) / 1e6));
+        }
+        
+        start = System.nanoTime();
+        int[][] replayed    = soak.replay(nGames, script);
+        ScriptedSoak.report("Replayed", nGames, start);
+        int     nMismatches = 0;
+        for (int i = 0; i < nGames; i++) {
+            if (!Arrays.equals(recorded[i], replayed[i])) {
+                System.out.println("  Game " + i + " replayed as "
+                                   + Arrays.toString(replayed[i])
+                                   + " rather than "
+                                   + Arrays.toString(recorded[i]));
+                nMismatches++;
+            }
+        }
+        System.out.println("  " + nMismatches + " games did not replay the"
+                           + " same");
+        if (temporary)
+            Files.delete(script);
+    }
+    
+    // Prints the throughput of a phase of the soak test
+    private static void report(String phase, int nGames, long start)
+    {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%s %d games in %.3f seconds"
+                                         + " (%.1f games/sec)", phase, nGames,
+                                         seconds, nGames / seconds));
+    }
+}
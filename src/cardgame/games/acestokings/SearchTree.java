@@ -0,0 +1,372 @@
+package cardgame.games.acestokings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cardgame.card.RandomSource;
+import cardgame.card.traditional.CardSet;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.card.traditional.Rank;
+
+/**
+ * A single search tree of information set Monte Carlo tree search, grown from
+ * the point of view of the player whose turn it is.
+ * <p>
+ * Each iteration first guesses at the {@code PlayingCard}s the player can
+ * not see, dealing the deck and the other hands afresh from the
+ * {@code PlayingCard}s they hold between them. The tree is then walked down
+ * through the moves allowed in that deal, picking by upper confidence bound
+ * among the moves that were available as often as they were visited, until
+ * a move not yet tried is reached. The round is played out from there by a
+ * quick greedy policy, and every player's share of the result is added to
+ * the moves they made on the way.
+ * <p>
+ * A {@code SearchTree} is only ever used by one thread. Searching with
+ * several threads is done by growing a tree on each and adding up the visits
+ * to the moves at their roots.
+ * 
+ * @see Moves
+ * @see MonteCarloPlayerIO
+ */
+class SearchTree
+{
+    private static final double EXPLORATION    = 0.7;
+    private static final int    ROLLOUT_TURNS  = 40;
+    private static final int    MELDS_PER_TURN = 8;
+    
+    private final GameState      root_;
+    private final Moves.MoveList excluded_;
+    private final RandomSource   rng_;
+    private final Node           rootNode_;
+    private final Moves.MoveList moves_;
+    private final List<Node>     candidates_;
+    private       int            nIterations_;
+    
+    // Constructor for a search from the specified state, never making any of
+    // the specified moves at the root
+    SearchTree(GameState aState, Moves.MoveList excluded, RandomSource rng)
+    {
+        this.root_        = aState;
+        this.excluded_    = excluded;
+        this.rng_         = rng;
+        this.rootNode_    = new Node(0L, aState.getCurrentPlayer(), null);
+        this.moves_       = new Moves.MoveList();
+        this.candidates_  = new ArrayList<Node>();
+        this.nIterations_ = 0;
+    }
+    
+    // Runs iterations until the {@code System.nanoTime()} deadline passes,
+    // and returns this {@code SearchTree}.
+    SearchTree searchUntil(long deadline)
+    {
+        do {
+            iterate();
+            this.nIterations_++;
+        } while (System.nanoTime() - deadline < 0);
+        return this;
+    }
+    
+    // Returns the number of iterations run
+    int getIterations()
+    {
+        return this.nIterations_;
+    }
+    
+    // Returns the number of moves tried from the root
+    int getRootMoveCount()
+    {
+        return this.rootNode_.children_.size();
+    }
+    
+    // Returns the move tried from the root at the specified index
+    long getRootMove(int index)
+    {
+        return this.rootNode_.children_.get(index).move_;
+    }
+    
+    // Returns the visits to the move tried from the root at the specified
+    // index
+    int getRootVisits(int index)
+    {
+        return this.rootNode_.children_.get(index).visits_;
+    }
+    
+    // Runs a single iteration: deals, selects, expands, plays out, and
+    // backs up the result.
+    private void iterate()
+    {
+        GameState aState   = deal(this.root_);
+        Node      aNode    = this.rootNode_;
+        boolean   expanded = false;
+        
+        while (!expanded && !aState.isRoundOver()) {
+            findMoves(aState, aNode == this.rootNode_);
+            if (this.moves_.size() == 0) {
+                expanded = true;
+            }
+            else {
+                Node untried = pickUntried(aNode,
+                                           aState.getCurrentPlayer());
+                if (untried != null) {
+                    aNode    = untried;
+                    expanded = true;
+                }
+                else {
+                    aNode = select(aNode);
+                }
+                aState = Moves.apply(aState, aNode.move_, this.rng_);
+            }
+        }
+        
+        double[] rewards = rewards(playOut(aState));
+        for (Node n = aNode; n != null; n = n.parent_) {
+            n.visits_++;
+            n.reward_ += rewards[n.player_];
+        }
+    }
+    
+    // Fills {@code moves_} with the moves allowed, leaving out the excluded
+    // ones at the root
+    private void findMoves(GameState aState, boolean atRoot)
+    {
+        Moves.findMoves(aState, this.moves_);
+        if (atRoot && this.excluded_.size() > 0) {
+            Moves.MoveList allowed = new Moves.MoveList();
+            for (int i = 0; i < this.moves_.size(); i++) {
+                if (!this.excluded_.contains(this.moves_.get(i)))
+                    allowed.add(this.moves_.get(i));
+            }
+            this.moves_.clear();
+            for (int i = 0; i < allowed.size(); i++)
+                this.moves_.add(allowed.get(i));
+        }
+    }
+    
+    // Adds a child to the specified {@code Node} for one of the allowed moves
+    // not yet tried from it, chosen at random and made by the specified
+    // player, or returns {@code null} if they have all been tried.
+    private Node pickUntried(Node aNode, int player)
+    {
+        int  nUntried = 0;
+        long chosen   = 0L;
+        for (int i = 0; i < this.moves_.size(); i++) {
+            long move = this.moves_.get(i);
+            if (aNode.findChild(move) == null) {
+                nUntried++;
+                if (this.rng_.nextInt(nUntried) == 0)
+                    chosen = move;
+            }
+        }
+        
+        Node child = null;
+        if (nUntried > 0) {
+            child = new Node(chosen, player, aNode);
+            aNode.children_.add(child);
+        }
+        return child;
+    }
+    
+    // Selects the child of the specified {@code Node} with the highest upper
+    // confidence bound among those allowed, counting each allowed child as
+    // available once more.
+    private Node select(Node aNode)
+    {
+        this.candidates_.clear();
+        for (int i = 0; i < this.moves_.size(); i++)
+            this.candidates_.add(aNode.findChild(this.moves_.get(i)));
+        
+        Node   best      = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Node child : this.candidates_) {
+            child.availability_++;
+            double score = child.reward_ / child.visits_
+                           + SearchTree.EXPLORATION
+                             * Math.sqrt(Math.log(child.availability_)
+                                         / child.visits_);
+            if (score > bestScore) {
+                best      = child;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+    
+    // Deals the {@code PlayingCard}s the current player can not see at
+    // random, keeping the size of the deck and of every hand.
+    private GameState deal(GameState aState)
+    {
+        int    observer = aState.getCurrentPlayer();
+        int    nPlayers = aState.getPlayerCount();
+        long   unseen   = aState.getDeckBits();
+        long[] hands    = new long[nPlayers];
+        for (int i = 0; i < nPlayers; i++) {
+            if (i != observer)
+                unseen |= aState.getHandBits(i);
+        }
+        
+        for (int i = 0; i < nPlayers; i++) {
+            if (i == observer) {
+                hands[i] = aState.getHandBits(i);
+            }
+            else {
+                int nCards = Long.bitCount(aState.getHandBits(i));
+                for (int j = 0; j < nCards; j++) {
+                    int  index = this.rng_.nextInt(Long.bitCount(unseen));
+                    long bit   = 1L << Moves.pickBit(unseen, index);
+                    hands[i]  |= bit;
+                    unseen    &= ~bit;
+                }
+            }
+        }
+        return aState.withDeal(unseen, hands);
+    }
+    
+    // Plays the round out greedily from the specified state, stopping after
+    // a number of turns if nobody has gone out by then.
+    private GameState playOut(GameState aState)
+    {
+        GameState current = aState;
+        int       nTurns  = 0;
+        int       nMelds  = 0;
+        while (!current.isRoundOver() && nTurns < SearchTree.ROLLOUT_TURNS) {
+            long move;
+            if (!current.hasDrawn()) {
+                move   = chooseDraw(current);
+                nMelds = 0;
+            }
+            else {
+                this.moves_.clear();
+                if (nMelds < SearchTree.MELDS_PER_TURN)
+                    Moves.findMeldPlays(current, this.moves_);
+                if (this.moves_.size() > 0) {
+                    move = this.moves_.get(this.rng_.nextInt(
+                                                     this.moves_.size()));
+                    nMelds++;
+                }
+                else {
+                    move = chooseDiscard(current);
+                    nTurns++;
+                }
+            }
+            current = Moves.apply(current, move, this.rng_);
+        }
+        return current;
+    }
+    
+    // Draws the top discard if it is a joker or would join
+    // {@code PlayingCard}s already held, and otherwise from the deck.
+    private long chooseDraw(GameState aState)
+    {
+        PlayingCard top  = aState.getTopDiscard();
+        long        hand = aState.getHandBits(aState.getCurrentPlayer());
+        boolean     take = top != null && (top.getRank() == Rank.JOKER
+                                           || isConnected(top, hand));
+        take             = take || aState.getDeckBits() == 0L;
+        return take ? Moves.DRAW_DISCARD : Moves.DRAW_DECK;
+    }
+    
+    // Discards the highest {@code PlayingCard} that joins no other held,
+    // then the highest that is not a joker, and a joker only as a last
+    // resort. The {@code PlayingCard} drawn from the discard pile is kept.
+    private long chooseDiscard(GameState aState)
+    {
+        long        hand  = aState.getHandBits(aState.getCurrentPlayer());
+        PlayingCard drawn = aState.getDrawnDiscard();
+        PlayingCard best  = null;
+        int         score = -1;
+        for (long bits = hand; bits != 0; bits &= bits - 1) {
+            PlayingCard aCard = PlayingCard.fromId(
+                                    Long.numberOfTrailingZeros(bits));
+            int         cardScore;
+            if (aCard == drawn)
+                cardScore = -1;
+            else if (aCard.getRank() == Rank.JOKER)
+                cardScore = 0;
+            else if (isConnected(aCard, hand))
+                cardScore = aCard.getRank().getValue();
+            else
+                cardScore = Rank.JOKER.getValue() + aCard.getRank().getValue();
+            if (cardScore > score) {
+                best  = aCard;
+                score = cardScore;
+            }
+        }
+        return Moves.discard(best);
+    }
+    
+    // Checks if a {@code PlayingCard} shares its {@code Rank} with another
+    // held, or is next to one of its {@code Suit}
+    private static boolean isConnected(PlayingCard aCard, long hand)
+    {
+        int     id       = aCard.getId();
+        int     ordinal  = aCard.getRank().ordinal();
+        long    others   = hand & ~(1L << id);
+        boolean hasRank  = (others & CardSet.rankBits(aCard.getRank())) != 0;
+        boolean hasLower = ordinal > Rank.ACE.ordinal()
+                           && (others & (1L << (id - 1))) != 0;
+        boolean hasUpper = ordinal < Rank.KING.ordinal()
+                           && (others & (1L << (id + 1))) != 0;
+        return hasRank || hasLower || hasUpper;
+    }
+    
+    // Scores each player between zero and one by the points left in their
+    // hand, the fewest scoring one
+    private static double[] rewards(GameState aState)
+    {
+        int   nPlayers = aState.getPlayerCount();
+        int[] points   = new int[nPlayers];
+        int   fewest   = Integer.MAX_VALUE;
+        int   most     = 0;
+        for (int i = 0; i < nPlayers; i++) {
+            points[i] = aState.getHandPoints(i);
+            fewest    = Math.min(fewest, points[i]);
+            most      = Math.max(most, points[i]);
+        }
+        
+        double[] rewards = new double[nPlayers];
+        for (int i = 0; i < nPlayers; i++) {
+            if (most == fewest)
+                rewards[i] = 0.5;
+            else
+                rewards[i] = (double) (most - points[i]) / (most - fewest);
+        }
+        return rewards;
+    }
+    
+    // A move in the tree, with the statistics of the iterations through it
+    private static class Node
+    {
+        private final long       move_;
+        private final int        player_;
+        private final Node       parent_;
+        private final List<Node> children_;
+        private       int        visits_;
+        private       double     reward_;
+        private       int        availability_;
+        
+        // Constructor for the specified move made by the specified player
+        Node(long move, int player, Node parent)
+        {
+            this.move_         = move;
+            this.player_       = player;
+            this.parent_       = parent;
+            this.children_     = new ArrayList<Node>();
+            this.visits_       = 0;
+            this.reward_       = 0.0;
+            this.availability_ = 1;
+        }
+        
+        // Returns the child for the specified move, or {@code null}
+        Node findChild(long move)
+        {
+            Node child = null;
+            int  i     = 0;
+            while (child == null && i < this.children_.size()) {
+                if (this.children_.get(i).move_ == move)
+                    child = this.children_.get(i);
+                i++;
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package cardgame.games.acestokings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cardgame.card.RandomSource;
+import cardgame.card.traditional.PlayingCard;
+import cardgame.player.Player;
+import cardgame.player.PlayerIO;
+import cardgame.player.RandomPlayerIO;
+
+/**
+ * A headless simulator for the card game Aces to Kings. Plays full games
+ * between computer players without any console interaction, keeping a
+ * running total of the points scored from each seat. Rounds are cut short
+ * after {@value #TURN_LIMIT} turns, as random players can easily reach a
+ * position that nobody can go out from.
+ * <p>
+ * Each game is seeded from the simulation seed and the index of the game, so
+ * a game plays out the same regardless of which games are played around it.
+ * <p>
+ * Statistics beyond the points can be gathered by a {@code GameStatistics},
+ * which listens to every game as it is played.
+ * 
+ * @see Game
+ * @see RandomPlayerIO
+ * @see GameStatistics
+ */
+public class Simulator
+{
+    static final int TURN_LIMIT = 1000;
+    
+    private final int            nPlayers_;
+    private final long           seed_;
+    private final long[]         seatPoints_;
+    private       int            nGamesPlayed_;
+    private       GameStatistics statistics_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param nPlayers the number of {@code Player}s seated at each game
+     * @param seed     the seed for the shuffles and the random choices made
+     *                 by the players
+     */
+    public Simulator(int nPlayers, long seed)
+    {
+        this.nPlayers_     = nPlayers;
+        this.seed_         = seed;
+        this.seatPoints_   = new long[nPlayers];
+        this.nGamesPlayed_ = 0;
+        this.statistics_   = null;
+    }
+    
+    /**
+     * Sets the {@code GameStatistics} that every game played from now on is
+     * gathered into.
+     * 
+     * @param statistics the {@code GameStatistics}, or {@code null} to stop
+     *                   gathering statistics
+     */
+    public void setStatistics(GameStatistics statistics)
+    {
+        this.statistics_ = statistics;
+    }
+    
+    /**
+     * Plays the specified number of full games, adding the points scored by
+     * each seat to the running totals.
+     * 
+     * @param nGames the number of games to play
+     */
+    public void run(int nGames)
+    {
+        for (int i = 0; i < nGames; i++) {
+            long  gameSeed = Simulator.gameSeed(this.seed_, this.nGamesPlayed_);
+            int[] points   = Simulator.playGame(this.nPlayers_, gameSeed,
+                                                this.statistics_);
+            for (int j = 0; j < this.nPlayers_; j++)
+                this.seatPoints_[j] += points[j];
+            this.nGamesPlayed_++;
+        }
+    }
+    
+    /**
+     * Returns the number of games played by this {@code Simulator}.
+     * 
+     * @return the number of games played
+     */
+    public int getGamesPlayed()
+    {
+        return this.nGamesPlayed_;
+    }
+    
+    /**
+     * Returns the total points scored from each seat over every game played.
+     * 
+     * @return the point totals, indexed by seat
+     */
+    public long[] getSeatPoints()
+    {
+        return this.seatPoints_.clone();
+    }
+    
+    // Plays a single game from the specified seed and returns the points
+    // scored from each seat, telling each of the specified
+    // {@code GameListener}s that is not {@code null} of its events. Shares no
+    // state with other games, so may be called from any thread.
+    static int[] playGame(int nPlayers, long gameSeed,
+                          GameListener... listeners)
+    {
+        RandomSource   choices   = Simulator.playerSource(gameSeed);
+        List<PlayerIO> playerIOs = new ArrayList<PlayerIO>(nPlayers);
+        for (int i = 0; i < nPlayers; i++)
+            playerIOs.add(new RandomPlayerIO(choices));
+        return Simulator.playGame(playerIOs, gameSeed, listeners);
+    }
+    
+    // Plays a single game as above between the specified
+    // {@code PlayerIO}s, in the order given, dealt from as many decks as the
+    // table needs.
+    static int[] playGame(List<? extends PlayerIO> playerIOs, long gameSeed,
+                          GameListener... listeners)
+    {
+        int  nPlayers = playerIOs.size();
+        Game game     = new Game(playerIOs, RandomSource.seeded(gameSeed),
+                                 Game.decksFor(nPlayers));
+        game.setTurnLimit(Simulator.TURN_LIMIT);
+        for (GameListener aListener : listeners) {
+            if (aListener != null)
+                game.addListener(aListener);
+        }
+        game.play();
+        
+        List<Player<PlayingCard>> players = game.getPlayers();
+        int[]                     points  = new int[nPlayers];
+        for (int i = 0; i < nPlayers; i++)
+            points[i] = players.get(i).getPointTotal();
+        return points;
+    }
+    
+    // Returns the source of randomness for the choices of the players in the
+    // game of the specified seed. It is kept apart from the game's own
+    // source, so that the shuffles of a game depend on nothing but its seed,
+    // and the game can be replayed from its seed and a record of the choices.
+    static RandomSource playerSource(long gameSeed)
+    {
+        return RandomSource.seeded(Simulator.gameSeed(gameSeed, 0));
+    }
+    
+    // Derives the seed of the game at the specified index from the seed of a
+    // simulation. Uses the SplitMix64 finaliser so that neighbouring indices
+    // give unrelated seeds.
+    static long gameSeed(long seed, long gameIndex)
+    {
+        long z = seed + (gameIndex + 1) * 0x9E3779B97F4A7C15L;
+        z      = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z      = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    // Runs a simulation and reports the throughput and the statistics of the
+    // games. Takes the number of games, the number of players and a seed as
+    // optional arguments.
+    public static void main(String[] args)
+    {
+        int  nGames   = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int  nPlayers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seed     = args.length > 2 ? Long.parseLong(args[2])   : 0;
+        
+        Simulator      simulator  = new Simulator(nPlayers, seed);
+        GameStatistics statistics = new GameStatistics();
+        simulator.setStatistics(statistics);
+        long           startTime  = System.nanoTime();
+        simulator.run(nGames);
+        double         seconds    = (System.nanoTime() - startTime) / 1e9;
+        
+        System.out.println(String.format("Played %d games in %.3f seconds"
+                                         + " (%.1f games/sec)", nGames,
+                                         seconds, nGames / seconds));
+        long[] seatPoints = simulator.getSeatPoints();
+        for (int i = 0; i < nPlayers; i++)
+            System.out.println(String.format("  Seat %d: %.1f points per game",
+                                             i, (double) seatPoints[i]
+                                                 / nGames));
+        System.out.println(statistics);
+    }
+}
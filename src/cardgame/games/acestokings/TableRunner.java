@@ -0,0 +1,36 @@
+package cardgame.games.acestokings;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A runner of many {@code Game}s at once, each played through to its end
+ * without the caller waiting on it.
+ * 
+ * @see TableScheduler
+ * @see TableThreads
+ */
+public interface TableRunner
+    extends Closeable
+{
+    /**
+     * Starts playing a {@code Game} through. The {@code Game} must not be
+     * played by anything else until it is over.
+     * 
+     * @param  aGame       the {@code Game} to play
+     * @param  interactive {@code true} if a human is seated at the table
+     * @return a future of the {@code Game} that completes once it is over,
+     *         or completes exceptionally if a choice fails
+     * @throws java.util.concurrent.RejectedExecutionException if this
+     *         runner is closed
+     */
+    CompletableFuture<Game> submit(Game aGame, boolean interactive);
+    
+    /**
+     * Stops starting {@code Game}s.
+     * 
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    void close();
+}
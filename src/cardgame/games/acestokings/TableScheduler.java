@@ -0,0 +1,499 @@
+package cardgame.games.acestokings;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import cardgame.card.RandomSource;
+import cardgame.player.Decision;
+import cardgame.player.DecisionContext;
+import cardgame.player.PlayerIO;
+import cardgame.player.RandomPlayerIO;
+import cardgame.player.Selectable;
+import cardgame.player.Trampoline;
+
+/**
+ * Plays many {@code Game}s at once on a small pool of worker threads, one
+ * {@code Decision} at a time.
+ * <p>
+ * Each {@code Game} is a table that waits in a queue to be stepped. A worker
+ * takes the next table and asks for its choices with
+ * {@link Decision#askAsync()}, making each choice that is answered at once,
+ * until the table waits on an answer that has not arrived yet or has used
+ * up its slice of choices. A table waiting on an answer is in no queue and
+ * holds no thread, and the answer puts it back in its queue. A table that
+ * used up its slice goes to the back of its queue, so that no table keeps a
+ * worker from the others for long. The number of tables is then bound by
+ * memory rather than by threads.
+ * <p>
+ * Tables with a human seated at them are interactive, and are queued apart
+ * from the batch tables played by computers alone. Workers always serve the
+ * interactive queue first, so however many batch tables are queued an
+ * answer from a human waits at most for the slices being played to finish
+ * before its table is stepped again.
+ * 
+ * @see Game#nextDecision()
+ * @see Game#decide(int)
+ * @see TableRunner
+ */
+public class TableScheduler
+    implements TableRunner
+{
+    /**
+     * The number of choices a table is stepped through, by default, before
+     * it goes to the back of its queue.
+     */
+    public static final int DEFAULT_SLICE = 64;
+    
+    private static final String WORKER_NAME = "table-scheduler-";
+    
+    private final Thread[]     workers_;
+    private final int          slice_;
+    private final Lock         lock_;
+    private final Condition    ready_;
+    private final Deque<Table> interactive_;
+    private final Deque<Table> batch_;
+    private final LongAdder    nDecisions_;
+    private final WaitTimes    interactiveWaits_;
+    private final WaitTimes    batchWaits_;
+    private boolean            closed_;
+    
+    /**
+     * Creates a scheduler with the default slice, and starts its workers.
+     * 
+     * @param nWorkers the number of worker threads to step tables on
+     */
+    public TableScheduler(int nWorkers)
+    {
+        this(nWorkers, TableScheduler.DEFAULT_SLICE);
+    }
+    
+    /**
+     * Creates a scheduler and starts its workers.
+     * 
+     * @param nWorkers the number of worker threads to step tables on
+     * @param slice    the number of choices a table is stepped through
+     *                 before it goes to the back of its queue
+     */
+    public TableScheduler(int nWorkers, int slice)
+    {
+        this.workers_          = new Thread[nWorkers];
+        this.slice_            = slice;
+        this.lock_             = new ReentrantLock();
+        this.ready_            = this.lock_.newCondition();
+        this.interactive_      = new ArrayDeque<Table>();
+        this.batch_            = new ArrayDeque<Table>();
+        this.nDecisions_       = new LongAdder();
+        this.interactiveWaits_ = new WaitTimes();
+        this.batchWaits_       = new WaitTimes();
+        this.closed_           = false;
+        
+        for (int i = 0; i < nWorkers; i++) {
+            this.workers_[i] = new Thread(this::work,
+                                          TableScheduler.WORKER_NAME + i);
+            this.workers_[i].setDaemon(true);
+            this.workers_[i].start();
+        }
+    }
+    
+    /**
+     * Queues a {@code Game} to be played through. An interactive table is
+     * served before every batch table. The future of the {@code Game} is
+     * cancelled if this scheduler is closed before it is over.
+     * 
+     * @see TableRunner#submit(Game, boolean)
+     */
+    @Override
+    public CompletableFuture<Game> submit(Game aGame, boolean interactive)
+    {
+        Table aTable = new Table(aGame, interactive);
+        this.lock_.lock();
+        try {
+            if (this.closed_)
+                throw new RejectedExecutionException("Scheduler is closed");
+            enqueue(aTable);
+        }
+        finally {
+            this.lock_.unlock();
+        }
+        return aTable.done_;
+    }
+    
+    /**
+     * Returns the number of choices made at every table so far.
+     * 
+     * @return the number of choices made
+     */
+    public long getDecisionCount()
+    {
+        return this.nDecisions_.sum();
+    }
+    
+    /**
+     * Returns the mean time tables have waited in a queue before a worker
+     * took them.
+     * 
+     * @param  interactive {@code true} for the interactive tables, or
+     *                     {@code false} for the batch tables
+     * @return the mean wait in microseconds, or zero if there have been none
+     */
+    public double getMeanWaitMicros(boolean interactive)
+    {
+        return waitsOf(interactive).meanMicros();
+    }
+    
+    /**
+     * Returns the longest time a table has waited in a queue before a worker
+     * took it.
+     * 
+     * @param  interactive {@code true} for the interactive tables, or
+     *                     {@code false} for the batch tables
+     * @return the longest wait in microseconds
+     */
+    public long getMaxWaitMicros(boolean interactive)
+    {
+        return waitsOf(interactive).maxMicros();
+    }
+    
+    /**
+     * Stops the workers once they have finished the slices they are
+     * playing, and cancels every table that is not over.
+     * 
+     * @see TableRunner#close()
+     */
+    @Override
+    public void close()
+    {
+        List<Table> dropped = new ArrayList<Table>();
+        this.lock_.lock();
+        try {
+            this.closed_ = true;
+            dropped.addAll(this.interactive_);
+            dropped.addAll(this.batch_);
+            this.interactive_.clear();
+            this.batch_.clear();
+            this.ready_.signalAll();
+        }
+        finally {
+            this.lock_.unlock();
+        }
+        
+        for (Table aTable : dropped)
+            aTable.done_.cancel(false);
+        try {
+            for (Thread aWorker : this.workers_)
+                aWorker.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // Steps the tables taken from the queues until this scheduler is closed
+    private void work()
+    {
+        Table aTable = take();
+        while (aTable != null) {
+            runSlice(aTable);
+            aTable = take();
+        }
+    }
+    
+    // Waits for a table to be queued and takes it, from the interactive
+    // queue if it has one. Returns null once this scheduler is closed.
+    private Table take()
+    {
+        Table aTable = null;
+        this.lock_.lock();
+        try {
+            while (!this.closed_ && this.interactive_.isEmpty()
+                   && this.batch_.isEmpty())
+                this.ready_.awaitUninterruptibly();
+            if (!this.closed_) {
+                aTable = this.interactive_.pollFirst();
+                if (aTable == null)
+                    aTable = this.batch_.pollFirst();
+            }
+        }
+        finally {
+            this.lock_.unlock();
+        }
+        
+        if (aTable != null)
+            waitsOf(aTable.interactive_).record(System.nanoTime()
+                                                - aTable.readyAt_);
+        return aTable;
+    }
+    
+    // Steps the specified table until it waits on an answer, uses up its
+    // slice or is over. Once a table is left waiting on an answer it may be
+    // taken by another worker, so it is not touched again.
+    private void runSlice(Table aTable)
+    {
+        Game    game       = aTable.game_;
+        int     nDecisions = 0;
+        boolean waiting    = false;
+        boolean over       = false;
+        
+        try {
+            if (aTable.answered_) {
+                aTable.answered_ = false;
+                game.decide(aTable.answer_);
+                nDecisions++;
+            }
+            while (!waiting && !over && nDecisions < this.slice_) {
+                Decision aDecision = game.nextDecision();
+                if (aDecision == null) {
+                    over = true;
+                }
+                else {
+                    CompletableFuture<Integer> answer = aDecision.askAsync();
+                    if (answer.isDone()) {
+                        game.decide(Trampoline.await(answer));
+                        nDecisions++;
+                    }
+                    else {
+                        waiting = true;
+                        answer.whenComplete((choice, failure) ->
+                            answered(aTable, choice, failure));
+                    }
+                }
+            }
+            
+            if (over)
+                aTable.done_.complete(game);
+            else if (!waiting)
+                schedule(aTable);
+        }
+        catch (RuntimeException e) {
+            aTable.done_.completeExceptionally(e);
+        }
+        this.nDecisions_.add(nDecisions);
+    }
+    
+    // Queues the specified table again once the answer it waits on arrives,
+    // or fails it if the answer failed. Runs on the thread that completed
+    // the answer, so does no more than queue the table.
+    private void answered(Table aTable, Integer choice, Throwable failure)
+    {
+        if (failure == null) {
+            aTable.answer_   = choice;
+            aTable.answered_ = true;
+            schedule(aTable);
+        }
+        else {
+            aTable.done_.completeExceptionally(failure);
+        }
+    }
+    
+    // Queues the specified table to be stepped, or cancels it if this
+    // scheduler is closed
+    private void schedule(Table aTable)
+    {
+        boolean queued;
+        this.lock_.lock();
+        try {
+            queued = !this.closed_;
+            if (queued)
+                enqueue(aTable);
+        }
+        finally {
+            this.lock_.unlock();
+        }
+        
+        if (!queued)
+            aTable.done_.cancel(false);
+    }
+    
+    // Adds the specified table to the back of its queue and wakes a worker.
+    // The lock must be held.
+    private void enqueue(Table aTable)
+    {
+        aTable.readyAt_ = System.nanoTime();
+        if (aTable.interactive_)
+            this.interactive_.addLast(aTable);
+        else
+            this.batch_.addLast(aTable);
+        this.ready_.signal();
+    }
+    
+    // Returns the wait times of the interactive or the batch tables
+    private WaitTimes waitsOf(boolean interactive)
+    {
+        return interactive ? this.interactiveWaits_ : this.batchWaits_;
+    }
+    
+    // A {@code Game} being played, with the answer it was last left waiting
+    // on once that has arrived. The fields are only touched by one thread at
+    // a time, and are handed between threads through the queues.
+    private static final class Table
+    {
+        private final Game                    game_;
+        private final boolean                 interactive_;
+        private final CompletableFuture<Game> done_;
+        private       int                     answer_;
+        private       boolean                 answered_;
+        private       long                    readyAt_;
+        
+        // Constructor
+        Table(Game aGame, boolean interactive)
+        {
+            this.game_        = aGame;
+            this.interactive_ = interactive;
+            this.done_        = new CompletableFuture<Game>();
+            this.answer_      = 0;
+            this.answered_    = false;
+            this.readyAt_     = 0;
+        }
+    }
+    
+    // The times that tables of one kind have spent queued
+    private static final class WaitTimes
+    {
+        private final LongAdder       totalNanos_;
+        private final LongAdder       count_;
+        private final LongAccumulator maxNanos_;
+        
+        // Constructor
+        WaitTimes()
+        {
+            this.totalNanos_ = new LongAdder();
+            this.count_      = new LongAdder();
+            this.maxNanos_   = new LongAccumulator(Math::max, 0);
+        }
+        
+        // Records a wait of the specified length
+        void record(long nanos)
+        {
+            this.totalNanos_.add(nanos);
+            this.count_.increment();
+            this.maxNanos_.accumulate(nanos);
+        }
+        
+        // Returns the mean wait in microseconds
+        double meanMicros()
+        {
+            long count = this.count_.sum();
+            return count == 0 ? 0
+                              : this.totalNanos_.sum() / (count * 1000.0);
+        }
+        
+        // Returns the longest wait in microseconds
+        long maxMicros()
+        {
+            return TimeUnit.NANOSECONDS.toMicros(this.maxNanos_.get());
+        }
+    }
+    
+    // A computer player that answers like a human would, some time after
+    // being asked. The answers are completed on the specified timer.
+    private static final class ThinkingPlayerIO extends RandomPlayerIO
+    {
+        private final ScheduledExecutorService timer_;
+        private final long                     thinkMillis_;
+        
+        // Constructor
+        ThinkingPlayerIO(RandomSource rng, ScheduledExecutorService timer,
+                         long thinkMillis)
+        {
+            super(rng);
+            this.timer_       = timer;
+            this.thinkMillis_ = thinkMillis;
+        }
+        
+        /* (non-Javadoc)
+         * @see cardgame.player.PlayerIO#chooseIntAsync(int, int)
+         */
+        @Override
+        public CompletableFuture<Integer> chooseIntAsync(int lowerBound,
+                                                         int upperBound)
+        {
+            int                        choice = chooseInt(lowerBound,
+                                                          upperBound);
+            CompletableFuture<Integer> answer = new CompletableFuture<
+                                                            Integer>();
+            this.timer_.schedule(() -> answer.complete(choice),
+                                 this.thinkMillis_, TimeUnit.MILLISECONDS);
+            return answer;
+        }
+        
+        /* (non-Javadoc)
+         * @see cardgame.player.PlayerIO#chooseAsync(
+         *      cardgame.player.DecisionContext, java.util.List)
+         */
+        @Override
+        public CompletableFuture<Integer>
+            chooseAsync(DecisionContext context,
+                        List<? extends Selectable> options)
+        {
+            return chooseIntAsync(0, options.size());
+        }
+    }
+    
+    // Plays batch tables of computer players alongside interactive tables,
+    // each with one player that takes its time to answer, and reports how
+    // long each kind of table waited for a worker. Takes the number of
+    // batch tables, the number of interactive tables, the number of
+    // workers, the turn limit per round and the thinking time in
+    // milliseconds.
+    public static void main(String[] args)
+        throws InterruptedException
+    {
+        int  nBatch      = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int  nHuman      = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int  nWorkers    = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int  turnLimit   = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        long thinkMillis = args.length > 4 ? Long.parseLong(args[4]) : 20;
+        
+        ScheduledExecutorService      timer     = Executors
+                                            .newSingleThreadScheduledExecutor();
+        TableScheduler                scheduler = new TableScheduler(nWorkers);
+        List<CompletableFuture<Game>> tables    = new ArrayList<
+                                                     CompletableFuture<Game>>();
+        long start = System.nanoTime();
+        
+        // The interactive tables are queued last, behind every batch table
+        for (int i = 0; i < nBatch + nHuman; i++) {
+            long         seed    = Simulator.gameSeed(0, i);
+            RandomSource choices = Simulator.playerSource(seed);
+            boolean      human   = i >= nBatch;
+            PlayerIO     first   = human ? new ThinkingPlayerIO(choices, timer,
+                                                                thinkMillis)
+                                         : new RandomPlayerIO(choices);
+            Game         aGame   = new Game(Arrays.asList(
+                                       first, new RandomPlayerIO(choices),
+                                       new RandomPlayerIO(choices),
+                                       new RandomPlayerIO(choices)),
+                                       RandomSource.seeded(seed));
+            aGame.setTurnLimit(turnLimit);
+            tables.add(scheduler.submit(aGame, human));
+        }
+        CompletableFuture.allOf(tables.toArray(new CompletableFuture<?>[0]))
+                         .join();
+        
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Played %d tables in %.3f seconds"
+                          + " (%.0f decisions/sec)%n", tables.size(), seconds,
+                          scheduler.getDecisionCount() / seconds);
+        System.out.printf("  Interactive waits: mean %.0f us, max %d us%n",
+                          scheduler.getMeanWaitMicros(true),
+                          scheduler.getMaxWaitMicros(true));
+        System.out.printf("  Batch waits:       mean %.0f us, max %d us%n",
+                          scheduler.getMeanWaitMicros(false),
+                          scheduler.getMaxWaitMicros(false));
+        scheduler.close();
+        timer.shutdown();
+    }
+}
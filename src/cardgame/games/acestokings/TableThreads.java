@@ -0,0 +1,243 @@
+package cardgame.games.acestokings;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cardgame.card.RandomSource;
+import cardgame.player.RandomPlayerIO;
+import cardgame.player.Trampoline;
+
+/**
+ * Plays each {@code Game} on a thread of its own, waiting on the
+ * {@code PlayerIO}s with the blocking {@link Game#play()}.
+ * <p>
+ * This is the simple alternative to stepping every table on a
+ * {@code TableScheduler}. On a runtime with virtual threads, from Java 21,
+ * every table is given a virtual thread, and a table blocked on a remote
+ * player parks without holding a carrier thread, so a JVM can hold as many
+ * waiting tables as its memory allows. The {@code PlayerIO}s of this package
+ * and of {@code cardgame.net} never hold a monitor while they wait, so they
+ * do not pin the carrier. On older runtimes, where this code is compiled to
+ * run, each table is given a platform thread with a small stack instead,
+ * and a few thousand tables is the practical limit.
+ * <p>
+ * Virtual threads are found reflectively, so that the same classes run on
+ * either runtime. Every table is treated alike, as each has its own thread.
+ * 
+ * @see TableScheduler
+ * @see TableRunner
+ */
+public class TableThreads
+    implements TableRunner
+{
+    /**
+     * The stack size of each platform thread, when there are no virtual
+     * threads.
+     */
+    public static final long PLATFORM_STACK_BYTES = 256 * 1024;
+    
+    private final String        name_;
+    private final ThreadFactory virtualThreads_;
+    private final AtomicLong    nThreads_;
+    private volatile boolean    closed_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param name the prefix of the names of the threads, which are
+     *             numbered from zero
+     */
+    public TableThreads(String name)
+    {
+        this.name_           = name;
+        this.virtualThreads_ = TableThreads.findVirtualThreads(name);
+        this.nThreads_       = new AtomicLong();
+        this.closed_         = false;
+    }
+    
+    /**
+     * Checks if the tables are played on virtual threads.
+     * 
+     * @return {@code true} if the runtime has virtual threads
+     */
+    public boolean isVirtual()
+    {
+        return this.virtualThreads_ != null;
+    }
+    
+    /**
+     * Starts a thread that plays the {@code Game} through.
+     * 
+     * @see TableRunner#submit(Game, boolean)
+     */
+    @Override
+    public CompletableFuture<Game> submit(Game aGame, boolean interactive)
+    {
+        if (this.closed_)
+            throw new RejectedExecutionException("Table threads are closed");
+        CompletableFuture<Game> done = new CompletableFuture<Game>();
+        newThread(() -> {
+            try {
+                aGame.play();
+                done.complete(aGame);
+            }
+            catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        }).start();
+        return done;
+    }
+    
+    /**
+     * Stops starting threads. The tables already started are played on to
+     * their end.
+     * 
+     * @see TableRunner#close()
+     */
+    @Override
+    public void close()
+    {
+        this.closed_ = true;
+    }
+    
+    // Creates the thread of a table, which is a daemon so that waiting
+    // tables do not keep the JVM alive
+    private Thread newThread(Runnable table)
+    {
+        Thread aThread;
+        if (this.virtualThreads_ != null) {
+            aThread = this.virtualThreads_.newThread(table);
+        }
+        else {
+            aThread = new Thread(null, table, this.name_
+                                 + this.nThreads_.getAndIncrement(),
+                                 TableThreads.PLATFORM_STACK_BYTES);
+            aThread.setDaemon(true);
+        }
+        return aThread;
+    }
+    
+    // Returns a factory of virtual threads with the specified name prefix,
+    // or null if the runtime has none. Equivalent to
+    // {@code Thread.ofVirtual().name(name, 0).factory()}.
+    private static ThreadFactory findVirtualThreads(String name)
+    {
+        ThreadFactory factory = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method   ofVirtual    = Thread.class.getMethod("ofVirtual");
+            Method   setName      = builderClass.getMethod("name", String.class,
+                                                           long.class);
+            Method   toFactory    = builderClass.getMethod("factory");
+            Object   builder      = ofVirtual.invoke(null);
+            builder               = setName.invoke(builder, name, 0L);
+            factory               = (ThreadFactory) toFactory.invoke(builder);
+        }
+        catch (ReflectiveOperationException e) {
+            // No virtual threads before Java 21, or without preview features
+            // enabled in Java 19 and 20
+        }
+        return factory;
+    }
+    
+    // A computer player that waits at its first choice until the specified
+    // gate opens, as if its human had gone idle, and counts down the
+    // specified latch on arriving
+    private static final class IdlePlayerIO extends RandomPlayerIO
+    {
+        private final CountDownLatch          arrived_;
+        private final CompletableFuture<Void> gate_;
+        private boolean                       waited_;
+        
+        // Constructor
+        IdlePlayerIO(RandomSource rng, CountDownLatch arrived,
+                     CompletableFuture<Void> gate)
+        {
+            super(rng);
+            this.arrived_ = arrived;
+            this.gate_    = gate;
+            this.waited_  = false;
+        }
+        
+        /* (non-Javadoc)
+         * @see cardgame.player.RandomPlayerIO#chooseInt(int, int)
+         */
+        @Override
+        public int chooseInt(int lowerBound, int upperBound)
+        {
+            if (!this.waited_) {
+                this.waited_ = true;
+                this.arrived_.countDown();
+                Trampoline.await(this.gate_);
+            }
+            return super.chooseInt(lowerBound, upperBound);
+        }
+    }
+    
+    // Parks many tables at once, each on its own thread with a player that
+    // has gone idle, and reports the heap they hold. The idle players then
+    // come back and every table is played to its end. Takes the number of
+    // tables, by default 100000 on virtual threads and 2000 otherwise, and
+    // the turn limit per round.
+    public static void main(String[] args)
+        throws InterruptedException
+    {
+        TableThreads threads   = new TableThreads("table-");
+        int          nTables   = args.length > 0 ? Integer.parseInt(args[0])
+                                 : threads.isVirtual() ? 100000 : 2000;
+        int          turnLimit = args.length > 1 ? Integer.parseInt(args[1])
+                                                 : 1;
+        
+        CountDownLatch                arrived = new CountDownLatch(nTables);
+        CompletableFuture<Void>       gate    = new CompletableFuture<Void>();
+        List<CompletableFuture<Game>> tables  = new ArrayList<
+                                                   CompletableFuture<Game>>();
+        Runtime                       runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start      = System.nanoTime();
+        
+        for (int i = 0; i < nTables; i++) {
+            long         seed    = Simulator.gameSeed(0, i);
+            RandomSource choices = Simulator.playerSource(seed);
+            Game         aGame   = new Game(Arrays.asList(
+                                       new IdlePlayerIO(choices, arrived,
+                                                        gate),
+                                       new RandomPlayerIO(choices),
+                                       new RandomPlayerIO(choices),
+                                       new RandomPlayerIO(choices)),
+                                       RandomSource.seeded(seed));
+            aGame.setTurnLimit(turnLimit);
+            tables.add(threads.submit(aGame, true));
+        }
+        arrived.await();
+        double parkedSeconds = (System.nanoTime() - start) / 1e9;
+        System.gc();
+        long   heap          = runtime.totalMemory() - runtime.freeMemory()
+                               - heapBefore;
+        
+        System.out.println(String.format("Parked %d tables on %s threads in"
+                                         + " %.3f seconds, holding %.1f MB"
+                                         + " of heap (%.1f KB per table)",
+                                         nTables, threads.isVirtual()
+                                                  ? "virtual" : "platform",
+                                         parkedSeconds, heap / 1e6,
+                                         heap / 1e3 / nTables));
+        
+        start = System.nanoTime();
+        gate.complete(null);
+        CompletableFuture.allOf(tables.toArray(new CompletableFuture<?>[0]))
+                         .join();
+        System.out.println(String.format("Played every table to its end in"
+                                         + " %.3f seconds",
+                                         (System.nanoTime() - start) / 1e9));
+        threads.close();
+    }
+}
@@ -0,0 +1,265 @@
+package cardgame.games.acestokings;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import cardgame.card.traditional.PlayingCard;
+import cardgame.player.Player;
+
+/**
+ * A tournament of headless Aces to Kings games, played in parallel across a
+ * pool of threads.
+ * <p>
+ * Games share no mutable state, so they are split into small batches which
+ * are spread over a {@code ForkJoinPool}. The points scored from each seat are
+ * summed as batches complete. Each game is seeded in the same way as by the
+ * {@code Simulator}, so a tournament gives the same totals as a
+ * {@code Simulator} with the same seed, whatever the number of threads.
+ * <p>
+ * If statistics are gathered, each batch gathers its own into a
+ * {@code GameStatistics} on the thread that plays it, and these are merged
+ * along with the points, so no thread waits on another while playing.
+ * 
+ * @see Simulator
+ * @see Leaderboard
+ * @see GameStatistics
+ */
+public class Tournament
+{
+    private static final int GAMES_PER_TASK = 8;
+    
+    private final int            nPlayers_;
+    private final long           seed_;
+    private final int            nThreads_;
+    private final long[]         seatPoints_;
+    private       int            nGamesPlayed_;
+    private       GameJournal    journal_;
+    private       GameStatistics statistics_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param nPlayers the number of {@code Player}s seated at each game
+     * @param seed     the seed from which every game is seeded
+     * @param nThreads the number of threads to play games on
+     */
+    public Tournament(int nPlayers, long seed, int nThreads)
+    {
+        this.nPlayers_     = nPlayers;
+        this.seed_         = seed;
+        this.nThreads_     = nThreads;
+        this.seatPoints_   = new long[nPlayers];
+        this.nGamesPlayed_ = 0;
+        this.journal_      = null;
+        this.statistics_   = null;
+    }
+    
+    /**
+     * Sets the {@code GameJournal} that every game played from now on is
+     * written to, under the index of the game as its id.
+     * 
+     * @param journal the {@code GameJournal}, or {@code null} to stop
+     *                journalling games
+     */
+    public void setJournal(GameJournal journal)
+    {
+        this.journal_ = journal;
+    }
+    
+    /**
+     * Sets the {@code GameStatistics} that the statistics of every game
+     * played from now on are merged into, once each call to {@link #run(int)}
+     * has played all of its games.
+     * 
+     * @param statistics the {@code GameStatistics}, or {@code null} to stop
+     *                   gathering statistics
+     */
+    public void setStatistics(GameStatistics statistics)
+    {
+        this.statistics_ = statistics;
+    }
+    
+    /**
+     * Plays the specified number of games in parallel, adding the points
+     * scored by each seat to the running totals. Returns once every game has
+     * been played.
+     * 
+     * @param nGames the number of games to play
+     */
+    public void run(int nGames)
+    {
+        ForkJoinPool pool = new ForkJoinPool(this.nThreads_);
+        try {
+            int    firstGame = this.nGamesPlayed_;
+            Batch  batch     = new Batch(firstGame, firstGame + nGames);
+            Totals totals    = pool.invoke(batch);
+            for (int i = 0; i < this.nPlayers_; i++)
+                this.seatPoints_[i] += totals.points_[i];
+            if (this.statistics_ != null)
+                this.statistics_.merge(totals.statistics_);
+            this.nGamesPlayed_ += nGames;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Returns the number of games played in this {@code Tournament}.
+     * 
+     * @return the number of games played
+     */
+    public int getGamesPlayed()
+    {
+        return this.nGamesPlayed_;
+    }
+    
+    /**
+     * Returns the total points scored from each seat over every game played.
+     * 
+     * @return the point totals, indexed by seat
+     */
+    public long[] getSeatPoints()
+    {
+        return this.seatPoints_.clone();
+    }
+    
+    // Returns a {@code Leaderboard} of the seats, each scored by the average
+    // number of points it was given per game.
+    Leaderboard createLeaderboard()
+    {
+        int                       nGames = Math.max(this.nGamesPlayed_, 1);
+        List<Player<PlayingCard>> seats  = new ArrayList<Player<PlayingCard>>();
+        for (int i = 0; i < this.nPlayers_; i++) {
+            Player<PlayingCard> aSeat = new Player<PlayingCard>("Seat " + i,
+                                                                null, 0, 0);
+            aSeat.modifyPoints((int) (this.seatPoints_[i] / nGames));
+            seats.add(aSeat);
+        }
+        return new Leaderboard(seats);
+    }
+    
+    // A range of games to be played, split in half until small enough to be
+    // played on a single thread.
+    private class Batch extends RecursiveTask<Totals>
+    {
+        private static final long serialVersionUID = 1L;
+        
+        private final int firstGame_;
+        private final int endGame_;
+        
+        // Constructor
+        Batch(int firstGame, int endGame)
+        {
+            this.firstGame_ = firstGame;
+            this.endGame_   = endGame;
+        }
+        
+        /* (non-Javadoc)
+         * @see java.util.concurrent.RecursiveTask#compute()
+         */
+        @Override
+        protected Totals compute()
+        {
+            int nGames = this.endGame_ - this.firstGame_;
+            if (nGames <= Tournament.GAMES_PER_TASK)
+                return playGames();
+            
+            int   middleGame = this.firstGame_ + nGames / 2;
+            Batch firstHalf  = new Batch(this.firstGame_, middleGame);
+            Batch secondHalf = new Batch(middleGame, this.endGame_);
+            firstHalf.fork();
+            Totals totals = secondHalf.compute();
+            totals.add(firstHalf.join());
+            return totals;
+        }
+        
+        // Plays every game in this {@code Batch} on the current thread
+        private Totals playGames()
+        {
+            int         nPlayers = Tournament.this.nPlayers_;
+            long        seed     = Tournament.this.seed_;
+            GameJournal journal  = Tournament.this.journal_;
+            Totals      totals   = new Totals(nPlayers,
+                                              Tournament.this.statistics_
+                                              != null);
+            for (int i = this.firstGame_; i < this.endGame_; i++) {
+                long         gameSeed = Simulator.gameSeed(seed, i);
+                GameListener writer   = journal == null ? null
+                                                        : journal.newWriter(i);
+                int[] gamePoints = Simulator.playGame(nPlayers, gameSeed,
+                                                      writer,
+                                                      totals.statistics_);
+                for (int j = 0; j < nPlayers; j++)
+                    totals.points_[j] += gamePoints[j];
+            }
+            return totals;
+        }
+    }
+    
+    // The points scored from each seat over a range of games, and the
+    // {@code GameStatistics} of those games if they are being gathered
+    private static class Totals
+    {
+        private final long[]         points_;
+        private final GameStatistics statistics_;
+        
+        // Constructor
+        Totals(int nPlayers, boolean gatherStatistics)
+        {
+            this.points_     = new long[nPlayers];
+            this.statistics_ = gatherStatistics ? new GameStatistics() : null;
+        }
+        
+        // Adds the totals of another range of games to these
+        void add(Totals other)
+        {
+            for (int i = 0; i < this.points_.length; i++)
+                this.points_[i] += other.points_[i];
+            if (this.statistics_ != null)
+                this.statistics_.merge(other.statistics_);
+        }
+    }
+    
+    // Runs a tournament and reports the throughput and the statistics of the
+    // games. Takes the number of games, the number of players, a seed, the
+    // number of threads and a file to journal the games to as optional
+    // arguments.
+    public static void main(String[] args)
+        throws IOException
+    {
+        int  nThreads = Runtime.getRuntime().availableProcessors();
+        int  nGames   = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int  nPlayers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seed     = args.length > 2 ? Long.parseLong(args[2])   : 0;
+        nThreads      = args.length > 3 ? Integer.parseInt(args[3]) : nThreads;
+        
+        GameJournal journal = null;
+        if (args.length > 4)
+            journal = new GameJournal(Paths.get(args[4]));
+        
+        Tournament     tournament = new Tournament(nPlayers, seed, nThreads);
+        GameStatistics statistics = new GameStatistics();
+        tournament.setJournal(journal);
+        tournament.setStatistics(statistics);
+        long           startTime  = System.nanoTime();
+        tournament.run(nGames);
+        double         seconds    = (System.nanoTime() - startTime) / 1e9;
+        
+        System.out.println(String.format("Played %d games on %d threads in"
+                                         + " %.3f seconds (%.1f games/sec)",
+                                         nGames, nThreads, seconds,
+                                         nGames / seconds));
+        System.out.println(tournament.createLeaderboard());
+        System.out.println(statistics);
+        if (journal != null) {
+            System.out.println(String.format("Journalled %d bytes to %s",
+                                             journal.size(), args[4]));
+            journal.close();
+        }
+    }
+}
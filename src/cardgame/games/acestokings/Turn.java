@@ -1,92 +1,370 @@
 package cardgame.games.acestokings;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import cardgame.card.CardCollection;
+import cardgame.card.Drawable;
 import cardgame.card.Hand;
 import cardgame.card.traditional.PlayingCard;
+import cardgame.games.acestokings.melds.MeldsManager;
+import cardgame.games.acestokings.melds.PlayOption;
+import cardgame.player.Decision;
+import cardgame.player.DecisionContext;
 import cardgame.player.PlayerIO;
-import cardgame.player.Selector;
+import cardgame.player.Selectable;
 
 /**
  * A turn in the game Aces to Kings.
+ * <p>
+ * A turn is a state machine that is played one {@code Decision} at a time:
+ * the player draws, takes any number of actions, each of which may ask for
+ * a meld size, the cards to play and where to play them, and then discards.
+ * The turn is played through up to the next choice, which is handed out
+ * rather than asked for, and waits in that {@code Phase} until it is made.
+ * Whoever drives the turn may then ask the {@code PlayerIO} on any thread,
+ * and with or without waiting, and every driver applies the same steps in
+ * the same order.
  */
 class Turn
 {
-    private final PlayerIO          playerIO_;
-    private final Hand<PlayingCard> hand_;
-    private final Board             board_;
-    private       PlayingCard       topCardOfDiscards_;
+    private static final DecisionContext CHOOSE_ACTION = DecisionContext.of(
+                                                "What would you like to do?");
+    private static final DecisionContext CHOOSE_SIZE   = DecisionContext.of(
+                                      "How many cards would you like to use?");
     
-    // Constructor
+    // The steps of a turn. A step named after a choice waits for it to be
+    // made, and the others are played through as soon as they are reached.
+    private enum Phase
+    {
+        START,          // shows the state and offers the draw
+        CHOOSE_DRAW,
+        ACT,            // shows the state and offers the actions
+        CHOOSE_ACTION,
+        SIZE,           // offers the sizes of meld
+        CHOOSE_SIZE,
+        PICK,           // offers the next card to play, or the plays
+        CHOOSE_CARD,
+        CHOOSE_MELD,
+        DISCARD,        // offers the cards to discard
+        CHOOSE_DISCARD,
+        OVER
+    }
+    
+    private final PlayerIO                          playerIO_;
+    private final List<? extends Hand<PlayingCard>> hands_;
+    private final int                               seat_;
+    private final Hand<PlayingCard>                 hand_;
+    private final Board                             board_;
+    private final List<GameListener>                listeners_;
+    private       PlayingCard                       topCardOfDiscards_;
+    private       PlayingCard                       drawnDiscard_;
+    private       Phase                             phase_;
+    private       Decision                          pending_;
+    private       List<TurnAction>                  actions_;
+    private       List<MeldSize>                    sizes_;
+    private       List<PlayingCard>                 unpicked_;
+    private       List<PlayingCard>                 picked_;
+    private       int                               nCardsToPick_;
+    private       PlayingCard[]                     cards_;
+    private       List<PlayOption>                  plays_;
+    
+    // Constructor for a turn taken with the specified hand alone. The hand
+    // is sorted once here, as the hands of a {@code Game} are kept sorted
+    // as they change.
     public Turn(PlayerIO aPlayerIO, Hand<PlayingCard> hand, Board aBoard)
+    {
+        this(aPlayerIO, Collections.singletonList(hand), 0, aBoard,
+             Collections.<GameListener>emptyList());
+        hand.sort(PlayingCard.Comparators.SUIT_FIRST);
+    }
+    
+    // Constructor for a turn taken by the player in the specified seat, where
+    // the hands of every player are given in seating order so that the
+    // {@code PlayerIO} may observe the {@code GameState}. Every event of the
+    // turn is passed on to the specified {@code GameListener}s.
+    Turn(PlayerIO aPlayerIO, List<? extends Hand<PlayingCard>> hands,
+         int seat, Board aBoard, List<GameListener> listeners)
     {
         this.playerIO_          = aPlayerIO;
-        this.hand_              = hand;
+        this.hands_             = hands;
+        this.seat_              = seat;
+        this.hand_              = hands.get(seat);
         this.board_             = aBoard;
+        this.listeners_         = listeners;
         this.topCardOfDiscards_ = aBoard.peekAtDiscards();
+        this.drawnDiscard_      = null;
+        this.phase_             = Phase.START;
+        this.pending_           = null;
     }
     
-    // Plays the turn out. Returns true if the hand has no cards left.
+    // Plays the turn out, waiting on the calling thread for each choice.
+    // Returns true if the hand has no cards left.
     boolean play()
     {
-        PlayingCard drawnCard = this.board_.draw(this.playerIO_);
-        this.hand_.add(drawnCard);
-        this.playerIO_.sendMessage("You drew the " + drawnCard);
-        boolean turnOver;
-        
-        do {
-            this.hand_.sort(PlayingCard.Comparators.SUIT_FIRST);
-            turnOver = processAction(chooseAction());
-        } while (!turnOver);
-        discard();
-        
+        Decision aDecision = nextDecision();
+        while (aDecision != null) {
+            decide(aDecision.ask());
+            aDecision = nextDecision();
+        }
+        return isHandEmpty();
+    }
+    
+    // Plays the turn on up to the next choice, and returns the
+    // {@code Decision} waited on, or null once the turn is over. Asking again
+    // before the choice is made returns the same {@code Decision}.
+    Decision nextDecision()
+    {
+        while (this.pending_ == null && this.phase_ != Phase.OVER)
+            this.pending_ = advance();
+        return this.pending_;
+    }
+    
+    // Makes the choice waited on, with the index of the option chosen.
+    // Throws an {@code IllegalStateException} if no choice is waited on.
+    void decide(int choice)
+    {
+        switch (this.phase_) {
+            case CHOOSE_DRAW:
+                Drawable<PlayingCard> aDrawable = this.board_.getDrawables()
+                                                             .get(choice);
+                takeDrawnCard(aDrawable.draw(),
+                              aDrawable == this.board_.getDiscards());
+                this.phase_ = Phase.ACT;
+                break;
+            case CHOOSE_ACTION:
+                TurnAction anAction = this.actions_.get(choice);
+                for (GameListener aListener : this.listeners_)
+                    aListener.actionChosen(this.seat_, anAction);
+                processAction(anAction);
+                break;
+            case CHOOSE_SIZE:
+                startPicking(this.sizes_.get(choice).getSize());
+                break;
+            case CHOOSE_CARD:
+                pickCard(choice);
+                break;
+            case CHOOSE_MELD:
+                playToMeld(choice);
+                break;
+            case CHOOSE_DISCARD:
+                discard(choice);
+                break;
+            default:
+                throw new IllegalStateException("No choice is waited on");
+        }
+        this.pending_ = null;
+    }
+    
+    // Returns true if the player's hand has no cards left
+    boolean isHandEmpty()
+    {
         return this.hand_.size() == 0;
     }
     
-    // Discards a {@code PlayingCard} from the player's hand. Note that if the
-    // {@code PlayingCard} was drawn from the discard pile this turn, then it
-    // can not be discarded this turn.
-    private void discard()
+    // Plays through the current step, which is not a choice. Returns the
+    // {@code Decision} of the choice it reaches, or null if it reached
+    // another step.
+    private Decision advance()
+    {
+        Decision aDecision = null;
+        switch (this.phase_) {
+            case START:
+                notifyObserver(false);
+                aDecision = offerDraw();
+                break;
+            case ACT:
+                notifyObserver(true);
+                this.actions_ = findActions();
+                aDecision     = offer(Phase.CHOOSE_ACTION, Turn.CHOOSE_ACTION,
+                                      this.actions_);
+                break;
+            case SIZE:
+                this.sizes_ = findMeldSizes();
+                aDecision   = offer(Phase.CHOOSE_SIZE, Turn.CHOOSE_SIZE,
+                                    this.sizes_);
+                break;
+            case PICK:
+                if (this.picked_.size() < this.nCardsToPick_)
+                    aDecision = offer(Phase.CHOOSE_CARD, Hand.PICK_CARD,
+                                      this.unpicked_);
+                else
+                    aDecision = offerPlays();
+                break;
+            case DISCARD:
+                aDecision = offer(Phase.CHOOSE_DISCARD, Hand.PICK_CARD,
+                                  this.hand_.getCards());
+                break;
+            default:
+                throw new IllegalStateException("Waiting on a choice");
+        }
+        return aDecision;
+    }
+    
+    // Offers the {@code Drawable}s to draw from
+    private Decision offerDraw()
+    {
+        DecisionContext context = DecisionContext.lazy(() ->
+            "Would you like to draw from the deck, or take the "
+            + this.topCardOfDiscards_ + " from the discard pile?");
+        return offer(Phase.CHOOSE_DRAW, context, this.board_.getDrawables());
+    }
+    
+    // Moves on to the specified choice, and returns its {@code Decision}
+    private Decision offer(Phase choice, DecisionContext context,
+                           List<? extends Selectable> options)
+    {
+        this.phase_ = choice;
+        return new Decision(this.playerIO_, context, options);
+    }
+    
+    // Adds the drawn {@code PlayingCard} to the player's hand, noting it if
+    // it was drawn from the discard pile. A shoe of several decks may hold
+    // copies of the top discard, so the card alone does not tell.
+    private void takeDrawnCard(PlayingCard drawnCard, boolean fromDiscards)
+    {
+        this.hand_.add(drawnCard);
+        this.playerIO_.sendMessage(() -> "You drew the " + drawnCard);
+        if (fromDiscards)
+            this.drawnDiscard_ = drawnCard;
+        for (GameListener aListener : this.listeners_)
+            aListener.cardDrawn(this.seat_, drawnCard,
+                                this.drawnDiscard_ != null);
+    }
+    
+    // Processes the {@code TurnAction} chosen
+    private void processAction(TurnAction anAction)
+    {
+        if (anAction == TurnAction.END_TURN)
+            this.phase_ = Phase.DISCARD;
+        else if (anAction == TurnAction.ADD_CARD)
+            startPicking(1);
+        else
+            this.phase_ = Phase.SIZE;
+    }
+    
+    // Starts picking the specified number of {@code PlayingCard}s to play,
+    // or as many as are left in the hand if there are fewer
+    private void startPicking(int nCards)
     {
-        boolean     cannotDiscard;
-        PlayingCard aCard;
+        int handSize       = this.hand_.size();
+        this.nCardsToPick_ = nCards < handSize ? nCards : handSize;
+        this.picked_       = new ArrayList<PlayingCard>(this.nCardsToPick_);
+        this.unpicked_     = this.hand_.startPicking();
+        this.phase_        = Phase.PICK;
+    }
 
-        do {
-            aCard         = this.hand_.pickCards(this.playerIO_, 1).get(0);
-            cannotDiscard = aCard.equals(this.topCardOfDiscards_);
-            if (cannotDiscard) {
-                String message = "You may not discard a card you drew this "
-                               + "turn from the discard pile.";
-                this.playerIO_.sendMessage(message);
-            }
-        } while (cannotDiscard);
+    // Adds the chosen {@code PlayingCard} to those picked to play
+    private void pickCard(int choice)
+    {
+        this.picked_.add(this.hand_.pick(choice));
+        this.phase_ = Phase.PICK;
+    }
+    
+    // Offers the plays that can be made with the picked
+    // {@code PlayingCard}s. Returns null, and goes back to choosing an
+    // action, if the player could not discard after playing them or there
+    // is nowhere to play them.
+    private Decision offerPlays()
+    {
+        PlayingCard[] cards     = Turn.toArray(this.picked_);
+        Decision      aDecision = null;
+        this.phase_ = Phase.ACT;
         
+        if (verifyCanDiscardAfter(cards)) {
+            MeldsManager melds = this.board_.getMelds();
+            this.plays_ = melds.offerPlays(this.playerIO_, cards);
+            if (this.plays_.size() > 0) {
+                this.cards_ = cards;
+                aDecision   = offer(Phase.CHOOSE_MELD, MeldsManager.CHOOSE_MELD,
+                                    this.plays_);
+            }
+        }
+        return aDecision;
+    }
+    
+    // Plays the picked {@code PlayingCard}s to the chosen meld
+    private void playToMeld(int choice)
+    {
+        PlayOption aPlay   = this.plays_.get(choice);
+        int        nJokers = this.board_.getMelds().makePlay(aPlay,
+                                                             this.hand_);
+        notifyMeldPlayed(aPlay, this.cards_);
+        if (nJokers > 0) {
+            for (GameListener aListener : this.listeners_)
+                aListener.jokersPickedUp(this.seat_, aPlay, nJokers);
+        }
+        this.phase_ = Phase.ACT;
+    }
+    
+    // Discards the chosen {@code PlayingCard}, ending the turn, unless it was
+    // drawn from the discard pile this turn
+    private void discard(int choice)
+    {
+        PlayingCard aCard = this.hand_.get(choice);
+        if (canDiscard(aCard)) {
+            completeDiscard(aCard);
+            this.phase_ = Phase.OVER;
+        }
+        else {
+            this.phase_ = Phase.DISCARD;
+        }
+    }
+    
+    // Checks that the specified {@code PlayingCard} was not drawn from the
+    // discard pile this turn, telling the player if it was. When the game is
+    // dealt from several decks, another copy of it held from before may be
+    // discarded instead.
+    private boolean canDiscard(PlayingCard aCard)
+    {
+        List<PlayingCard> cards         = this.hand_.getCards();
+        boolean           cannotDiscard = aCard.equals(this.drawnDiscard_)
+                                          && Collections.frequency(cards,
+                                                                   aCard) < 2;
+        if (cannotDiscard) {
+            String message = "You may not discard a card you drew this "
+                           + "turn from the discard pile.";
+            this.playerIO_.sendMessage(message);
+        }
+        return !cannotDiscard;
+    }
+    
+    // Moves the chosen {@code PlayingCard} from the hand to the discard pile
+    private void completeDiscard(PlayingCard aCard)
+    {
         this.hand_.remove(aCard);
         this.board_.addToDiscards(aCard);
+        for (GameListener aListener : this.listeners_)
+            aListener.cardDiscarded(this.seat_, aCard);
+    }
+    
+    // Shows the {@code GameState} to the {@code PlayerIO} if it is a
+    // {@code GameStateObserver}. Nothing is captured otherwise.
+    private void notifyObserver(boolean hasDrawn)
+    {
+        if (this.playerIO_ instanceof GameStateObserver) {
+            GameState aState = GameState.capture(this.board_, this.hands_,
+                                                 this.seat_, hasDrawn,
+                                                 this.drawnDiscard_);
+            ((GameStateObserver) this.playerIO_).observe(aState);
+        }
     }
     
-    // Prompts the {@code PlayerIO} to decide what to do
-    private TurnAction chooseAction()
+    // Returns the actions open to the player
+    private List<TurnAction> findActions()
     {
-        int              handSize = this.hand_.size();
-        List<TurnAction> options  = TurnAction.findPossibleActions(handSize);
-        String message = "What would you like to do?";
-        TurnAction choice = Selector.select(this.playerIO_, message, options);
-        return choice;
+        return TurnAction.findPossibleActions(this.hand_.size());
     }
     
-    // Prompts the {@code PlayerIO} to choose the size of the meld.
-    private int chooseMeldSize()
+    // Returns the sizes of meld the player may choose from
+    private List<MeldSize> findMeldSizes()
     {
         int            maxSize = this.hand_.size();
         List<MeldSize> options = new ArrayList<MeldSize>();
         for (int i = 0; i < maxSize; i++)
             options.add(new MeldSize(i));
-        String   message   = "How many cards would you like to use?";
-        MeldSize selection = Selector.select(this.playerIO_, message, options);
-        return selection.getSize();
+        return options;
     }
     
     // Checks that the player will still be able to discard after playing the
@@ -102,43 +380,33 @@ class Turn
         this.hand_.transferTo(temp, cards);
         
         // Only card left in hand is the drawn card
-        boolean cardWasInHand = this.hand_.remove(this.topCardOfDiscards_);
-        if (cardWasInHand && this.hand_.size() == 0) {
-            canDiscardAfter = false;
-            this.hand_.add(this.topCardOfDiscards_);
+        boolean cardWasInHand = this.drawnDiscard_ != null
+                                && this.hand_.remove(this.drawnDiscard_);
+        if (cardWasInHand) {
+            canDiscardAfter = this.hand_.size() > 0;
+            this.hand_.add(this.drawnDiscard_);
         }
-            
+        
         temp.transferTo(this.hand_, cards);
         
+        if (!canDiscardAfter)
+            this.playerIO_.sendMessage("You wouldn't be able to discard!");
         return canDiscardAfter;
     }
     
-    // Processes the {@code TurnAction} chosen.
-    private boolean processAction(TurnAction anAction) {
-        boolean turnOver;
-        
-        if (anAction == TurnAction.END_TURN) {
-            turnOver = true;
-        }
-        else {
-            turnOver = false;
-            int nCardsToPlay;
-            
-            if (anAction == TurnAction.ADD_CARD)
-                nCardsToPlay = 1;
-            else
-                nCardsToPlay = chooseMeldSize();
-            
-            List<PlayingCard> cardsList = this.hand_.pickCards(
-                                              this.playerIO_, nCardsToPlay);
-            PlayingCard[]     cards     = new PlayingCard[nCardsToPlay];
-            cards                       = cardsList.toArray(cards);
-            if (verifyCanDiscardAfter(cards))
-                this.board_.playToMeld(this.playerIO_, this.hand_, cards);
-            else
-                this.playerIO_.sendMessage("You wouldn't be able to discard!");
+    // Tells the {@code GameListener}s of a play, if one was made
+    private void notifyMeldPlayed(PlayOption aPlay, PlayingCard... cards)
+    {
+        if (aPlay != null) {
+            for (GameListener aListener : this.listeners_)
+                aListener.meldPlayed(this.seat_, aPlay, cards);
         }
-        
-        return turnOver;
+    }
+    
+    // Copies the picked {@code PlayingCard}s into an array
+    private static PlayingCard[] toArray(List<PlayingCard> cardsList)
+    {
+        PlayingCard[] cards = new PlayingCard[cardsList.size()];
+        return cardsList.toArray(cards);
     }
 }
@@ -10,8 +10,9 @@ import cardgame.player.Selectable;
  * 
  * @see Turn
  * @see Selectable
+ * @see GameListener#actionChosen(int, TurnAction)
  */
-enum TurnAction
+public enum TurnAction
     implements Selectable
 {
     END_TURN (1, "End your turn and discard."),
@@ -1,13 +1,17 @@
 package cardgame.games.acestokings.melds;
 
-import java.util.List;
-
 import cardgame.card.CardCollection;
 import cardgame.card.traditional.PlayingCard;
 import cardgame.card.traditional.Rank;
+import cardgame.card.traditional.Suit;
 
 /**
  * A meld of cards. May contain jokers mimicking other cards.
+ * <p>
+ * Searching a {@code Meld} for plays only reads it, with every result written
+ * to the {@code PlayOptionBuffer} given. Any number of threads may therefore
+ * search the same {@code Meld} at once, each with its own buffer, as long as
+ * none of them changes the {@code Meld} while doing so.
  * 
  * @see PlayOption
  * @see cardgame.card.traditional.PlayingCard
@@ -20,38 +24,39 @@ abstract class Meld
      * Plays some {@code PlayingCard}s from a {@code PlayOption} to this
      * {@code Meld}, picking up jokers as necessary.
      * 
-     * @param collection the source of the {@code PlayOption}
-     * @param anOption   the {@code PlayOption} to play
+     * @param  collection the source of the {@code PlayOption}
+     * @param  anOption   the {@code PlayOption} to play
+     * @return the number of jokers picked up into the collection
      */
-    protected abstract void play(CardCollection<PlayingCard> collection,
+    protected abstract int play(CardCollection<PlayingCard> collection,
                                  PlayOption anOption);
     
     /**
      * Finds the possible positions that a {@code PlayingCard} can be added to
-     * in this {@code Meld}, then appends them to a list of
+     * in this {@code Meld}, then appends them to a buffer of
      * {@code PlayOption}s.
      * 
-     * @param options the current list of {@code PlayOption}s
+     * @param options the current buffer of {@code PlayOption}s
      * @param aCard   the {@code PlayingCard} to consider
      */
-    protected abstract void addCardPlays(List<PlayOption> options,
+    protected abstract void addCardPlays(PlayOptionBuffer options,
                                          PlayingCard aCard);
     
     /**
      * Finds the possible melds that can be played to this {@code Meld} with a
-     * set of {@code PlayingCard}s, then appends them to a list of
+     * set of {@code PlayingCard}s, then appends them to a buffer of
      * {@code PlayOption}s.
      * 
-     * @param options the current list of {@code PlayOption}s
+     * @param options the current buffer of {@code PlayOption}s
      * @param cards   the set of {@code PlayingCard}s to consider
      */
-    protected abstract void addMeldPlays(List<PlayOption> options,
+    protected abstract void addMeldPlays(PlayOptionBuffer options,
                                          PlayingCard... cards);
     
     // Finds the possible {@code PlayOption}s that can be made to this
     // {@code Meld} with a set of {@code Card}s, then appends them to a
-    // list of {@code PlayOption}s.
-    void findPlayOptions(List<PlayOption> options, PlayingCard... cards)
+    // buffer of {@code PlayOption}s.
+    void findPlayOptions(PlayOptionBuffer options, PlayingCard... cards)
     {
         if (cards.length == 1)
             addCardPlays(options, cards[0]);
@@ -59,6 +64,20 @@ abstract class Meld
             addMeldPlays(options, cards);
     }
     
+    // Returns the {@code Rank} of {@code PlayingCard}s this {@code Meld}
+    // collects, or {@code null} if it does not collect a single {@code Rank}.
+    Rank getMeldRank()
+    {
+        return null;
+    }
+    
+    // Returns the {@code Suit} of {@code PlayingCard}s this {@code Meld}
+    // collects, or {@code null} if it does not collect a single {@code Suit}.
+    Suit getMeldSuit()
+    {
+        return null;
+    }
+    
     /**
      * Checks if a {@code PlayingCard} is a joker.
      * 
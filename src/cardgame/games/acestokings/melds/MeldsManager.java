@@ -1,14 +1,15 @@
 package cardgame.games.acestokings.melds;
 
-import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import cardgame.card.CardCollection;
 import cardgame.card.traditional.PlayingCard;
 import cardgame.card.traditional.Rank;
 import cardgame.card.traditional.Suit;
+import cardgame.player.DecisionContext;
 import cardgame.player.PlayerIO;
 import cardgame.player.Selector;
 
@@ -25,22 +26,45 @@ public class MeldsManager
 {
     static final int MINIMUM_MELD_SIZE = 3;
     
-    private final Meld[] rankMelds_;
-    private final Meld[] runMelds_;
+    /**
+     * The prompt given to a {@code PlayerIO} choosing between
+     * {@code PlayOption}s.
+     */
+    public static final DecisionContext CHOOSE_MELD = DecisionContext.of(
+                              "Where would you like to play these cards to?");
+    
+    // indexed by {@code Rank} and {@code Suit} ordinal respectively
+    private final RankMeld[]       rankMelds_;
+    private final RunMeld[]        runMelds_;
+    private final PlayOptionBuffer options_;
     
     /**
-     * Sole constructor. Creates all necessary {@code Meld}s for a game.
+     * Creates all necessary {@code Meld}s for a game dealt from a single
+     * deck.
      */
     public MeldsManager()
+    {
+        this(1);
+    }
+    
+    /**
+     * Creates all necessary {@code Meld}s for a game dealt from a shoe of
+     * the specified number of decks. Each set of a {@code Rank} can hold
+     * every copy of the {@code Rank} in the shoe.
+     * 
+     * @param nDecks the number of decks in the shoe
+     */
+    public MeldsManager(int nDecks)
     {
         Set<Rank> ranks = EnumSet.range(Rank.ACE, Rank.KING);
         Set<Suit> suits = EnumSet.range(Suit.CLUBS, Suit.SPADES);
-        this.rankMelds_ = new Meld[ranks.size()];
-        this.runMelds_  = new Meld[suits.size()];
+        this.rankMelds_ = new RankMeld[ranks.size()];
+        this.runMelds_  = new RunMeld[suits.size()];
+        this.options_   = new PlayOptionBuffer();
         
         int i = 0;
         for (Rank aRank : ranks) {
-            this.rankMelds_[i] = new RankMeld(aRank);
+            this.rankMelds_[i] = new RankMeld(aRank, nDecks);
             i++;
         }
         
@@ -55,38 +79,196 @@ public class MeldsManager
      * Finds possible plays that can be made with some {@code PlayingCard}s,
      * and then prompts the {@code PlayerIO} to pick one.
      * 
-     * @param aPlayerIO the {@code PlayerIO} to interact with
-     * @param hand      the source of the {@code PlayingCard}s
-     * @param cards     the {@code PlayingCard}s to play
+     * @param  aPlayerIO the {@code PlayerIO} to interact with
+     * @param  hand      the source of the {@code PlayingCard}s
+     * @param  cards     the {@code PlayingCard}s to play
+     * @return the {@code PlayOption} played, or {@code null} if the
+     *         {@code PlayingCard}s cannot be played anywhere. It is only
+     *         valid until the next play.
      */
-    public void play(PlayerIO aPlayerIO, CardCollection<PlayingCard> hand,
-                     PlayingCard... cards)
+    public PlayOption play(PlayerIO aPlayerIO,
+                           CardCollection<PlayingCard> hand,
+                           PlayingCard... cards)
     {
-        List<PlayOption> options  = findPlayOptions(cards);
-        int              nOptions = options.size();
+        List<PlayOption> options = offerPlays(aPlayerIO, cards);
+        PlayOption       choice  = null;
         
-        if (nOptions > 0) {
-            String message = "Where would you like to play these cards to?";
-            PlayOption choice = Selector.select(aPlayerIO, message, options);
+        if (options.size() > 0) {
+            choice = Selector.select(aPlayerIO, MeldsManager.CHOOSE_MELD,
+                                     options);
             choice.play(hand);
         }
+        return choice;
+    }
+    
+    /**
+     * Finds possible plays that can be made with some {@code PlayingCard}s,
+     * and then prompts the {@code PlayerIO} to pick one without waiting for
+     * its answer. No other play may be made until the future has completed.
+     * 
+     * @param  aPlayerIO the {@code PlayerIO} to interact with
+     * @param  hand      the source of the {@code PlayingCard}s
+     * @param  cards     the {@code PlayingCard}s to play
+     * @return a future of the {@code PlayOption} played, as returned by
+     *         {@link #play(PlayerIO, CardCollection, PlayingCard...)}
+     */
+    public CompletableFuture<PlayOption>
+        playAsync(PlayerIO aPlayerIO, CardCollection<PlayingCard> hand,
+                  PlayingCard... cards)
+    {
+        List<PlayOption>              options = offerPlays(aPlayerIO, cards);
+        CompletableFuture<PlayOption> choice;
+        
+        if (options.size() > 0) {
+            choice = Selector.selectAsync(aPlayerIO, MeldsManager.CHOOSE_MELD,
+                                          options)
+                             .thenApply(aPlay -> {
+                                 aPlay.play(hand);
+                                 return aPlay;
+                             });
+        }
         else {
-            aPlayerIO.sendMessage("These cards cannot be played anywhere yet.");
+            choice = CompletableFuture.completedFuture(null);
         }
+        return choice;
     }
     
-    // Creates a list of possible plays for some {@code PlayingCard}s
+    /**
+     * Finds the possible plays that can be made with some
+     * {@code PlayingCard}s, telling the {@code PlayerIO} if there are none.
+     * This is for callers that put the choice of play to the
+     * {@code PlayerIO} themselves, prompting it with {@link #CHOOSE_MELD}.
+     * 
+     * @param  aPlayerIO the {@code PlayerIO} to interact with
+     * @param  cards     the {@code PlayingCard}s to play
+     * @return the possible plays, which are only valid until the next
+     *         search
+     */
+    public List<PlayOption> offerPlays(PlayerIO aPlayerIO,
+                                       PlayingCard... cards)
+    {
+        List<PlayOption> options = findPlayOptions(cards);
+        if (options.size() == 0)
+            aPlayerIO.sendMessage("These cards cannot be played anywhere yet.");
+        return options;
+    }
+    
+    /**
+     * Makes a play chosen from those returned by
+     * {@link #offerPlays(PlayerIO, PlayingCard...)}, taking its
+     * {@code PlayingCard}s from the specified {@code CardCollection}.
+     * 
+     * @param  aPlay the {@code PlayOption} chosen
+     * @param  hand  the source of the {@code PlayingCard}s
+     * @return the number of jokers picked up into the hand
+     */
+    public int makePlay(PlayOption aPlay, CardCollection<PlayingCard> hand)
+    {
+        return aPlay.play(hand);
+    }
+    
+    // Fills the reusable buffer with the possible plays for some
+    // {@code PlayingCard}s, and returns it. The plays are only valid until the
+    // next search.
     private List<PlayOption> findPlayOptions(PlayingCard... cards)
     {
-        List<PlayOption> options = new ArrayList<PlayOption>();
-        
-        for (Meld aRankMeld : this.rankMelds_)
+        this.options_.clear();
+        findPlayOptions(this.options_, cards);
+        return this.options_;
+    }
+    
+    // Appends the possible plays for some {@code PlayingCard}s to the
+    // specified buffer. No {@code Meld} is changed, so searches into separate
+    // buffers may run at the same time.
+    //
+    // Any {@code PlayingCard} which is not a joker can only be played to the
+    // {@code Meld}s of its own {@code Rank} and {@code Suit}, so only those
+    // two are searched. Only jokers on their own are offered to every
+    // {@code Meld}.
+    void findPlayOptions(PlayOptionBuffer options, PlayingCard... cards)
+    {
+        PlayingCard nonJoker = findNonJoker(cards);
+        if (nonJoker == null) {
+            for (Meld aRankMeld : this.rankMelds_)
+                aRankMeld.findPlayOptions(options, cards);
+            for (Meld aRunMeld : this.runMelds_)
+                aRunMeld.findPlayOptions(options, cards);
+        }
+        else {
+            Meld aRankMeld = this.rankMelds_[nonJoker.getRank().ordinal()];
+            Meld aRunMeld  = this.runMelds_[nonJoker.getSuit().ordinal()];
             aRankMeld.findPlayOptions(options, cards);
-            
-        for (Meld aRunMeld : this.runMelds_)
             aRunMeld.findPlayOptions(options, cards);
-        
-        return options;
+        }
+    }
+    
+    // Finds the first of some {@code PlayingCard}s that is not a joker, or
+    // {@code null} if they are all jokers.
+    private static PlayingCard findNonJoker(PlayingCard... cards)
+    {
+        PlayingCard nonJoker = null;
+        int         i        = 0;
+        while (nonJoker == null && i < cards.length) {
+            if (cards[i].getRank() != Rank.JOKER)
+                nonJoker = cards[i];
+            i++;
+        }
+        return nonJoker;
+    }
+    
+    /**
+     * Returns the {@code PlayingCard}s in the meld of the specified
+     * {@code Rank}, jokers included.
+     * 
+     * @param  aRank the {@code Rank} of the meld
+     * @return the bits of the {@code PlayingCard}s, as held by a
+     *         {@code CardSet}
+     * @see    cardgame.card.traditional.CardSet#getBits()
+     */
+    public long getRankMeldBits(Rank aRank)
+    {
+        return this.rankMelds_[aRank.ordinal()].getBits();
+    }
+    
+    /**
+     * Returns the {@code PlayingCard}s in the run of the specified
+     * {@code Suit}, jokers included.
+     * 
+     * @param  aSuit the {@code Suit} of the run
+     * @return the bits of the {@code PlayingCard}s, as held by a
+     *         {@code CardSet}
+     * @see    cardgame.card.traditional.CardSet#getBits()
+     */
+    public long getRunMeldBits(Suit aSuit)
+    {
+        return this.runMelds_[aSuit.ordinal()].getBits();
+    }
+    
+    /**
+     * Returns the value of the position that the specified joker takes in the
+     * run of the specified {@code Suit}. A low ace has a value of one, and a
+     * high ace one more than a king.
+     * 
+     * @param  aSuit  the {@code Suit} of the run
+     * @param  aJoker the joker to look for
+     * @return the value of the joker's position, or a negative number if the
+     *         joker is not in the run
+     */
+    public int getRunMeldJokerValue(Suit aSuit, PlayingCard aJoker)
+    {
+        return this.runMelds_[aSuit.ordinal()].getJokerValue(aJoker);
+    }
+    
+    /**
+     * Returns the value aces take in the run of the specified {@code Suit}.
+     * 
+     * @param  aSuit the {@code Suit} of the run
+     * @return the value of aces, or zero if it has not been fixed yet
+     * @see    #getRunMeldJokerValue(Suit, PlayingCard)
+     */
+    public int getRunMeldAceValue(Suit aSuit)
+    {
+        return this.runMelds_[aSuit.ordinal()].getAceValue();
     }
     
     /**
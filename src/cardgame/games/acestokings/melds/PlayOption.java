@@ -6,39 +6,57 @@ import java.util.List;
 import cardgame.card.CardCollection;
 import cardgame.card.traditional.PlayingCard;
 import cardgame.card.traditional.Rank;
+import cardgame.card.traditional.Suit;
 import cardgame.player.Selectable;
 
 /**
  * A possible play that can be made with some cards to a meld.
+ * <p>
+ * {@code PlayOption}s are reused by a {@code PlayOptionBuffer} from one
+ * search for plays to the next, so each is set up through
+ * {@link #set(Meld, PlayingCard[])} rather than on construction, and holds no
+ * storage that needs to be reallocated when it is reused.
  * 
  * @see Meld
+ * @see PlayOptionBuffer
  * @see PlayingCard
  * @see Selectable
  */
-class PlayOption
+public class PlayOption
     implements Selectable
 {
-    private final Meld          meld_;
-    private final PlayingCard[] cards_;
     private final List<Rank>    jokers_;
+    private final PlayingCard[] singleCard_;
+    private       Meld          meld_;
+    private       PlayingCard[] cards_;
     private       int           aceValue_;
     private       Rank          startingRank_;
     private       boolean       runMeldVariablesSet_;
     
-    /**
-     * Sole constructor.
-     * 
-     * @param meld  the destination {@code Meld} for the {@code PlayingCard}s
-     *              in the {@code PlayOption}
-     * @param cards the {@code PlayingCard}s to play if the {@code PlayOption}
-     *              is selected
-     */
-    public PlayOption(Meld aMeld, PlayingCard... cards)
+    // Constructor
+    PlayOption()
+    {
+        this.jokers_     = new ArrayList<Rank>();
+        this.singleCard_ = new PlayingCard[1];
+    }
+    
+    // Sets this {@code PlayOption} up as a new play of the specified
+    // {@code PlayingCard}s to the specified {@code Meld}. The array of
+    // {@code PlayingCard}s is not copied.
+    void set(Meld aMeld, PlayingCard[] cards)
     {
         this.meld_                = aMeld;
         this.cards_               = cards;
         this.runMeldVariablesSet_ = false;
-        this.jokers_              = new ArrayList<Rank>();
+        this.jokers_.clear();
+    }
+    
+    // Sets this {@code PlayOption} up as a new play of the single specified
+    // {@code PlayingCard} to the specified {@code Meld}.
+    void set(Meld aMeld, PlayingCard aCard)
+    {
+        this.singleCard_[0] = aCard;
+        set(aMeld, this.singleCard_);
     }
     
     /**
@@ -51,6 +69,46 @@ class PlayOption
         return this.cards_;
     }
     
+    /**
+     * Returns the {@code Rank} of the meld this {@code PlayOption} plays to.
+     * 
+     * @return the {@code Rank} of the meld, or {@code null} if it is a run
+     */
+    public Rank getMeldRank()
+    {
+        return this.meld_.getMeldRank();
+    }
+    
+    /**
+     * Returns the {@code Suit} of the run this {@code PlayOption} plays to.
+     * 
+     * @return the {@code Suit} of the run, or {@code null} if it is not a run
+     */
+    public Suit getMeldSuit()
+    {
+        return this.meld_.getMeldSuit();
+    }
+    
+    /**
+     * Returns the value of the first position this {@code PlayOption} plays
+     * to in a run. A low ace has a value of one, and a high ace one more than
+     * a king.
+     * 
+     * @return the value of the first position, or zero if this
+     *         {@code PlayOption} does not play to a run
+     */
+    public int getFirstValue()
+    {
+        int value;
+        if (!this.runMeldVariablesSet_)
+            value = 0;
+        else if (this.startingRank_ == Rank.ACE)
+            value = this.aceValue_;
+        else
+            value = this.startingRank_.getValue();
+        return value;
+    }
+    
     /**
      * Returns an ordered list of {@code Rank}s that the jokers played from
      * this {@code PlayOption} will mimic. For use by the {@code RunMeld}.
@@ -76,15 +134,16 @@ class PlayOption
     }
     
     /**
-     * Sets an ordered list of {@code Rank}s that the jokers played from this
-     * {@code PlayOption} will mimic. For use by a {@code RunMeld}.
+     * Appends a {@code Rank} to the ordered list of {@code Rank}s that the
+     * jokers played from this {@code PlayOption} will mimic. For use by a
+     * {@code RunMeld}.
      * 
-     * @param jokerRanks the ordered list of {@code Rank}s
+     * @param jokerRank the {@code Rank} the next joker will mimic
      * @see   RunMeld
      */
-    protected void setJokers(List<Rank> jokerRanks)
+    protected void addJoker(Rank jokerRank)
     {
-        this.jokers_.addAll(jokerRanks);
+        this.jokers_.add(jokerRank);
         this.runMeldVariablesSet_ = true;
     }
     
@@ -133,10 +192,11 @@ class PlayOption
      * Plays the {@code PlayingCard}s in this {@code PlayOption} to the
      * {@code Meld}.
      * 
-     * @param collection the source of the {@code PlayingCard}s
+     * @param  collection the source of the {@code PlayingCard}s
+     * @return the number of jokers picked up from the {@code Meld}
      */
-    protected void play(CardCollection<PlayingCard> collection)
+    protected int play(CardCollection<PlayingCard> collection)
     {
-        this.meld_.play(collection, this);
+        return this.meld_.play(collection, this);
     }
 }
@@ -0,0 +1,98 @@
+package cardgame.games.acestokings.melds;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+import cardgame.card.traditional.PlayingCard;
+
+/**
+ * A reusable list of {@code PlayOption}s.
+ * <p>
+ * Clearing a {@code PlayOptionBuffer} keeps hold of its {@code PlayOption}s,
+ * which are then set up again as new plays are added. Once enough
+ * {@code PlayOption}s have been created for the largest search, finding plays
+ * allocates nothing. A {@code PlayOption} taken from a
+ * {@code PlayOptionBuffer} is therefore only valid until the buffer is next
+ * cleared.
+ * 
+ * @see PlayOption
+ * @see MeldsManager
+ */
+class PlayOptionBuffer extends AbstractList<PlayOption>
+{
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private PlayOption[] options_;
+    private int          size_;
+    
+    // Constructor
+    PlayOptionBuffer()
+    {
+        this.options_ = new PlayOption[PlayOptionBuffer.INITIAL_CAPACITY];
+        this.size_    = 0;
+    }
+    
+    /* (non-Javadoc)
+     * @see java.util.AbstractList#get(int)
+     */
+    @Override
+    public PlayOption get(int index)
+    {
+        if (index < 0 || index >= this.size_)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                                                + this.size_);
+        return this.options_[index];
+    }
+    
+    /* (non-Javadoc)
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size()
+    {
+        return this.size_;
+    }
+    
+    /**
+     * Empties this {@code PlayOptionBuffer}, keeping its {@code PlayOption}s
+     * for reuse.
+     * 
+     * @see java.util.AbstractList#clear()
+     */
+    @Override
+    public void clear()
+    {
+        this.size_ = 0;
+    }
+    
+    // Appends a play of the specified {@code PlayingCard}s to the specified
+    // {@code Meld}, and returns it so that it can be set up further.
+    PlayOption add(Meld aMeld, PlayingCard[] cards)
+    {
+        PlayOption anOption = nextOption();
+        anOption.set(aMeld, cards);
+        return anOption;
+    }
+    
+    // Appends a play of the single specified {@code PlayingCard} to the
+    // specified {@code Meld}, and returns it so that it can be set up further.
+    PlayOption add(Meld aMeld, PlayingCard aCard)
+    {
+        PlayOption anOption = nextOption();
+        anOption.set(aMeld, aCard);
+        return anOption;
+    }
+    
+    // Returns the next unused {@code PlayOption}, creating it if necessary
+    private PlayOption nextOption()
+    {
+        if (this.size_ == this.options_.length)
+            this.options_ = Arrays.copyOf(this.options_, 2 * this.size_);
+        if (this.options_[this.size_] == null)
+            this.options_[this.size_] = new PlayOption();
+        
+        PlayOption anOption = this.options_[this.size_];
+        this.size_++;
+        return anOption;
+    }
+}
@@ -1,15 +1,17 @@
 package cardgame.games.acestokings.melds;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
 
 import cardgame.card.CardCollection;
+import cardgame.card.traditional.CardMultiset;
 import cardgame.card.traditional.PlayingCard;
 import cardgame.card.traditional.Rank;
 
 /**
  * A meld of cards that have the same rank. May contain jokers mimicking other
- * cards.
+ * cards. The cards are held in a {@code CardMultiset}, so that a game dealt
+ * from a shoe of several decks can meld more than one copy of a card. The
+ * meld holds up to four cards for each deck in the shoe.
  * 
  * @see Meld
  * @see PlayingCard
@@ -17,64 +19,91 @@ import cardgame.card.traditional.Rank;
  */
 class RankMeld extends Meld
 {
-    private static final int MELD_CAPACITY = 4;
+    private static final int CAPACITY_PER_DECK = 4;
     
-    private final Rank              meldRank_;
-    private final List<PlayingCard> meld_;
-    private final List<PlayingCard> jokers_;
+    private final Rank         meldRank_;
+    private final CardMultiset meld_;
+    private final int          capacity_;
     
     /**
      * Sole constructor.
      * 
      * @param meldRank the {@code Rank} of {@code PlayingCard}s that the
      *                 {@code RankMeld} can accept
+     * @param nDecks   the number of decks in the shoe the game is dealt from
      */
-    protected RankMeld(Rank meldRank)
+    protected RankMeld(Rank meldRank, int nDecks)
     {
         this.meldRank_ = meldRank;
-        this.meld_     = new ArrayList<PlayingCard>(RankMeld.MELD_CAPACITY);
-        this.jokers_   = new ArrayList<PlayingCard>(RankMeld.MELD_CAPACITY);
+        this.meld_     = new CardMultiset();
+        this.capacity_ = RankMeld.CAPACITY_PER_DECK * nDecks;
     }
     
     /* (non-Javadoc)
      * @see Meld#play(CardCollection, PlayOption)
      */
     @Override
-    protected void play(CardCollection<PlayingCard> collection,
-                        PlayOption option)
+    protected int play(CardCollection<PlayingCard> collection,
+                       PlayOption option)
     {
         // Building the collection of jokers to pick up
-        PlayingCard[] cards            = option.getCards();
-        int           nJokersToReplace = countJokersToPickUp(cards);
-        PlayingCard[] jokers           = new PlayingCard[nJokersToReplace];
-        for (int i = 0; i < nJokersToReplace; i++)
-            jokers[i] = this.jokers_.get(i);
+        PlayingCard[]         cards            = option.getCards();
+        int                   nJokersToReplace = countJokersToPickUp(cards);
+        PlayingCard[]         jokers           = new PlayingCard[
+                                                     nJokersToReplace];
+        Iterator<PlayingCard> meldCards        = this.meld_.iterator();
+        int                   nJokersFound     = 0;
+        while (nJokersFound < nJokersToReplace) {
+            PlayingCard aCard = meldCards.next();
+            if (isJoker(aCard)) {
+                jokers[nJokersFound] = aCard;
+                nJokersFound++;
+            }
+        }
         
         // Transferring the cards
         this.transferTo(collection, jokers);
         collection.transferTo(this, cards);
+        return nJokersToReplace;
     }
     
     /* (non-Javadoc)
-     * @see Meld#addCardPlays(java.util.List, PlayingCard)
+     * @see Meld#addCardPlays(PlayOptionBuffer, PlayingCard)
      */
-    protected void addCardPlays(List<PlayOption> options, PlayingCard aCard)
+    protected void addCardPlays(PlayOptionBuffer options, PlayingCard aCard)
     {
         boolean meldExists = this.size() >= MeldsManager.MINIMUM_MELD_SIZE;
-        boolean canPlay    = meldExists  && checkRanks(aCard);
+        boolean canPlay    = meldExists  && checkRank(aCard);
         canPlay            = canPlay     && hasSpace(aCard);
         if (canPlay)
-            addOption(options, aCard);
+            options.add(this, aCard);
     }
     
     /* (non-Javadoc)
-     * @see Meld#addMeldPlays(java.util.List, PlayingCard[])
+     * @see Meld#addMeldPlays(PlayOptionBuffer, PlayingCard[])
      */
-    protected void addMeldPlays(List<PlayOption> options, PlayingCard... cards)
+    protected void addMeldPlays(PlayOptionBuffer options, PlayingCard... cards)
     {
         boolean canPlay = hasSpace(cards) && checkRanks(cards);
         if (canPlay)
-            addOption(options, cards);
+            options.add(this, cards);
+    }
+    
+    // Returns the {@code PlayingCard}s in this {@code RankMeld}, jokers
+    // included, as the bits of a {@code CardSet}. Copies of a
+    // {@code PlayingCard} share a bit.
+    long getBits()
+    {
+        return this.meld_.getBits();
+    }
+    
+    /* (non-Javadoc)
+     * @see Meld#getMeldRank()
+     */
+    @Override
+    Rank getMeldRank()
+    {
+        return this.meldRank_;
     }
     
     /* (non-Javadoc)
@@ -94,29 +123,19 @@ class RankMeld extends Meld
         return this.meld_.size();
     }
     
-    /**
-     * Adds a {@code PlayingCard} to this {@code RankMeld}. Jokers are also
-     * added to their own list.
-     * 
+    /* (non-Javadoc)
      * @see CardCollection#add(PlayingCard)
      */
     public void add(PlayingCard aCard)
     {
         this.meld_.add(aCard);
-        if (isJoker(aCard))
-            this.jokers_.add(aCard);
     }
     
-    /**
-     * Removes a {@code PlayingCard} from this {@code RankMeld}. Jokers are
-     * further removed from their own list.
-     * 
+    /* (non-Javadoc)
      * @see CardCollection#remove(PlayingCard)
      */
     public boolean remove(PlayingCard aCard)
     {
-        if (isJoker(aCard))
-            this.jokers_.remove(aCard);
         return this.meld_.remove(aCard);
     }
     
@@ -133,20 +152,37 @@ class RankMeld extends Meld
     private boolean checkRanks(PlayingCard... cards)
     {
         boolean allCorrect = true;
-        for (PlayingCard aCard : cards) {
-            boolean singleCorrect = aCard.getRank() == this.meldRank_;
-            singleCorrect         = singleCorrect   || isJoker(aCard);
-            allCorrect            = allCorrect      && singleCorrect;
-        }
+        for (PlayingCard aCard : cards)
+            allCorrect = allCorrect && checkRank(aCard);
         return allCorrect;
     }
     
+    // Checks that the specified {@code PlayingCard} is of the correct
+    // {@code Rank}.
+    private boolean checkRank(PlayingCard aCard)
+    {
+        return aCard.getRank() == this.meldRank_ || isJoker(aCard);
+    }
+    
     // Checks that there is space to play {@code cards}
     private boolean hasSpace(PlayingCard... cards)
     {
-        int     nJokersToPickUp = countJokersToPickUp(cards);
-        int     endMeldSize     = this.size() + cards.length - nJokersToPickUp;
-        boolean withinCapacity  = endMeldSize <= RankMeld.MELD_CAPACITY;
+        return hasSpace(cards.length, countNonJokers(cards));
+    }
+    
+    // Checks that there is space to play the single {@code aCard}
+    private boolean hasSpace(PlayingCard aCard)
+    {
+        return hasSpace(1, isJoker(aCard) ? 0 : 1);
+    }
+    
+    // Checks that there is space to play the specified number of
+    // {@code PlayingCard}s, of which the specified number are not jokers.
+    private boolean hasSpace(int nCards, int nNonJokers)
+    {
+        int     nJokersToPickUp = countJokersToPickUp(nNonJokers);
+        int     endMeldSize     = this.size() + nCards - nJokersToPickUp;
+        boolean withinCapacity  = endMeldSize <= this.capacity_;
         return  withinCapacity;
     }
     
@@ -154,22 +190,28 @@ class RankMeld extends Meld
     // {@code PlayingCard}s.
     private int countJokersToPickUp(PlayingCard... cards)
     {
-        int nNonJokers = 0;
-        for (PlayingCard aCard : cards) {
-            if (!isJoker(aCard))
-                nNonJokers++;
-        }
+        return countJokersToPickUp(countNonJokers(cards));
+    }
+    
+    // Finds out how many jokers to pick up when playing the specified number
+    // of non-joker {@code PlayingCard}s.
+    private int countJokersToPickUp(int nNonJokers)
+    {
         // Minimum of the number of non-jokers being played and the number of
         // jokers in the meld.
-        int nJokers         = this.jokers_.size();
+        int nJokers         = this.meld_.count(Rank.JOKER);
         int nJokersToPickUp = nNonJokers < nJokers ? nNonJokers : nJokers;
         return nJokersToPickUp;
     }
     
-    // Appends {@code options} with a new option
-    private void addOption(List<PlayOption> options, PlayingCard... cards)
+    // Counts the {@code PlayingCard}s which are not jokers
+    private int countNonJokers(PlayingCard... cards)
     {
-        PlayOption anOption = new PlayOption(this, cards);
-        options.add(anOption);
+        int nNonJokers = 0;
+        for (PlayingCard aCard : cards) {
+            if (!isJoker(aCard))
+                nNonJokers++;
+        }
+        return nNonJokers;
     }
 }
@@ -1,11 +1,10 @@
 package cardgame.games.acestokings.melds;
 
 import java.util.ArrayList;
-import java.util.EnumSet;
 import java.util.List;
-import java.util.Set;
 
 import cardgame.card.CardCollection;
+import cardgame.card.traditional.CardMultiset;
 import cardgame.card.traditional.PlayingCard;
 import cardgame.card.traditional.Rank;
 import cardgame.card.traditional.Suit;
@@ -21,18 +20,26 @@ import cardgame.card.traditional.Suit;
  */
 class RunMeld extends Meld
 {
-    private static final int HIGH_ACE_VALUE = Rank.KING.getValue() + 1;
-    private static final int LOW_ACE_VALUE  = Rank.TWO.getValue()  - 1;
+    private static final int    HIGH_ACE_VALUE = Rank.KING.getValue() + 1;
+    private static final int    LOW_ACE_VALUE  = Rank.TWO.getValue()  - 1;
+    private static final int    NO_NEIGHBOUR   = -1;
+    private static final int    ACE_BIT        = RunMeld.bitOf(Rank.ACE);
+    private static final Rank[] RANKS          = Rank.values();
     
     private final Suit              meldSuit_;
-    private final List<PlayingCard> cards_;
+    private final CardMultiset      cards_;
+    // the jokers in this meld, in step with the ranks they are mimicking
     private final List<PlayingCard> jokers_;
-    private final List<Rank>        ranks_;
-    // the ranks jokers in this meld are mimicking
     private final List<Rank>        jokerRanks_;
     
-    // the next ranks that jokers added will mimic
-    private List<Rank>  playOptionJokers_;
+    // the next ranks that jokers added will mimic, only used while playing
+    private final List<Rank>        playOptionJokers_;
+    
+    // the ranks in this meld, one bit per rank ordinal
+    private int         rankBits_;
+    // the values next to a rank in this meld, one bit per value with aces
+    // taking the value they have been fixed to
+    private int         openEnds_;
     // whether aces have been fixed to be low/high yet
     private boolean     aceIsFinalised_;
     // determines whether aces are low/high
@@ -49,99 +56,170 @@ class RunMeld extends Meld
     protected RunMeld(Suit meldSuit)
     {
         this.meldSuit_         = meldSuit;
-        this.cards_            = new ArrayList<PlayingCard>();
+        this.cards_            = new CardMultiset();
         this.jokers_           = new ArrayList<PlayingCard>();
-        this.ranks_            = new ArrayList<Rank>();
         this.jokerRanks_       = new ArrayList<Rank>();
         this.playOptionJokers_ = new ArrayList<Rank>();
+        this.rankBits_         = 0;
+        this.openEnds_         = 0;
         this.aceIsFinalised_   = false;
     }
     
     /* (non-Javadoc)
      * @see AbstractMeld#play(CardCollection, PlayOption)
      */
-    protected void play(CardCollection<PlayingCard> collection,
-                        PlayOption anOption)
+    protected int play(CardCollection<PlayingCard> collection,
+                       PlayOption anOption)
     {
-        PlayingCard[] cards    = anOption.getCards();
-        this.playOptionJokers_ = anOption.getJokers();
+        // The option's own array, not a copy. This is safe, as nothing here
+        // changes the option, and it is only reused by a later search for
+        // plays, which can not start until this play is made.
+        PlayingCard[] cards = anOption.getCards();
+        this.playOptionJokers_.clear();
+        this.playOptionJokers_.addAll(anOption.getJokers());
         if (!this.aceIsFinalised_)
             this.aceValue_ = anOption.getAceValue();
         
+        int nJokersPickedUp = 0;
         for (PlayingCard aCard : cards) {
-            boolean canPickUpJoker = this.remove(aCard);
-            if (canPickUpJoker)
+            boolean canPickUpJoker = isHeldByJoker(aCard.getRank())
+                                     && this.remove(aCard);
+            if (canPickUpJoker) {
                 collection.add(this.lastRemovedCard_);
+                nJokersPickedUp++;
+            }
             collection.transferTo(this, aCard);
         }
+        return nJokersPickedUp;
     }
     
     /** 
      * Finds the possible positions that a {@code PlayingCard} can be added to
-     * in this {@code RunMeld}, then appends them to a list of
+     * in this {@code RunMeld}, then appends them to a buffer of
      * {@code PlayOption}s.
      * <p>
      * Firstly checks that the {@code PlayingCard} is of the correct
      * {@code Suit}. Then checks if there is an open position at the edge of a
      * meld within this {@code RunMeld}. Jokers can not be placed into a
-     * position that is already occupied by the {@code PlayingCard} the joker
-     * would attempt to mimic.
+     * position that is already occupied, whether by the {@code PlayingCard}
+     * the joker would attempt to mimic or by another joker, and a
+     * {@code PlayingCard} can only take a position held by a joker, not by
+     * another copy of itself from a shoe of several decks.
      * 
-     * @see Meld#addCardPlays(List, PlayingCard)
+     * @see Meld#addCardPlays(PlayOptionBuffer, PlayingCard)
      */
-    protected void addCardPlays(List<PlayOption> options, PlayingCard aCard)
+    protected void addCardPlays(PlayOptionBuffer options, PlayingCard aCard)
     {
         boolean correctSuit = checkSuits(aCard);
         
         if (correctSuit && isJoker(aCard)) {
-            Set<Rank> ranks = EnumSet.range(Rank.ACE, Rank.KING);
-            for (Rank aRank : ranks) {
-                PlayingCard mimickedCard = new PlayingCard(aRank, meldSuit_);
-                boolean  mimickedPresent = this.cards_.contains(mimickedCard);
-                boolean  neighboursExist = checkForNeighbours(aRank);
+            int lastOrdinal = Rank.KING.ordinal();
+            for (int i = Rank.ACE.ordinal(); i <= lastOrdinal; i++) {
+                Rank    aRank          = RunMeld.RANKS[i];
+                boolean isTaken        = (this.rankBits_
+                                          & RunMeld.bitOf(aRank)) != 0;
+                int     neighbourValue = findNeighbourValue(aRank);
                 
-                if (neighboursExist && !mimickedPresent) {
-                    this.playOptionJokers_.add(aRank);
-                    addOption(options, aRank, aCard);
-                    this.playOptionJokers_.clear();
+                if (neighbourValue != NO_NEIGHBOUR && !isTaken) {
+                    PlayOption anOption = options.add(this, aCard);
+                    anOption.addJoker(aRank);
+                    setUpCardOption(anOption, aRank, neighbourValue);
                 }
             }
         }
         else if (correctSuit) {
-            Rank aRank = aCard.getRank();
-            if (checkForNeighbours(aRank))
-                addOption(options, aRank, aCard);
+            Rank aRank          = aCard.getRank();
+            int  neighbourValue = findNeighbourValue(aRank);
+            if (neighbourValue != NO_NEIGHBOUR && !isHeldByRealCard(aRank))
+                setUpCardOption(options.add(this, aCard), aRank,
+                                neighbourValue);
         }
     }
     
     /** 
      * Finds the possible melds that can be played to this {@code RunMeld} with
-     * a set of {@code PlayingCard}s, then appends them to a list of
+     * a set of {@code PlayingCard}s, then appends them to a buffer of
      * {@code PlayOption}s.
      * <p>
      * Firstly checks that the {@code PlayingCard}s are of the correct
      * {@code Suit} and that they form a run. Then potential starting locations
      * of the run are identified based on the kinds of {@code PlayingCard}s in
-     * the run. Afterwards a check is made to see if all specified jokers can 
-     * be appropriately added to this {@code RunMeld} without removing the 
-     * actual {@code PlayingCard} they would be mimicking.
+     * the run. Afterwards a check is made to see if every
+     * {@code PlayingCard} falls in its position from that start, and if all
+     * specified jokers can be appropriately added to this {@code RunMeld}
+     * without removing the actual {@code PlayingCard} they would be
+     * mimicking.
      * 
-     * @see Meld#addMeldPlays(List, PlayingCard[])
+     * @see Meld#addMeldPlays(PlayOptionBuffer, PlayingCard[])
      */
-    protected void addMeldPlays(List<PlayOption> options, PlayingCard... cards)
+    protected void addMeldPlays(PlayOptionBuffer options, PlayingCard... cards)
     {
         if (checkRun(cards) && checkSuits(cards)) {
-            Set<Rank> viableMeldStarts = findMeldStarts(cards);
+            int nonJokerIndex = findFirstNonJoker(cards);
+            int firstOrdinal;
+            int lastOrdinal;
+            if (nonJokerIndex == cards.length) {
+                firstOrdinal = findFirstAllJokerStart();
+                lastOrdinal  = findLastAllJokerStart(cards.length);
+            }
+            else {
+                Rank nonJokerRank = cards[nonJokerIndex].getRank();
+                firstOrdinal      = findNonJokerStart(nonJokerRank,
+                                                      nonJokerIndex).ordinal();
+                lastOrdinal       = firstOrdinal;
+            }
             
-            for (Rank aRank : viableMeldStarts) {
+            for (int i = firstOrdinal; i <= lastOrdinal; i++) {
+                Rank    aRank    = RunMeld.RANKS[i];
                 boolean canPlace = verifyMeldStart(aRank, cards);
                 if (canPlace)
-                    addOption(options, aRank, cards);
-                this.playOptionJokers_.clear();
+                    setUpMeldOption(options.add(this, cards), aRank, cards);
             }
         }
     }
     
+    // Returns the {@code PlayingCard}s in this {@code RunMeld}, jokers
+    // included, as the bits of a {@code CardSet}. Copies of a
+    // {@code PlayingCard}, such as two of the same joker from a shoe of
+    // several decks, share a bit.
+    long getBits()
+    {
+        return this.cards_.getBits();
+    }
+    
+    // Returns the value of the position taken by the specified joker in this
+    // {@code RunMeld}, or {@code NO_NEIGHBOUR} if it is not here.
+    int getJokerValue(PlayingCard aJoker)
+    {
+        int  jokerIndex = this.jokers_.indexOf(aJoker);
+        Rank jokerRank  = jokerIndex >= 0 ? this.jokerRanks_.get(jokerIndex)
+                                          : null;
+        int  value;
+        if (jokerRank == null)
+            value = RunMeld.NO_NEIGHBOUR;
+        else if (jokerRank == Rank.ACE)
+            value = this.aceValue_;
+        else
+            value = jokerRank.getValue();
+        return value;
+    }
+    
+    // Returns the value of aces in this {@code RunMeld}, or zero if it has not
+    // been fixed yet.
+    int getAceValue()
+    {
+        return this.aceIsFinalised_ ? this.aceValue_ : 0;
+    }
+    
+    /* (non-Javadoc)
+     * @see Meld#getMeldSuit()
+     */
+    @Override
+    Suit getMeldSuit()
+    {
+        return this.meldSuit_;
+    }
+    
     /* (non-Javadoc)
      * @see Selectable#getMessage()
      */
@@ -182,7 +260,8 @@ class RunMeld extends Meld
             this.aceIsFinalised_ = true;
         
         this.cards_.add(aCard);
-        this.ranks_.add(rank);
+        this.rankBits_ |= RunMeld.bitOf(rank);
+        updateOpenEnds();
     }
     
     /**
@@ -199,16 +278,22 @@ class RunMeld extends Meld
     public boolean remove(PlayingCard aCard)
     {
         Rank    rank     = aCard.getRank();
-        boolean isInMeld = this.ranks_.contains(rank);
+        int     rankBit  = RunMeld.bitOf(rank);
+        boolean isInMeld = (this.rankBits_ & rankBit) != 0;
         boolean cardRemoved;
         
         if (isInMeld) {
-            boolean isAJoker = this.jokerRanks_.contains(rank);
-            if (isAJoker)
-                this.lastRemovedCard_ = this.jokers_.remove(0);
-            else
-                this.lastRemovedCard_ = new PlayingCard(rank, this.meldSuit_);
-            cardRemoved = this.cards_.remove(this.lastRemovedCard_);
+            int jokerIndex = this.jokerRanks_.indexOf(rank);
+            if (jokerIndex >= 0) {
+                this.lastRemovedCard_ = this.jokers_.remove(jokerIndex);
+                this.jokerRanks_.remove(jokerIndex);
+            }
+            else {
+                this.lastRemovedCard_ = PlayingCard.of(rank, this.meldSuit_);
+            }
+            cardRemoved     = this.cards_.remove(this.lastRemovedCard_);
+            this.rankBits_ &= ~rankBit;
+            updateOpenEnds();
         }
         else {
             cardRemoved = false;
@@ -224,12 +309,57 @@ class RunMeld extends Meld
     {
         this.cards_.clear();
         this.jokers_.clear();
-        this.ranks_.clear();
         this.jokerRanks_.clear();
         this.playOptionJokers_.clear();
+        this.rankBits_       = 0;
+        this.openEnds_       = 0;
         this.aceIsFinalised_ = false;
     }
     
+    // Returns the bit representing the specified {@code Rank} in
+    // {@code rankBits_}.
+    private static int bitOf(Rank aRank)
+    {
+        return 1 << aRank.ordinal();
+    }
+    
+    // Recalculates {@code openEnds_} after a change to {@code rankBits_}.
+    //
+    // The ranks are first shifted so that each bit is at its value, with any
+    // ace moved to the value it has been fixed to. The open ends are then the
+    // values either side of those.
+    private void updateOpenEnds()
+    {
+        int nonAceBits = this.rankBits_ & ~RunMeld.ACE_BIT;
+        int values     = nonAceBits << (Rank.TWO.getValue()
+                                        - Rank.TWO.ordinal());
+        if ((this.rankBits_ & RunMeld.ACE_BIT) != 0)
+            values |= 1 << this.aceValue_;
+        this.openEnds_ = (values << 1) | (values >>> 1);
+    }
+    
+    // Checks if the position of the specified {@code Rank} is held by a joker
+    private boolean isHeldByJoker(Rank aRank)
+    {
+        return this.jokerRanks_.contains(aRank);
+    }
+    
+    // Checks if the position of the specified {@code Rank} is held by a
+    // {@code PlayingCard} that is not a joker. Only another copy of the
+    // {@code PlayingCard}, from a shoe of several decks, could be offered for
+    // it.
+    private boolean isHeldByRealCard(Rank aRank)
+    {
+        boolean isTaken = (this.rankBits_ & RunMeld.bitOf(aRank)) != 0;
+        return isTaken && !isHeldByJoker(aRank);
+    }
+    
+    // Checks if {@code openEnds_} contains the specified value
+    private boolean isOpenEnd(int value)
+    {
+        return (this.openEnds_ & (1 << value)) != 0;
+    }
+    
     // Checks if some given {@code PlayingCard}s are all of the correct
     // {@code Suit} for addition to this {@code RunMeld}.
     private boolean checkSuits(PlayingCard... cards)
@@ -291,9 +421,8 @@ class RunMeld extends Meld
     //
     // Otherwise, checks if the non-Ace {@code Rank} (two consecutive
     // {@code Rank}s must be different) is the sufficient {@code Rank} for a
-    // high or low valued ace. If so then the value of aces in this
-    // {@code RunMeld} is updated in case this ace is added to the
-    // {@code RunMeld}.
+    // high or low valued ace. Which of the two the ace would be is left to
+    // the starting {@code Rank} of the run.
     //
     // @param  rank1 the speculative first {@code Rank}
     // @param  rank2 the speculative following {@code Rank}
@@ -311,128 +440,109 @@ class RunMeld extends Meld
             consecutiveRanks = rank2Value - rank1Value == 1;
         }
         else {
-            if (rank1 == Rank.KING) {
-                this.aceValue_   = RunMeld.HIGH_ACE_VALUE;
-                consecutiveRanks = true;
-            }
-            else if (rank2 == Rank.TWO) {
-                this.aceValue_   = RunMeld.LOW_ACE_VALUE;
-                consecutiveRanks = true;
-            }
-            else {
-                consecutiveRanks = false;
-            }
+            consecutiveRanks = rank1 == Rank.KING || rank2 == Rank.TWO;
         }
         
         return consecutiveRanks;
     }
     
-    // Checks if the given {@code Rank} could have neighbours upon being added
-    // to this {@code RunMeld}. Having neighbours is a necessary requirement of
-    // playing {@code PlayingCard}s one at a time.
+    // Finds the value the given {@code Rank} would take next to a neighbour
+    // upon being added to this {@code RunMeld}. Having neighbours is a
+    // necessary requirement of playing {@code PlayingCard}s one at a time.
     //
-    // To check for neighbours, the method iterates through the list of
-    // {@code Rank}s in this {@code RunMeld}. {@code Rank}s are compared to the
-    // {@code Rank} of the given {@code PlayingCard} to see if they are
-    // neighbours.
+    // The value of the {@code Rank} is looked up in the open ends of this
+    // {@code RunMeld}. An ace whose value is not yet fixed may be next to
+    // either a two or a king, in which case a low ace is preferred.
     // 
     // @param  aRank the {@code Rank} to check for neighbours
-    // @return true if the {@code Rank} could have a neighbour after placement
-    private boolean checkForNeighbours(Rank aRank)
+    // @return the value of the {@code Rank} after placement, or
+    //         {@code NO_NEIGHBOUR} if it would have no neighbour
+    private int findNeighbourValue(Rank aRank)
     {
-        boolean isNextToAMeld = false;
+        int value;
         
-        for (Rank rank2 : this.ranks_) {
-            boolean aRankBeforeRank2 = checkConsecutiveRanks(aRank, rank2);
-            boolean rank2BeforeARank = checkConsecutiveRanks(rank2, aRank);
-            if (aRankBeforeRank2 || rank2BeforeARank)
-                isNextToAMeld = true;
-        }
+        if (aRank != Rank.ACE)
+            value = aRank.getValue();
+        else if (this.aceIsFinalised_)
+            value = this.aceValue_;
+        else if (isOpenEnd(RunMeld.LOW_ACE_VALUE))
+            value = RunMeld.LOW_ACE_VALUE;
+        else
+            value = RunMeld.HIGH_ACE_VALUE;
         
-        return isNextToAMeld;
+        return isOpenEnd(value) ? value : RunMeld.NO_NEIGHBOUR;
     }
     
-    // Finds the potential starting {@code Rank}s of a run of
-    // {@code PlayingCard}s.
-    private Set<Rank> findMeldStarts(PlayingCard... cards)
+    // Finds the index of the first {@code PlayingCard} of a run which is not
+    // a joker, or the length of the run if it consists solely of jokers.
+    private int findFirstNonJoker(PlayingCard... cards)
     {
-        boolean nonJokerFound = false;
-        int     nonJokerIndex = 0;
-        int     nCards        = cards.length;
-        
-        // discovering the necessary parameters to create the set
-        while (nonJokerIndex < nCards && !nonJokerFound) {
-            if (!isJoker(cards[nonJokerIndex]))
-                nonJokerFound = true;
-            else
-                nonJokerIndex++;
-        }
-        
-        // obtaining the set
-        Set<Rank> viableMeldStarts;
-        if (!nonJokerFound) {
-            viableMeldStarts = generateAllJokerStart(nCards);
-        }
-        else {
-            Rank nonJokerRank = cards[nonJokerIndex].getRank();
-            viableMeldStarts  = findNonJokerStart(nonJokerRank, nonJokerIndex);
-        }
-        
-        return viableMeldStarts;
+        int nonJokerIndex = 0;
+        int nCards        = cards.length;
+        while (nonJokerIndex < nCards && isJoker(cards[nonJokerIndex]))
+            nonJokerIndex++;
+        return nonJokerIndex;
     }
     
-    // Finds the potential range of starting {@code Rank}s of a run of
-    // {@code PlayingCard}s which consists solely of jokers.
-    private Set<Rank> generateAllJokerStart(int nCards)
+    // Finds the ordinal of the first potential starting {@code Rank} of a run
+    // of {@code PlayingCard}s which consists solely of jokers.
+    private int findFirstAllJokerStart()
     {
         // If the ace is finalised and high, then we cannot put a joker in the
         // high ace spot anyway
+        boolean aceCanBeHigh = !this.aceIsFinalised_;
+        return aceCanBeHigh ? Rank.TWO.ordinal() : Rank.ACE.ordinal();
+    }
+    
+    // Finds the ordinal of the last potential starting {@code Rank} of a run
+    // of {@code PlayingCard}s which consists solely of jokers. A run too long
+    // to start anywhere gives an ordinal before the first potential start.
+    private int findLastAllJokerStart(int nCards)
+    {
         boolean aceCanBeHigh      = !this.aceIsFinalised_;
-        int     kingStepsFromLast = aceCanBeHigh ?        2 : 1;
-        Rank    firstRankStart    = aceCanBeHigh ? Rank.TWO : Rank.ACE;
-        Rank    lastRankStart     = Rank.KING;
-        
-        for (int i = kingStepsFromLast; i < nCards; i++)
-            lastRankStart = lastRankStart.getNeighbour(false);
-        
-        return EnumSet.range(firstRankStart, lastRankStart);
+        int     kingStepsFromLast = aceCanBeHigh ? 2 : 1;
+        int     nStepsBack        = nCards - kingStepsFromLast;
+        nStepsBack                = nStepsBack > 0 ? nStepsBack : 0;
+        return  Rank.KING.ordinal() - nStepsBack;
     }
     
     // Finds the single potential starting {@code Rank} of a run of
     // {@code PlayingCard}s which does not consist solely of jokers.
-    private Set<Rank> findNonJokerStart(Rank nonJokerRank, int nonJokerIndex)
+    private Rank findNonJokerStart(Rank nonJokerRank, int nonJokerIndex)
     {
-        for (int i = 0; i < nonJokerIndex; i++)
-            nonJokerRank = nonJokerRank.getNeighbour(false);
-        return EnumSet.of(nonJokerRank);
+        for (int i = 0; i < nonJokerIndex; i++) {
+            if (nonJokerRank == Rank.ACE)
+                nonJokerRank = Rank.KING;
+            else
+                nonJokerRank = nonJokerRank.getNeighbour(false);
+        }
+        return nonJokerRank;
     }
     
-    // Verifies that all of the jokers in a run of {@code PlayingCard}s can be
-    // placed appropriately in this {@RunMeld} according to the
-    // {@code PlayingCard}s they are mimicking.
-    // 
-    // Additionally, jokers are added to a list of jokers for use in the
-    // creation of a {@code PlayOption} at a later time, assuming the run can
-    // placed.
+    // Verifies that a run of {@code PlayingCard}s starting from the specified
+    // {@code Rank} does not run past a high ace, that each
+    // {@code PlayingCard} other than a joker has the {@code Rank} of its
+    // position and that position is not held by another copy of it, and
+    // that all of its jokers can be placed appropriately in this
+    // {@RunMeld} according to the {@code PlayingCard}s they are mimicking.
     // 
     // @param  meldStart the initial {@code Rank} the run is starting from
     // @param  cards     the {@code PlayingCard}s that make up the run
     // @return true if the run may be placed here
     private boolean verifyMeldStart(Rank meldStart, PlayingCard... cards)
     {
-        Rank    aRank    = meldStart;
-        boolean canPlace = true;
+        int     lastValue = meldStart.getValue() + cards.length - 1;
+        boolean canPlace  = lastValue <= RunMeld.HIGH_ACE_VALUE;
+        Rank    aRank     = meldStart;
         
         for (PlayingCard aCard : cards) {
             if (isJoker(aCard)) {
-                this.playOptionJokers_.add(aRank);
-                canPlace = canPlace && !this.ranks_.contains(aRank);
-                
-                // Jokers skip the setting of the ace value elsewhere
-                if (aRank == Rank.ACE && meldStart != Rank.ACE)
-                    this.aceValue_ = RunMeld.HIGH_ACE_VALUE;
-                else if (aRank == Rank.ACE && meldStart == Rank.ACE)
-                    this.aceValue_ = RunMeld.LOW_ACE_VALUE;
+                boolean isTaken = (this.rankBits_ & RunMeld.bitOf(aRank)) != 0;
+                canPlace        = canPlace && !isTaken;
+            }
+            else {
+                canPlace = canPlace && aCard.getRank() == aRank
+                           && !isHeldByRealCard(aRank);
             }
             aRank = aRank == Rank.KING ? Rank.ACE : aRank.getNeighbour(true);
         }
@@ -440,25 +550,57 @@ class RunMeld extends Meld
         return canPlace;
     }
     
-    // Appends a list of {@code PlayOption}s with a new {@code PlayOption}.
+    // Sets up a {@code PlayOption} for a run newly added to a buffer.
     // 
-    // Creates a new {@code PlayOption} and provides it with an ordered list of
-    // {@code Rank}s that the jokers in this {@code PlayOption} will mimic when
-    // added to this {@code RunMeld}. The current value of aces at the time of
-    // creating the {@code PlayOption} is also provided. The list of
-    // {@code PlayOption}s is then appended.
+    // Provides the {@code PlayOption} with an ordered list of {@code Rank}s
+    // that the jokers in the run will mimic when added to this
+    // {@code RunMeld}. Any ace in the run, joker or not, is low if it starts
+    // the run and high otherwise.
+    //
+    // @param anOption  the {@code PlayOption} to set up
+    // @param meldStart the first rank of the run
+    // @param cards     the {@code PlayingCard}s that make up the run
+    private void setUpMeldOption(PlayOption anOption, Rank meldStart,
+                                 PlayingCard... cards)
+    {
+        Rank aRank = meldStart;
+        for (PlayingCard aCard : cards) {
+            if (isJoker(aCard))
+                anOption.addJoker(aRank);
+            aRank = aRank == Rank.KING ? Rank.ACE : aRank.getNeighbour(true);
+        }
+        
+        boolean aceIsLow = meldStart == Rank.ACE;
+        int     aceValue = aceIsLow ? RunMeld.LOW_ACE_VALUE
+                                    : RunMeld.HIGH_ACE_VALUE;
+        setUpOption(anOption, meldStart, aceValue);
+    }
+    
+    // Sets up a {@code PlayOption} for a single card newly added to a buffer.
+    // An ace takes the value it would have next to its neighbour, and any
+    // other {@code Rank} leaves the value of aces as it is.
+    //
+    // @param anOption the {@code PlayOption} to set up
+    // @param aRank    the rank the card will take
+    // @param value    the value the card will take
+    private void setUpCardOption(PlayOption anOption, Rank aRank, int value)
+    {
+        int aceValue = aRank == Rank.ACE ? value : this.aceValue_;
+        setUpOption(anOption, aRank, aceValue);
+    }
+    
+    // Sets up a {@code PlayOption} newly added to a buffer with the first
+    // {@code Rank} it covers, and the value aces would take if it were
+    // played. An ace value is still given if the play holds no aces, as
+    // adding a {@code PlayOption} to a {@code RunMeld} only takes its ace
+    // value while the value of aces is not yet fixed.
     //
-    // @param options the list of {@code PlayOptions} to append
-    // @param aRank   the first rank of this run
-    // @param cards   the {@code PlayingCard}s that could be played by the
-    //                created {@code PlayOption}
-    private void addOption(List<PlayOption> options, Rank aRank,
-                           PlayingCard... cards)
+    // @param anOption the {@code PlayOption} to set up
+    // @param aRank    the first rank of the play
+    // @param aceValue the value of aces in the play
+    private void setUpOption(PlayOption anOption, Rank aRank, int aceValue)
     {
-        PlayOption anOption = new PlayOption(this, cards);
-        anOption.setJokers(this.playOptionJokers_);
-        anOption.setAceValue(this.aceValue_);
+        anOption.setAceValue(aceValue);
         anOption.setFirstRank(aRank);
-        options.add(anOption);
     }
 }
@@ -0,0 +1,276 @@
+package cardgame.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import cardgame.card.RandomSource;
+
+/**
+ * A client that connects many computer players to a {@code GameServer} at
+ * once, for testing the server under load.
+ * <p>
+ * Every bot has a connection of its own, and all of them are served by a
+ * few {@code SelectorLoop}s, just as on the server. A bot answers each
+ * choice uniformly at random as soon as it arrives, without reading the
+ * options, so the server and the game engine are the only real work done.
+ * 
+ * @see GameServer
+ */
+public class BotClient
+    implements Closeable
+{
+    private static final int    READ_BUFFER_BYTES = 16 * 1024;
+    private static final String LOOP_NAME         = "bot-client-io-";
+    
+    private final SelectorLoop[] loops_;
+    private final LongAdder      nDecisions_;
+    private final AtomicLong     nGamesOver_;
+    private final AtomicLong     nDropped_;
+    private CountDownLatch       finished_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param  nThreads the number of threads to serve the connections on
+     * @throws IOException if a {@code Selector} can not be opened
+     */
+    public BotClient(int nThreads)
+        throws IOException
+    {
+        this.loops_      = new SelectorLoop[nThreads];
+        this.nDecisions_ = new LongAdder();
+        this.nGamesOver_ = new AtomicLong();
+        this.nDropped_   = new AtomicLong();
+        this.finished_   = new CountDownLatch(0);
+        for (int i = 0; i < nThreads; i++) {
+            this.loops_[i] = new SelectorLoop(BotClient.LOOP_NAME + i);
+            this.loops_[i].start();
+        }
+    }
+    
+    /**
+     * Connects the specified number of bots to a server, each joining under
+     * a name of its own. Returns once every connection has been made.
+     * 
+     * @param  address the address of the {@code GameServer}
+     * @param  nBots   the number of bots to connect
+     * @throws IOException if a connection can not be made
+     */
+    public void connect(InetSocketAddress address, int nBots)
+        throws IOException
+    {
+        this.finished_ = new CountDownLatch(nBots);
+        for (int i = 0; i < nBots; i++) {
+            SocketChannel aChannel = SocketChannel.open(address);
+            aChannel.configureBlocking(false);
+            aChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectorLoop aLoop = this.loops_[i % this.loops_.length];
+            Connection   aConnection = new Connection(aChannel, aLoop,
+                                           BotClient.READ_BUFFER_BYTES);
+            aConnection.open(new Bot(RandomSource.unseeded()));
+            aConnection.send(Protocol.join("Bot " + i));
+        }
+    }
+    
+    /**
+     * Waits for every bot to finish its game or lose its connection.
+     * 
+     * @param  timeout the maximum time to wait
+     * @param  unit    the unit of the timeout
+     * @return {@code true} if every bot finished in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit)
+        throws InterruptedException
+    {
+        return this.finished_.await(timeout, unit);
+    }
+    
+    /**
+     * Returns the number of choices the bots have answered.
+     * 
+     * @return the number of decisions made
+     */
+    public long getDecisionCount()
+    {
+        return this.nDecisions_.sum();
+    }
+    
+    /**
+     * Returns the number of bots that were told their game was over.
+     * 
+     * @return the number of games finished, counted once per bot
+     */
+    public long getGamesOver()
+    {
+        return this.nGamesOver_.get();
+    }
+    
+    /**
+     * Returns the number of bots whose connection closed before their game
+     * was over.
+     * 
+     * @return the number of bots dropped
+     */
+    public long getDroppedCount()
+    {
+        return this.nDropped_.get();
+    }
+    
+    /**
+     * Stops the selector threads, closing every connection.
+     * 
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close()
+    {
+        try {
+            for (SelectorLoop aLoop : this.loops_)
+                aLoop.close();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // A single computer player, answering on the thread of its loop
+    private class Bot
+        implements Connection.Listener
+    {
+        private final RandomSource rng_;
+        private boolean            gameOver_;
+        
+        // Constructor
+        Bot(RandomSource rng)
+        {
+            this.rng_      = rng;
+            this.gameOver_ = false;
+        }
+        
+        /* (non-Javadoc)
+         * @see cardgame.net.Connection.Listener#frameReceived(
+         *      cardgame.net.Connection, byte, java.nio.ByteBuffer)
+         */
+        @Override
+        public void frameReceived(Connection aConnection, byte type,
+                                  ByteBuffer payload)
+        {
+            if (type == Protocol.CHOOSE) {
+                // Skipping the prompt
+                payload.position(payload.position() + Protocol.LENGTH_BYTES
+                                 + (payload.getShort(payload.position())
+                                    & 0xFFFF));
+                int nOptions = payload.getShort() & 0xFFFF;
+                answer(aConnection, 0, nOptions);
+            }
+            else if (type == Protocol.CHOOSE_INT) {
+                int lowerBound = payload.getInt();
+                int upperBound = payload.getInt();
+                answer(aConnection, lowerBound, upperBound);
+            }
+            else if (type == Protocol.GAME_OVER) {
+                this.gameOver_ = true;
+                BotClient.this.nGamesOver_.incrementAndGet();
+            }
+        }
+        
+        // Sends a random answer from the specified range
+        private void answer(Connection aConnection, int lowerBound,
+                            int upperBound)
+        {
+            int choice = lowerBound
+                         + this.rng_.nextInt(upperBound - lowerBound);
+            BotClient.this.nDecisions_.increment();
+            aConnection.send(Protocol.answer(choice));
+        }
+        
+        /* (non-Javadoc)
+         * @see cardgame.net.Connection.Listener#connectionClosed(
+         *      cardgame.net.Connection)
+         */
+        @Override
+        public void connectionClosed(Connection aConnection)
+        {
+            if (!this.gameOver_)
+                BotClient.this.nDropped_.incrementAndGet();
+            BotClient.this.finished_.countDown();
+        }
+    }
+    
+    // Connects bots to a server and reports the throughput. Takes the
+    // number of bots, the number of client threads, and the host and port
+    // of the server. Without a host, a server is started in this JVM on
+    // the loopback address, with the number of server threads, the number
+    // of players per table, the turn limit and optionally "threads", to
+    // play each table on a thread of its own, taken as further arguments.
+    public static void main(String[] args)
+        throws IOException, InterruptedException
+    {
+        int nBots    = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int nThreads = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        
+        GameServer        server  = null;
+        InetSocketAddress address;
+        if (args.length > 3 && !args[2].equals("-")) {
+            address = new InetSocketAddress(args[2],
+                                            Integer.parseInt(args[3]));
+        }
+        else {
+            int     nServerThreads = args.length > 3
+                                     ? Integer.parseInt(args[3]) : 2;
+            int     nPlayers       = args.length > 4
+                                     ? Integer.parseInt(args[4]) : 4;
+            int     turnLimit      = args.length > 5
+                                     ? Integer.parseInt(args[5]) : 20;
+            boolean threads        = args.length > 6
+                                     && args[6].equals("threads");
+            server  = new GameServer(new InetSocketAddress(
+                                         InetAddress.getLoopbackAddress(),
+                                         0),
+                                     nServerThreads, nPlayers, turnLimit,
+                                     threads);
+            server.start();
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                            server.getPort());
+        }
+        
+        BotClient client    = new BotClient(nThreads);
+        long      startTime = System.nanoTime();
+        client.connect(address, nBots);
+        double    connected = (System.nanoTime() - startTime) / 1e9;
+        boolean   finished  = client.await(1, TimeUnit.HOURS);
+        double    seconds   = (System.nanoTime() - startTime) / 1e9;
+        
+        System.out.println(String.format("Connected %d bots on %d threads in"
+                                         + " %.3f seconds", nBots, nThreads,
+                                         connected));
+        System.out.println(String.format("%s with %d bots at the end of"
+                                         + " their game and %d decisions in"
+                                         + " %.3f seconds (%.0f"
+                                         + " decisions/sec), %d bots"
+                                         + " dropped",
+                                         finished ? "Finished" : "Timed out",
+                                         client.getGamesOver(),
+                                         client.getDecisionCount(), seconds,
+                                         client.getDecisionCount() / seconds,
+                                         client.getDroppedCount()));
+        if (server != null) {
+            System.out.println(String.format("Server finished %d of %d"
+                                             + " tables",
+                                             server.getTablesFinished(),
+                                             server.getTablesStarted()));
+            server.close();
+        }
+        client.close();
+    }
+}
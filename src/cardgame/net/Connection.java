@@ -0,0 +1,274 @@
+package cardgame.net;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A non-blocking socket connection that reads and writes the frames of the
+ * {@code Protocol}, driven by a {@code SelectorLoop}.
+ * <p>
+ * Frames may be sent from any thread. They are queued and written by the
+ * thread of the loop, several at a time, and the channel is only watched
+ * for writing while the socket buffer is full. Frames received are passed
+ * to the {@code Listener} on the thread of the loop, straight out of the
+ * read buffer, so a {@code Listener} must be quick and must not keep the
+ * payload.
+ */
+final class Connection
+    implements SelectorLoop.Handler
+{
+    /**
+     * Receives the frames of a {@code Connection}.
+     */
+    interface Listener
+    {
+        /**
+         * Called when a whole frame has been received.
+         * 
+         * @param aConnection the {@code Connection} the frame came from
+         * @param type        the type of the frame
+         * @param payload     the payload, which is only valid for the call
+         */
+        void frameReceived(Connection aConnection, byte type,
+                           ByteBuffer payload);
+        
+        /**
+         * Called once when the {@code Connection} has been closed, by either
+         * side.
+         * 
+         * @param aConnection the {@code Connection} that was closed
+         */
+        void connectionClosed(Connection aConnection);
+    }
+    
+    private static final int WRITE_BATCH = 16;
+    
+    private final SocketChannel     channel_;
+    private final SelectorLoop      loop_;
+    private final ByteBuffer        readBuffer_;
+    private final Queue<ByteBuffer> writes_;
+    private final ByteBuffer[]      writeBatch_;
+    private final AtomicBoolean     flushQueued_;
+    private final Runnable          flushTask_;
+    private Listener                listener_;
+    private SelectionKey            key_;
+    private volatile boolean        closing_;
+    private boolean                 closed_;
+    
+    // Constructor
+    Connection(SocketChannel aChannel, SelectorLoop aLoop, int maxFrameBytes)
+    {
+        this.channel_     = aChannel;
+        this.loop_        = aLoop;
+        this.readBuffer_  = ByteBuffer.allocate(Protocol.LENGTH_BYTES
+                                                + maxFrameBytes);
+        this.writes_      = new ConcurrentLinkedQueue<ByteBuffer>();
+        this.writeBatch_  = new ByteBuffer[Connection.WRITE_BATCH];
+        this.flushQueued_ = new AtomicBoolean();
+        this.flushTask_   = this::flush;
+        this.listener_    = null;
+        this.key_         = null;
+        this.closing_     = false;
+        this.closed_      = false;
+    }
+    
+    // Registers the channel with the loop, passing every frame received to
+    // the specified {@code Listener}
+    void open(Listener aListener)
+    {
+        this.listener_ = aListener;
+        this.loop_.register(this.channel_, SelectionKey.OP_READ, this,
+                            key -> {
+                                this.key_ = key;
+                                if (key == null)
+                                    closeNow();
+                                else
+                                    flush();
+                            });
+    }
+    
+    // Queues a frame to be written. Frames sent once the connection is
+    // closing are dropped.
+    void send(ByteBuffer frame)
+    {
+        if (!this.closing_) {
+            this.writes_.add(frame);
+            requestFlush();
+        }
+    }
+    
+    // Closes the connection once every frame queued has been written
+    void closeAfterWrites()
+    {
+        this.closing_ = true;
+        requestFlush();
+    }
+    
+    // Asks the loop to write the queued frames, unless it has already been
+    // asked
+    private void requestFlush()
+    {
+        if (this.flushQueued_.compareAndSet(false, true))
+            this.loop_.execute(this.flushTask_);
+    }
+    
+    /* (non-Javadoc)
+     * @see cardgame.net.SelectorLoop.Handler#onReady(
+     *      java.nio.channels.SelectionKey)
+     */
+    @Override
+    public void onReady(SelectionKey key)
+    {
+        if (key.isReadable())
+            read();
+        if (key.isValid() && key.isWritable())
+            flush();
+    }
+    
+    /* (non-Javadoc)
+     * @see cardgame.net.SelectorLoop.Handler#onLoopClosed()
+     */
+    @Override
+    public void onLoopClosed()
+    {
+        closeNow();
+    }
+    
+    // Reads what the socket has, and passes on every whole frame
+    private void read()
+    {
+        int nRead;
+        try {
+            nRead = this.channel_.read(this.readBuffer_);
+        }
+        catch (IOException e) {
+            nRead = -1;
+        }
+        
+        if (nRead < 0) {
+            closeNow();
+        }
+        else {
+            this.readBuffer_.flip();
+            dispatchFrames();
+            this.readBuffer_.compact();
+            // A full buffer holding no whole frame can never be read
+            if (!this.readBuffer_.hasRemaining())
+                closeNow();
+        }
+    }
+    
+    // Passes every whole frame in the read buffer to the {@code Listener},
+    // limiting the buffer to each payload in turn
+    private void dispatchFrames()
+    {
+        ByteBuffer buffer = this.readBuffer_;
+        boolean    whole  = true;
+        while (whole && !this.closed_) {
+            int start  = buffer.position();
+            int length = buffer.remaining() < Protocol.LENGTH_BYTES
+                         ? -1 : buffer.getShort(start) & 0xFFFF;
+            whole      = length >= 0
+                         && buffer.remaining() >= Protocol.LENGTH_BYTES
+                                                  + length;
+            if (whole && length == 0) {
+                closeNow();
+            }
+            else if (whole) {
+                int end   = start + Protocol.LENGTH_BYTES + length;
+                int limit = buffer.limit();
+                buffer.limit(end).position(start + Protocol.LENGTH_BYTES);
+                byte type = buffer.get();
+                try {
+                    this.listener_.frameReceived(this, type, buffer);
+                }
+                catch (BufferUnderflowException e) {
+                    // The payload was shorter than its type requires
+                    closeNow();
+                }
+                buffer.limit(limit).position(end);
+            }
+        }
+    }
+    
+    // Writes as many queued frames as the socket will take, watching for
+    // the socket to drain if it fills up
+    private void flush()
+    {
+        this.flushQueued_.set(false);
+        if (this.key_ != null && !this.closed_) {
+            boolean blocked = false;
+            try {
+                while (!blocked && !this.writes_.isEmpty())
+                    blocked = writeBatch();
+            }
+            catch (IOException e) {
+                blocked = true;
+                closeNow();
+            }
+            
+            if (!this.closed_) {
+                if (blocked) {
+                    this.key_.interestOps(SelectionKey.OP_READ
+                                          | SelectionKey.OP_WRITE);
+                }
+                else if (this.closing_) {
+                    closeNow();
+                }
+                else {
+                    this.key_.interestOps(SelectionKey.OP_READ);
+                }
+            }
+        }
+    }
+    
+    // Writes the frames at the head of the queue in a single call, returning
+    // whether the socket took less than all of them
+    private boolean writeBatch()
+        throws IOException
+    {
+        int                  nFrames = 0;
+        Iterator<ByteBuffer> frames  = this.writes_.iterator();
+        while (nFrames < this.writeBatch_.length && frames.hasNext()) {
+            this.writeBatch_[nFrames] = frames.next();
+            nFrames++;
+        }
+        this.channel_.write(this.writeBatch_, 0, nFrames);
+        
+        boolean blocked = false;
+        for (int i = 0; i < nFrames && !blocked; i++) {
+            blocked = this.writeBatch_[i].hasRemaining();
+            if (!blocked)
+                this.writes_.poll();
+        }
+        Arrays.fill(this.writeBatch_, 0, nFrames, null);
+        return blocked;
+    }
+    
+    // Closes the channel straight away, and tells the {@code Listener}
+    private void closeNow()
+    {
+        if (!this.closed_) {
+            this.closed_  = true;
+            this.closing_ = true;
+            if (this.key_ != null)
+                this.key_.cancel();
+            try {
+                this.channel_.close();
+            }
+            catch (IOException e) {
+                // The channel is closed regardless
+            }
+            this.writes_.clear();
+            this.listener_.connectionClosed(this);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package cardgame.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import cardgame.player.ConsolePlayerIO;
+import cardgame.player.DecisionContext;
+import cardgame.player.PlayerIO;
+import cardgame.player.Selectable;
+
+/**
+ * A client for a human playing on a {@code GameServer} from the console.
+ * <p>
+ * The client reads frames from a blocking channel and hands each question
+ * to a {@code ConsolePlayerIO}, so playing over the network looks the same
+ * as playing locally.
+ * 
+ * @see GameServer
+ * @see ConsolePlayerIO
+ */
+public class ConsoleClient
+{
+    private final SocketChannel channel_;
+    private final PlayerIO      console_;
+    private final ByteBuffer    header_;
+    private final ByteBuffer    frame_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param aChannel a blocking channel connected to the server
+     * @param console  the {@code PlayerIO} to ask the player through
+     */
+    public ConsoleClient(SocketChannel aChannel, PlayerIO console)
+    {
+        this.channel_ = aChannel;
+        this.console_ = console;
+        this.header_  = ByteBuffer.allocate(Protocol.LENGTH_BYTES);
+        this.frame_   = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES);
+    }
+    
+    /**
+     * Joins the server under the specified name and plays until the game is
+     * over or the server disconnects.
+     * 
+     * @param  name the name to join under
+     * @return the points the player finished with, or -1 if the server
+     *         disconnected first
+     * @throws IOException if the connection fails
+     */
+    public int play(String name)
+        throws IOException
+    {
+        int points = -1;
+        write(Protocol.join(name));
+        while (points < 0 && readFrame()) {
+            byte type = this.frame_.get();
+            if (type == Protocol.MESSAGE) {
+                this.console_.sendMessage(Protocol.getString(this.frame_));
+            }
+            else if (type == Protocol.CHOOSE) {
+                String       prompt   = Protocol.getString(this.frame_);
+                int          nOptions = this.frame_.getShort() & 0xFFFF;
+                List<Option> options  = new ArrayList<Option>(nOptions);
+                for (int i = 0; i < nOptions; i++)
+                    options.add(new Option(Protocol.getString(this.frame_)));
+                write(Protocol.answer(this.console_.choose(
+                          DecisionContext.of(prompt), options)));
+            }
+            else if (type == Protocol.CHOOSE_INT) {
+                int lowerBound = this.frame_.getInt();
+                int upperBound = this.frame_.getInt();
+                write(Protocol.answer(this.console_.chooseInt(lowerBound,
+                                                              upperBound)));
+            }
+            else if (type == Protocol.GAME_OVER) {
+                points = this.frame_.getInt();
+            }
+        }
+        return points;
+    }
+    
+    // Reads the next frame into the frame buffer, returning {@code false}
+    // if the server has closed the connection
+    private boolean readFrame()
+        throws IOException
+    {
+        this.header_.clear();
+        boolean open = readFully(this.header_);
+        if (open) {
+            this.header_.flip();
+            this.frame_.clear();
+            this.frame_.limit(this.header_.getShort() & 0xFFFF);
+            open = readFully(this.frame_);
+            this.frame_.flip();
+        }
+        return open;
+    }
+    
+    // Fills the rest of the specified buffer from the channel, returning
+    // {@code false} if the channel reached its end first
+    private boolean readFully(ByteBuffer buffer)
+        throws IOException
+    {
+        int nRead = 0;
+        while (nRead >= 0 && buffer.hasRemaining())
+            nRead = this.channel_.read(buffer);
+        return nRead >= 0;
+    }
+    
+    // Writes a whole frame to the channel
+    private void write(ByteBuffer frame)
+        throws IOException
+    {
+        while (frame.hasRemaining())
+            this.channel_.write(frame);
+    }
+    
+    // An option received from the server, shown by its message
+    private static class Option
+        implements Selectable
+    {
+        private final String message_;
+        
+        // Constructor
+        Option(String message)
+        {
+            this.message_ = message;
+        }
+        
+        /* (non-Javadoc)
+         * @see cardgame.player.Selectable#getMessage()
+         */
+        @Override
+        public String getMessage()
+        {
+            return this.message_;
+        }
+    }
+    
+    // Plays a game on a server from the console. Takes the host, the port
+    // and the name to join under.
+    public static void main(String[] args)
+        throws IOException
+    {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int    port = args.length > 1 ? Integer.parseInt(args[1]) : 7070;
+        String name = args.length > 2 ? args[2] : "Player";
+        
+        try (SocketChannel aChannel = SocketChannel.open(
+                                          new InetSocketAddress(host, port))) {
+            ConsoleClient client = new ConsoleClient(aChannel,
+                                                     new ConsolePlayerIO());
+            int           points = client.play(name);
+            if (points < 0)
+                System.out.println("The server closed the connection.");
+            else
+                System.out.println("Game over, you finished with " + points
+                                   + " points.");
+        }
+    }
+}
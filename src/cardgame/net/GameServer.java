@@ -0,0 +1,316 @@
+package cardgame.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cardgame.card.RandomSource;
+import cardgame.games.acestokings.Game;
+import cardgame.games.acestokings.TableRunner;
+import cardgame.games.acestokings.TableScheduler;
+import cardgame.games.acestokings.TableThreads;
+
+/**
+ * A server that hosts many tables of Aces to Kings in one JVM, for players
+ * connecting over TCP.
+ * <p>
+ * Connections are spread over a few {@code SelectorLoop}s, each a single
+ * thread serving its share of the sockets without blocking, so thousands of
+ * players need only a handful of threads for their network traffic. Each
+ * player is a {@code RemotePlayerIO}. Once enough players have joined to
+ * fill a table, their {@code Game} is submitted to a {@code TableScheduler}
+ * as an interactive table: each answer that arrives through the loops
+ * queues the {@code Game} to be stepped on the scheduler's workers until it
+ * next waits on a player, and a {@code Game} holds no thread while it
+ * waits. The number of tables is then bound by memory rather than by
+ * threads. When the {@code Game} is over every player is sent their points
+ * and disconnected.
+ * <p>
+ * A server may instead play each table on a thread of its own with
+ * {@code TableThreads}, which blocks on the players without stepping the
+ * {@code Game}. That is only cheap on a runtime with virtual threads.
+ * <p>
+ * The frames exchanged with clients are those of the {@code Protocol}.
+ * 
+ * @see RemotePlayerIO
+ * @see TableScheduler
+ * @see TableThreads
+ * @see BotClient
+ */
+public class GameServer
+    implements Closeable
+{
+    private static final int    READ_BUFFER_BYTES = 256;
+    private static final int    ACCEPT_BACKLOG    = 1024;
+    private static final String LOOP_NAME         = "game-server-io-";
+    private static final String TABLE_NAME        = "game-server-table-";
+    
+    private final ServerSocketChannel  serverChannel_;
+    private final SelectorLoop[]       loops_;
+    private final TableRunner          tables_;
+    private final int                  nPlayersPerTable_;
+    private final int                  turnLimit_;
+    private final List<RemotePlayerIO> lobby_;
+    private final AtomicLong           nTablesStarted_;
+    private final AtomicLong           nTablesFinished_;
+    private int                        nextLoop_;
+    
+    /**
+     * Creates a server bound to the specified address, which steps its
+     * tables on a {@code TableScheduler}. Connections are not accepted until
+     * the server is started.
+     * 
+     * @param  address          the address to listen on, with a port of zero
+     *                          for any free port
+     * @param  nSelectorThreads the number of threads to serve the
+     *                          connections on
+     * @param  nPlayersPerTable the number of players seated at each table
+     * @param  turnLimit        the maximum number of turns per round, or
+     *                          zero for no limit
+     * @throws IOException if the address can not be bound
+     * @see    Game#setTurnLimit(int)
+     */
+    public GameServer(InetSocketAddress address, int nSelectorThreads,
+                      int nPlayersPerTable, int turnLimit)
+        throws IOException
+    {
+        this(address, nSelectorThreads, nPlayersPerTable, turnLimit, false);
+    }
+    
+    /**
+     * Creates a server bound to the specified address. Connections are not
+     * accepted until the server is started.
+     * 
+     * @param  address          the address to listen on, with a port of zero
+     *                          for any free port
+     * @param  nSelectorThreads the number of threads to serve the
+     *                          connections on
+     * @param  nPlayersPerTable the number of players seated at each table
+     * @param  turnLimit        the maximum number of turns per round, or
+     *                          zero for no limit
+     * @param  threadPerTable   {@code true} to play each table on a thread
+     *                          of its own, or {@code false} to step them on
+     *                          a {@code TableScheduler}
+     * @throws IOException if the address can not be bound
+     * @see    Game#setTurnLimit(int)
+     * @see    TableThreads
+     */
+    public GameServer(InetSocketAddress address, int nSelectorThreads,
+                      int nPlayersPerTable, int turnLimit,
+                      boolean threadPerTable)
+        throws IOException
+    {
+        this.serverChannel_    = ServerSocketChannel.open();
+        this.loops_            = new SelectorLoop[nSelectorThreads];
+        this.tables_           = threadPerTable
+                                 ? new TableThreads(GameServer.TABLE_NAME)
+                                 : new TableScheduler(Runtime.getRuntime()
+                                                      .availableProcessors());
+        this.nPlayersPerTable_ = nPlayersPerTable;
+        this.turnLimit_        = turnLimit;
+        this.lobby_            = new ArrayList<RemotePlayerIO>();
+        this.nTablesStarted_   = new AtomicLong();
+        this.nTablesFinished_  = new AtomicLong();
+        this.nextLoop_         = 0;
+        
+        this.serverChannel_.configureBlocking(false);
+        this.serverChannel_.bind(address, GameServer.ACCEPT_BACKLOG);
+        for (int i = 0; i < nSelectorThreads; i++)
+            this.loops_[i] = new SelectorLoop(GameServer.LOOP_NAME + i);
+    }
+    
+    /**
+     * Starts the selector threads and begins accepting connections.
+     */
+    public void start()
+    {
+        for (SelectorLoop aLoop : this.loops_)
+            aLoop.start();
+        this.loops_[0].register(this.serverChannel_, SelectionKey.OP_ACCEPT,
+                                new Acceptor(), key -> {});
+    }
+    
+    /**
+     * Returns the port this server is listening on.
+     * 
+     * @return the local port
+     * @throws IOException if the port can not be read
+     */
+    public int getPort()
+        throws IOException
+    {
+        return ((InetSocketAddress) this.serverChannel_.getLocalAddress())
+                   .getPort();
+    }
+    
+    /**
+     * Returns the number of tables whose {@code Game} has started.
+     * 
+     * @return the number of tables started
+     */
+    public long getTablesStarted()
+    {
+        return this.nTablesStarted_.get();
+    }
+    
+    /**
+     * Returns the number of tables whose {@code Game} is over.
+     * 
+     * @return the number of tables finished
+     */
+    public long getTablesFinished()
+    {
+        return this.nTablesFinished_.get();
+    }
+    
+    /**
+     * Stops accepting connections, closes every open connection and stops
+     * playing every table.
+     * 
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        this.serverChannel_.close();
+        try {
+            for (SelectorLoop aLoop : this.loops_)
+                aLoop.close();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.tables_.close();
+    }
+    
+    // Adds a player who has joined to the lobby, and starts a table once
+    // there are enough of them
+    void seat(RemotePlayerIO aPlayer)
+    {
+        List<RemotePlayerIO> table = null;
+        int                  nWaiting;
+        synchronized (this.lobby_) {
+            this.lobby_.add(aPlayer);
+            nWaiting = this.nPlayersPerTable_ - this.lobby_.size();
+            if (nWaiting == 0) {
+                table = new ArrayList<RemotePlayerIO>(this.lobby_);
+                this.lobby_.clear();
+            }
+        }
+        
+        if (table == null) {
+            aPlayer.sendMessage("Welcome " + aPlayer.getName()
+                                + ", waiting for " + nWaiting
+                                + " more players.");
+        }
+        else {
+            playTable(table);
+        }
+    }
+    
+    // Removes a player who has disconnected from the lobby, if they were
+    // still waiting there
+    void unseat(RemotePlayerIO aPlayer)
+    {
+        synchronized (this.lobby_) {
+            this.lobby_.remove(aPlayer);
+        }
+    }
+    
+    // Starts a {@code Game} between the specified players. Once it is over,
+    // tells each of them their points and disconnects them.
+    private void playTable(List<RemotePlayerIO> players)
+    {
+        this.nTablesStarted_.incrementAndGet();
+        Game game = new Game(players, RandomSource.unseeded());
+        game.setTurnLimit(this.turnLimit_);
+        this.tables_.submit(game, true).whenComplete((done, failure) -> {
+            if (failure != null)
+                System.err.println("A table failed: " + failure);
+            for (int i = 0; i < players.size(); i++)
+                players.get(i).finish(game.getPlayers().get(i)
+                                          .getPointTotal());
+            this.nTablesFinished_.incrementAndGet();
+        });
+    }
+    
+    // Accepts every pending connection, handing them to the loops in turn
+    private void acceptAll()
+    {
+        try {
+            SocketChannel aChannel;
+            while ((aChannel = this.serverChannel_.accept()) != null) {
+                aChannel.configureBlocking(false);
+                aChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                SelectorLoop aLoop = this.loops_[this.nextLoop_];
+                this.nextLoop_     = (this.nextLoop_ + 1) % this.loops_.length;
+                new RemotePlayerIO(new Connection(aChannel, aLoop,
+                                       GameServer.READ_BUFFER_BYTES),
+                                   this, RandomSource.unseeded());
+            }
+        }
+        catch (IOException e) {
+            // Left pending until the channel is next ready, as when out of
+            // file descriptors
+            System.err.println("Could not accept a connection: " + e);
+        }
+    }
+    
+    // The handler of the server channel on the first loop
+    private class Acceptor
+        implements SelectorLoop.Handler
+    {
+        /* (non-Javadoc)
+         * @see cardgame.net.SelectorLoop.Handler#onReady(
+         *      java.nio.channels.SelectionKey)
+         */
+        @Override
+        public void onReady(SelectionKey key)
+        {
+            acceptAll();
+        }
+        
+        /* (non-Javadoc)
+         * @see cardgame.net.SelectorLoop.Handler#onLoopClosed()
+         */
+        @Override
+        public void onLoopClosed()
+        {
+            try {
+                GameServer.this.serverChannel_.close();
+            }
+            catch (IOException e) {
+                // The channel is closed regardless
+            }
+        }
+    }
+    
+    // Runs a server until the process is killed. Takes the port, the number
+    // of selector threads, the number of players per table, the turn limit
+    // per round and, to play each table on a thread of its own, "threads".
+    public static void main(String[] args)
+        throws IOException, InterruptedException
+    {
+        int     port      = args.length > 0 ? Integer.parseInt(args[0])
+                                              : 7070;
+        int     nThreads  = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int     nPlayers  = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int     turnLimit = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        boolean threads   = args.length > 4 && args[4].equals("threads");
+        
+        GameServer server = new GameServer(new InetSocketAddress(port),
+                                           nThreads, nPlayers, turnLimit,
+                                           threads);
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,158 @@
+package cardgame.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The frames passed between a {@code GameServer} and its remote players.
+ * <p>
+ * Every frame starts with its length as an unsigned big-endian short, not
+ * counting the length itself, followed by a type byte and the payload of
+ * that type. Strings are written as their length in bytes, again as an
+ * unsigned short, followed by their UTF-8 encoding.
+ * <pre>
+ *   JOIN        client  the name of the player
+ *   ANSWER      client  the index or integer chosen, as an int
+ *   MESSAGE     server  a string to show the player
+ *   CHOOSE      server  the prompt, the number of options as a short,
+ *                       and the message of each option
+ *   CHOOSE_INT  server  the inclusive lower and exclusive upper bounds,
+ *                       as ints
+ *   GAME_OVER   server  the points of the player, as an int
+ * </pre>
+ * A client joins once, then answers every {@code CHOOSE} and
+ * {@code CHOOSE_INT} with an {@code ANSWER}. The server closes the
+ * connection after sending {@code GAME_OVER}.
+ */
+final class Protocol
+{
+    static final byte JOIN             = 1;
+    static final byte ANSWER           = 2;
+    static final byte MESSAGE          = 16;
+    static final byte CHOOSE           = 17;
+    static final byte CHOOSE_INT       = 18;
+    static final byte GAME_OVER        = 19;
+    
+    static final int  LENGTH_BYTES     = 2;
+    static final int  MAX_FRAME_BYTES  = 0xFFFF;
+    static final int  MAX_STRING_BYTES = 0x0FFF;
+    
+    private Protocol() {}
+    
+    // Builds a JOIN frame
+    static ByteBuffer join(String name)
+    {
+        byte[]     bytes = Protocol.encode(name);
+        ByteBuffer frame = Protocol.allocate(Protocol.JOIN,
+                                             Protocol.LENGTH_BYTES
+                                             + bytes.length);
+        Protocol.putString(frame, bytes);
+        return Protocol.finish(frame);
+    }
+    
+    // Builds an ANSWER frame
+    static ByteBuffer answer(int choice)
+    {
+        ByteBuffer frame = Protocol.allocate(Protocol.ANSWER, Integer.BYTES);
+        frame.putInt(choice);
+        return Protocol.finish(frame);
+    }
+    
+    // Builds a MESSAGE frame
+    static ByteBuffer message(String text)
+    {
+        byte[]     bytes = Protocol.encode(text);
+        ByteBuffer frame = Protocol.allocate(Protocol.MESSAGE,
+                                             Protocol.LENGTH_BYTES
+                                             + bytes.length);
+        Protocol.putString(frame, bytes);
+        return Protocol.finish(frame);
+    }
+    
+    // Builds a CHOOSE frame. Throws an {@code IllegalArgumentException} if
+    // the options do not fit in a single frame.
+    static ByteBuffer choose(String prompt, List<String> options)
+    {
+        byte[][] encoded = new byte[options.size() + 1][];
+        int      nBytes  = Short.BYTES;
+        encoded[0] = Protocol.encode(prompt);
+        for (int i = 0; i < options.size(); i++)
+            encoded[i + 1] = Protocol.encode(options.get(i));
+        for (byte[] bytes : encoded)
+            nBytes += Protocol.LENGTH_BYTES + bytes.length;
+        
+        ByteBuffer frame = Protocol.allocate(Protocol.CHOOSE, nBytes);
+        Protocol.putString(frame, encoded[0]);
+        frame.putShort((short) options.size());
+        for (int i = 1; i < encoded.length; i++)
+            Protocol.putString(frame, encoded[i]);
+        return Protocol.finish(frame);
+    }
+    
+    // Builds a CHOOSE_INT frame
+    static ByteBuffer chooseInt(int lowerBound, int upperBound)
+    {
+        ByteBuffer frame = Protocol.allocate(Protocol.CHOOSE_INT,
+                                             2 * Integer.BYTES);
+        frame.putInt(lowerBound).putInt(upperBound);
+        return Protocol.finish(frame);
+    }
+    
+    // Builds a GAME_OVER frame
+    static ByteBuffer gameOver(int points)
+    {
+        ByteBuffer frame = Protocol.allocate(Protocol.GAME_OVER,
+                                             Integer.BYTES);
+        frame.putInt(points);
+        return Protocol.finish(frame);
+    }
+    
+    // Reads a string from the specified payload
+    static String getString(ByteBuffer payload)
+    {
+        int    length = payload.getShort() & 0xFFFF;
+        byte[] bytes  = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    // Encodes a string, cut short to {@code MAX_STRING_BYTES} if need be
+    private static byte[] encode(String text)
+    {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Protocol.MAX_STRING_BYTES) {
+            String cut = new String(bytes, 0, Protocol.MAX_STRING_BYTES,
+                                    StandardCharsets.UTF_8);
+            bytes      = cut.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+    
+    // Writes an encoded string
+    private static void putString(ByteBuffer frame, byte[] bytes)
+    {
+        frame.putShort((short) bytes.length).put(bytes);
+    }
+    
+    // Allocates a frame for a payload of the specified size, and writes its
+    // length and type
+    private static ByteBuffer allocate(byte type, int payloadBytes)
+    {
+        int frameBytes = 1 + payloadBytes;
+        if (frameBytes > Protocol.MAX_FRAME_BYTES)
+            throw new IllegalArgumentException("Frame of " + frameBytes
+                                               + " bytes is too long");
+        ByteBuffer frame = ByteBuffer.allocate(Protocol.LENGTH_BYTES
+                                               + frameBytes);
+        frame.putShort((short) frameBytes).put(type);
+        return frame;
+    }
+    
+    // Readies a built frame for writing to a channel
+    private static ByteBuffer finish(ByteBuffer frame)
+    {
+        frame.flip();
+        return frame;
+    }
+}
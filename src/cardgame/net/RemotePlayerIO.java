@@ -0,0 +1,306 @@
+package cardgame.net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import cardgame.card.RandomSource;
+import cardgame.player.DecisionContext;
+import cardgame.player.PlayerIO;
+import cardgame.player.RandomPlayerIO;
+import cardgame.player.Selectable;
+import cardgame.player.Trampoline;
+
+/**
+ * A player input/output system for a player connected to a
+ * {@code GameServer} over the network.
+ * <p>
+ * Messages and choices are sent to the player as frames of the
+ * {@code Protocol}. A choice is sent as the prompt and the message of each
+ * option in one frame, so the client can lay them out as it likes. Choices
+ * are answered asynchronously: the future of the answer is completed on the
+ * thread of the {@code SelectorLoop} of the connection as soon as the answer
+ * arrives, so a {@code Game} waiting on the player holds no thread. Whoever
+ * waits on the answer should hand the {@code Game} back to its own threads
+ * rather than play on from the loop, as a {@code TableScheduler} does.
+ * Answers out of range are refused and asked for again.
+ * <p>
+ * The state shared with the {@code SelectorLoop} is guarded by a
+ * {@code Lock} rather than a monitor, and is never held while waiting, so a
+ * {@code Game} on a virtual thread that contends for it parks rather than
+ * pinning its carrier thread.
+ * <p>
+ * If the connection is lost the player is not waited for again, and its
+ * choices are made at random for the rest of the {@code Game}, so that the
+ * other players at the table can finish.
+ * 
+ * @see GameServer
+ * @see PlayerIO
+ * @see cardgame.games.acestokings.TableScheduler
+ */
+public class RemotePlayerIO extends PlayerIO
+{
+    private static final String OUT_OF_RANGE = "That is not one of the"
+                                               + " options!";
+    
+    private final Connection           connection_;
+    private final GameServer           server_;
+    private final PlayerIO             fallback_;
+    private final Lock                 lock_;
+    private volatile String            name_;
+    private volatile boolean           connected_;
+    private CompletableFuture<Integer> pending_;
+    private int                        lowerBound_;
+    private int                        upperBound_;
+    
+    // Constructor
+    RemotePlayerIO(Connection aConnection, GameServer aServer,
+                   RandomSource rng)
+    {
+        this.connection_ = aConnection;
+        this.server_     = aServer;
+        this.fallback_   = new RandomPlayerIO(rng);
+        this.lock_       = new ReentrantLock();
+        this.name_       = null;
+        this.connected_  = true;
+        this.pending_    = null;
+        this.lowerBound_ = 0;
+        this.upperBound_ = 0;
+        aConnection.open(new FrameListener());
+    }
+    
+    /**
+     * Returns the name the player joined with.
+     * 
+     * @return the name of the player, or {@code null} if they have not
+     *         joined yet
+     */
+    public String getName()
+    {
+        return this.name_;
+    }
+    
+    /**
+     * Checks if the player is still connected.
+     * 
+     * @return {@code true} if the connection is open
+     */
+    public boolean isConnected()
+    {
+        return this.connected_;
+    }
+    
+    /**
+     * Sends the message to the player, or discards it if they have
+     * disconnected.
+     * 
+     * @see PlayerIO#sendMessage(String)
+     */
+    @Override
+    public void sendMessage(String message)
+    {
+        if (isConnected())
+            this.connection_.send(Protocol.message(message));
+    }
+    
+    /**
+     * Builds and sends the message to the player, or discards it without
+     * building it if they have disconnected.
+     * 
+     * @see PlayerIO#sendMessage(Supplier)
+     */
+    @Override
+    public void sendMessage(Supplier<String> message)
+    {
+        if (isConnected())
+            this.connection_.send(Protocol.message(message.get()));
+    }
+    
+    /**
+     * Asks the player for an integer in the specified range, and waits for
+     * the answer. This holds the calling thread, which is only cheap on a
+     * virtual thread of {@code TableThreads}, so a {@code Game} should
+     * otherwise be played by a {@code TableScheduler}.
+     * 
+     * @see PlayerIO#chooseInt(int, int)
+     */
+    @Override
+    public int chooseInt(int lowerBound, int upperBound)
+    {
+        return Trampoline.await(chooseIntAsync(lowerBound, upperBound));
+    }
+    
+    /**
+     * Asks the player to choose, and waits for the answer. This holds the
+     * calling thread, which is only cheap on a virtual thread of
+     * {@code TableThreads}, so a {@code Game} should otherwise be played by
+     * a {@code TableScheduler}.
+     * 
+     * @see PlayerIO#choose(DecisionContext, List)
+     */
+    @Override
+    public int choose(DecisionContext context,
+                      List<? extends Selectable> options)
+    {
+        return Trampoline.await(chooseAsync(context, options));
+    }
+    
+    /**
+     * Asks the player for an integer in the specified range, without waiting
+     * for the answer.
+     * 
+     * @see PlayerIO#chooseIntAsync(int, int)
+     */
+    @Override
+    public CompletableFuture<Integer> chooseIntAsync(int lowerBound,
+                                                     int upperBound)
+    {
+        return ask(Protocol.chooseInt(lowerBound, upperBound), lowerBound,
+                   upperBound);
+    }
+    
+    /**
+     * Sends the prompt and the message of every option to the player in a
+     * single frame, without waiting for the index chosen.
+     * 
+     * @see PlayerIO#chooseAsync(DecisionContext, List)
+     */
+    @Override
+    public CompletableFuture<Integer>
+        chooseAsync(DecisionContext context,
+                    List<? extends Selectable> options)
+    {
+        ByteBuffer question = null;
+        if (isConnected()) {
+            List<String> messages = new ArrayList<String>(options.size());
+            for (Selectable anOption : options)
+                messages.add(anOption.getMessage());
+            question = Protocol.choose(context.getPrompt(), messages);
+        }
+        return ask(question, 0, options.size());
+    }
+    
+    // Sends the question and returns the future of its answer. The future
+    // is completed with a random answer if the player has disconnected, or
+    // does so before answering.
+    private CompletableFuture<Integer> ask(ByteBuffer question,
+                                           int lowerBound, int upperBound)
+    {
+        CompletableFuture<Integer> answer = new CompletableFuture<Integer>();
+        boolean                    asked;
+        this.lock_.lock();
+        try {
+            asked = this.connected_;
+            if (asked) {
+                this.pending_    = answer;
+                this.lowerBound_ = lowerBound;
+                this.upperBound_ = upperBound;
+            }
+        }
+        finally {
+            this.lock_.unlock();
+        }
+        if (asked)
+            this.connection_.send(question);
+        else
+            answer.complete(this.fallback_.chooseInt(lowerBound, upperBound));
+        return answer;
+    }
+    
+    // Completes the question waiting on the specified answer, if the answer
+    // is in range. Runs on the thread of the {@code SelectorLoop}.
+    private void answerReceived(int answer)
+    {
+        CompletableFuture<Integer> pending = null;
+        boolean                    refused = false;
+        this.lock_.lock();
+        try {
+            if (this.pending_ != null) {
+                refused = answer < this.lowerBound_
+                          || answer >= this.upperBound_;
+                if (!refused) {
+                    pending       = this.pending_;
+                    this.pending_ = null;
+                }
+            }
+        }
+        finally {
+            this.lock_.unlock();
+        }
+        if (pending != null) {
+            pending.complete(answer);
+        }
+        else if (refused) {
+            sendMessage(RemotePlayerIO.OUT_OF_RANGE);
+        }
+    }
+    
+    // Marks the player as disconnected, answering any question still waiting
+    // at random. Runs on the thread of the {@code SelectorLoop}.
+    private void disconnected()
+    {
+        CompletableFuture<Integer> pending;
+        int                        lowerBound;
+        int                        upperBound;
+        this.lock_.lock();
+        try {
+            this.connected_ = false;
+            pending         = this.pending_;
+            lowerBound      = this.lowerBound_;
+            upperBound      = this.upperBound_;
+            this.pending_   = null;
+        }
+        finally {
+            this.lock_.unlock();
+        }
+        if (pending != null)
+            pending.complete(this.fallback_.chooseInt(lowerBound, upperBound));
+        this.server_.unseat(this);
+    }
+    
+    // Tells the player the points they finished the {@code Game} with, and
+    // closes the connection
+    void finish(int points)
+    {
+        this.connection_.send(Protocol.gameOver(points));
+        this.connection_.closeAfterWrites();
+    }
+    
+    // Passes frames from the connection on to the waiting {@code Game}. Runs
+    // on the thread of the {@code SelectorLoop}.
+    private class FrameListener
+        implements Connection.Listener
+    {
+        /* (non-Javadoc)
+         * @see cardgame.net.Connection.Listener#frameReceived(
+         *      cardgame.net.Connection, byte, java.nio.ByteBuffer)
+         */
+        @Override
+        public void frameReceived(Connection aConnection, byte type,
+                                  ByteBuffer payload)
+        {
+            RemotePlayerIO player = RemotePlayerIO.this;
+            if (type == Protocol.ANSWER && payload.remaining() >= 4) {
+                player.answerReceived(payload.getInt());
+            }
+            else if (type == Protocol.JOIN && player.name_ == null) {
+                player.name_ = Protocol.getString(payload);
+                player.server_.seat(player);
+            }
+        }
+        
+        /* (non-Javadoc)
+         * @see cardgame.net.Connection.Listener#connectionClosed(
+         *      cardgame.net.Connection)
+         */
+        @Override
+        public void connectionClosed(Connection aConnection)
+        {
+            RemotePlayerIO.this.disconnected();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package cardgame.net;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread that waits on a {@code Selector} and passes the channels that are
+ * ready on to their {@code Handler}s.
+ * <p>
+ * A {@code Selector} may only be used safely by its own thread, so any other
+ * thread hands work to the loop through {@link #execute(Runnable)}, which
+ * queues the task and wakes the {@code Selector} up to run it.
+ */
+final class SelectorLoop
+    implements Runnable
+{
+    /**
+     * The part of a channel that is called when the channel is ready.
+     */
+    interface Handler
+    {
+        /**
+         * Handles the operations the channel is ready for. Called on the
+         * thread of the {@code SelectorLoop} only.
+         * 
+         * @param key the {@code SelectionKey} of the channel
+         */
+        void onReady(SelectionKey key);
+        
+        /**
+         * Closes the channel as the {@code SelectorLoop} is stopping. Called
+         * on the thread of the {@code SelectorLoop} only.
+         */
+        void onLoopClosed();
+    }
+    
+    /**
+     * Receives the {@code SelectionKey} of a newly registered channel.
+     */
+    interface KeyCallback
+    {
+        /**
+         * Called on the thread of the {@code SelectorLoop} once the channel
+         * has been registered.
+         * 
+         * @param key the {@code SelectionKey}, or {@code null} if the
+         *            channel was already closed
+         */
+        void registered(SelectionKey key);
+    }
+    
+    private final Selector        selector_;
+    private final Queue<Runnable> tasks_;
+    private final Thread          thread_;
+    private volatile boolean      running_;
+    
+    // Constructor
+    SelectorLoop(String name)
+        throws IOException
+    {
+        this.selector_ = Selector.open();
+        this.tasks_    = new ConcurrentLinkedQueue<Runnable>();
+        this.thread_   = new Thread(this, name);
+        this.running_  = true;
+        this.thread_.setDaemon(true);
+    }
+    
+    // Starts the thread of the loop
+    void start()
+    {
+        this.thread_.start();
+    }
+    
+    // Runs a task on the thread of the loop
+    void execute(Runnable task)
+    {
+        this.tasks_.add(task);
+        this.selector_.wakeup();
+    }
+    
+    // Registers a channel with the loop, which will call the specified
+    // {@code Handler} when it is ready. The {@code SelectionKey} is handed
+    // to the callback once registered, or {@code null} if the channel was
+    // closed first.
+    void register(SelectableChannel aChannel, int interestOps,
+                  Handler aHandler, KeyCallback callback)
+    {
+        execute(() -> {
+            SelectionKey key;
+            try {
+                key = aChannel.register(this.selector_, interestOps,
+                                        aHandler);
+            }
+            catch (ClosedChannelException e) {
+                key = null;
+            }
+            callback.registered(key);
+        });
+    }
+    
+    /* (non-Javadoc)
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run()
+    {
+        try {
+            while (this.running_) {
+                this.selector_.select();
+                runTasks();
+                Iterator<SelectionKey> keys = this.selector_.selectedKeys()
+                                                            .iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid())
+                        ((Handler) key.attachment()).onReady(key);
+                }
+            }
+        }
+        catch (IOException e) {
+            System.err.println(this.thread_.getName() + " failed: " + e);
+        }
+        finally {
+            closeAll();
+        }
+    }
+    
+    // Runs the tasks handed over by other threads
+    private void runTasks()
+    {
+        Runnable task;
+        while ((task = this.tasks_.poll()) != null)
+            task.run();
+    }
+    
+    // Closes every channel registered with the loop, and the
+    // {@code Selector} itself
+    private void closeAll()
+    {
+        for (SelectionKey key : this.selector_.keys())
+            ((Handler) key.attachment()).onLoopClosed();
+        try {
+            this.selector_.close();
+        }
+        catch (IOException e) {
+            // Nothing more can be done with the selector
+        }
+    }
+    
+    // Stops the loop, closing every channel registered with it, and waits
+    // for its thread to finish
+    void close()
+        throws InterruptedException
+    {
+        this.running_ = false;
+        this.selector_.wakeup();
+        this.thread_.join();
+    }
+}
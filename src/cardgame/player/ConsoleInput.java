@@ -0,0 +1,156 @@
+package cardgame.player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A buffered source of whitespace separated tokens, such as the choices
+ * typed at a console or piped in from a file.
+ * <p>
+ * Characters are read ahead into a buffer that lives as long as the
+ * {@code ConsoleInput}, so no input is lost between one token and the next,
+ * however many {@code PlayerIO}s share it. The standard input of the JVM is
+ * wrapped once, by {@link #standard()}, and every {@code ConsolePlayerIO}
+ * reads from it unless given its own input.
+ * <p>
+ * Tokens are read under a {@code Lock} rather than a monitor, so that
+ * {@code PlayerIO}s on several threads can share a {@code ConsoleInput},
+ * each token going to exactly one of them.
+ * 
+ * @see ConsolePlayerIO
+ * @see ScriptedPlayerIO
+ */
+public final class ConsoleInput
+    implements Closeable
+{
+    /**
+     * The number of characters read ahead at a time.
+     */
+    public static final int BUFFER_SIZE = 8192;
+    
+    private final Reader        reader_;
+    private final Lock          lock_;
+    private final char[]        buffer_;
+    private final StringBuilder token_;
+    private int                 position_;
+    private int                 limit_;
+    
+    /**
+     * Creates a {@code ConsoleInput} that reads characters from the specified
+     * {@code Reader}.
+     * 
+     * @param aReader the {@code Reader} of the input
+     */
+    public ConsoleInput(Reader aReader)
+    {
+        this.reader_   = aReader;
+        this.lock_     = new ReentrantLock();
+        this.buffer_   = new char[ConsoleInput.BUFFER_SIZE];
+        this.token_    = new StringBuilder();
+        this.position_ = 0;
+        this.limit_    = 0;
+    }
+    
+    /**
+     * Creates a {@code ConsoleInput} that reads bytes from the specified
+     * {@code InputStream}, in the default charset of the JVM.
+     * 
+     * @param anInput the {@code InputStream} of the input
+     */
+    public ConsoleInput(InputStream anInput)
+    {
+        this(new InputStreamReader(anInput, Charset.defaultCharset()));
+    }
+    
+    /**
+     * Returns the {@code ConsoleInput} of the standard input of the JVM,
+     * which is created on first use and shared from then on.
+     * 
+     * @return the shared {@code ConsoleInput} of {@code System.in}
+     */
+    public static ConsoleInput standard()
+    {
+        return StandardInput.INSTANCE;
+    }
+    
+    /**
+     * Reads the next token, skipping any whitespace before it. Waits for
+     * input if none has arrived yet.
+     * 
+     * @return the next token, or {@code null} if the input has ended
+     * @throws UncheckedIOException if the input could not be read
+     */
+    public String next()
+    {
+        String token = null;
+        this.lock_.lock();
+        try {
+            this.token_.setLength(0);
+            int c = read();
+            while (c >= 0 && Character.isWhitespace(c))
+                c = read();
+            while (c >= 0 && !Character.isWhitespace(c)) {
+                this.token_.append((char) c);
+                c = read();
+            }
+            if (this.token_.length() > 0)
+                token = this.token_.toString();
+        }
+        finally {
+            this.lock_.unlock();
+        }
+        return token;
+    }
+    
+    /**
+     * Closes the underlying {@code Reader}.
+     * 
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        this.reader_.close();
+    }
+    
+    // Returns the next character, refilling the buffer when it runs out, or
+    // -1 if the input has ended. Must be called holding the lock.
+    private int read()
+    {
+        if (this.position_ == this.limit_)
+            fill();
+        return this.position_ < this.limit_ ? this.buffer_[this.position_++]
+                                            : -1;
+    }
+    
+    // Reads as many characters as are ready into the buffer, waiting for at
+    // least one unless the input has ended
+    private void fill()
+    {
+        try {
+            int nRead = 0;
+            while (nRead == 0)
+                nRead = this.reader_.read(this.buffer_);
+            this.position_ = 0;
+            this.limit_    = Math.max(nRead, 0);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // Holds the shared {@code ConsoleInput} of {@code System.in}, which is
+    // created when this class is first loaded
+    private static final class StandardInput
+    {
+        static final ConsoleInput INSTANCE = new ConsoleInput(System.in);
+    }
+}
@@ -1,58 +1,111 @@
 package cardgame.player;
 
-import java.util.Scanner;
+import java.io.PrintStream;
+import java.util.NoSuchElementException;
 
 /**
  * A console player input/output system.
+ * <p>
+ * Choices are read as whitespace separated integers from a
+ * {@code ConsoleInput}, by default the one shared over the standard input, so
+ * a session piped in from a file plays out the same as one typed at the
+ * console.
  * 
  * @see PlayerIO
+ * @see ConsoleInput
  */
 public class ConsolePlayerIO extends PlayerIO
 {
+    private static final String NOT_AN_INT   = "That is not an integer!";
+    private static final String NOT_IN_RANGE = "That integer is not in the"
+                                               + " specified range!";
+    
+    private final ConsoleInput input_;
+    private final PrintStream  output_;
+    
+    /**
+     * Creates a {@code ConsolePlayerIO} on the standard input and output.
+     */
+    public ConsolePlayerIO()
+    {
+        this(ConsoleInput.standard(), System.out);
+    }
+    
     /**
-     * Sole constructor.
+     * Creates a {@code ConsolePlayerIO} that reads its choices from the
+     * specified {@code ConsoleInput} and prints its messages to the specified
+     * {@code PrintStream}.
+     * 
+     * @param anInput  the input the choices are read from
+     * @param anOutput the stream the messages are printed to
      */
-    public ConsolePlayerIO() {}
+    public ConsolePlayerIO(ConsoleInput anInput, PrintStream anOutput)
+    {
+        this.input_  = anInput;
+        this.output_ = anOutput;
+    }
     
     /* (non-Javadoc)
      * @see cardgame.player.PlayerIO#sendMessage(java.lang.String)
      */
     public void sendMessage(String message)
     {
-        System.out.println(message);
+        this.output_.println(message);
     }
     
     /** 
      * Accepts an integer input from the {@code ConsolePlayerIO}.
      * <p>
-     * Opens a scanner for the console and reads user input. When an integer is
-     * entered, it is checked to see if is in the required range.
+     * Reads tokens from the input until one is an integer in the required
+     * range, telling the player what was wrong with any other.
      * 
-     * @see PlayerIO#chooseInt(int, int)
-     * @see java.util.Scanner
+     * @throws NoSuchElementException if the input ends before an integer in
+     *                                range is read
+     * @see    PlayerIO#chooseInt(int, int)
      */
     public int chooseInt(int lowerBound, int upperBound)
     {
-        Scanner scanner    = new Scanner(System.in);
-        String  notAnInt   = "That is not an integer!";
-        String  notInRange = "That integer is not in the specified range!";
-        boolean validInput;
-        int     input;
+        boolean validInput = false;
+        int     input      = 0;
         
         do {
+            String token = this.input_.next();
+            if (token == null)
+                throw new NoSuchElementException("The input has ended");
+            
             // Getting an integer
-            while (!scanner.hasNextInt()) {
-                sendMessage(notAnInt);
-                scanner.next();
-            }
-            input = scanner.nextInt();
+            boolean isInt = ConsolePlayerIO.isInt(token);
+            if (isInt)
+                input = Integer.parseInt(token);
+            else
+                sendMessage(ConsolePlayerIO.NOT_AN_INT);
             
             // Checking the integer is in range
-            validInput = (input >= lowerBound) && (input < upperBound);
-            if (!validInput)
-                sendMessage(notInRange);
+            if (isInt) {
+                validInput = (input >= lowerBound) && (input < upperBound);
+                if (!validInput)
+                    sendMessage(ConsolePlayerIO.NOT_IN_RANGE);
+            }
         } while (!validInput);
         
         return input;
     }
+    
+    // Checks if the token is an optionally signed decimal integer that fits
+    // in an int, so that it can be parsed without catching an exception
+    private static boolean isInt(String token)
+    {
+        int     start = token.charAt(0) == '-' || token.charAt(0) == '+' ? 1
+                                                                         : 0;
+        boolean isInt = token.length() > start
+                        && token.length() - start <= 10;
+        for (int i = start; isInt && i < token.length(); i++)
+            isInt = token.charAt(i) >= '0' && token.charAt(i) <= '9';
+        if (isInt && token.length() - start == 10) {
+            long value = Long.parseLong(token);
+            isInt      = value >= Integer.MIN_VALUE
+                         && value <= Integer.MAX_VALUE;
+        }
+        return isInt;
+    }
 }
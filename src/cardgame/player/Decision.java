@@ -0,0 +1,90 @@
+package cardgame.player;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A choice that a game is waiting on: the {@code PlayerIO} to ask, the prompt
+ * to give it and the {@code Selectable}s to choose from.
+ * <p>
+ * A game played one {@code Decision} at a time hands out the choice it is
+ * waiting on and is resumed with the index chosen, so whoever drives the
+ * game decides when, and on which thread, the {@code PlayerIO} is asked.
+ * The options belong to the game, and must not be changed.
+ * 
+ * @see PlayerIO#choose(DecisionContext, List)
+ */
+public final class Decision
+{
+    private final PlayerIO                   playerIO_;
+    private final DecisionContext            context_;
+    private final List<? extends Selectable> options_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param aPlayerIO the {@code PlayerIO} that makes the choice
+     * @param context   the prompt of the choice
+     * @param options   the {@code Selectable}s to choose from
+     */
+    public Decision(PlayerIO aPlayerIO, DecisionContext context,
+                    List<? extends Selectable> options)
+    {
+        this.playerIO_ = aPlayerIO;
+        this.context_  = context;
+        this.options_  = options;
+    }
+    
+    /**
+     * Returns the {@code PlayerIO} that makes the choice.
+     * 
+     * @return the {@code PlayerIO} to ask
+     */
+    public PlayerIO getPlayerIO()
+    {
+        return this.playerIO_;
+    }
+    
+    /**
+     * Returns the prompt of the choice.
+     * 
+     * @return the {@code DecisionContext} of the choice
+     */
+    public DecisionContext getContext()
+    {
+        return this.context_;
+    }
+    
+    /**
+     * Returns the {@code Selectable}s to choose from.
+     * 
+     * @return an unmodifiable view of the options
+     */
+    public List<? extends Selectable> getOptions()
+    {
+        return Collections.unmodifiableList(this.options_);
+    }
+    
+    /**
+     * Asks the {@code PlayerIO} to choose, and waits for the answer.
+     * 
+     * @return the index of the option chosen
+     * @see    PlayerIO#choose(DecisionContext, List)
+     */
+    public int ask()
+    {
+        return this.playerIO_.choose(this.context_, this.options_);
+    }
+    
+    /**
+     * Asks the {@code PlayerIO} to choose, without waiting for the answer.
+     * 
+     * @return a future of the index of the option chosen
+     * @see    PlayerIO#chooseAsync(DecisionContext, List)
+     */
+    public CompletableFuture<Integer> askAsync()
+    {
+        return this.playerIO_.chooseAsync(this.context_, this.options_);
+    }
+}
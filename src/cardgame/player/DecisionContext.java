@@ -0,0 +1,61 @@
+package cardgame.player;
+
+import java.util.function.Supplier;
+
+/**
+ * The prompt of a decision put to a {@code PlayerIO}.
+ * <p>
+ * The text of the prompt is only built when {@link #getPrompt()} is called,
+ * which a {@code PlayerIO} that reads the options itself never needs to do.
+ * Prompts that never change should be kept in a constant, so that asking for
+ * the decision allocates nothing.
+ * 
+ * @see PlayerIO#choose(DecisionContext, java.util.List)
+ * @see Selector
+ */
+public final class DecisionContext
+{
+    private final String           prompt_;
+    private final Supplier<String> promptBuilder_;
+    
+    // Constructor for either a fixed prompt or one built on demand
+    private DecisionContext(String prompt, Supplier<String> promptBuilder)
+    {
+        this.prompt_        = prompt;
+        this.promptBuilder_ = promptBuilder;
+    }
+    
+    /**
+     * Returns a {@code DecisionContext} with the specified fixed prompt.
+     * 
+     * @param  prompt the text of the prompt
+     * @return the {@code DecisionContext}
+     */
+    public static DecisionContext of(String prompt)
+    {
+        return new DecisionContext(prompt, null);
+    }
+    
+    /**
+     * Returns a {@code DecisionContext} whose prompt is built by the
+     * specified {@code Supplier} each time it is asked for.
+     * 
+     * @param  promptBuilder the builder of the text of the prompt
+     * @return the {@code DecisionContext}
+     */
+    public static DecisionContext lazy(Supplier<String> promptBuilder)
+    {
+        return new DecisionContext(null, promptBuilder);
+    }
+    
+    /**
+     * Returns the text of the prompt, building it if necessary.
+     * 
+     * @return the text of the prompt
+     */
+    public String getPrompt()
+    {
+        return this.promptBuilder_ == null ? this.prompt_
+                                           : this.promptBuilder_.get();
+    }
+}
@@ -3,6 +3,7 @@ package cardgame.player;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import cardgame.card.Card;
 import cardgame.card.Hand;
@@ -18,7 +19,7 @@ import cardgame.card.Hand;
 public class Player<T extends Card>
     implements Comparable<Player<?>>
 {
-    private static int nPlayers_ = 0;
+    private static final AtomicInteger nPlayers_ = new AtomicInteger();
     
     private final String        name_;
     private final PlayerIO      playerIO_;
@@ -27,7 +28,7 @@ public class Player<T extends Card>
     
     /**
      * Secondary constructor. Provides the {@code Player} with a default name
-     * based on the total number of {@code Player}s.
+     * based on the number of {@code Player}s given one before it.
      * 
      * @param aPlayerIO the {@code PlayerIO} to use
      * @param nPoints   the initial number of {@code Points} owned
@@ -36,7 +37,8 @@ public class Player<T extends Card>
      */
     public Player(PlayerIO aPlayerIO, int nPoints, int minPoints)
     {
-        this("Player " + Player.nPlayers_, aPlayerIO, nPoints, minPoints);
+        this("Player " + Player.nPlayers_.getAndIncrement(), aPlayerIO,
+             nPoints, minPoints);
     }
     
     /**
@@ -54,7 +56,6 @@ public class Player<T extends Card>
         this.playerIO_ = aPlayerIO;
         this.points_   = new Points(nPoints, minPoints);
         this.hands_    = new ArrayList<Hand<T>>();
-        nPlayers_++;
     }
     
     /**
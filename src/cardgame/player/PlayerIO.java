@@ -1,9 +1,20 @@
 package cardgame.player;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 /**
  * A player input/output system.
+ * <p>
+ * Every choice may be asked for synchronously, waiting on the calling thread
+ * for the answer, or asynchronously, getting back a future of the answer.
+ * By default the asynchronous methods answer synchronously and return a
+ * completed future, so only a {@code PlayerIO} whose answers arrive from
+ * elsewhere, such as over a network, needs to override them.
  * 
  * @see Player
+ * @see Trampoline
  */
 public abstract class PlayerIO
 {
@@ -14,6 +25,20 @@ public abstract class PlayerIO
      */
     public abstract void sendMessage(String message);
     
+    /**
+     * Sends a string built on demand through to this {@code PlayerIO}.
+     * <p>
+     * By default the string is built and passed to
+     * {@link #sendMessage(String)}. A {@code PlayerIO} that discards its
+     * messages may override this to never build them.
+     * 
+     * @param message the builder of the string to send to the {@code Player}
+     */
+    public void sendMessage(Supplier<String> message)
+    {
+        sendMessage(message.get());
+    }
+    
     /**
      * Accepts an integer input from the {@code PlayerIO}.
      * 
@@ -22,4 +47,87 @@ public abstract class PlayerIO
      * @return the chosen integer
      */
     public abstract int chooseInt(int lowerBound, int upperBound);
+    
+    /**
+     * Asks this {@code PlayerIO} to choose one of the specified
+     * {@code Selectable}s.
+     * <p>
+     * By default the prompt and a numbered list of the options are sent
+     * through {@link #sendMessage(String)}, and the choice is read with
+     * {@link #chooseInt(int, int)}. Computer players that inspect the options
+     * themselves may override this to skip the text altogether, as neither
+     * the prompt nor the option messages are built unless asked for.
+     * 
+     * @param  context the prompt of the decision
+     * @param  options the {@code Selectable}s to choose from
+     * @return the index of the chosen {@code Selectable}
+     * @see    Selector#select(PlayerIO, DecisionContext, List)
+     */
+    public int choose(DecisionContext context,
+                      List<? extends Selectable> options)
+    {
+        sendMessage(context.getPrompt());
+        sendMessage(PlayerIO.constructDetails(options));
+        sendMessage("Please make your choice:");
+        return chooseInt(0, options.size());
+    }
+    
+    /**
+     * Asks this {@code PlayerIO} for an integer input, without waiting for
+     * the answer.
+     * <p>
+     * By default the integer is chosen with {@link #chooseInt(int, int)}
+     * before returning.
+     * 
+     * @param  lowerBound the inclusive lower bound for the range of integers
+     * @param  upperBound the exclusive upper bound for the range of integers
+     * @return a future of the chosen integer
+     */
+    public CompletableFuture<Integer> chooseIntAsync(int lowerBound,
+                                                     int upperBound)
+    {
+        return CompletableFuture.completedFuture(chooseInt(lowerBound,
+                                                           upperBound));
+    }
+    
+    /**
+     * Asks this {@code PlayerIO} to choose one of the specified
+     * {@code Selectable}s, without waiting for the answer. The options must
+     * not be changed until the future has completed.
+     * <p>
+     * By default the choice is made with
+     * {@link #choose(DecisionContext, List)} before returning.
+     * 
+     * @param  context the prompt of the decision
+     * @param  options the {@code Selectable}s to choose from
+     * @return a future of the index of the chosen {@code Selectable}
+     * @see    Selector#selectAsync(PlayerIO, DecisionContext, List)
+     */
+    public CompletableFuture<Integer>
+        chooseAsync(DecisionContext context,
+                    List<? extends Selectable> options)
+    {
+        return CompletableFuture.completedFuture(choose(context, options));
+    }
+    
+    // Constructs the message that will detail the options to the
+    // {@code PlayerIO}, with the indices right aligned.
+    private static String constructDetails(List<? extends Selectable> options)
+    {
+        int           nOptions       = options.size();
+        int           optionsPadding = String.valueOf(nOptions).length();
+        StringBuilder message        = new StringBuilder(
+                                           "You have the following options:");
+        
+        for (int i = 0; i < nOptions; i++) {
+            String index = String.valueOf(i);
+            message.append("\n  ");
+            for (int j = index.length(); j < optionsPadding; j++)
+                message.append(' ');
+            message.append(index).append(": ")
+                   .append(options.get(i).getMessage());
+        }
+        
+        return message.toString();
+    }
 }
@@ -0,0 +1,54 @@
+package cardgame.player;
+
+import java.util.function.Supplier;
+
+import cardgame.card.RandomSource;
+
+/**
+ * A computer player input/output system that makes uniformly random choices.
+ * Messages sent to a {@code RandomPlayerIO} are discarded, so no console is
+ * required.
+ * 
+ * @see PlayerIO
+ */
+public class RandomPlayerIO extends PlayerIO
+{
+    private final RandomSource rng_;
+    
+    /**
+     * Sole constructor.
+     * 
+     * @param rng the source of randomness used to make choices
+     */
+    public RandomPlayerIO(RandomSource rng)
+    {
+        this.rng_ = rng;
+    }
+    
+    /**
+     * Discards the message, as there is nobody to read it.
+     * 
+     * @see PlayerIO#sendMessage(String)
+     */
+    @Override
+    public void sendMessage(String message) {}
+    
+    /**
+     * Discards the message without building it.
+     * 
+     * @see PlayerIO#sendMessage(Supplier)
+     */
+    @Override
+    public void sendMessage(Supplier<String> message) {}
+    
+    /**
+     * Chooses an integer uniformly at random from the specified range.
+     * 
+     * @see PlayerIO#chooseInt(int, int)
+     */
+    @Override
+    public int chooseInt(int lowerBound, int upperBound)
+    {
+        return lowerBound + this.rng_.nextInt(upperBound - lowerBound);
+    }
+}
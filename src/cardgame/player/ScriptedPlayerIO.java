@@ -0,0 +1,73 @@
+package cardgame.player;
+
+import java.io.PrintStream;
+import java.util.function.Supplier;
+
+/**
+ * A player input/output system that plays from a script of pre-recorded
+ * choices, such as a file of the integers a player would type at the
+ * console.
+ * <p>
+ * The choices are read and checked by the code of the
+ * {@code ConsolePlayerIO}, so a script plays out exactly as if it were piped
+ * into a console game, but without waiting on anyone. The players at a
+ * table may share one script, each taking the next choice in turn, as they
+ * would share the console. Messages are discarded without being built,
+ * unless an echo is given to print them to.
+ * 
+ * @see ConsolePlayerIO
+ * @see ConsoleInput
+ */
+public class ScriptedPlayerIO extends ConsolePlayerIO
+{
+    private final boolean echoed_;
+    
+    /**
+     * Creates a {@code ScriptedPlayerIO} that discards its messages.
+     * 
+     * @param script the input the choices are read from
+     */
+    public ScriptedPlayerIO(ConsoleInput script)
+    {
+        this(script, null);
+    }
+    
+    /**
+     * Creates a {@code ScriptedPlayerIO} that prints its messages to the
+     * specified {@code PrintStream}, so that the session can be followed.
+     * 
+     * @param script the input the choices are read from
+     * @param echo   the stream the messages are printed to, or {@code null}
+     *               to discard them
+     */
+    public ScriptedPlayerIO(ConsoleInput script, PrintStream echo)
+    {
+        super(script, echo);
+        this.echoed_ = echo != null;
+    }
+    
+    /**
+     * Prints the message to the echo, or discards it if there is none.
+     * 
+     * @see ConsolePlayerIO#sendMessage(String)
+     */
+    @Override
+    public void sendMessage(String message)
+    {
+        if (this.echoed_)
+            super.sendMessage(message);
+    }
+    
+    /**
+     * Builds and prints the message to the echo, or discards it without
+     * building it if there is none.
+     * 
+     * @see PlayerIO#sendMessage(Supplier)
+     */
+    @Override
+    public void sendMessage(Supplier<String> message)
+    {
+        if (this.echoed_)
+            super.sendMessage(message.get());
+    }
+}
@@ -1,6 +1,7 @@
 package cardgame.player;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A selector of selectables.
@@ -17,42 +18,60 @@ public class Selector
      * Returns a {@code Selectable} from a specified list of
      * {@code Selectable}s.
      * <p>
-     * Given a list of {@code Selectable} {@code options}, a formatted string
-     * message is constructed to detail the choices. This message is passed
-     * through to {@code aPlayerIO} and the {@code aPlayerIO} is asked to
-     * choose an integer representing a {@code Selectable}. Finally, this
+     * The {@code aPlayerIO} is asked to choose an integer representing one of
+     * the {@code Selectable} {@code options}, which by default sends it a
+     * formatted string message detailing the choices. Finally, this
      * {@code Selectable} that has been chosen is returned.
      * 
      * @param  playerIO the {PlayerIO} to communicate through
-     * @param  message  the initial string to send to the {@code PlayerIO}
-     *                  before presenting them with their options
+     * @param  context  the prompt to give the {@code PlayerIO} before
+     *                  presenting them with their options
      * @param  options  the {@code Selectable}s to choose from
      * @return the chosen {@code Selectable}
+     * @see    PlayerIO#choose(DecisionContext, List)
      */
     public static <T extends Selectable> T
-        select(PlayerIO aPlayerIO, String message, List<T> options)
+        select(PlayerIO aPlayerIO, DecisionContext context, List<T> options)
     {
-        aPlayerIO.sendMessage(message);
-        String details = Selector.constructDetails(options);
-        aPlayerIO.sendMessage(details);
-        aPlayerIO.sendMessage("Please make your choice:");
-        int choice = aPlayerIO.chooseInt(0, options.size());
+        int choice = aPlayerIO.choose(context, options);
         return options.get(choice);
     }
     
-    // Constructs the message that will detail the options to the
-    // {@code PlayerIO}.
-    private static String constructDetails(List<? extends Selectable> options)
+    /**
+     * Returns a future of a {@code Selectable} from a specified list of
+     * {@code Selectable}s, asking the {@code PlayerIO} without waiting for
+     * its answer. The list must not be changed until the future has
+     * completed.
+     * 
+     * @param  playerIO the {PlayerIO} to communicate through
+     * @param  context  the prompt to give the {@code PlayerIO} before
+     *                  presenting them with their options
+     * @param  options  the {@code Selectable}s to choose from
+     * @return a future of the chosen {@code Selectable}
+     * @see    PlayerIO#chooseAsync(DecisionContext, List)
+     */
+    public static <T extends Selectable> CompletableFuture<T>
+        selectAsync(PlayerIO aPlayerIO, DecisionContext context,
+                    List<T> options)
+    {
+        return aPlayerIO.chooseAsync(context, options).thenApply(options::get);
+    }
+    
+    /**
+     * Returns a {@code Selectable} from a specified list of
+     * {@code Selectable}s, with a fixed prompt.
+     * 
+     * @param  playerIO the {PlayerIO} to communicate through
+     * @param  message  the initial string to send to the {@code PlayerIO}
+     *                  before presenting them with their options
+     * @param  options  the {@code Selectable}s to choose from
+     * @return the chosen {@code Selectable}
+     * @see    #select(PlayerIO, DecisionContext, List)
+     */
+    public static <T extends Selectable> T
+        select(PlayerIO aPlayerIO, String message, List<T> options)
     {
-        int    nOptions       = options.size();
-        int    optionsPadding = String.valueOf(nOptions).length();
-        String message        = "You have the following options:";
-        
-        for (int i = 0; i < nOptions; i++) {
-            String index = String.format("%1$" + optionsPadding + "s", i);
-            message     += "\n  " + index + ": " + options.get(i).getMessage();
-        }
-        
-        return message;
+        return Selector.select(aPlayerIO, DecisionContext.of(message),
+                               options);
     }
 }
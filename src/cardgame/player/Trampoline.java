@@ -0,0 +1,130 @@
+package cardgame.player;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Loops over asynchronous steps without growing the stack.
+ * <p>
+ * Chaining each step of a loop onto the future of the last step works well
+ * while the steps wait for input, but a {@code PlayerIO} that answers at
+ * once hands back futures which are already complete, and chaining onto
+ * those runs every later step inside the call of the first. A
+ * {@code Trampoline} instead runs the steps of a loop one after another for
+ * as long as their futures are already complete, and only chains onto a
+ * future that is still waiting. A game played by computer players then runs
+ * on the calling thread exactly as a synchronous loop would, and a game
+ * waiting on a human holds no thread at all.
+ * 
+ * @see PlayerIO#chooseAsync(DecisionContext, java.util.List)
+ */
+public final class Trampoline
+{
+    private final Supplier<CompletableFuture<Boolean>> step_;
+    private final CompletableFuture<Void>              done_;
+    
+    // Constructor
+    private Trampoline(Supplier<CompletableFuture<Boolean>> step)
+    {
+        this.step_ = step;
+        this.done_ = new CompletableFuture<Void>();
+    }
+    
+    /**
+     * Runs the specified step repeatedly for as long as it completes with
+     * {@code true}. The step is always run at least once, and the next step
+     * is not started until the last has completed.
+     * 
+     * @param  step the supplier of the future of each step, which completes
+     *              with whether to run another step
+     * @return a future that completes once a step has completed with
+     *         {@code false}, or completes exceptionally with the failure of
+     *         a step
+     */
+    public static CompletableFuture<Void>
+        loop(Supplier<CompletableFuture<Boolean>> step)
+    {
+        Trampoline aTrampoline = new Trampoline(step);
+        aTrampoline.bounce();
+        return aTrampoline.done_;
+    }
+    
+    /**
+     * Waits for the specified future and returns its result. A failure is
+     * thrown as it was thrown by the step that failed, rather than wrapped
+     * in a {@code CompletionException}.
+     * 
+     * @param  aFuture the future to wait for
+     * @return the result of the future
+     */
+    public static <T> T await(CompletableFuture<T> aFuture)
+    {
+        try {
+            return aFuture.join();
+        }
+        catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
+    }
+    
+    // Runs steps until one of them is still waiting when it returns, or the
+    // loop is over. Once that step completes, bouncing carries on from the
+    // thread that completed it.
+    private void bounce()
+    {
+        boolean bounce = true;
+        while (bounce) {
+            CompletableFuture<Boolean> aStep = nextStep();
+            if (aStep.isDone()) {
+                bounce = continueAfter(aStep);
+            }
+            else {
+                bounce = false;
+                aStep.whenComplete((again, failure) -> {
+                    if (continueAfter(aStep))
+                        bounce();
+                });
+            }
+        }
+    }
+    
+    // Starts the next step, turning a failure to start it into a failed
+    // future
+    private CompletableFuture<Boolean> nextStep()
+    {
+        CompletableFuture<Boolean> aStep;
+        try {
+            aStep = this.step_.get();
+        }
+        catch (RuntimeException e) {
+            aStep = new CompletableFuture<Boolean>();
+            aStep.completeExceptionally(e);
+        }
+        return aStep;
+    }
+    
+    // Checks whether to run another step after the specified one, which has
+    // completed, and otherwise completes the loop
+    private boolean continueAfter(CompletableFuture<Boolean> aStep)
+    {
+        boolean again = false;
+        try {
+            again = aStep.join();
+            if (!again)
+                this.done_.complete(null);
+        }
+        catch (CompletionException e) {
+            this.done_.completeExceptionally(e.getCause());
+        }
+        catch (RuntimeException e) {
+            this.done_.completeExceptionally(e);
+        }
+        return again;
+    }
+}